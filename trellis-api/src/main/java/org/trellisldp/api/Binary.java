@@ -16,6 +16,8 @@
 package org.trellisldp.api;
 
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
 
 /**
  * The non-RDF content of an LDP NonRDFSource.
@@ -35,4 +37,18 @@ public interface Binary {
      */
     InputStream getContent(int from, int to);
 
+    /**
+     * Get the local file holding the content of this {@link Binary}, if there is one.
+     *
+     * <p>When a path is available, the HTTP layer may serve the content directly from the file,
+     * for instance with {@link java.nio.channels.FileChannel#transferTo}, rather than copying it
+     * through an {@link InputStream}.
+     *
+     * @implSpec The default implementation returns an empty {@link Optional}.
+     * @return the path to the content, if it is stored in a local file
+     */
+    default Optional<Path> getPath() {
+        return Optional.empty();
+    }
+
 }
@@ -16,7 +16,9 @@
 package org.trellisldp.api;
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.CompletionStage;
 
 import org.apache.commons.rdf.api.IRI;
@@ -72,4 +74,104 @@ public interface MementoService {
      * @return the new completion stage containing a collection of Memento dateTimes
      */
     CompletionStage<SortedSet<Instant>> mementos(IRI identifier);
+
+    /**
+     * Get the time of the first Memento of the given resource.
+     * @param identifier the resource identifier
+     * @implSpec The default implementation of this method reads all of the Memento dateTimes with
+     * {@link #mementos}. Implementations that can answer this with a bounded query should override it.
+     * @return the new completion stage containing the earliest Memento dateTime, if one exists
+     */
+    default CompletionStage<Optional<Instant>> firstMemento(final IRI identifier) {
+        return mementos(identifier).thenApply(mementos -> mementos.isEmpty() ? Optional.empty()
+                : Optional.of(mementos.first()));
+    }
+
+    /**
+     * Get the time of the last Memento of the given resource.
+     * @param identifier the resource identifier
+     * @implSpec The default implementation of this method reads all of the Memento dateTimes with
+     * {@link #mementos}. Implementations that can answer this with a bounded query should override it.
+     * @return the new completion stage containing the latest Memento dateTime, if one exists
+     */
+    default CompletionStage<Optional<Instant>> lastMemento(final IRI identifier) {
+        return mementos(identifier).thenApply(mementos -> mementos.isEmpty() ? Optional.empty()
+                : Optional.of(mementos.last()));
+    }
+
+    /**
+     * Get the time of the nearest Memento at or before the given time.
+     * @param identifier the resource identifier
+     * @param time the requested time
+     * @implSpec The default implementation of this method reads all of the Memento dateTimes with
+     * {@link #mementos}. Implementations that can answer this with a bounded query should override it.
+     * @return the new completion stage containing the nearest Memento dateTime, if one exists
+     */
+    default CompletionStage<Optional<Instant>> mementoBefore(final IRI identifier, final Instant time) {
+        return mementos(identifier).thenApply(mementos -> {
+            if (mementos.contains(time)) {
+                return Optional.of(time);
+            }
+            final SortedSet<Instant> head = mementos.headSet(time);
+            return head.isEmpty() ? Optional.empty() : Optional.of(head.last());
+        });
+    }
+
+    /**
+     * Get the time of the nearest Memento after the given time.
+     * @param identifier the resource identifier
+     * @param time the requested time
+     * @implSpec The default implementation of this method reads all of the Memento dateTimes with
+     * {@link #mementos}. Implementations that can answer this with a bounded query should override it.
+     * @return the new completion stage containing the nearest Memento dateTime, if one exists
+     */
+    default CompletionStage<Optional<Instant>> mementoAfter(final IRI identifier, final Instant time) {
+        return mementos(identifier).thenApply(mementos -> mementos.tailSet(time).stream()
+                .filter(instant -> instant.isAfter(time)).findFirst());
+    }
+
+    /**
+     * Get the times of the Mementos that bound the history of the given resource.
+     *
+     * <p>The returned set holds the first and last Mementos and, if a time is given, the nearest Memento
+     * at or before that time along with the two Mementos that follow that time. This is all that is needed
+     * to describe the history of a resource with Link headers.
+     *
+     * @param identifier the resource identifier
+     * @param time the requested time, which may be null
+     * @implSpec The default implementation of this method reads all of the Memento dateTimes with a single
+     * call to {@link #mementos}. Implementations that can answer this with bounded queries should override it.
+     * @return the new completion stage containing the bounding Memento dateTimes
+     */
+    default CompletionStage<SortedSet<Instant>> mementoBounds(final IRI identifier, final Instant time) {
+        return mementos(identifier).thenApply(mementos -> {
+            final SortedSet<Instant> bounds = new TreeSet<>();
+            if (!mementos.isEmpty()) {
+                bounds.add(mementos.first());
+                bounds.add(mementos.last());
+                if (time != null) {
+                    final SortedSet<Instant> head = mementos.headSet(time);
+                    if (mementos.contains(time)) {
+                        bounds.add(time);
+                    } else if (!head.isEmpty()) {
+                        bounds.add(head.last());
+                    }
+                    mementos.tailSet(time).stream().filter(instant -> instant.isAfter(time)).limit(2)
+                        .forEach(bounds::add);
+                }
+            }
+            return bounds;
+        });
+    }
+
+    /**
+     * Count the Mementos of the given resource.
+     * @param identifier the resource identifier
+     * @implSpec The default implementation of this method reads all of the Memento dateTimes with
+     * {@link #mementos}. Implementations that can answer this with a bounded query should override it.
+     * @return the new completion stage containing the number of Mementos
+     */
+    default CompletionStage<Long> mementoCount(final IRI identifier) {
+        return mementos(identifier).thenApply(mementos -> (long) mementos.size());
+    }
 }
@@ -18,8 +18,11 @@ package org.trellisldp.api;
 import static org.trellisldp.api.TrellisUtils.TRELLIS_BNODE_PREFIX;
 import static org.trellisldp.api.TrellisUtils.TRELLIS_DATA_PREFIX;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.BlankNode;
 import org.apache.commons.rdf.api.Dataset;
@@ -50,6 +53,24 @@ public interface ResourceService extends RetrievalService<Resource> {
         return replace(metadata, dataset);
     }
 
+    /**
+     * Create a collection of resources in the server.
+     *
+     * @apiNote This method is intended for bulk ingest, such as data migrations, where the overhead of
+     *          persisting each resource separately would dominate. Implementations may persist the
+     *          resources in batches, and a failure may leave some, but not all, of the resources persisted.
+     * @implSpec the default implementation of this method creates each resource, in order, with {@link #create}.
+     * @param resources the metadata and dataset for each resource to be persisted
+     * @return a new completion stage that, when the stage completes normally, indicates that all of the supplied
+     * resources were successfully created in the corresponding persistence layer. In the case of an unsuccessful
+     * write operation, the {@link CompletionStage} will complete exceptionally and can be handled with
+     * {@link CompletionStage#handle}, {@link CompletionStage#exceptionally} or similar methods.
+     */
+    default CompletionStage<Void> createAll(final Stream<Map.Entry<Metadata, Dataset>> resources) {
+        return CompletableFuture.runAsync(() -> resources.forEachOrdered(resource ->
+                    create(resource.getKey(), resource.getValue()).toCompletableFuture().join()));
+    }
+
     /**
      * Replace a resource in the server.
      *
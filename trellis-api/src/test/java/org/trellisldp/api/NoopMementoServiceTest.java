@@ -16,6 +16,7 @@
 package org.trellisldp.api;
 
 import static java.time.Instant.now;
+import static java.util.Arrays.asList;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,7 +24,9 @@ import static org.trellisldp.api.Resource.SpecialResources.MISSING_RESOURCE;
 import static org.trellisldp.vocabulary.RDF.type;
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.SortedSet;
+import java.util.TreeSet;
 
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Quad;
@@ -64,6 +67,62 @@ class NoopMementoServiceTest {
         verify(mockMementoService).put(mockResource);
     }
 
+    @Test
+    void testBoundedDefaultMethods() {
+        final SortedSet<Instant> mementos = new TreeSet<>(asList(time.minusSeconds(10), time, time.plusSeconds(10)));
+        when(mockMementoService.mementos(identifier)).thenAnswer(inv -> completedFuture(mementos));
+        doCallRealMethod().when(mockMementoService).firstMemento(any(IRI.class));
+        doCallRealMethod().when(mockMementoService).lastMemento(any(IRI.class));
+        doCallRealMethod().when(mockMementoService).mementoBefore(any(IRI.class), any(Instant.class));
+        doCallRealMethod().when(mockMementoService).mementoAfter(any(IRI.class), any(Instant.class));
+        doCallRealMethod().when(mockMementoService).mementoCount(any(IRI.class));
+
+        assertEquals(Optional.of(time.minusSeconds(10)), mockMementoService.firstMemento(identifier)
+                .toCompletableFuture().join());
+        assertEquals(Optional.of(time.plusSeconds(10)), mockMementoService.lastMemento(identifier)
+                .toCompletableFuture().join());
+        assertEquals(Optional.of(time), mockMementoService.mementoBefore(identifier, time)
+                .toCompletableFuture().join());
+        assertEquals(Optional.of(time), mockMementoService.mementoBefore(identifier, time.plusSeconds(1))
+                .toCompletableFuture().join());
+        assertEquals(Optional.empty(), mockMementoService.mementoBefore(identifier, time.minusSeconds(11))
+                .toCompletableFuture().join());
+        assertEquals(Optional.of(time.plusSeconds(10)), mockMementoService.mementoAfter(identifier, time)
+                .toCompletableFuture().join());
+        assertEquals(Optional.empty(), mockMementoService.mementoAfter(identifier, time.plusSeconds(10))
+                .toCompletableFuture().join());
+        assertEquals(3L, mockMementoService.mementoCount(identifier).toCompletableFuture().join());
+    }
+
+    @Test
+    void testBoundsDefaultMethod() {
+        final SortedSet<Instant> mementos = new TreeSet<>(asList(time.minusSeconds(20), time.minusSeconds(10), time,
+                    time.plusSeconds(10), time.plusSeconds(20), time.plusSeconds(30)));
+        when(mockMementoService.mementos(identifier)).thenAnswer(inv -> completedFuture(mementos));
+        doCallRealMethod().when(mockMementoService).mementoBounds(eq(identifier), any());
+
+        assertEquals(new TreeSet<>(asList(time.minusSeconds(20), time.plusSeconds(30))),
+                mockMementoService.mementoBounds(identifier, null).toCompletableFuture().join());
+        assertEquals(new TreeSet<>(asList(time.minusSeconds(20), time, time.plusSeconds(10), time.plusSeconds(20),
+                        time.plusSeconds(30))),
+                mockMementoService.mementoBounds(identifier, time).toCompletableFuture().join());
+        assertEquals(new TreeSet<>(asList(time.minusSeconds(20), time.minusSeconds(10), time, time.plusSeconds(10),
+                        time.plusSeconds(30))),
+                mockMementoService.mementoBounds(identifier, time.minusSeconds(5)).toCompletableFuture().join());
+        verify(mockMementoService, times(3)).mementos(identifier);
+        verify(mockMementoService, never()).firstMemento(any(IRI.class));
+    }
+
+    @Test
+    void testBoundedNoop() {
+        assertFalse(testService.firstMemento(identifier).toCompletableFuture().join().isPresent());
+        assertFalse(testService.lastMemento(identifier).toCompletableFuture().join().isPresent());
+        assertFalse(testService.mementoBefore(identifier, time).toCompletableFuture().join().isPresent());
+        assertFalse(testService.mementoAfter(identifier, time).toCompletableFuture().join().isPresent());
+        assertEquals(0L, testService.mementoCount(identifier).toCompletableFuture().join());
+        assertTrue(testService.mementoBounds(identifier, time).toCompletableFuture().join().isEmpty());
+    }
+
     @Test
     void testPutResourceServiceNoop() {
         testService.put(mockResourceService, identifier).toCompletableFuture().join();
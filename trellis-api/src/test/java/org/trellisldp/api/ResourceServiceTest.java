@@ -16,10 +16,14 @@
 package org.trellisldp.api;
 
 import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.AbstractMap.SimpleEntry;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.BlankNode;
 import org.apache.commons.rdf.api.Dataset;
@@ -28,6 +32,7 @@ import org.apache.commons.rdf.api.Literal;
 import org.apache.commons.rdf.api.RDF;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.trellisldp.vocabulary.LDP;
@@ -85,6 +90,39 @@ class ResourceServiceTest {
         }
     }
 
+    @Test
+    void testDefaultCreateAll() throws Exception {
+        final IRI root = rdf.createIRI("trellis:data/");
+        final IRI other = rdf.createIRI("trellis:data/other");
+        final Metadata metadata1 = Metadata.builder(existing).container(root).interactionModel(LDP.RDFSource).build();
+        final Metadata metadata2 = Metadata.builder(other).container(root).interactionModel(LDP.RDFSource).build();
+
+        try (final Dataset dataset1 = rdf.createDataset(); final Dataset dataset2 = rdf.createDataset()) {
+            when(mockResourceService.create(any(), any())).thenReturn(completedFuture(null));
+            doCallRealMethod().when(mockResourceService).createAll(any());
+
+            assertDoesNotThrow(() -> mockResourceService.createAll(Stream.of(new SimpleEntry<>(metadata1, dataset1),
+                            new SimpleEntry<>(metadata2, dataset2))).toCompletableFuture().join());
+            final InOrder inOrder = inOrder(mockResourceService);
+            inOrder.verify(mockResourceService).create(metadata1, dataset1);
+            inOrder.verify(mockResourceService).create(metadata2, dataset2);
+        }
+    }
+
+    @Test
+    void testDefaultCreateAllError() throws Exception {
+        final Metadata metadata = Metadata.builder(existing).interactionModel(LDP.RDFSource).build();
+
+        try (final Dataset dataset = rdf.createDataset()) {
+            when(mockResourceService.create(any(), any()))
+                .thenReturn(failedFuture(new TrellisRuntimeException("Expected exception")));
+            doCallRealMethod().when(mockResourceService).createAll(any());
+
+            assertThrows(CompletionException.class, () -> mockResourceService.createAll(
+                        Stream.of(new SimpleEntry<>(metadata, dataset))).toCompletableFuture().join());
+        }
+    }
+
     @Test
     void testDefaultResourceIdentifier() {
         doCallRealMethod().when(mockResourceService).getResourceIdentifier(any(), any());
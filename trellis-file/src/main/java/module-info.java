@@ -32,6 +32,7 @@ module org.trellisldp.file {
     requires microprofile.config.api;
     requires org.apache.commons.codec;
     requires org.apache.jena.core;
+    requires static com.github.luben.zstd_jni;
 
     opens org.trellisldp.file;
 
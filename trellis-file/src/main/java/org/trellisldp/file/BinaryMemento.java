@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.file;
+
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Optional.ofNullable;
+import static org.apache.jena.commonsrdf.JenaCommonsRDF.fromJena;
+import static org.apache.jena.commonsrdf.JenaCommonsRDF.toJena;
+import static org.apache.jena.sparql.core.Quad.defaultGraphIRI;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.thrift.ThriftRDF;
+import org.trellisldp.api.RDFFactory;
+
+/**
+ * A compact, binary serialization for mementos.
+ *
+ * <p>The file begins with a small header: a magic number, a format version and the server-managed quads.
+ * The remaining quads follow as a sequence of length-prefixed frames, ended by an empty frame, so that they
+ * can be streamed straight to the file. A trailer lists the names of the non-server-managed graphs in the
+ * memento. Both quad blocks are encoded as RDF Thrift. The header alone is enough to construct a
+ * {@link FileResource}; the trailer is read only when the graph names are needed.
+ */
+final class BinaryMemento {
+
+    /** The file extension for binary mementos. */
+    static final String EXTENSION = ".rdfb";
+
+    private static final int MAGIC = 0x54524c4d;
+    private static final int VERSION = 1;
+    private static final int FRAME_SIZE = 8192;
+    private static final RDF rdf = RDFFactory.getInstance();
+
+    /**
+     * The header of a binary memento.
+     */
+    static final class Header {
+        private final List<Quad> serverManaged;
+        private final Set<IRI> graphNames;
+
+        Header(final List<Quad> serverManaged, final Set<IRI> graphNames) {
+            this.serverManaged = unmodifiableList(serverManaged);
+            this.graphNames = graphNames != null ? unmodifiableSet(graphNames) : null;
+        }
+
+        /**
+         * @return the server-managed quads
+         */
+        List<Quad> getServerManaged() {
+            return serverManaged;
+        }
+
+        /**
+         * @return the names of the graphs in the memento content, if the header holds them
+         */
+        Optional<Set<IRI>> getGraphNames() {
+            return ofNullable(graphNames);
+        }
+    }
+
+    /**
+     * Test whether a file is a binary memento, based on its name.
+     * @param file the file
+     * @return true if the file is a binary memento; false otherwise
+     */
+    static boolean isBinary(final File file) {
+        return MementoCompression.uncompressedName(file.getName()).endsWith(EXTENSION);
+    }
+
+    /**
+     * Write a binary memento.
+     * @param file the destination file
+     * @param serverManaged the server-managed quads
+     * @param content the remaining quads
+     * @throws IOException if the file could not be written
+     */
+    static void write(final File file, final Stream<Quad> serverManaged, final Stream<Quad> content)
+            throws IOException {
+        write(file, MementoCompression.of(file.getName()), serverManaged, content);
+    }
+
+    /**
+     * Write a binary memento.
+     * @param file the destination file
+     * @param compression the compression format
+     * @param serverManaged the server-managed quads
+     * @param content the remaining quads
+     * @throws IOException if the file could not be written
+     */
+    static void write(final File file, final MementoCompression compression, final Stream<Quad> serverManaged,
+            final Stream<Quad> content) throws IOException {
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        writeQuads(header, serverManaged.iterator());
+
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(compression.compress(
+                        newOutputStream(file.toPath(), CREATE, WRITE, TRUNCATE_EXISTING))))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(header.size());
+            header.writeTo(out);
+
+            final Set<String> graphNames = new LinkedHashSet<>();
+            try (final FramedOutputStream body = new FramedOutputStream(out)) {
+                writeQuads(body, content.peek(quad -> quad.getGraphName().filter(IRI.class::isInstance)
+                            .map(IRI.class::cast).map(IRI::getIRIString).ifPresent(graphNames::add)).iterator());
+            }
+            out.writeInt(graphNames.size());
+            for (final String graphName : graphNames) {
+                out.writeUTF(graphName);
+            }
+        }
+    }
+
+    /**
+     * Read only the header of a binary memento. The graph names are kept in the trailer, so the header
+     * returned here does not hold them.
+     * @param file the file
+     * @return the header
+     * @throws IOException if the file could not be read or is not a binary memento
+     */
+    static Header readHeader(final File file) throws IOException {
+        try (final DataInputStream in = open(file)) {
+            readVersion(in, file);
+            return new Header(readServerManaged(in), null);
+        }
+    }
+
+    /**
+     * Read the names of the non-server-managed graphs from the trailer of a binary memento.
+     *
+     * @implNote The body frames are skipped without being decoded, but a compressed file is still
+     *           decompressed up to the trailer.
+     * @param file the file
+     * @return the graph names
+     * @throws IOException if the file could not be read or is not a binary memento
+     */
+    static Set<IRI> readGraphNames(final File file) throws IOException {
+        try (final DataInputStream in = open(file)) {
+            readVersion(in, file);
+            skipFully(in, in.readInt());
+            skipFrames(in);
+            return readTrailer(in);
+        }
+    }
+
+    /**
+     * Read all of the quads in a binary memento, server-managed quads first.
+     * @param file the file
+     * @return the quads
+     * @throws IOException if the file could not be read or is not a binary memento
+     */
+    static List<Quad> read(final File file) throws IOException {
+        try (final DataInputStream in = open(file)) {
+            readVersion(in, file);
+            final List<Quad> quads = new ArrayList<>(readServerManaged(in));
+            try (final FramedInputStream body = new FramedInputStream(in)) {
+                readQuads(body, quads::add);
+            }
+            return quads;
+        }
+    }
+
+    private static DataInputStream open(final File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(MementoCompression.newMementoStream(file)));
+    }
+
+    private static void readVersion(final DataInputStream in, final File file) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary memento: " + file);
+        }
+        final int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary memento version " + version + ": " + file);
+        }
+    }
+
+    private static Set<IRI> readTrailer(final DataInputStream in) throws IOException {
+        final int graphCount = in.readInt();
+        final Set<IRI> graphNames = new LinkedHashSet<>();
+        for (int i = 0; i < graphCount; i++) {
+            graphNames.add(rdf.createIRI(in.readUTF()));
+        }
+        return graphNames;
+    }
+
+    private static List<Quad> readServerManaged(final DataInputStream in) throws IOException {
+        final byte[] header = new byte[in.readInt()];
+        in.readFully(header);
+        final List<Quad> serverManaged = new ArrayList<>();
+        readQuads(new ByteArrayInputStream(header), serverManaged::add);
+        return serverManaged;
+    }
+
+    private static void skipFrames(final DataInputStream in) throws IOException {
+        for (int length = in.readInt(); length > 0; length = in.readInt()) {
+            skipFully(in, length);
+        }
+    }
+
+    private static void skipFully(final DataInputStream in, final int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            final int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                in.readByte();
+                remaining--;
+            } else {
+                remaining -= skipped;
+            }
+        }
+    }
+
+    private static void writeQuads(final OutputStream out, final Iterator<Quad> quads) {
+        final StreamRDF stream = ThriftRDF.streamToOutputStream(out, false);
+        stream.start();
+        quads.forEachRemaining(quad -> stream.quad(toJena(quad)));
+        stream.finish();
+    }
+
+    private static void readQuads(final InputStream in, final Consumer<Quad> sink) {
+        ThriftRDF.inputStreamToStream(in, new StreamRDFBase() {
+            @Override
+            public void triple(final Triple triple) {
+                sink.accept(fromJena(new org.apache.jena.sparql.core.Quad(defaultGraphIRI, triple)));
+            }
+
+            @Override
+            public void quad(final org.apache.jena.sparql.core.Quad quad) {
+                sink.accept(fromJena(quad));
+            }
+        });
+    }
+
+    /**
+     * Write the bytes of a stream as length-prefixed frames, ending with an empty frame when closed.
+     * The underlying stream is left open.
+     */
+    private static final class FramedOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte[] buffer = new byte[FRAME_SIZE];
+        private int count;
+
+        FramedOutputStream(final DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (count == buffer.length) {
+                writeFrame();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                if (count == buffer.length) {
+                    writeFrame();
+                }
+                final int size = Math.min(remaining, buffer.length - count);
+                System.arraycopy(b, offset, buffer, count, size);
+                count += size;
+                offset += size;
+                remaining -= size;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeFrame();
+            out.writeInt(0);
+        }
+
+        private void writeFrame() throws IOException {
+            if (count > 0) {
+                out.writeInt(count);
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+
+    /**
+     * Read the bytes of a sequence of length-prefixed frames, up to the empty frame that ends them.
+     * Closing this stream skips any unread frames but leaves the underlying stream open.
+     */
+    private static final class FramedInputStream extends InputStream {
+        private final DataInputStream in;
+        private int remaining;
+        private boolean finished;
+
+        FramedInputStream(final DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextFrame()) {
+                return -1;
+            }
+            remaining--;
+            return in.readUnsignedByte();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextFrame()) {
+                return -1;
+            }
+            final int size = in.read(b, off, Math.min(len, remaining));
+            if (size < 0) {
+                throw new EOFException("Truncated binary memento frame");
+            }
+            remaining -= size;
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                skipFully(in, remaining);
+                remaining = 0;
+                skipFrames(in);
+                finished = true;
+            }
+        }
+
+        private boolean nextFrame() throws IOException {
+            while (remaining == 0 && !finished) {
+                remaining = in.readInt();
+                finished = remaining == 0;
+            }
+            return remaining > 0;
+        }
+    }
+
+    private BinaryMemento() {
+        // prevent instantiation
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.file;
+
+import static java.lang.System.lineSeparator;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Arrays.binarySearch;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.trellisldp.api.RDFFactory;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * Delta-encoded mementos.
+ *
+ * <p>A delta memento holds only the quads added to and removed from the memento that precedes it,
+ * one N-Quads line per change, prefixed with {@code +} or {@code -}. The full memento is
+ * reconstructed by replaying the deltas since the nearest full snapshot, which may be either an
+ * N-Quads or a binary memento file. Memento state is handled as serialized N-Quads lines, so that
+ * comparisons do not depend on the RDF implementation that produced the quads.
+ *
+ * <p>The changes are preceded by a header holding the full set of server-managed quads, prefixed with
+ * {@code =}, and the names of the other graphs in the memento, prefixed with {@code @}. This is enough to
+ * construct a {@link FileResource} without replaying the chain.
+ */
+final class DeltaMemento {
+
+    /** The file extension for delta mementos. */
+    static final String EXTENSION = ".delta";
+
+    private static final String TMP_EXTENSION = ".tmp";
+    private static final char ADD = '+';
+    private static final char DELETE = '-';
+    private static final char SERVER_MANAGED = '=';
+    private static final char GRAPH = '@';
+    private static final RDF rdf = RDFFactory.getInstance();
+
+    /**
+     * Test whether a file is a delta memento, based on its name.
+     * @param file the file
+     * @return true if the file is a delta memento; false otherwise
+     */
+    static boolean isDelta(final File file) {
+        return MementoCompression.uncompressedName(file.getName()).endsWith(EXTENSION);
+    }
+
+    /**
+     * Get the delta memento file for a given moment in time.
+     * @param dir the directory
+     * @param time the time
+     * @return the file
+     */
+    static File getDeltaFile(final File dir, final Instant time) {
+        return getDeltaFile(dir, time, MementoCompression.NONE);
+    }
+
+    /**
+     * Get the delta memento file for a given moment in time.
+     * @param dir the directory
+     * @param time the time
+     * @param compression the compression format
+     * @return the file
+     */
+    static File getDeltaFile(final File dir, final Instant time, final MementoCompression compression) {
+        return new File(dir, time.getEpochSecond() + EXTENSION + compression.getExtension());
+    }
+
+    /**
+     * Read the full content of any memento file, reconstructing it if it is a delta.
+     * @param file the memento file
+     * @return the quads
+     * @throws IOException if the memento, or any memento it depends on, could not be read
+     */
+    static List<Quad> read(final File file) throws IOException {
+        return readState(file).stream().flatMap(FileUtils::parseQuad).collect(toList());
+    }
+
+    /**
+     * Read the full content of any memento file as serialized quads.
+     * @param file the memento file
+     * @return the serialized quads
+     * @throws IOException if the memento, or any memento it depends on, could not be read
+     */
+    static Set<String> readState(final File file) throws IOException {
+        if (!isDelta(file)) {
+            return readSnapshot(file);
+        }
+
+        final File dir = file.getParentFile();
+        final long epochSecond = Long.parseLong(FilenameUtils.getBaseName(
+                    MementoCompression.uncompressedName(file.getName())));
+        long[] entries = MementoIndex.readEntries(dir);
+        int pos = binarySearch(MementoIndex.times(entries), epochSecond);
+        if (pos < 0) {
+            MementoIndex.rebuild(dir);
+            entries = MementoIndex.readEntries(dir);
+            pos = binarySearch(MementoIndex.times(entries), epochSecond);
+        }
+
+        final Deque<File> deltas = new ArrayDeque<>();
+        deltas.push(file);
+        for (int i = pos - 1; i >= 0; i--) {
+            final File previous = MementoIndex.getFile(dir, entries[i]);
+            if (!isDelta(previous)) {
+                final Set<String> state = readSnapshot(previous);
+                while (!deltas.isEmpty()) {
+                    apply(state, deltas.pop());
+                }
+                return state;
+            }
+            deltas.push(previous);
+        }
+        throw new IOException("No snapshot found for delta memento " + file);
+    }
+
+    /**
+     * Read the header of a delta memento, without replaying the deltas that it depends on.
+     * @param file the delta memento file
+     * @return the header
+     * @throws IOException if the file could not be read or has no header
+     */
+    static BinaryMemento.Header readHeader(final File file) throws IOException {
+        final List<Quad> serverManaged = new ArrayList<>();
+        final Set<IRI> graphNames = new LinkedHashSet<>();
+        try (final Stream<String> lines = FileUtils.readLines(file)) {
+            final Iterator<String> iter = lines.iterator();
+            while (iter.hasNext()) {
+                final String line = iter.next();
+                if (line.isEmpty() || (line.charAt(0) != SERVER_MANAGED && line.charAt(0) != GRAPH)) {
+                    break;
+                }
+                if (line.charAt(0) == SERVER_MANAGED) {
+                    FileUtils.parseQuad(line.substring(1)).forEach(serverManaged::add);
+                } else {
+                    graphNames.add(rdf.createIRI(line.substring(1)));
+                }
+            }
+        }
+        if (serverManaged.isEmpty()) {
+            throw new IOException("Missing header in delta memento " + file);
+        }
+        return new BinaryMemento.Header(serverManaged, graphNames);
+    }
+
+    /**
+     * Count the delta mementos that immediately precede, and include, a given memento.
+     * @param dir the resource directory
+     * @param entries the memento index entries
+     * @param pos the position of the memento in the index entries
+     * @return the number of mementos since the last full snapshot
+     */
+    static int chainLength(final File dir, final long[] entries, final int pos) {
+        int length = 0;
+        for (int i = pos; i >= 0 && MementoIndex.isDelta(dir, entries[i]); i--) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Write a delta memento, compressed according to the name of the file, and record it in the memento index.
+     * @param file the destination file
+     * @param previous the state of the preceding memento
+     * @param current the state of this memento
+     * @throws IOException if the file could not be written
+     */
+    static void write(final File file, final Set<String> previous, final Set<String> current) throws IOException {
+        final File tmp = new File(file.getParentFile(), file.getName() + TMP_EXTENSION);
+        try (final BufferedWriter writer = FileUtils.newMementoWriter(tmp, MementoCompression.of(file.getName()))) {
+            final Set<String> graphNames = new LinkedHashSet<>();
+            for (final String line : current) {
+                final Optional<Quad> quad = FileUtils.parseQuad(line).findFirst();
+                if (quad.filter(DeltaMemento::isServerManaged).isPresent()) {
+                    writer.write(SERVER_MANAGED + line + lineSeparator());
+                } else {
+                    quad.flatMap(Quad::getGraphName).filter(IRI.class::isInstance).map(IRI.class::cast)
+                        .map(IRI::getIRIString).ifPresent(graphNames::add);
+                }
+            }
+            for (final String graphName : graphNames) {
+                writer.write(GRAPH + graphName + lineSeparator());
+            }
+            for (final String line : previous) {
+                if (!current.contains(line)) {
+                    writer.write(DELETE + line + lineSeparator());
+                }
+            }
+            for (final String line : current) {
+                if (!previous.contains(line)) {
+                    writer.write(ADD + line + lineSeparator());
+                }
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        MementoIndex.add(file.getParentFile(), file);
+    }
+
+    /**
+     * Write a full snapshot memento, replacing any other memento file at that time, and record it in the
+     * memento index.
+     * @param dir the resource directory
+     * @param time the memento time
+     * @param state the memento state
+     * @param binary whether to use the binary memento format rather than N-Quads
+     * @param compression the compression format
+     * @throws IOException if the file could not be written
+     */
+    static void writeSnapshot(final File dir, final Instant time, final Set<String> state, final boolean binary,
+            final MementoCompression compression) throws IOException {
+        final File target = binary ? FileUtils.getBinaryFile(dir, time, compression)
+            : FileUtils.getNquadsFile(dir, time, compression);
+        final File tmp = new File(dir, target.getName() + TMP_EXTENSION);
+        if (binary) {
+            final List<Quad> quads = state.stream().flatMap(FileUtils::parseQuad).collect(toList());
+            BinaryMemento.write(tmp, compression, quads.stream().filter(DeltaMemento::isServerManaged),
+                    quads.stream().filter(quad -> !isServerManaged(quad)));
+        } else {
+            try (final BufferedWriter writer = FileUtils.newMementoWriter(tmp, compression)) {
+                for (final String line : state) {
+                    writer.write(line + lineSeparator());
+                }
+            }
+        }
+        Files.move(tmp.toPath(), target.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        MementoIndex.add(dir, target);
+        // Remove any other representation of this memento only once the snapshot is in place
+        FileUtils.deleteOtherMementoFiles(dir, time, target);
+    }
+
+    private static Set<String> readSnapshot(final File file) throws IOException {
+        if (BinaryMemento.isBinary(file)) {
+            return BinaryMemento.read(file).stream().map(FileUtils::serializeQuad)
+                .collect(toCollection(LinkedHashSet::new));
+        }
+        try (final Stream<String> lines = FileUtils.readLines(file)) {
+            return lines.filter(line -> !line.isEmpty()).collect(toCollection(LinkedHashSet::new));
+        }
+    }
+
+    /**
+     * Apply a delta memento to the state of the memento that precedes it.
+     * @param state the state, which is modified in place
+     * @param delta the delta memento file
+     * @throws IOException if the file could not be read
+     */
+    static void apply(final Set<String> state, final File delta) throws IOException {
+        try (final Stream<String> lines = FileUtils.readLines(delta)) {
+            final Iterator<String> iter = lines.iterator();
+            while (iter.hasNext()) {
+                final String line = iter.next();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.charAt(0) == ADD) {
+                    state.add(line.substring(1));
+                } else if (line.charAt(0) == DELETE) {
+                    state.remove(line.substring(1));
+                }
+            }
+        }
+    }
+
+    private static boolean isServerManaged(final Quad quad) {
+        return quad.getGraphName().filter(Trellis.PreferServerManaged::equals).isPresent();
+    }
+
+    private DeltaMemento() {
+        // prevent instantiation
+    }
+}
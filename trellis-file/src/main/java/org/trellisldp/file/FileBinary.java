@@ -15,12 +15,19 @@
  */
 package org.trellisldp.file;
 
+import static java.nio.file.StandardOpenOption.READ;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
 
+import org.apache.commons.io.input.BoundedInputStream;
 import org.trellisldp.api.Binary;
 
 /**
@@ -48,12 +55,26 @@ public class FileBinary implements Binary {
         }
     }
 
+    @SuppressWarnings("resource")
     @Override
     public InputStream getContent(final int from, final int to) {
         try {
-            return FileUtils.getBoundedStream(Files.newInputStream(file.toPath()), from, to);
+            // Seek directly to the start of the range rather than skipping through the stream
+            final FileChannel channel = FileChannel.open(file.toPath(), READ);
+            try {
+                channel.position(from);
+            } catch (final IOException ex) {
+                channel.close();
+                throw ex;
+            }
+            return new BoundedInputStream(Channels.newInputStream(channel), (long) to - from);
         } catch (final IOException ex) {
             throw new UncheckedIOException(ex);
         }
     }
+
+    @Override
+    public Optional<Path> getPath() {
+        return Optional.of(file.toPath());
+    }
 }
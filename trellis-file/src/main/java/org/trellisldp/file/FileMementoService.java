@@ -21,6 +21,7 @@ import static java.util.Collections.unmodifiableSortedSet;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toCollection;
 import static org.apache.commons.codec.digest.MessageDigestAlgorithms.SHA_256;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.trellisldp.api.Resource.SpecialResources.MISSING_RESOURCE;
@@ -31,14 +32,17 @@ import jakarta.enterprise.inject.Alternative;
 import jakarta.inject.Inject;
 
 import java.io.File;
-import java.nio.file.Path;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.CompletionStage;
 import java.util.stream.Stream;
 
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.rdf.api.IRI;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
@@ -61,12 +65,36 @@ public class FileMementoService implements MementoService {
     /** The configuration key controlling the digest algorithm in use. */
     public static final String CONFIG_FILE_DIGEST_ALGORITHM = "trellis.file.digest-algorithm";
 
+    /**
+     * The configuration key controlling the format of new memento files: {@code nquads} (the default)
+     * or {@code binary}. Existing mementos remain readable in either format. Any other value is rejected
+     * at startup.
+     */
+    public static final String CONFIG_FILE_MEMENTO_FORMAT = "trellis.file.memento-format";
+
+    /**
+     * The configuration key controlling how many mementos are stored between full snapshots. Other mementos
+     * are stored as deltas of the memento that precedes them. A value of {@code 0} (the default) or {@code 1}
+     * stores every memento in full.
+     */
+    public static final String CONFIG_FILE_MEMENTO_SNAPSHOT_INTERVAL = "trellis.file.memento-snapshot-interval";
+
+    /**
+     * The configuration key controlling the compression of new memento files: {@code none} (the default),
+     * {@code gzip} or {@code zstd}. The compression of existing files is detected from their names. An unknown
+     * value, or {@code zstd} without the {@code zstd-jni} library, is rejected at startup.
+     */
+    public static final String CONFIG_FILE_MEMENTO_COMPRESSION = "trellis.file.memento-compression";
+
     /** The configuration key for controlling LDP type triples. */
     public static final String CONFIG_FILE_LDP_TYPE = "trellis.file.ldp-type";
 
     private static final Logger LOGGER = getLogger(FileMementoService.class);
+    private static final String NQUADS = "nquads";
+    private static final String BINARY = "binary";
 
     private File directory;
+    private MementoCompression mementoCompression = MementoCompression.NONE;
 
     @Inject
     @ConfigProperty(name = CONFIG_FILE_MEMENTO_PATH)
@@ -82,6 +110,21 @@ public class FileMementoService implements MementoService {
                     defaultValue = "true")
     boolean includeLdpType;
 
+    @Inject
+    @ConfigProperty(name = CONFIG_FILE_MEMENTO_FORMAT,
+                    defaultValue = "nquads")
+    String format;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_FILE_MEMENTO_SNAPSHOT_INTERVAL,
+                    defaultValue = "0")
+    int snapshotInterval;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_FILE_MEMENTO_COMPRESSION,
+                    defaultValue = "none")
+    String compression;
+
     @Inject
     @ConfigProperty(name = CONFIG_FILE_MEMENTO,
                     defaultValue = "true")
@@ -89,6 +132,13 @@ public class FileMementoService implements MementoService {
 
     @PostConstruct
     void init() {
+        mementoCompression = MementoCompression.fromConfig(compression);
+        if (!mementoCompression.isAvailable()) {
+            throw new IllegalStateException("Memento compression is not available: " + compression);
+        }
+        if (format != null && !NQUADS.equals(format) && !BINARY.equals(format)) {
+            throw new IllegalArgumentException("Unknown memento format: " + format);
+        }
         if (enabled) {
             directory = new File(directoryPath);
             LOGGER.info("Storing Mementos as files at {}", directoryPath);
@@ -116,7 +166,41 @@ public class FileMementoService implements MementoService {
                 if (!resourceDir.exists()) {
                     resourceDir.mkdirs();
                 }
-                FileUtils.writeMemento(resourceDir, resource, time.truncatedTo(SECONDS));
+                final Instant mementoTime = time.truncatedTo(SECONDS);
+                if (snapshotInterval <= 1) {
+                    // Write the memento outside the lock; only moving it into place is done while holding it
+                    final File tmp = FileUtils.writeTemporaryMemento(resourceDir, resource, isBinary(),
+                            mementoCompression);
+                    synchronized (MementoIndex.lock(resourceDir)) {
+                        detachNext(resourceDir, MementoIndex.read(resourceDir), mementoTime);
+                        MementoIndex.add(resourceDir, FileUtils.moveMemento(resourceDir, mementoTime, tmp,
+                                    isBinary(), mementoCompression));
+                    }
+                    return;
+                }
+
+                // A delta depends on the preceding memento, so only the serialization happens outside the lock
+                final Set<String> state;
+                try (final Stream<String> lines = FileUtils.serializeMemento(resource)) {
+                    state = lines.collect(toCollection(LinkedHashSet::new));
+                }
+                final boolean compact;
+                synchronized (MementoIndex.lock(resourceDir)) {
+                    // Writing the delta, or the first snapshot, also records it in the index
+                    compact = writeMemento(resourceDir, resource.getIdentifier(), state, mementoTime);
+                }
+                if (compact) {
+                    // The delta chain is long enough: turn the new memento into a snapshot in the background
+                    runAsync(() -> {
+                        synchronized (MementoIndex.lock(resourceDir)) {
+                            ensureSnapshot(resourceDir, mementoTime);
+                        }
+                    }).exceptionally(err -> {
+                        LOGGER.warn("Error compacting Memento {} at {}: {}", resource.getIdentifier(), mementoTime,
+                                err.getMessage());
+                        return null;
+                    });
+                }
             });
         }
         return completedFuture(null);
@@ -128,24 +212,17 @@ public class FileMementoService implements MementoService {
             return supplyAsync(() -> {
                 final Instant mementoTime = time.truncatedTo(SECONDS);
                 final File resourceDir = FileUtils.getResourceDirectory(directory, identifier, algorithm);
-                final File file = FileUtils.getNquadsFile(resourceDir, mementoTime);
+                final File file = FileUtils.getMementoFile(resourceDir, mementoTime);
                 if (file.exists()) {
                     return new FileResource(identifier, file, includeLdpType);
                 }
-                final SortedSet<Instant> allMementos = listMementos(identifier);
-                if (allMementos.isEmpty()) {
-                    return MISSING_RESOURCE;
-                }
-                final SortedSet<Instant> possible = allMementos.headSet(mementoTime);
-                if (possible.isEmpty()) {
-                    // In this case, the requested Memento is earlier than the set of all existing Mementos.
-                    // Based on RFC 7089, Section 4.5.3 https://tools.ietf.org/html/rfc7089#section-4.5.3
-                    // the first extant memento should therefore be returned.
-                    return new FileResource(identifier, FileUtils.getNquadsFile(resourceDir, allMementos.first()),
-                            includeLdpType);
+                final File closest = findMemento(resourceDir, MementoIndex.read(resourceDir), mementoTime);
+                if (closest != null && !closest.exists()) {
+                    // The index is out of step with the directory
+                    return fetchMemento(identifier,
+                            findMemento(resourceDir, MementoIndex.rebuild(resourceDir), mementoTime));
                 }
-                return new FileResource(identifier, FileUtils.getNquadsFile(resourceDir, possible.last()),
-                        includeLdpType);
+                return fetchMemento(identifier, closest);
             });
         }
         return completedFuture(MISSING_RESOURCE);
@@ -159,6 +236,67 @@ public class FileMementoService implements MementoService {
         return completedFuture(emptySortedSet());
     }
 
+    @Override
+    public CompletionStage<Optional<Instant>> firstMemento(final IRI identifier) {
+        return supplyAsync(() -> {
+            final long[] mementos = readMementos(identifier);
+            return mementos.length > 0 ? Optional.of(Instant.ofEpochSecond(mementos[0])) : Optional.empty();
+        });
+    }
+
+    @Override
+    public CompletionStage<Optional<Instant>> lastMemento(final IRI identifier) {
+        return supplyAsync(() -> {
+            final long[] mementos = readMementos(identifier);
+            return mementos.length > 0 ? Optional.of(Instant.ofEpochSecond(mementos[mementos.length - 1]))
+                : Optional.empty();
+        });
+    }
+
+    @Override
+    public CompletionStage<Optional<Instant>> mementoBefore(final IRI identifier, final Instant time) {
+        return supplyAsync(() -> {
+            final long[] mementos = readMementos(identifier);
+            // Mementos are stored with a resolution of one second
+            final int pos = MementoIndex.before(mementos, time.getEpochSecond() + 1);
+            return pos >= 0 ? Optional.of(Instant.ofEpochSecond(mementos[pos])) : Optional.empty();
+        });
+    }
+
+    @Override
+    public CompletionStage<Optional<Instant>> mementoAfter(final IRI identifier, final Instant time) {
+        return supplyAsync(() -> {
+            final long[] mementos = readMementos(identifier);
+            final int pos = MementoIndex.before(mementos, time.getEpochSecond() + 1) + 1;
+            return pos < mementos.length ? Optional.of(Instant.ofEpochSecond(mementos[pos])) : Optional.empty();
+        });
+    }
+
+    @Override
+    public CompletionStage<SortedSet<Instant>> mementoBounds(final IRI identifier, final Instant time) {
+        return supplyAsync(() -> {
+            final long[] mementos = readMementos(identifier);
+            final SortedSet<Instant> bounds = new TreeSet<>();
+            if (mementos.length > 0) {
+                bounds.add(Instant.ofEpochSecond(mementos[0]));
+                bounds.add(Instant.ofEpochSecond(mementos[mementos.length - 1]));
+                if (time != null) {
+                    // The nearest memento at or before this time, and the two that follow it
+                    final int pos = MementoIndex.before(mementos, time.getEpochSecond() + 1);
+                    for (int i = Math.max(pos, 0); i < Math.min(pos + 3, mementos.length); i++) {
+                        bounds.add(Instant.ofEpochSecond(mementos[i]));
+                    }
+                }
+            }
+            return bounds;
+        });
+    }
+
+    @Override
+    public CompletionStage<Long> mementoCount(final IRI identifier) {
+        return supplyAsync(() -> (long) readMementos(identifier).length);
+    }
+
     /**
      * Delete a memento at the given time.
      *
@@ -170,28 +308,165 @@ public class FileMementoService implements MementoService {
         if (enabled) {
             return runAsync(() -> {
                 final File resourceDir = FileUtils.getResourceDirectory(directory, identifier, algorithm);
-                final File file = FileUtils.getNquadsFile(resourceDir, time.truncatedTo(SECONDS));
-                if (FileUtils.uncheckedDeleteIfExists(file.toPath())) {
-                    LOGGER.debug("Deleted Memento {} at {}", identifier, file);
+                final Instant mementoTime = time.truncatedTo(SECONDS);
+                synchronized (MementoIndex.lock(resourceDir)) {
+                    // A delta that follows this memento must no longer depend on it
+                    detachNext(resourceDir, MementoIndex.read(resourceDir), mementoTime);
+                    MementoIndex.remove(resourceDir, mementoTime.getEpochSecond());
+                    FileUtils.getMementoFiles(resourceDir, mementoTime).forEach(file -> {
+                        if (FileUtils.uncheckedDeleteIfExists(file.toPath())) {
+                            LOGGER.debug("Deleted Memento {} at {}", identifier, file);
+                        }
+                    });
                 }
             });
         }
         return completedFuture(null);
     }
 
-    private SortedSet<Instant> listMementos(final IRI identifier) {
-        final File resourceDir = FileUtils.getResourceDirectory(directory, identifier, algorithm);
-        if (!resourceDir.exists()) {
-            return emptySortedSet();
+    /**
+     * Rewrite the mementos of a resource so that a full snapshot is stored once every
+     * {@code trellis.file.memento-snapshot-interval} mementos, with deltas in between.
+     *
+     * <p>This converts mementos that were stored in full, for instance before delta storage was enabled,
+     * and breaks up delta chains that have grown beyond the configured interval.
+     *
+     * @param identifier the resource identifier
+     * @return the next stage of completion
+     */
+    public CompletionStage<Void> compact(final IRI identifier) {
+        if (enabled && snapshotInterval > 1) {
+            return runAsync(() -> {
+                final File resourceDir = FileUtils.getResourceDirectory(directory, identifier, algorithm);
+                synchronized (MementoIndex.lock(resourceDir)) {
+                    compact(resourceDir);
+                }
+            });
+        }
+        return completedFuture(null);
+    }
+
+    /**
+     * Write a memento as a delta, or as a snapshot when there is no preceding memento.
+     * @return true if the new delta should be compacted into a snapshot
+     */
+    private boolean writeMemento(final File resourceDir, final IRI identifier, final Set<String> state,
+            final Instant time) {
+        final long[] entries = MementoIndex.readEntries(resourceDir);
+        final long[] mementos = MementoIndex.times(entries);
+        detachNext(resourceDir, mementos, time);
+        final int previous = MementoIndex.before(mementos, time.getEpochSecond());
+        try {
+            if (previous < 0) {
+                DeltaMemento.writeSnapshot(resourceDir, time, state, isBinary(), mementoCompression);
+                return false;
+            }
+            final File file = DeltaMemento.getDeltaFile(resourceDir, time, mementoCompression);
+            DeltaMemento.write(file, DeltaMemento.readState(MementoIndex.getFile(resourceDir, entries[previous])),
+                    state);
+            // A full copy at this time would otherwise take precedence over the new delta
+            FileUtils.deleteOtherMementoFiles(resourceDir, time, file);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(
+                    "Error writing resource version for " + identifier.getIRIString(), ex);
+        }
+        return DeltaMemento.chainLength(resourceDir, entries, previous) + 1 >= snapshotInterval;
+    }
+
+    private void detachNext(final File resourceDir, final long[] mementos, final Instant time) {
+        final int pos = MementoIndex.before(mementos, time.getEpochSecond()) + 1;
+        final int next = pos < mementos.length && mementos[pos] == time.getEpochSecond() ? pos + 1 : pos;
+        if (next < mementos.length) {
+            ensureSnapshot(resourceDir, Instant.ofEpochSecond(mementos[next]));
         }
+    }
 
-        final SortedSet<Instant> instants = new TreeSet<>();
-        try (final Stream<Path> files = FileUtils.uncheckedList(resourceDir.toPath())) {
-            files.map(Path::toString).filter(path -> path.endsWith(".nq")).map(FilenameUtils::getBaseName)
-                .map(Long::parseLong).map(Instant::ofEpochSecond).map(t -> t.truncatedTo(SECONDS))
-                .forEach(instants::add);
+    private void ensureSnapshot(final File resourceDir, final Instant time) {
+        final File file = FileUtils.getMementoFile(resourceDir, time);
+        if (DeltaMemento.isDelta(file) && file.exists()) {
+            try {
+                DeltaMemento.writeSnapshot(resourceDir, time, DeltaMemento.readState(file), isBinary(),
+                        mementoCompression);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException("Error writing memento snapshot " + file, ex);
+            }
+        }
+    }
+
+    private void compact(final File resourceDir) {
+        Set<String> state = null;
+        int deltas = 0;
+        for (final long entry : MementoIndex.readEntries(resourceDir)) {
+            final Instant time = Instant.ofEpochSecond(MementoIndex.epochSecond(entry));
+            final File file = MementoIndex.getFile(resourceDir, entry);
+            final boolean delta = DeltaMemento.isDelta(file);
+            try {
+                final Set<String> current;
+                if (delta && state != null) {
+                    current = new LinkedHashSet<>(state);
+                    DeltaMemento.apply(current, file);
+                } else {
+                    current = DeltaMemento.readState(file);
+                }
+
+                if (state == null || deltas + 1 >= snapshotInterval) {
+                    if (delta) {
+                        DeltaMemento.writeSnapshot(resourceDir, time, current, isBinary(), mementoCompression);
+                    }
+                    deltas = 0;
+                } else {
+                    if (!delta) {
+                        final File deltaFile = DeltaMemento.getDeltaFile(resourceDir, time, mementoCompression);
+                        DeltaMemento.write(deltaFile, state, current);
+                        FileUtils.deleteOtherMementoFiles(resourceDir, time, deltaFile);
+                    }
+                    deltas++;
+                }
+                state = current;
+            } catch (final IOException ex) {
+                throw new UncheckedIOException("Error compacting memento " + file, ex);
+            }
+        }
+    }
+
+    private boolean isBinary() {
+        return BINARY.equals(format);
+    }
+
+    private Resource fetchMemento(final IRI identifier, final File file) {
+        if (file == null) {
+            return MISSING_RESOURCE;
+        }
+        return new FileResource(identifier, file, includeLdpType);
+    }
+
+    private static File findMemento(final File resourceDir, final long[] mementos, final Instant time) {
+        if (mementos.length == 0) {
+            return null;
         }
+        // If the requested Memento is earlier than the set of all existing Mementos,
+        // based on RFC 7089, Section 4.5.3 https://tools.ietf.org/html/rfc7089#section-4.5.3
+        // the first extant memento should be returned.
+        final int pos = MementoIndex.before(mementos, time.getEpochSecond());
+        return FileUtils.getMementoFile(resourceDir, Instant.ofEpochSecond(mementos[Math.max(pos, 0)]));
+    }
 
+    private SortedSet<Instant> listMementos(final IRI identifier) {
+        final SortedSet<Instant> instants = new TreeSet<>();
+        for (final long epochSecond : readMementos(identifier)) {
+            instants.add(Instant.ofEpochSecond(epochSecond));
+        }
         return unmodifiableSortedSet(instants);
     }
+
+    private long[] readMementos(final IRI identifier) {
+        if (!enabled) {
+            return new long[0];
+        }
+        final File resourceDir = FileUtils.getResourceDirectory(directory, identifier, algorithm);
+        if (!resourceDir.exists()) {
+            return new long[0];
+        }
+        return MementoIndex.read(resourceDir);
+    }
 }
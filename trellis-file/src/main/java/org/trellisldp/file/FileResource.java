@@ -15,17 +15,19 @@
  */
 package org.trellisldp.file;
 
-import static java.nio.file.Files.lines;
+import static java.util.Collections.emptySet;
 import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Stream.empty;
+import static org.apache.commons.io.FilenameUtils.getBaseName;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.trellisldp.vocabulary.RDF.type;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,6 +54,7 @@ import org.trellisldp.vocabulary.Trellis;
 public class FileResource implements Resource {
 
     private static final Logger LOGGER = getLogger(FileResource.class);
+    private static final int MAX_ATTEMPTS = 3;
     private static final Set<IRI> IGNORE = Set.of(Trellis.PreferUserManaged,
             Trellis.PreferServerManaged, LDP.PreferContainment, LDP.PreferMembership);
 
@@ -59,10 +62,12 @@ public class FileResource implements Resource {
     private final IRI identifier;
     private final boolean includeLdpTypes;
     private final Map<IRI, RDFTerm> data;
-    private final Set<IRI> metadataGraphs;
+    private volatile Set<IRI> metadataGraphs;
 
     /**
-     * Create a resource backed by an NQuads file.
+     * Create a resource backed by an NQuads or binary memento file.
+     *
+     * @implNote For a binary or delta memento, only the file header is read here.
      * @param identifier the resource identifier
      * @param file the file
      * @param includeLdpTypes whether to include ldp types in the response
@@ -71,15 +76,26 @@ public class FileResource implements Resource {
         this.identifier = requireNonNull(identifier, "identifier may not be null!");
         this.file = file;
         this.includeLdpTypes = includeLdpTypes;
+        if (BinaryMemento.isBinary(file) || DeltaMemento.isDelta(file)) {
+            final BinaryMemento.Header header = readHeader(file);
+            final Map<IRI, RDFTerm> serverManaged = new HashMap<>();
+            if (header != null) {
+                header.getServerManaged().forEach(quad -> addServerManaged(serverManaged, quad));
+                // The graph names of a binary memento are read from its trailer only when they are needed
+                metadataGraphs = header.getGraphNames().map(FileResource::filterGraphNames).orElse(null);
+            } else {
+                metadataGraphs = emptySet();
+            }
+            data = unmodifiableMap(serverManaged);
+            return;
+        }
         try (final Stream<Quad> quads = fetchContent(identifier, file)) {
             final Map<IRI, RDFTerm> serverManaged = new HashMap<>();
             final Set<IRI> graphs = new HashSet<>();
             quads.forEach(quad -> quad.getGraphName().filter(IRI.class::isInstance).map(IRI.class::cast)
                     .ifPresent(graphName -> {
                 if (Trellis.PreferServerManaged.equals(graphName)) {
-                    final boolean binaryModified = !identifier.equals(quad.getSubject()) &&
-                        DC.modified.equals(quad.getPredicate());
-                    serverManaged.put(binaryModified ? Time.hasTime : quad.getPredicate(), quad.getObject());
+                    addServerManaged(serverManaged, quad);
                 } else if (!IGNORE.contains(graphName)) {
                     graphs.add(graphName);
                 }
@@ -137,7 +153,12 @@ public class FileResource implements Resource {
 
     @Override
     public Set<IRI> getMetadataGraphNames() {
-        return metadataGraphs;
+        Set<IRI> graphs = metadataGraphs;
+        if (graphs == null) {
+            graphs = readGraphNames(file);
+            metadataGraphs = graphs;
+        }
+        return graphs;
     }
 
     @Override
@@ -145,6 +166,12 @@ public class FileResource implements Resource {
         return fetchContent(identifier, file).filter(quad -> FileUtils.filterServerManagedQuads(quad, includeLdpTypes));
     }
 
+    private void addServerManaged(final Map<IRI, RDFTerm> serverManaged, final Quad quad) {
+        final boolean binaryModified = !identifier.equals(quad.getSubject()) &&
+            DC.modified.equals(quad.getPredicate());
+        serverManaged.put(binaryModified ? Time.hasTime : quad.getPredicate(), quad.getObject());
+    }
+
     private Optional<IRI> asIRI(final IRI predicate) {
         return ofNullable(data.get(predicate)).filter(IRI.class::isInstance).map(IRI.class::cast);
     }
@@ -154,13 +181,77 @@ public class FileResource implements Resource {
             .map(Literal::getLexicalForm);
     }
 
+    private static Set<IRI> filterGraphNames(final Set<IRI> graphNames) {
+        final Set<IRI> graphs = new HashSet<>();
+        graphNames.stream().filter(graphName -> !IGNORE.contains(graphName)).forEach(graphs::add);
+        return unmodifiableSet(graphs);
+    }
+
+    private static Set<IRI> readGraphNames(final File file) {
+        try {
+            return filterGraphNames(BinaryMemento.readGraphNames(file));
+        } catch (final IOException ex) {
+            logReadFailure(file, ex);
+            return emptySet();
+        }
+    }
+
+    /**
+     * Read the header of a binary or delta memento.
+     * @return the header, or null if it could not be read
+     */
+    private static BinaryMemento.Header readHeader(final File file) {
+        try {
+            return BinaryMemento.isBinary(file) ? BinaryMemento.readHeader(file) : DeltaMemento.readHeader(file);
+        } catch (final IOException ex) {
+            logReadFailure(file, ex);
+        }
+        return null;
+    }
+
+    private static void logReadFailure(final File file, final IOException ex) {
+        LOGGER.warn("Could not read file at {}: {}", file, ex.getMessage());
+    }
+
     static Stream<Quad> fetchContent(final IRI identifier, final File file) {
         LOGGER.trace("Streaming quads for {}", identifier);
+        File current = file;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return readContent(current);
+            } catch (final NoSuchFileException ex) {
+                // A memento, or a delta it depends on, may have been replaced by a snapshot since it was resolved
+                final Optional<File> replacement = findReplacement(current);
+                if (attempt >= MAX_ATTEMPTS || !replacement.isPresent()) {
+                    logReadFailure(current, ex);
+                    return empty();
+                }
+                current = replacement.get();
+            } catch (final IOException ex) {
+                logReadFailure(current, ex);
+                return empty();
+            }
+        }
+    }
+
+    private static Stream<Quad> readContent(final File file) throws IOException {
+        if (BinaryMemento.isBinary(file)) {
+            return BinaryMemento.read(file).stream();
+        }
+        if (DeltaMemento.isDelta(file)) {
+            return DeltaMemento.read(file).stream();
+        }
+        return FileUtils.readLines(file).flatMap(FileUtils::parseQuad);
+    }
+
+    private static Optional<File> findReplacement(final File file) {
+        final String name = getBaseName(MementoCompression.uncompressedName(file.getName()));
         try {
-            return lines(file.toPath()).flatMap(FileUtils::parseQuad);
-        } catch (final IOException ex) {
-            LOGGER.warn("Could not read file at {}: {}", file, ex.getMessage());
+            final File replacement = FileUtils.getMementoFile(file.getParentFile(),
+                    Instant.ofEpochSecond(Long.parseLong(name)));
+            return replacement.exists() ? Optional.of(replacement) : Optional.empty();
+        } catch (final NumberFormatException ex) {
+            return Optional.empty();
         }
-        return empty();
     }
 }
@@ -18,7 +18,9 @@ package org.trellisldp.file;
 import static java.io.File.separator;
 import static java.lang.System.lineSeparator;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.Files.newBufferedWriter;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
 import static java.nio.file.StandardOpenOption.WRITE;
@@ -36,10 +38,14 @@ import static org.slf4j.LoggerFactory.getLogger;
 import static org.trellisldp.vocabulary.RDF.type;
 import static org.trellisldp.vocabulary.Trellis.PreferServerManaged;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -77,6 +83,7 @@ public final class FileUtils {
     private static final RDF rdf = RDFFactory.getInstance();
 
     private static final String SEP = " ";
+    private static final String NQUADS_EXTENSION = ".nq";
 
     /**
      * The length of the CRC directory partition.
@@ -177,30 +184,128 @@ public final class FileUtils {
      */
     public static void writeMemento(final File resourceDir, final Resource resource,
             final Instant time) {
-        try (final BufferedWriter writer = newBufferedWriter(
-                        getNquadsFile(resourceDir, time).toPath(), UTF_8, CREATE, WRITE,
-                        TRUNCATE_EXISTING)) {
-
-            try (final Stream<String> quads = generateServerManaged(resource).map(FileUtils::serializeQuad)) {
-                final Iterator<String> lineIter = quads.iterator();
-                while (lineIter.hasNext()) {
-                    writer.write(lineIter.next() + lineSeparator());
+        writeMemento(resourceDir, resource, time, false);
+    }
+
+    /**
+     * Write a Memento to a particular resource directory.
+     * @param resourceDir the resource directory
+     * @param resource the resource
+     * @param time the time for the memento
+     * @param binary whether to use the binary memento format rather than N-Quads
+     */
+    public static void writeMemento(final File resourceDir, final Resource resource,
+            final Instant time, final boolean binary) {
+        writeMemento(resourceDir, resource, time, binary, MementoCompression.NONE);
+    }
+
+    /**
+     * Write a Memento to a particular resource directory, replacing any other file for that memento.
+     * @param resourceDir the resource directory
+     * @param resource the resource
+     * @param time the time for the memento
+     * @param binary whether to use the binary memento format rather than N-Quads
+     * @param compression the compression format
+     */
+    public static void writeMemento(final File resourceDir, final Resource resource,
+            final Instant time, final boolean binary, final MementoCompression compression) {
+        moveMemento(resourceDir, time, writeTemporaryMemento(resourceDir, resource, binary, compression), binary,
+                compression);
+    }
+
+    /**
+     * Write a Memento to a new temporary file in a resource directory, ready to be moved into place
+     * with {@link #moveMemento}.
+     * @param resourceDir the resource directory
+     * @param resource the resource
+     * @param binary whether to use the binary memento format rather than N-Quads
+     * @param compression the compression format
+     * @return the temporary file
+     */
+    static File writeTemporaryMemento(final File resourceDir, final Resource resource, final boolean binary,
+            final MementoCompression compression) {
+        File tmp = null;
+        boolean written = false;
+        try {
+            tmp = Files.createTempFile(resourceDir.toPath(), "memento", ".tmp").toFile();
+            if (binary) {
+                try (final Stream<Quad> content = resource.stream().filter(FileUtils::notServerManaged)) {
+                    BinaryMemento.write(tmp, compression, generateServerManaged(resource), content);
                 }
+                written = true;
+                return tmp;
             }
+            try (final BufferedWriter writer = newMementoWriter(tmp, compression)) {
+
+                try (final Stream<String> quads = generateServerManaged(resource).map(FileUtils::serializeQuad)) {
+                    final Iterator<String> lineIter = quads.iterator();
+                    while (lineIter.hasNext()) {
+                        writer.write(lineIter.next() + lineSeparator());
+                    }
+                }
 
-            try (final Stream<String> quads = resource.stream().filter(FileUtils::notServerManaged)
-                    .map(FileUtils::serializeQuad)) {
-                final Iterator<String> lineiter = quads.iterator();
-                while (lineiter.hasNext()) {
-                    writer.write(lineiter.next() + lineSeparator());
+                try (final Stream<String> quads = resource.stream().filter(FileUtils::notServerManaged)
+                        .map(FileUtils::serializeQuad)) {
+                    final Iterator<String> lineiter = quads.iterator();
+                    while (lineiter.hasNext()) {
+                        writer.write(lineiter.next() + lineSeparator());
+                    }
                 }
             }
+            written = true;
+            return tmp;
         } catch (final IOException ex) {
             throw new UncheckedIOException(
                             "Error writing resource version for " + resource.getIdentifier().getIRIString(), ex);
+        } finally {
+            if (!written && tmp != null) {
+                uncheckedDeleteIfExists(tmp.toPath());
+            }
         }
     }
 
+    /**
+     * Move a Memento written with {@link #writeTemporaryMemento} into place, replacing any other file
+     * for that memento.
+     * @param resourceDir the resource directory
+     * @param time the time for the memento
+     * @param tmp the temporary file
+     * @param binary whether the memento uses the binary format rather than N-Quads
+     * @param compression the compression format
+     * @return the memento file
+     */
+    static File moveMemento(final File resourceDir, final Instant time, final File tmp, final boolean binary,
+            final MementoCompression compression) {
+        final File file = binary ? getBinaryFile(resourceDir, time, compression)
+            : getNquadsFile(resourceDir, time, compression);
+        try {
+            Files.move(tmp.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (final IOException ex) {
+            uncheckedDeleteIfExists(tmp.toPath());
+            throw new UncheckedIOException("Error moving memento into place at " + file, ex);
+        }
+        deleteOtherMementoFiles(resourceDir, time, file);
+        return file;
+    }
+
+    /**
+     * Read the lines of a memento file, decompressing it as necessary.
+     * @param file the file
+     * @return the lines of the file
+     * @throws IOException if the file could not be opened
+     */
+    public static Stream<String> readLines(final File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    MementoCompression.newMementoStream(file), UTF_8));
+        return reader.lines().onClose(() -> {
+            try {
+                reader.close();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException("Error closing memento file " + file, ex);
+            }
+        });
+    }
+
     /**
      * Get a bounded inputstream.
      * @param stream the input stream
@@ -233,7 +338,119 @@ public final class FileUtils {
      * @return the file
      */
     public static File getNquadsFile(final File dir, final Instant time) {
-        return new File(dir, time.getEpochSecond() + ".nq");
+        return getNquadsFile(dir, time, MementoCompression.NONE);
+    }
+
+    /**
+     * Get the nquads file for a given moment in time.
+     * @param dir the directory
+     * @param time the time
+     * @param compression the compression format
+     * @return the file
+     */
+    public static File getNquadsFile(final File dir, final Instant time, final MementoCompression compression) {
+        return new File(dir, time.getEpochSecond() + NQUADS_EXTENSION + compression.getExtension());
+    }
+
+    /**
+     * Get the binary memento file for a given moment in time.
+     * @param dir the directory
+     * @param time the time
+     * @return the file
+     */
+    public static File getBinaryFile(final File dir, final Instant time) {
+        return getBinaryFile(dir, time, MementoCompression.NONE);
+    }
+
+    /**
+     * Get the binary memento file for a given moment in time.
+     * @param dir the directory
+     * @param time the time
+     * @param compression the compression format
+     * @return the file
+     */
+    public static File getBinaryFile(final File dir, final Instant time, final MementoCompression compression) {
+        return new File(dir, time.getEpochSecond() + BinaryMemento.EXTENSION + compression.getExtension());
+    }
+
+    /**
+     * Get the memento file for a given moment in time, in whichever format it was written.
+     * @param dir the directory
+     * @param time the time
+     * @return the binary or nquads file, if either exists, then the delta file, if that exists,
+     *         otherwise the uncompressed nquads file
+     */
+    public static File getMementoFile(final File dir, final Instant time) {
+        return getMementoFiles(dir, time).stream().filter(File::exists).findFirst()
+            .orElseGet(() -> getNquadsFile(dir, time));
+    }
+
+    /**
+     * Get all of the possible memento files for a given moment in time, in order of precedence.
+     * @param dir the directory
+     * @param time the time
+     * @return the files, which may or may not exist
+     */
+    public static List<File> getMementoFiles(final File dir, final Instant time) {
+        final List<File> files = new ArrayList<>();
+        for (final MementoCompression compression : MementoCompression.values()) {
+            files.add(getBinaryFile(dir, time, compression));
+            files.add(getNquadsFile(dir, time, compression));
+        }
+        for (final MementoCompression compression : MementoCompression.values()) {
+            files.add(DeltaMemento.getDeltaFile(dir, time, compression));
+        }
+        return files;
+    }
+
+    /**
+     * Delete every file for a given memento, except the one that has just been written.
+     * @param dir the directory
+     * @param time the time
+     * @param keep the file to keep
+     */
+    static void deleteOtherMementoFiles(final File dir, final Instant time, final File keep) {
+        getMementoFiles(dir, time).stream().filter(file -> !file.equals(keep))
+            .forEach(file -> uncheckedDeleteIfExists(file.toPath()));
+    }
+
+    /**
+     * Test whether a filename belongs to a memento file.
+     * @param filename the filename
+     * @return true if the file is an N-Quads, binary or delta memento; false otherwise
+     */
+    public static boolean isMementoFile(final String filename) {
+        final String name = MementoCompression.uncompressedName(filename);
+        return name.endsWith(NQUADS_EXTENSION) || name.endsWith(BinaryMemento.EXTENSION)
+            || name.endsWith(DeltaMemento.EXTENSION);
+    }
+
+    /**
+     * Open a memento file for writing, compressing it as necessary.
+     * @param file the file
+     * @param compression the compression format
+     * @return a writer for the file
+     * @throws IOException if the file could not be opened
+     */
+    static BufferedWriter newMementoWriter(final File file, final MementoCompression compression)
+            throws IOException {
+        final OutputStream stream = newOutputStream(file.toPath(), CREATE, WRITE, TRUNCATE_EXISTING);
+        try {
+            return new BufferedWriter(new OutputStreamWriter(compression.compress(stream), UTF_8));
+        } catch (final IOException ex) {
+            stream.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Serialize the full content of a memento for a resource, server-managed quads first.
+     * @param resource the resource
+     * @return the serialized quads, one per line
+     */
+    public static Stream<String> serializeMemento(final Resource resource) {
+        return Stream.concat(generateServerManaged(resource), resource.stream().filter(FileUtils::notServerManaged))
+            .map(FileUtils::serializeQuad);
     }
 
     private static Stream<Quad> generateServerManaged(final Resource resource) {
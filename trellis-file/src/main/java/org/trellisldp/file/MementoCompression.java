@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.file;
+
+import static java.nio.file.Files.newInputStream;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+
+/**
+ * Compression formats for memento files.
+ *
+ * <p>The compression of a memento file is recorded as a suffix on its name, such as {@code 1565965261.nq.gz},
+ * so files written with any of these formats, or without compression, can be read regardless of the
+ * current configuration. Zstandard support requires the optional {@code zstd-jni} library.
+ */
+public enum MementoCompression {
+
+    /** No compression. */
+    NONE("") {
+        @Override
+        public OutputStream compress(final OutputStream stream) {
+            return stream;
+        }
+
+        @Override
+        public InputStream decompress(final InputStream stream) {
+            return stream;
+        }
+    },
+
+    /** GZIP compression. */
+    GZIP(".gz") {
+        @Override
+        public OutputStream compress(final OutputStream stream) throws IOException {
+            return new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream stream) throws IOException {
+            return new GZIPInputStream(stream, BUFFER_SIZE);
+        }
+    },
+
+    /** Zstandard compression. */
+    ZSTD(".zst") {
+        @Override
+        public OutputStream compress(final OutputStream stream) throws IOException {
+            if (!isAvailable()) {
+                throw new IOException("Zstandard compression requires the zstd-jni library");
+            }
+            return Zstd.compress(stream);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream stream) throws IOException {
+            if (!isAvailable()) {
+                throw new IOException("Zstandard decompression requires the zstd-jni library");
+            }
+            return Zstd.decompress(stream);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            try {
+                Class.forName("com.github.luben.zstd.ZstdOutputStream");
+                return true;
+            } catch (final ClassNotFoundException | LinkageError ex) {
+                LOGGER.debug("Zstandard compression is unavailable: {}", ex.getMessage());
+                return false;
+            }
+        }
+    };
+
+    private static final Logger LOGGER = getLogger(MementoCompression.class);
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String extension;
+
+    MementoCompression(final String extension) {
+        this.extension = extension;
+    }
+
+    /*
+     * Keep references to the optional zstd-jni classes out of the enum itself, so that it can be
+     * loaded and verified when that library is not on the classpath.
+     */
+    private static final class Zstd {
+        static OutputStream compress(final OutputStream stream) throws IOException {
+            return new com.github.luben.zstd.ZstdOutputStream(stream);
+        }
+
+        static InputStream decompress(final InputStream stream) throws IOException {
+            return new com.github.luben.zstd.ZstdInputStream(stream);
+        }
+
+        private Zstd() {
+            // prevent instantiation
+        }
+    }
+
+    /**
+     * Get the filename suffix for this compression format.
+     * @return the suffix, which is empty for uncompressed files
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Wrap an output stream so that data written to it is compressed.
+     * @param stream the output stream
+     * @return the compressing stream
+     * @throws IOException if the stream could not be created
+     */
+    public abstract OutputStream compress(OutputStream stream) throws IOException;
+
+    /**
+     * Wrap an input stream so that data read from it is decompressed.
+     * @param stream the input stream
+     * @return the decompressing stream
+     * @throws IOException if the stream could not be created
+     */
+    public abstract InputStream decompress(InputStream stream) throws IOException;
+
+    /**
+     * Test whether this compression format can be used at runtime.
+     * @return true if the format is available; false otherwise
+     */
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Find the compression format of a file, based on its name.
+     * @param filename the filename
+     * @return the compression format
+     */
+    public static MementoCompression of(final String filename) {
+        if (filename.endsWith(GZIP.extension)) {
+            return GZIP;
+        } else if (filename.endsWith(ZSTD.extension)) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    /**
+     * Find the compression format corresponding to a configuration value.
+     * @param value the configuration value: {@code gzip}, {@code zstd} or {@code none}
+     * @return the compression format, or {@code NONE} if the value is empty
+     * @throws IllegalArgumentException if the value is not recognized
+     */
+    public static MementoCompression fromConfig(final String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        for (final MementoCompression compression : values()) {
+            if (compression.name().equalsIgnoreCase(value.trim())) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("Unknown memento compression format: " + value);
+    }
+
+    /**
+     * Remove any compression suffix from a filename.
+     * @param filename the filename
+     * @return the filename without its compression suffix
+     */
+    public static String uncompressedName(final String filename) {
+        return filename.substring(0, filename.length() - of(filename).extension.length());
+    }
+
+    /**
+     * Open a memento file for reading, decompressing it as necessary.
+     * @param file the file
+     * @return the decompressed input stream
+     * @throws IOException if the file could not be opened
+     */
+    public static InputStream newMementoStream(final File file) throws IOException {
+        final InputStream stream = new BufferedInputStream(newInputStream(file.toPath()));
+        try {
+            return of(file.getName()).decompress(stream);
+        } catch (final IOException ex) {
+            stream.close();
+            throw ex;
+        }
+    }
+}
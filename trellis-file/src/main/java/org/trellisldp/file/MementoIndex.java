@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.file;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.binarySearch;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+
+/**
+ * A per-resource index of memento times.
+ *
+ * <p>The index is a small file in the resource directory holding a magic number followed by
+ * an 8-byte entry for each memento: its epoch second, shifted left by eight bits, with the type of
+ * the memento file in the low byte. Recording the type means that the file for an entry can be found
+ * without probing every possible name. New mementos, and mementos whose file is replaced, are appended
+ * and synced to disk, with later entries taking precedence; deletions rewrite the file atomically.
+ * A missing, truncated or otherwise corrupt index is rebuilt from the directory listing, which is also
+ * how indexes are created for directories written before the index existed. The type byte combines the
+ * format of the memento file with a compression code; both are fixed values, independent of the order
+ * of any enum, because they are persisted.
+ *
+ * <p>Reads do not take the lock: the index is only ever appended to or replaced by a rename,
+ * and a read that sees a partly written entry is retried under the lock.
+ */
+final class MementoIndex {
+
+    /** The name of the index file. */
+    static final String FILENAME = "mementos.idx";
+
+    private static final Logger LOGGER = getLogger(MementoIndex.class);
+    private static final int MAGIC = 0x54524c54;
+    private static final int TYPE_BITS = 8;
+    private static final int UNKNOWN = 0;
+    private static final int NQUADS = 1;
+    private static final int BINARY = 2;
+    private static final int DELTA = 3;
+    private static final int COMPRESSION_NONE = 0;
+    private static final int COMPRESSION_GZIP = 1;
+    private static final int COMPRESSION_ZSTD = 2;
+    private static final Object[] LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    /**
+     * Read the memento times for a resource directory.
+     * @param resourceDir the resource directory
+     * @return the sorted, distinct epoch seconds of each memento
+     */
+    static long[] read(final File resourceDir) {
+        return times(readEntries(resourceDir));
+    }
+
+    /**
+     * Read the index entries for a resource directory.
+     * @param resourceDir the resource directory
+     * @return the entries, sorted by memento time, with one entry for each time
+     */
+    static long[] readEntries(final File resourceDir) {
+        if (!resourceDir.exists()) {
+            return new long[0];
+        }
+        final long[] entries = readIndex(getIndexFile(resourceDir));
+        if (entries != null) {
+            return entries;
+        }
+        // The index is missing, or an append is in progress: check again once any writer has finished
+        synchronized (lock(resourceDir)) {
+            final Path index = getIndexFile(resourceDir);
+            if (Files.exists(index)) {
+                final long[] current = readIndex(index);
+                if (current != null) {
+                    return current;
+                }
+                LOGGER.warn("Memento index at {} is corrupt, rebuilding", index);
+            }
+            return rebuildEntries(resourceDir);
+        }
+    }
+
+    /**
+     * Get the memento times of a set of index entries.
+     * @param entries the index entries
+     * @return the epoch seconds of each entry
+     */
+    static long[] times(final long[] entries) {
+        return LongStream.of(entries).map(MementoIndex::epochSecond).toArray();
+    }
+
+    /**
+     * Get the memento time of an index entry.
+     * @param entry the index entry
+     * @return the epoch second of the memento
+     */
+    static long epochSecond(final long entry) {
+        return entry >> TYPE_BITS;
+    }
+
+    /**
+     * Get the memento file for an index entry, falling back to probing for the file
+     * when its type is unknown or the file has since been replaced.
+     * @param resourceDir the resource directory
+     * @param entry the index entry
+     * @return the memento file
+     */
+    static File getFile(final File resourceDir, final long entry) {
+        final Instant time = Instant.ofEpochSecond(epochSecond(entry));
+        final File file = toFile(resourceDir, time, (int) (entry & 0xff));
+        if (file != null && file.exists()) {
+            return file;
+        }
+        return FileUtils.getMementoFile(resourceDir, time);
+    }
+
+    /**
+     * Test whether the memento for an index entry is a delta.
+     * @param resourceDir the resource directory
+     * @param entry the index entry
+     * @return true if the memento is stored as a delta; false otherwise
+     */
+    static boolean isDelta(final File resourceDir, final long entry) {
+        final int type = (int) (entry & 0xff);
+        if (type == UNKNOWN) {
+            return DeltaMemento.isDelta(getFile(resourceDir, entry));
+        }
+        return type >> 4 == DELTA;
+    }
+
+    /**
+     * Record a memento file in the index for a resource directory, replacing any earlier entry for that time.
+     * @param resourceDir the resource directory
+     * @param memento the memento file, which is already in place
+     */
+    static void add(final File resourceDir, final File memento) {
+        append(resourceDir, toEntry(memento.getName()));
+    }
+
+    private static void append(final File resourceDir, final long entry) {
+        synchronized (lock(resourceDir)) {
+            final Path index = getIndexFile(resourceDir);
+            if (!Files.exists(index) || readMagic(index) != MAGIC) {
+                // The memento file is already in place, so a rebuild will include it
+                rebuild(resourceDir);
+                return;
+            }
+            try (final FileChannel channel = FileChannel.open(index, WRITE, APPEND)) {
+                final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(entry);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            } catch (final IOException ex) {
+                LOGGER.warn("Could not update memento index at {}: {}", index, ex.getMessage());
+                FileUtils.uncheckedDeleteIfExists(index);
+            }
+        }
+    }
+
+    /**
+     * Remove a memento time from the index for a resource directory.
+     * @param resourceDir the resource directory
+     * @param epochSecond the memento time, in epoch seconds
+     */
+    static void remove(final File resourceDir, final long epochSecond) {
+        if (!resourceDir.exists()) {
+            return;
+        }
+        synchronized (lock(resourceDir)) {
+            final long[] entries = readEntries(resourceDir);
+            if (binarySearch(times(entries), epochSecond) >= 0) {
+                write(resourceDir, LongStream.of(entries).filter(entry -> epochSecond(entry) != epochSecond)
+                        .toArray());
+            }
+        }
+    }
+
+    /**
+     * Rebuild the index for a resource directory from the memento files it contains.
+     * @param resourceDir the resource directory
+     * @return the sorted, distinct epoch seconds of each memento
+     */
+    static long[] rebuild(final File resourceDir) {
+        if (!resourceDir.exists()) {
+            return new long[0];
+        }
+        return times(rebuildEntries(resourceDir));
+    }
+
+    private static long[] rebuildEntries(final File resourceDir) {
+        synchronized (lock(resourceDir)) {
+            // Where there is more than one file for a memento, keep the one that takes precedence
+            final Map<Long, File> files = new TreeMap<>();
+            try (final Stream<Path> paths = FileUtils.uncheckedList(resourceDir.toPath())) {
+                paths.map(Path::toFile).filter(file -> FileUtils.isMementoFile(file.getName()))
+                    .forEach(file -> files.merge(epochSecond(toEntry(file.getName())), file,
+                                (a, b) -> precedence(resourceDir, a) <= precedence(resourceDir, b) ? a : b));
+            }
+            final long[] entries = files.values().stream().map(File::getName).mapToLong(MementoIndex::toEntry)
+                .toArray();
+            write(resourceDir, entries);
+            return entries;
+        }
+    }
+
+    /**
+     * Find the latest memento strictly before a given time.
+     * @param times the sorted memento times
+     * @param epochSecond the requested time, in epoch seconds
+     * @return the index of the latest earlier memento, or -1 if there is none
+     */
+    static int before(final long[] times, final long epochSecond) {
+        final int pos = binarySearch(times, epochSecond);
+        return (pos >= 0 ? pos : -pos - 1) - 1;
+    }
+
+    private static long[] readIndex(final Path index) {
+        if (!Files.exists(index)) {
+            return null;
+        }
+        try (final FileChannel channel = FileChannel.open(index, READ)) {
+            return readIndex(channel);
+        } catch (final IOException ex) {
+            LOGGER.debug("Could not read memento index at {}: {}", index, ex.getMessage());
+            return null;
+        }
+    }
+
+    private static long[] readIndex(final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size < Integer.BYTES || (size - Integer.BYTES) % Long.BYTES != 0 || size > Integer.MAX_VALUE) {
+            return null;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return null;
+            }
+        }
+        buffer.flip();
+        final int magic = buffer.getInt();
+        if (magic != MAGIC) {
+            return null;
+        }
+        final long[] entries = new long[buffer.remaining() / Long.BYTES];
+        buffer.asLongBuffer().get(entries);
+        // Appends are normally in order, so only sort when necessary
+        for (int i = 1; i < entries.length; i++) {
+            if (epochSecond(entries[i]) <= epochSecond(entries[i - 1])) {
+                // The last entry for a memento time records its current file
+                final Map<Long, Long> latest = new TreeMap<>();
+                LongStream.of(entries).forEach(entry -> latest.put(epochSecond(entry), entry));
+                return latest.values().stream().mapToLong(Long::longValue).toArray();
+            }
+        }
+        return entries;
+    }
+
+    private static int readMagic(final Path index) {
+        try (final FileChannel channel = FileChannel.open(index, READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return UNKNOWN;
+                }
+            }
+            buffer.flip();
+            return buffer.getInt();
+        } catch (final IOException ex) {
+            LOGGER.debug("Could not read memento index at {}: {}", index, ex.getMessage());
+            return UNKNOWN;
+        }
+    }
+
+    private static long toEntry(final String filename) {
+        final String name = MementoCompression.uncompressedName(filename);
+        final int format;
+        if (name.endsWith(BinaryMemento.EXTENSION)) {
+            format = BINARY;
+        } else if (name.endsWith(DeltaMemento.EXTENSION)) {
+            format = DELTA;
+        } else {
+            format = NQUADS;
+        }
+        final int type = format << 4 | toCode(MementoCompression.of(filename));
+        return Long.parseLong(FilenameUtils.getBaseName(name)) << TYPE_BITS | type;
+    }
+
+    private static File toFile(final File resourceDir, final Instant time, final int type) {
+        final MementoCompression compression = fromCode(type & 0xf);
+        if (compression == null) {
+            return null;
+        }
+        switch (type >> 4) {
+            case NQUADS:
+                return FileUtils.getNquadsFile(resourceDir, time, compression);
+            case BINARY:
+                return FileUtils.getBinaryFile(resourceDir, time, compression);
+            case DELTA:
+                return DeltaMemento.getDeltaFile(resourceDir, time, compression);
+            default:
+                return null;
+        }
+    }
+
+    private static int toCode(final MementoCompression compression) {
+        switch (compression) {
+            case GZIP:
+                return COMPRESSION_GZIP;
+            case ZSTD:
+                return COMPRESSION_ZSTD;
+            default:
+                return COMPRESSION_NONE;
+        }
+    }
+
+    private static MementoCompression fromCode(final int code) {
+        switch (code) {
+            case COMPRESSION_NONE:
+                return MementoCompression.NONE;
+            case COMPRESSION_GZIP:
+                return MementoCompression.GZIP;
+            case COMPRESSION_ZSTD:
+                return MementoCompression.ZSTD;
+            default:
+                return null;
+        }
+    }
+
+    private static int precedence(final File resourceDir, final File file) {
+        final Instant time = Instant.ofEpochSecond(epochSecond(toEntry(file.getName())));
+        return FileUtils.getMementoFiles(resourceDir, time).indexOf(file);
+    }
+
+    private static void write(final File resourceDir, final long[] entries) {
+        final Path index = getIndexFile(resourceDir);
+        final Path tmp = index.resolveSibling(FILENAME + ".tmp");
+        try {
+            try (final FileChannel channel = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + entries.length * Long.BYTES);
+                buffer.putInt(MAGIC);
+                buffer.asLongBuffer().put(entries);
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, index, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (final IOException ex) {
+            FileUtils.uncheckedDeleteIfExists(tmp);
+            throw new UncheckedIOException("Error writing memento index " + index, ex);
+        }
+    }
+
+    private static Path getIndexFile(final File resourceDir) {
+        return resourceDir.toPath().resolve(FILENAME);
+    }
+
+    /**
+     * Get the lock that serializes writes to the index, and the memento files, of a resource directory.
+     * @param resourceDir the resource directory
+     * @return the lock
+     */
+    static Object lock(final File resourceDir) {
+        return LOCKS[Math.floorMod(resourceDir.getAbsoluteFile().hashCode(), LOCKS.length)];
+    }
+
+    private MementoIndex() {
+        // prevent instantiation
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.file;
+
+import static java.nio.file.Files.lines;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.RDFFactory;
+import org.trellisldp.api.Resource;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * Test the binary memento format.
+ */
+class BinaryMementoTest {
+
+    private static final RDF rdf = RDFFactory.getInstance();
+
+    @Test
+    void testRoundTrip() throws IOException {
+        for (final String name : new String[] {"resource", "binary", "ldpic", "ldpdc"}) {
+            assertRoundTrip(name);
+        }
+    }
+
+    private void assertRoundTrip(final String name) throws IOException {
+        final File nquads = new File(getClass().getResource("/" + name + ".nq").getFile());
+        final File binary = new File(nquads.getParentFile(), name + BinaryMemento.EXTENSION);
+        final IRI identifier = rdf.createIRI("trellis:data/" + name);
+
+        final List<Quad> quads;
+        try (final Stream<String> lines = lines(nquads.toPath())) {
+            quads = lines.flatMap(FileUtils::parseQuad).collect(toList());
+        }
+        BinaryMemento.write(binary, quads.stream().filter(BinaryMementoTest::isServerManaged),
+                quads.stream().filter(q -> !isServerManaged(q)));
+
+        final Resource expected = new FileResource(identifier, nquads, true);
+        final Resource actual = new FileResource(identifier, binary, true);
+        assertEquals(expected.getInteractionModel(), actual.getInteractionModel(), "Incorrect interaction model!");
+        assertEquals(expected.getModified(), actual.getModified(), "Incorrect modified date!");
+        assertEquals(expected.getContainer(), actual.getContainer(), "Incorrect container!");
+        assertEquals(expected.getMembershipResource(), actual.getMembershipResource(), "Incorrect membership!");
+        assertEquals(expected.getMemberRelation(), actual.getMemberRelation(), "Incorrect member relation!");
+        assertEquals(expected.getInsertedContentRelation(), actual.getInsertedContentRelation(),
+                "Incorrect inserted content relation!");
+        assertEquals(expected.getBinaryMetadata().map(b -> b.getIdentifier()),
+                actual.getBinaryMetadata().map(b -> b.getIdentifier()), "Incorrect binary identifier!");
+        assertEquals(expected.getMetadataGraphNames(), actual.getMetadataGraphNames(), "Incorrect graph names!");
+        assertEquals(expected.stream().collect(toSet()), actual.stream().collect(toSet()), "Incorrect content!");
+    }
+
+    @Test
+    void testBlankNodes() throws IOException {
+        final File dir = new File(getClass().getResource("/resource.nq").getFile()).getParentFile();
+        final File file = new File(dir, "blank" + BinaryMemento.EXTENSION);
+        final IRI identifier = rdf.createIRI("trellis:data/blank");
+        final BlankNode bnode = rdf.createBlankNode();
+
+        BinaryMemento.write(file, Stream.of(rdf.createQuad(Trellis.PreferServerManaged, identifier, DC.modified,
+                        rdf.createLiteral("2017-02-16T11:15:03Z"))), Stream.of(
+                    rdf.createQuad(Trellis.PreferUserManaged, identifier, DC.creator, bnode),
+                    rdf.createQuad(Trellis.PreferUserManaged, bnode, DC.title, rdf.createLiteral("Creator"))));
+
+        final List<Quad> quads = BinaryMemento.read(file);
+        assertEquals(3, quads.size(), "Incorrect number of quads!");
+        assertTrue(isServerManaged(quads.get(0)), "Server-managed quads should come first!");
+        assertEquals(quads.get(1).getObject(), quads.get(2).getSubject(), "Blank node identity not preserved!");
+        assertTrue(quads.get(1).getObject() instanceof BlankNode, "Object should be a blank node!");
+        assertTrue(BinaryMemento.readGraphNames(file).contains(Trellis.PreferUserManaged),
+                "Missing graph name in trailer!");
+    }
+
+    @Test
+    void testMultipleFrames() throws IOException {
+        final File dir = new File(getClass().getResource("/resource.nq").getFile()).getParentFile();
+        final File file = new File(dir, "frames" + BinaryMemento.EXTENSION + ".gz");
+        final IRI identifier = rdf.createIRI("trellis:data/frames");
+
+        BinaryMemento.write(file, Stream.of(rdf.createQuad(Trellis.PreferServerManaged, identifier, DC.modified,
+                        rdf.createLiteral("2017-02-16T11:15:03Z"))), IntStream.range(0, 5000).mapToObj(i ->
+                    rdf.createQuad(i % 2 == 0 ? Trellis.PreferUserManaged : Trellis.PreferAudit, identifier,
+                        DC.description, rdf.createLiteral("A long description, number " + i))));
+
+        assertEquals(5001, BinaryMemento.read(file).size(), "Incorrect number of quads!");
+        final BinaryMemento.Header header = BinaryMemento.readHeader(file);
+        assertEquals(1, header.getServerManaged().size(), "Incorrect number of server-managed quads!");
+        assertFalse(header.getGraphNames().isPresent(), "Graph names should not be read with the header!");
+        assertEquals(new HashSet<>(asList(Trellis.PreferUserManaged, Trellis.PreferAudit)),
+                BinaryMemento.readGraphNames(file), "Incorrect graph names in trailer!");
+
+        final Resource res = new FileResource(identifier, file, true);
+        assertEquals(singleton(Trellis.PreferAudit), res.getMetadataGraphNames(), "Incorrect metadata graphs!");
+    }
+
+    @Test
+    void testInvalidHeader() throws IOException {
+        final File dir = new File(getClass().getResource("/resource.nq").getFile()).getParentFile();
+        final File badMagic = new File(dir, "bad-magic" + BinaryMemento.EXTENSION);
+        write(badMagic.toPath(), new byte[] {1, 2, 3, 4, 1});
+        assertThrows(IOException.class, () -> BinaryMemento.read(badMagic), "Bad magic number not detected!");
+
+        final File badVersion = new File(dir, "bad-version" + BinaryMemento.EXTENSION);
+        write(badVersion.toPath(), new byte[] {0x54, 0x52, 0x4c, 0x4d, 9});
+        assertThrows(IOException.class, () -> BinaryMemento.readHeader(badVersion), "Bad version not detected!");
+
+        final Resource res = new FileResource(rdf.createIRI("trellis:data/bad"), badVersion, true);
+        assertNull(res.getInteractionModel(), "Unexpected interaction model!");
+        assertEquals(0L, res.stream().count(), "Incorrect total triple count!");
+    }
+
+    private static boolean isServerManaged(final Quad quad) {
+        return quad.getGraphName().filter(Trellis.PreferServerManaged::equals).isPresent();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.file;
+
+import static java.nio.file.Files.readAllLines;
+import static java.nio.file.Files.write;
+import static org.apache.commons.io.FileUtils.deleteDirectory;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.RDFFactory;
+import org.trellisldp.api.Resource;
+import org.trellisldp.vocabulary.LDP;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * Test delta-encoded mementos.
+ */
+class DeltaMementoTest {
+
+    private static final RDF rdf = RDFFactory.getInstance();
+    private static final File BASE = new File(DeltaMementoTest.class.getResource("/versions").getFile())
+        .getParentFile();
+    private static final String TITLE = "<trellis:data/delta> <http://purl.org/dc/terms/title> \"Title\" "
+        + "<http://www.trellisldp.org/ns/trellis#PreferUserManaged> .";
+    private static final String TYPE = "<trellis:data/delta> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> "
+        + "<http://www.w3.org/ns/ldp#RDFSource> <http://www.trellisldp.org/ns/trellis#PreferServerManaged> .";
+    private static final String SUBJECT = "<trellis:data/delta> <http://purl.org/dc/terms/subject> "
+        + "<http://example.com/Subject> <http://www.trellisldp.org/ns/trellis#PreferUserManaged> .";
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        final File dir = new File(BASE, "delta");
+        if (dir.exists()) {
+            deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    void testWrite() throws IOException {
+        final File dir = createDirectory("write");
+        final File file = DeltaMemento.getDeltaFile(dir, Instant.ofEpochSecond(1500000000L));
+        DeltaMemento.write(file, states(TYPE, TITLE), states(TYPE, SUBJECT));
+
+        final List<String> lines = readAllLines(file.toPath());
+        assertEquals(4, lines.size(), "Incorrect number of lines!");
+        assertEquals("=" + TYPE, lines.get(0), "Missing server-managed quad in header!");
+        assertEquals("@" + Trellis.PreferUserManaged.getIRIString(), lines.get(1), "Missing graph name in header!");
+        assertTrue(lines.contains("-" + TITLE), "Missing removal!");
+        assertTrue(lines.contains("+" + SUBJECT), "Missing addition!");
+        assertFalse(new File(dir, file.getName() + ".tmp").exists(), "Temporary file not removed!");
+
+        final Set<String> state = states(TYPE, TITLE);
+        DeltaMemento.apply(state, file);
+        assertEquals(states(TYPE, SUBJECT), state, "Incorrect state after applying delta!");
+    }
+
+    @Test
+    void testReadChain() throws IOException {
+        final File dir = createDirectory("chain");
+        final Instant time = Instant.ofEpochSecond(1500000000L);
+        DeltaMemento.writeSnapshot(dir, time, states(TYPE, TITLE), false, MementoCompression.NONE);
+        DeltaMemento.write(DeltaMemento.getDeltaFile(dir, time.plusSeconds(1)), states(TYPE, TITLE),
+                states(TYPE, TITLE, SUBJECT));
+        DeltaMemento.write(DeltaMemento.getDeltaFile(dir, time.plusSeconds(2)), states(TYPE, TITLE, SUBJECT),
+                states(TYPE, SUBJECT));
+
+        final File last = FileUtils.getMementoFile(dir, time.plusSeconds(2));
+        assertTrue(DeltaMemento.isDelta(last), "Expected a delta memento!");
+        assertEquals(states(TYPE, SUBJECT), DeltaMemento.readState(last), "Incorrect reconstructed state!");
+        assertEquals(2, DeltaMemento.read(last).size(), "Incorrect number of quads!");
+        assertEquals(2, DeltaMemento.chainLength(dir, MementoIndex.readEntries(dir), 2), "Incorrect chain length!");
+
+        DeltaMemento.writeSnapshot(dir, time.plusSeconds(1), DeltaMemento.readState(
+                    DeltaMemento.getDeltaFile(dir, time.plusSeconds(1))), true, MementoCompression.GZIP);
+        assertFalse(DeltaMemento.getDeltaFile(dir, time.plusSeconds(1)).exists(), "Delta not replaced!");
+        assertEquals(1, DeltaMemento.chainLength(dir, MementoIndex.readEntries(dir), 2), "Incorrect chain length!");
+        assertEquals(states(TYPE, SUBJECT), DeltaMemento.readState(last), "Incorrect state from binary snapshot!");
+    }
+
+    @Test
+    void testHeader() throws IOException {
+        final File dir = createDirectory("header");
+        final Instant time = Instant.ofEpochSecond(1500000000L);
+        DeltaMemento.writeSnapshot(dir, time, states(TYPE, TITLE), false, MementoCompression.NONE);
+        final File delta = DeltaMemento.getDeltaFile(dir, time.plusSeconds(1));
+        DeltaMemento.write(delta, states(TYPE, TITLE), states(TYPE, SUBJECT));
+
+        final BinaryMemento.Header header = DeltaMemento.readHeader(delta);
+        assertNotNull(header, "Missing delta header!");
+        assertEquals(1, header.getServerManaged().size(), "Incorrect server-managed quads!");
+        assertEquals(Optional.of(Set.of(Trellis.PreferUserManaged)), header.getGraphNames(),
+                "Incorrect graph names!");
+
+        // Without the preceding snapshot, the header is still enough to describe the resource
+        FileUtils.getNquadsFile(dir, time).delete();
+        final Resource res = new FileResource(rdf.createIRI("trellis:data/delta"), delta, true);
+        assertEquals(LDP.RDFSource, res.getInteractionModel(), "Incorrect interaction model!");
+        assertEquals(0L, res.stream().count(), "Unexpected content from a broken chain!");
+    }
+
+    @Test
+    void testMissingHeader() throws IOException {
+        final File dir = createDirectory("headerless");
+        final Instant time = Instant.ofEpochSecond(1500000000L);
+        DeltaMemento.writeSnapshot(dir, time, states(TYPE, TITLE), false, MementoCompression.NONE);
+        final File delta = DeltaMemento.getDeltaFile(dir, time.plusSeconds(1));
+        write(delta.toPath(), List.of("-" + TITLE, "+" + SUBJECT));
+        MementoIndex.rebuild(dir);
+
+        assertThrows(IOException.class, () -> DeltaMemento.readHeader(delta), "Missing header not detected!");
+        final Resource res = new FileResource(rdf.createIRI("trellis:data/delta"), delta, true);
+        assertNull(res.getInteractionModel(), "Unexpected interaction model!");
+    }
+
+    @Test
+    void testReadReplacedDelta() throws IOException {
+        final File dir = createDirectory("replaced");
+        final Instant time = Instant.ofEpochSecond(1500000000L);
+        DeltaMemento.writeSnapshot(dir, time, states(TYPE, TITLE), false, MementoCompression.NONE);
+        final File delta = DeltaMemento.getDeltaFile(dir, time.plusSeconds(1));
+        DeltaMemento.write(delta, states(TYPE, TITLE), states(TYPE, SUBJECT));
+        MementoIndex.rebuild(dir);
+
+        // The delta is compacted into a snapshot after a reader has resolved it
+        DeltaMemento.writeSnapshot(dir, time.plusSeconds(1), DeltaMemento.readState(delta), false,
+                MementoCompression.GZIP);
+        assertFalse(delta.exists(), "Delta not replaced!");
+        assertEquals(2L, FileResource.fetchContent(null, delta).count(), "Replaced delta not re-resolved!");
+    }
+
+    @Test
+    void testBrokenChain() throws IOException {
+        final File dir = createDirectory("broken");
+        final File file = DeltaMemento.getDeltaFile(dir, Instant.ofEpochSecond(1500000000L));
+        DeltaMemento.write(file, states(TYPE), states(TYPE, TITLE));
+
+        assertThrows(IOException.class, () -> DeltaMemento.readState(file), "Missing snapshot not detected!");
+        assertEquals(0L, FileResource.fetchContent(null, file).count(), "Unexpected content!");
+    }
+
+    private static Set<String> states(final String... lines) {
+        return new LinkedHashSet<>(List.of(lines));
+    }
+
+    private static File createDirectory(final String name) {
+        final File dir = new File(BASE, "delta/" + name);
+        dir.mkdirs();
+        return dir;
+    }
+}
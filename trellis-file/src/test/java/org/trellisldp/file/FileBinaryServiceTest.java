@@ -110,6 +110,12 @@ class FileBinaryServiceTest {
                         .toCompletableFuture().join(), "Incorrect segment when fetching from a file!");
     }
 
+    @Test
+    void testFilePath() {
+        assertTrue(service.get(file).thenApply(Binary::getPath).toCompletableFuture().join()
+                .filter(path -> path.endsWith(testDoc)).isPresent(), "Missing path for a file-based binary!");
+    }
+
     @Test
     void testFileContentSegmentBeyond() {
         assertEquals("", service.get(file).thenApply(b -> b.getContent(1000, 1005))
@@ -17,6 +17,7 @@ package org.trellisldp.file;
 
 import static java.time.Instant.now;
 import static java.time.Instant.parse;
+import static java.util.Arrays.asList;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static org.apache.commons.codec.digest.MessageDigestAlgorithms.SHA_256;
@@ -30,6 +31,7 @@ import static org.trellisldp.api.TrellisUtils.TRELLIS_DATA_PREFIX;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.TreeSet;
 import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.IRI;
@@ -102,6 +104,20 @@ class FileMementoServiceTest {
         assertEquals(MISSING_RESOURCE, svc.get(identifier, time).toCompletableFuture().join());
     }
 
+    @Test
+    void testUnknownCompression() {
+        final FileMementoService svc = new FileMementoService();
+        svc.compression = "lzma";
+        assertThrows(IllegalArgumentException.class, svc::init, "No exception with an unknown compression!");
+    }
+
+    @Test
+    void testUnknownFormat() {
+        final FileMementoService svc = new FileMementoService();
+        svc.format = "turtle";
+        assertThrows(IllegalArgumentException.class, svc::init, "No exception with an unknown format!");
+    }
+
     @Test
     void testPutDisabled() {
         final File dir = new File(getClass().getResource("/versions").getFile());
@@ -174,6 +190,100 @@ class FileMementoServiceTest {
         assertEquals(1L, res.stream(Trellis.PreferUserManaged).count());
     }
 
+    @Test
+    void testPutBinaryFormat() {
+        final File dir = new File(getClass().getResource("/versions").getFile());
+        final FileMementoService svc = new FileMementoService();
+        svc.directoryPath = dir.getAbsolutePath();
+        svc.algorithm = SHA_256;
+        svc.format = "binary";
+        svc.enabled = true;
+        svc.init();
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + "binary-format-resource");
+        final IRI root = rdf.createIRI(TRELLIS_DATA_PREFIX);
+        final IRI extension = rdf.createIRI("http://example.com/Extension");
+        final Instant time = parse("2019-08-16T14:21:01Z");
+
+        final Resource mockResource = mock(Resource.class);
+
+        when(mockResource.getIdentifier()).thenReturn(identifier);
+        when(mockResource.getInteractionModel()).thenReturn(LDP.RDFSource);
+        when(mockResource.getModified()).thenReturn(time);
+        when(mockResource.getContainer()).thenReturn(of(root));
+        when(mockResource.getBinaryMetadata()).thenReturn(empty());
+        when(mockResource.getMembershipResource()).thenReturn(empty());
+        when(mockResource.getMemberOfRelation()).thenReturn(empty());
+        when(mockResource.getMemberRelation()).thenReturn(empty());
+        when(mockResource.getInsertedContentRelation()).thenReturn(empty());
+        when(mockResource.stream()).thenAnswer(inv -> Stream.of(
+                    rdf.createQuad(Trellis.PreferUserManaged, identifier, DC.title, rdf.createLiteral("Title")),
+                    rdf.createQuad(Trellis.PreferUserManaged, identifier, DC.creator, rdf.createBlankNode()),
+                    rdf.createQuad(Trellis.PreferAccessControl, identifier, DC.description,
+                        rdf.createLiteral("Description", "en")),
+                    rdf.createQuad(extension, identifier, DC.relation, root)));
+
+        svc.put(mockResource).toCompletableFuture().join();
+
+        final File resourceDir = FileUtils.getResourceDirectory(dir, identifier, SHA_256);
+        assertTrue(FileUtils.getBinaryFile(resourceDir, time).exists());
+        assertFalse(FileUtils.getNquadsFile(resourceDir, time).exists());
+        assertTrue(svc.mementos(identifier).toCompletableFuture().join().contains(time));
+
+        final Resource res = svc.get(identifier, time).toCompletableFuture().join();
+        assertEquals(identifier, res.getIdentifier());
+        assertEquals(time, res.getModified());
+        assertEquals(LDP.RDFSource, res.getInteractionModel());
+        assertEquals(of(root), res.getContainer());
+        assertTrue(res.getMetadataGraphNames().contains(Trellis.PreferAccessControl));
+        assertTrue(res.getMetadataGraphNames().contains(extension));
+        assertEquals(2L, res.stream(Trellis.PreferUserManaged).count());
+        assertEquals(1L, res.stream(Trellis.PreferAccessControl).count());
+        assertEquals(1L, res.stream(extension).count());
+
+        svc.delete(identifier, time).toCompletableFuture().join();
+        assertFalse(FileUtils.getBinaryFile(resourceDir, time).exists());
+        assertEquals(MISSING_RESOURCE, svc.get(identifier, time).toCompletableFuture().join());
+    }
+
+    @Test
+    void testStaleIndex() {
+        final File dir = new File(getClass().getResource("/versions").getFile());
+        final FileMementoService svc = new FileMementoService();
+        svc.directoryPath = dir.getAbsolutePath();
+        svc.algorithm = SHA_256;
+        svc.enabled = true;
+        svc.init();
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + "stale-index-resource");
+        final IRI root = rdf.createIRI(TRELLIS_DATA_PREFIX);
+        final Instant time = parse("2019-08-16T14:21:01Z");
+
+        final Resource mockResource = mock(Resource.class);
+
+        when(mockResource.getIdentifier()).thenReturn(identifier);
+        when(mockResource.getInteractionModel()).thenReturn(LDP.RDFSource);
+        when(mockResource.getModified()).thenReturn(time);
+        when(mockResource.getContainer()).thenReturn(of(root));
+        when(mockResource.getBinaryMetadata()).thenReturn(empty());
+        when(mockResource.getMembershipResource()).thenReturn(empty());
+        when(mockResource.getMemberOfRelation()).thenReturn(empty());
+        when(mockResource.getMemberRelation()).thenReturn(empty());
+        when(mockResource.getInsertedContentRelation()).thenReturn(empty());
+        when(mockResource.stream()).thenAnswer(inv -> Stream.empty());
+
+        svc.put(mockResource).toCompletableFuture().join();
+        svc.put(mockResource, time.plusSeconds(10)).toCompletableFuture().join();
+        assertEquals(2, svc.mementos(identifier).toCompletableFuture().join().size());
+
+        // Remove the later memento behind the index's back
+        final File resourceDir = FileUtils.getResourceDirectory(dir, identifier, SHA_256);
+        assertTrue(FileUtils.getNquadsFile(resourceDir, time.plusSeconds(10)).delete());
+
+        final Resource res = svc.get(identifier, time.plusSeconds(20)).toCompletableFuture().join();
+        assertEquals(identifier, res.getIdentifier());
+        assertEquals(time, res.getModified());
+        assertEquals(1, svc.mementos(identifier).toCompletableFuture().join().size());
+    }
+
     @Test
     void testPutIndirectContainer() {
         final File dir = new File(getClass().getResource("/versions").getFile());
@@ -219,6 +329,185 @@ class FileMementoServiceTest {
         assertEquals(1L, res.stream(Trellis.PreferUserManaged).count());
     }
 
+    @Test
+    void testDeltaMementos() throws IOException {
+        final File dir = new File(getClass().getResource("/versions").getFile());
+        final FileMementoService svc = new FileMementoService();
+        svc.directoryPath = dir.getAbsolutePath();
+        svc.algorithm = SHA_256;
+        svc.snapshotInterval = 3;
+        svc.enabled = true;
+        svc.init();
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + "delta-resource");
+        final File resourceDir = FileUtils.getResourceDirectory(dir, identifier, SHA_256);
+        if (resourceDir.exists()) {
+            deleteDirectory(resourceDir);
+        }
+        final Instant time = parse("2019-08-16T14:21:01Z");
+
+        for (int i = 0; i < 5; i++) {
+            svc.put(mockVersion(identifier, time.plusSeconds(i), "Title " + i)).toCompletableFuture().join();
+        }
+        svc.compact(identifier).toCompletableFuture().join();
+
+        // Snapshot, delta, delta, snapshot, delta
+        assertTrue(FileUtils.getNquadsFile(resourceDir, time).exists());
+        assertTrue(DeltaMemento.getDeltaFile(resourceDir, time.plusSeconds(1)).exists());
+        assertTrue(DeltaMemento.getDeltaFile(resourceDir, time.plusSeconds(2)).exists());
+        assertTrue(FileUtils.getNquadsFile(resourceDir, time.plusSeconds(3)).exists());
+        assertFalse(DeltaMemento.getDeltaFile(resourceDir, time.plusSeconds(3)).exists());
+        assertTrue(DeltaMemento.getDeltaFile(resourceDir, time.plusSeconds(4)).exists());
+        assertEquals(5, svc.mementos(identifier).toCompletableFuture().join().size());
+        for (int i = 0; i < 5; i++) {
+            assertVersion(svc.get(identifier, time.plusSeconds(i)).toCompletableFuture().join(),
+                    time.plusSeconds(i), "Title " + i);
+        }
+
+        // Replace a memento in the middle of a chain
+        svc.put(mockVersion(identifier, time.plusSeconds(1), "Replaced")).toCompletableFuture().join();
+        assertVersion(svc.get(identifier, time.plusSeconds(1)).toCompletableFuture().join(), time.plusSeconds(1),
+                "Replaced");
+        assertVersion(svc.get(identifier, time.plusSeconds(2)).toCompletableFuture().join(), time.plusSeconds(2),
+                "Title 2");
+
+        // Delete the snapshot that a delta depends on
+        svc.delete(identifier, time.plusSeconds(3)).toCompletableFuture().join();
+        assertFalse(FileUtils.getMementoFile(resourceDir, time.plusSeconds(3)).exists());
+        assertVersion(svc.get(identifier, time.plusSeconds(4)).toCompletableFuture().join(), time.plusSeconds(4),
+                "Title 4");
+    }
+
+    @Test
+    void testCompactFullMementos() throws IOException {
+        final File dir = new File(getClass().getResource("/versions").getFile());
+        final FileMementoService svc = new FileMementoService();
+        svc.directoryPath = dir.getAbsolutePath();
+        svc.algorithm = SHA_256;
+        svc.format = "binary";
+        svc.enabled = true;
+        svc.init();
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + "compact-resource");
+        final File resourceDir = FileUtils.getResourceDirectory(dir, identifier, SHA_256);
+        if (resourceDir.exists()) {
+            deleteDirectory(resourceDir);
+        }
+        final Instant time = parse("2019-08-16T14:21:01Z");
+
+        for (int i = 0; i < 4; i++) {
+            svc.put(mockVersion(identifier, time.plusSeconds(i), "Title " + i)).toCompletableFuture().join();
+        }
+        // Compaction is a no-op while delta storage is disabled
+        svc.compact(identifier).toCompletableFuture().join();
+        assertFalse(DeltaMemento.getDeltaFile(resourceDir, time.plusSeconds(1)).exists());
+
+        svc.snapshotInterval = 2;
+        svc.compact(identifier).toCompletableFuture().join();
+        assertTrue(FileUtils.getBinaryFile(resourceDir, time).exists());
+        assertTrue(DeltaMemento.getDeltaFile(resourceDir, time.plusSeconds(1)).exists());
+        assertFalse(FileUtils.getBinaryFile(resourceDir, time.plusSeconds(1)).exists());
+        assertTrue(FileUtils.getBinaryFile(resourceDir, time.plusSeconds(2)).exists());
+        assertTrue(DeltaMemento.getDeltaFile(resourceDir, time.plusSeconds(3)).exists());
+        for (int i = 0; i < 4; i++) {
+            assertVersion(svc.get(identifier, time.plusSeconds(i)).toCompletableFuture().join(),
+                    time.plusSeconds(i), "Title " + i);
+        }
+    }
+
+    @Test
+    void testCompressedMementos() throws IOException {
+        final File dir = new File(getClass().getResource("/versions").getFile());
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + "compressed-resource");
+        final File resourceDir = FileUtils.getResourceDirectory(dir, identifier, SHA_256);
+        if (resourceDir.exists()) {
+            deleteDirectory(resourceDir);
+        }
+        final Instant time = parse("2019-08-16T14:21:01Z");
+
+        final FileMementoService svc = new FileMementoService();
+        svc.directoryPath = dir.getAbsolutePath();
+        svc.algorithm = SHA_256;
+        svc.enabled = true;
+        svc.init();
+        svc.put(mockVersion(identifier, time, "Title 0")).toCompletableFuture().join();
+
+        svc.compression = "gzip";
+        svc.init();
+        svc.put(mockVersion(identifier, time.plusSeconds(1), "Title 1")).toCompletableFuture().join();
+
+        svc.compression = "zstd";
+        svc.format = "binary";
+        svc.init();
+        svc.put(mockVersion(identifier, time.plusSeconds(2), "Title 2")).toCompletableFuture().join();
+
+        svc.format = null;
+        svc.snapshotInterval = 10;
+        svc.put(mockVersion(identifier, time.plusSeconds(3), "Title 3")).toCompletableFuture().join();
+
+        assertTrue(FileUtils.getNquadsFile(resourceDir, time).exists());
+        assertTrue(FileUtils.getNquadsFile(resourceDir, time.plusSeconds(1), MementoCompression.GZIP).exists());
+        assertTrue(FileUtils.getBinaryFile(resourceDir, time.plusSeconds(2), MementoCompression.ZSTD).exists());
+        assertTrue(DeltaMemento.getDeltaFile(resourceDir, time.plusSeconds(3), MementoCompression.ZSTD).exists());
+        assertEquals(4, svc.mementos(identifier).toCompletableFuture().join().size());
+        for (int i = 0; i < 4; i++) {
+            assertVersion(svc.get(identifier, time.plusSeconds(i)).toCompletableFuture().join(),
+                    time.plusSeconds(i), "Title " + i);
+        }
+
+        // Rewriting a memento with a different compression replaces the old file
+        svc.compression = "gzip";
+        svc.snapshotInterval = 0;
+        svc.init();
+        svc.put(mockVersion(identifier, time, "Replaced")).toCompletableFuture().join();
+        assertFalse(FileUtils.getNquadsFile(resourceDir, time).exists());
+        assertVersion(svc.get(identifier, time).toCompletableFuture().join(), time, "Replaced");
+
+        svc.delete(identifier, time.plusSeconds(2)).toCompletableFuture().join();
+        assertFalse(FileUtils.getBinaryFile(resourceDir, time.plusSeconds(2), MementoCompression.ZSTD).exists());
+        assertVersion(svc.get(identifier, time.plusSeconds(3)).toCompletableFuture().join(), time.plusSeconds(3),
+                "Title 3");
+    }
+
+    @Test
+    void testMementoBounds() throws IOException {
+        final File dir = new File(getClass().getResource("/versions").getFile());
+        final FileMementoService svc = new FileMementoService();
+        svc.directoryPath = dir.getAbsolutePath();
+        svc.algorithm = SHA_256;
+        svc.enabled = true;
+        svc.init();
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + "bounded-resource");
+        final File resourceDir = FileUtils.getResourceDirectory(dir, identifier, SHA_256);
+        if (resourceDir.exists()) {
+            deleteDirectory(resourceDir);
+        }
+        assertEquals(empty(), svc.firstMemento(identifier).toCompletableFuture().join());
+        assertEquals(empty(), svc.lastMemento(identifier).toCompletableFuture().join());
+        assertEquals(0L, svc.mementoCount(identifier).toCompletableFuture().join());
+
+        final Instant time = parse("2019-08-16T14:21:01Z");
+        for (int i = 0; i < 3; i++) {
+            svc.put(mockVersion(identifier, time.plusSeconds(10 * i), "Title " + i)).toCompletableFuture().join();
+        }
+
+        assertEquals(of(time), svc.firstMemento(identifier).toCompletableFuture().join());
+        assertEquals(of(time.plusSeconds(20)), svc.lastMemento(identifier).toCompletableFuture().join());
+        assertEquals(3L, svc.mementoCount(identifier).toCompletableFuture().join());
+        assertEquals(empty(), svc.mementoBefore(identifier, time.minusSeconds(1)).toCompletableFuture().join());
+        assertEquals(of(time), svc.mementoBefore(identifier, time).toCompletableFuture().join());
+        assertEquals(of(time.plusSeconds(10)), svc.mementoBefore(identifier, time.plusMillis(19500))
+                .toCompletableFuture().join());
+        assertEquals(of(time.plusSeconds(10)), svc.mementoAfter(identifier, time).toCompletableFuture().join());
+        assertEquals(of(time.plusSeconds(10)), svc.mementoAfter(identifier, time.plusMillis(500))
+                .toCompletableFuture().join());
+        assertEquals(empty(), svc.mementoAfter(identifier, time.plusSeconds(20)).toCompletableFuture().join());
+        assertEquals(new TreeSet<>(asList(time, time.plusSeconds(20))), svc.mementoBounds(identifier, null)
+                .toCompletableFuture().join());
+        assertEquals(new TreeSet<>(asList(time, time.plusSeconds(10), time.plusSeconds(20))),
+                svc.mementoBounds(identifier, time.minusSeconds(1)).toCompletableFuture().join());
+        assertEquals(new TreeSet<>(asList(time, time.plusSeconds(10), time.plusSeconds(20))),
+                svc.mementoBounds(identifier, time.plusMillis(500)).toCompletableFuture().join());
+    }
+
     @Test
     void testListNonExistent() {
         final File dir = new File(getClass().getResource("/versions").getFile());
@@ -289,4 +578,30 @@ class FileMementoServiceTest {
         assertEquals(2L, svc.mementos(identifier).toCompletableFuture().join().size(),
                 "Incorrect count of Mementos!");
     }
+
+    private static Resource mockVersion(final IRI identifier, final Instant time, final String title) {
+        final Resource mockResource = mock(Resource.class);
+        when(mockResource.getIdentifier()).thenReturn(identifier);
+        when(mockResource.getInteractionModel()).thenReturn(LDP.RDFSource);
+        when(mockResource.getModified()).thenReturn(time);
+        when(mockResource.getContainer()).thenReturn(of(rdf.createIRI(TRELLIS_DATA_PREFIX)));
+        when(mockResource.getBinaryMetadata()).thenReturn(empty());
+        when(mockResource.getMembershipResource()).thenReturn(empty());
+        when(mockResource.getMemberOfRelation()).thenReturn(empty());
+        when(mockResource.getMemberRelation()).thenReturn(empty());
+        when(mockResource.getInsertedContentRelation()).thenReturn(empty());
+        when(mockResource.stream()).thenAnswer(inv -> Stream.of(
+                    rdf.createQuad(Trellis.PreferUserManaged, identifier, DC.title, rdf.createLiteral(title)),
+                    rdf.createQuad(Trellis.PreferUserManaged, identifier, DC.description,
+                        rdf.createLiteral("A description"))));
+        return mockResource;
+    }
+
+    private static void assertVersion(final Resource res, final Instant time, final String title) {
+        assertEquals(time, res.getModified());
+        assertEquals(LDP.RDFSource, res.getInteractionModel());
+        assertTrue(res.stream(Trellis.PreferUserManaged).anyMatch(triple -> DC.title.equals(triple.getPredicate())
+                    && rdf.createLiteral(title).equals(triple.getObject())), "Missing title " + title);
+        assertEquals(2L, res.stream(Trellis.PreferUserManaged).count());
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.file;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test memento compression formats.
+ */
+class MementoCompressionTest {
+
+    private static final String DATA = "<trellis:data/resource> <http://purl.org/dc/terms/title> \"Title\" .";
+
+    @Test
+    void testOf() {
+        assertEquals(MementoCompression.NONE, MementoCompression.of("1565965261.nq"), "Wrong format for .nq!");
+        assertEquals(MementoCompression.GZIP, MementoCompression.of("1565965261.nq.gz"), "Wrong format for .gz!");
+        assertEquals(MementoCompression.ZSTD, MementoCompression.of("1565965261.rdfb.zst"), "Wrong format for .zst!");
+        assertEquals("1565965261.delta", MementoCompression.uncompressedName("1565965261.delta.gz"),
+                "Incorrect uncompressed name!");
+        assertEquals("1565965261.nq", MementoCompression.uncompressedName("1565965261.nq"),
+                "Incorrect uncompressed name!");
+    }
+
+    @Test
+    void testFromConfig() {
+        assertEquals(MementoCompression.GZIP, MementoCompression.fromConfig("gzip"), "Wrong format for gzip!");
+        assertEquals(MementoCompression.ZSTD, MementoCompression.fromConfig(" ZSTD "), "Wrong format for zstd!");
+        assertEquals(MementoCompression.NONE, MementoCompression.fromConfig("none"), "Wrong format for none!");
+        assertEquals(MementoCompression.NONE, MementoCompression.fromConfig(null), "Wrong format for null!");
+        assertEquals(MementoCompression.NONE, MementoCompression.fromConfig(" "), "Wrong format for blank!");
+        assertThrows(IllegalArgumentException.class, () -> MementoCompression.fromConfig("lzma"),
+                "No exception for an unknown format!");
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        for (final MementoCompression compression : MementoCompression.values()) {
+            assertTrue(compression.isAvailable(), "Compression not available: " + compression);
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (final OutputStream out = compression.compress(bytes)) {
+                for (int i = 0; i < 100; i++) {
+                    out.write(DATA.getBytes(UTF_8));
+                }
+            }
+            if (compression != MementoCompression.NONE) {
+                assertTrue(bytes.size() < DATA.length() * 10, "Data not compressed: " + compression);
+            }
+            try (final InputStream in = compression.decompress(new ByteArrayInputStream(bytes.toByteArray()))) {
+                assertEquals(DATA.repeat(100), new String(in.readAllBytes(), UTF_8),
+                        "Incorrect round trip: " + compression);
+            }
+        }
+    }
+}
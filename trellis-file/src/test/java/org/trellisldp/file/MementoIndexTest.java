@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.file;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.io.FileUtils.deleteDirectory;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the per-resource memento index.
+ */
+class MementoIndexTest {
+
+    private static final File BASE = new File(MementoIndexTest.class.getResource("/versions").getFile())
+        .getParentFile();
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        final File dir = new File(BASE, "index");
+        if (dir.exists()) {
+            deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    void testRebuildWhenMissing() throws IOException {
+        final File dir = createDirectory("missing", 1500000300L, 1500000100L, 1500000200L);
+        final Path index = dir.toPath().resolve(MementoIndex.FILENAME);
+        assertFalse(Files.exists(index), "Unexpected index file!");
+
+        assertArrayEquals(new long[] {1500000100L, 1500000200L, 1500000300L}, MementoIndex.read(dir),
+                "Incorrect memento times!");
+        assertTrue(Files.exists(index), "Missing index file!");
+    }
+
+    @Test
+    void testAdd() throws IOException {
+        final File dir = createDirectory("add", 1500000100L);
+        assertArrayEquals(new long[] {1500000100L}, MementoIndex.read(dir), "Incorrect initial memento times!");
+
+        final File later = addFile(dir, "1500000300.nq");
+        MementoIndex.add(dir, later);
+        MementoIndex.add(dir, addFile(dir, "1500000200.nq.gz"));
+        MementoIndex.add(dir, later);
+        assertArrayEquals(new long[] {1500000100L, 1500000200L, 1500000300L}, MementoIndex.read(dir),
+                "Incorrect memento times after appending!");
+    }
+
+    @Test
+    void testRemove() throws IOException {
+        final File dir = createDirectory("remove", 1500000100L, 1500000200L);
+        MementoIndex.remove(dir, 1500000100L);
+        MementoIndex.remove(dir, 1500000500L);
+        assertArrayEquals(new long[] {1500000200L}, MementoIndex.read(dir), "Incorrect memento times!");
+        assertDoesNotThrow(() -> MementoIndex.remove(new File(BASE, "index/non-existent"), 1500000100L));
+    }
+
+    @Test
+    void testTruncatedIndex() throws IOException {
+        final File dir = createDirectory("truncated", 1500000100L, 1500000200L);
+        MementoIndex.read(dir);
+        MementoIndex.add(dir, new File(dir, "1500000900.nq"));
+        Files.write(dir.toPath().resolve(MementoIndex.FILENAME), new byte[] {1, 2, 3}, APPEND);
+
+        assertArrayEquals(new long[] {1500000100L, 1500000200L}, MementoIndex.read(dir),
+                "Index not rebuilt from directory!");
+    }
+
+    @Test
+    void testBadMagic() throws IOException {
+        final File dir = createDirectory("magic", 1500000100L);
+        Files.write(dir.toPath().resolve(MementoIndex.FILENAME), new byte[] {1, 2, 3, 4});
+
+        assertArrayEquals(new long[] {1500000100L}, MementoIndex.read(dir), "Index not rebuilt from directory!");
+    }
+
+    @Test
+    void testReadWithoutLock() throws Exception {
+        final File dir = createDirectory("unlocked", 1500000100L);
+        MementoIndex.read(dir);
+        final CompletableFuture<long[]> times;
+        synchronized (MementoIndex.lock(dir)) {
+            times = supplyAsync(() -> MementoIndex.read(dir));
+            assertArrayEquals(new long[] {1500000100L}, times.get(5, SECONDS), "Read blocked by the lock!");
+        }
+    }
+
+    @Test
+    void testFileTypes() throws IOException {
+        final File dir = createDirectory("types", 1500000100L);
+        final Instant time = Instant.ofEpochSecond(1500000200L);
+        final File delta = DeltaMemento.getDeltaFile(dir, time, MementoCompression.GZIP);
+        Files.createFile(delta.toPath());
+        Files.createFile(FileUtils.getNquadsFile(dir, time).toPath());
+
+        // A full copy takes precedence over a delta for the same time
+        long[] entries = MementoIndex.readEntries(dir);
+        assertEquals(FileUtils.getNquadsFile(dir, Instant.ofEpochSecond(1500000100L)),
+                MementoIndex.getFile(dir, entries[0]), "Incorrect first memento file!");
+        assertEquals(FileUtils.getNquadsFile(dir, time), MementoIndex.getFile(dir, entries[1]),
+                "Incorrect second memento file!");
+        assertFalse(MementoIndex.isDelta(dir, entries[1]), "Unexpected delta!");
+
+        Files.delete(FileUtils.getNquadsFile(dir, time).toPath());
+        MementoIndex.add(dir, delta);
+        entries = MementoIndex.readEntries(dir);
+        assertArrayEquals(new long[] {1500000100L, 1500000200L}, MementoIndex.times(entries),
+                "Incorrect memento times!");
+        assertEquals(delta, MementoIndex.getFile(dir, entries[1]), "Replacement file not recorded!");
+        assertTrue(MementoIndex.isDelta(dir, entries[1]), "Expected a delta!");
+    }
+
+    @Test
+    void testUnknownMagic() throws IOException {
+        final File dir = createDirectory("unknown-magic", 1500000100L, 1500000200L);
+        final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + 2 * Long.BYTES);
+        buffer.putInt(0x54524c49).putLong(1500000100L).putLong(1500000200L);
+        Files.write(dir.toPath().resolve(MementoIndex.FILENAME), buffer.array());
+
+        // An index with any other layout is treated as corrupt and rebuilt
+        final long[] entries = MementoIndex.readEntries(dir);
+        assertArrayEquals(new long[] {1500000100L, 1500000200L}, MementoIndex.times(entries),
+                "Incorrect memento times!");
+        assertEquals(new File(dir, "1500000200.nq"), MementoIndex.getFile(dir, entries[1]),
+                "Incorrect memento file!");
+    }
+
+    @Test
+    void testTypeCodes() throws IOException {
+        final File dir = createDirectory("type-codes");
+        for (final String name : new String[] {"1500000100.nq", "1500000200.nq.gz", "1500000300.rdfb.zst",
+                "1500000400.delta.gz"}) {
+            addFile(dir, name);
+        }
+
+        // The type codes are persisted, so they must not change
+        final long[] entries = MementoIndex.readEntries(dir);
+        assertArrayEquals(new long[] {0x10L, 0x11L, 0x22L, 0x31L},
+                LongStream.of(entries).map(entry -> entry & 0xff).toArray(), "Incorrect type codes!");
+        assertEquals(new File(dir, "1500000300.rdfb.zst"), MementoIndex.getFile(dir, entries[2]),
+                "Incorrect memento file!");
+    }
+
+    @Test
+    void testNonExistentDirectory() {
+        final File dir = new File(BASE, "index/non-existent");
+        assertEquals(0, MementoIndex.read(dir).length, "Unexpected memento times!");
+        assertEquals(0, MementoIndex.rebuild(dir).length, "Unexpected memento times!");
+        assertFalse(dir.exists(), "Unexpected directory!");
+    }
+
+    @Test
+    void testBefore() {
+        final long[] times = new long[] {100L, 200L, 300L};
+        assertEquals(-1, MementoIndex.before(times, 50L), "Incorrect position before first memento!");
+        assertEquals(-1, MementoIndex.before(times, 100L), "Incorrect position at first memento!");
+        assertEquals(0, MementoIndex.before(times, 150L), "Incorrect position between mementos!");
+        assertEquals(1, MementoIndex.before(times, 300L), "Incorrect position at last memento!");
+        assertEquals(2, MementoIndex.before(times, 500L), "Incorrect position after last memento!");
+    }
+
+    private static File addFile(final File dir, final String name) throws IOException {
+        final File file = new File(dir, name);
+        Files.createFile(file.toPath());
+        return file;
+    }
+
+    private static File createDirectory(final String name, final long... times) throws IOException {
+        final File dir = new File(BASE, "index/" + name);
+        dir.mkdirs();
+        for (final long time : times) {
+            Files.createFile(new File(dir, time + ".nq").toPath());
+        }
+        return dir;
+    }
+}
@@ -50,8 +50,10 @@ import jakarta.ws.rs.core.SecurityContext;
 import jakarta.ws.rs.core.UriInfo;
 
 import java.io.InputStream;
+import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedSet;
 import java.util.concurrent.CompletionStage;
 
 import org.apache.commons.rdf.api.Dataset;
@@ -397,7 +399,7 @@ public class TrellisHttpResource {
             LOGGER.debug("Getting versioned resource: {}", req.getVersion());
             return services.getMementoService().get(identifier, req.getVersion().getInstant())
                 .thenApply(getHandler::initialize).thenApply(getHandler::standardHeaders)
-                .thenCombine(services.getMementoService().mementos(identifier), getHandler::addMementoHeaders)
+                .thenCompose(builder -> getHandler.addMementoHeaders(builder, identifier))
                 .thenCompose(getHandler::getRepresentation);
 
         // Fetch a timemap
@@ -414,8 +416,10 @@ public class TrellisHttpResource {
         // Fetch a timegate
         } else if (req.getDatetime() != null) {
             LOGGER.debug("Getting timegate resource: {}", req.getDatetime().getInstant());
+            final CompletionStage<SortedSet<Instant>> bounds = MementoResource.getMementoBounds(
+                    services.getMementoService(), identifier, null);
             return services.getMementoService().get(identifier, req.getDatetime().getInstant())
-                .thenCombine(services.getMementoService().mementos(identifier), (res, mementos) -> {
+                .thenCombine(bounds, (res, mementos) -> {
                     if (MISSING_RESOURCE.equals(res)) {
                         throw new NotAcceptableException();
                     }
@@ -424,11 +428,13 @@ public class TrellisHttpResource {
                 });
         }
 
-        // Fetch the current state of the resource
+        // Fetch the current state of the resource, reading the memento bounds concurrently
         LOGGER.debug("Getting resource at: {}", identifier);
+        final CompletionStage<SortedSet<Instant>> bounds = MementoResource.getMementoBounds(
+                services.getMementoService(), identifier, null);
         return services.getResourceService().get(identifier).thenApply(getHandler::initialize)
             .thenApply(getHandler::standardHeaders)
-            .thenCombine(services.getMementoService().mementos(identifier), getHandler::addMementoHeaders)
+            .thenCombine(bounds, getHandler::addMementoHeaders)
             .thenCompose(getHandler::getRepresentation);
     }
 
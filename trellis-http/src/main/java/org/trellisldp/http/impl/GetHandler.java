@@ -31,6 +31,7 @@ import static jakarta.ws.rs.core.Response.Status.GONE;
 import static jakarta.ws.rs.core.Response.Status.NO_CONTENT;
 import static jakarta.ws.rs.core.Response.ok;
 import static java.lang.String.join;
+import static java.nio.file.StandardOpenOption.READ;
 import static java.util.Date.from;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.stream.Collectors.joining;
@@ -76,10 +77,16 @@ import jakarta.ws.rs.core.UriBuilder;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.CompletionStage;
@@ -93,6 +100,7 @@ import org.trellisldp.api.Binary;
 import org.trellisldp.api.BinaryMetadata;
 import org.trellisldp.api.Resource;
 import org.trellisldp.common.Prefer;
+import org.trellisldp.common.Range;
 import org.trellisldp.common.ServiceBundler;
 import org.trellisldp.common.TrellisRequest;
 import org.trellisldp.common.Version;
@@ -162,9 +170,13 @@ public class GetHandler extends BaseLdpHandler {
         }
 
         final IRI ext = getExtensionGraphName();
-        if (ext != null && !resource.stream(ext).findAny().isPresent()) {
-            LOGGER.trace("No stream for extention: {}", ext);
-            throw new NotFoundException();
+        if (ext != null) {
+            try (final Stream<Quad> stream = resource.stream(ext)) {
+                if (!stream.findAny().isPresent()) {
+                    LOGGER.trace("No stream for extention: {}", ext);
+                    throw new NotFoundException();
+                }
+            }
         }
 
         setResource(resource);
@@ -260,6 +272,21 @@ public class GetHandler extends BaseLdpHandler {
         return builder;
     }
 
+    /**
+     * Add the memento headers, fetching only the Memento dateTimes that appear in those headers.
+     * @param builder the ResponseBuilder
+     * @param identifier the resource identifier
+     * @return the next completion stage, containing the response builder
+     */
+    public CompletionStage<ResponseBuilder> addMementoHeaders(final ResponseBuilder builder, final IRI identifier) {
+        if (getExtensionGraphName() != null) {
+            return completedFuture(builder);
+        }
+        return MementoResource.getMementoBounds(getServices().getMementoService(), identifier,
+                isMemento ? getResource().getModified() : null)
+            .thenApply(mementos -> addMementoHeaders(builder, mementos));
+    }
+
     @Override
     protected String getIdentifier() {
         return HttpUtils.buildResourceUrl(getRequest(), getBaseUrl());
@@ -378,11 +405,44 @@ public class GetHandler extends BaseLdpHandler {
         }
 
         // Stream the binary content
-        return getBinaryStream(dsid, getRequest())
-                        .thenApply(in -> (StreamingOutput) out -> copy(in, out))
+        return getServices().getBinaryService().get(dsid)
+                        .thenApply(binary -> getBinaryEntity(binary, getRequest().getRange()))
                         .thenApply(builder::entity);
     }
 
+    private static Object getBinaryEntity(final Binary binary, final Range range) {
+        final Optional<Path> path = binary.getPath().filter(Files::isReadable);
+        if (path.isPresent()) {
+            // A File entity lets the container use sendfile or other zero-copy mechanisms
+            if (range == null) {
+                return path.get().toFile();
+            }
+            // JAX-RS has no portable entity for a region of a file, so a range is still copied into the
+            // response stream; reading starts at the range offset rather than skipping through the file
+            return (StreamingOutput) out -> transfer(path.get(), range.getFrom(), range.getTo() - range.getFrom(),
+                    out);
+        }
+        final InputStream in = range == null ? binary.getContent()
+            : binary.getContent(range.getFrom(), range.getTo());
+        return (StreamingOutput) out -> copy(in, out);
+    }
+
+    private static void transfer(final Path path, final long from, final long length, final OutputStream to)
+            throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, READ)) {
+            final WritableByteChannel target = Channels.newChannel(to);
+            final long end = Math.min(channel.size(), from + length);
+            long position = from;
+            while (position < end) {
+                final long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
     private static void copy(final InputStream from, final OutputStream to) throws IOException {
         if (from != null) {
             from.transferTo(to);
@@ -392,14 +452,6 @@ public class GetHandler extends BaseLdpHandler {
         }
     }
 
-    private CompletionStage<InputStream> getBinaryStream(final IRI dsid, final TrellisRequest req) {
-        if (req.getRange() == null) {
-            return getServices().getBinaryService().get(dsid).thenApply(Binary::getContent);
-        }
-        return getServices().getBinaryService().get(dsid)
-                        .thenApply(b -> b.getContent(req.getRange().getFrom(), req.getRange().getTo()));
-    }
-
     private String buildVaryHeader(final boolean isLdpRs) {
         final List<String> variants = new ArrayList<>();
         variants.add(ACCEPT);
@@ -60,10 +60,12 @@ import java.time.Instant;
 import java.util.Iterator;
 import java.util.List;
 import java.util.SortedSet;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.RDFSyntax;
+import org.trellisldp.api.MementoService;
 import org.trellisldp.common.ServiceBundler;
 import org.trellisldp.common.TrellisRequest;
 
@@ -184,6 +186,27 @@ public final class MementoResource {
                 }));
     }
 
+    /**
+     * Fetch the Memento dateTimes needed to build the Memento headers for a resource.
+     *
+     * <p>Rather than the full history of the resource, the returned set holds only the first and last
+     * Mementos and, if a time is given, the nearest Mementos on either side of that time. These are
+     * read with a single call to {@link MementoService#mementoBounds}. Passing this set to
+     * {@link #getMementoHeaders(String, SortedSet, Instant)} produces the same headers as passing
+     * the full history.
+     *
+     * @param service the memento service
+     * @param identifier the resource identifier
+     * @param time the time of the current memento, which may be null
+     * @return the new completion stage containing the bounding Memento dateTimes
+     */
+    public static CompletionStage<SortedSet<Instant>> getMementoBounds(final MementoService service,
+            final IRI identifier, final Instant time) {
+        // The prev link uses the nearest memento before this time, and the next link uses the
+        // second memento at or after this time.
+        return service.mementoBounds(identifier, time != null ? time.truncatedTo(SECONDS).minusNanos(1) : null);
+    }
+
     /**
      * Get the memento headers.
      * @param identifier the identifier
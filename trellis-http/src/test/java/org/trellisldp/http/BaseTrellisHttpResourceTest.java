@@ -256,6 +256,7 @@ abstract class BaseTrellisHttpResourceTest extends JerseyTest {
         when(mockMementoService.mementos(userDeletedIdentifier)).thenReturn(completedFuture(emptySortedSet()));
         when(mockMementoService.put(any())).thenReturn(completedFuture(null));
         doCallRealMethod().when(mockMementoService).put(any(ResourceService.class), any(IRI.class));
+        doCallRealMethod().when(mockMementoService).mementoBounds(any(IRI.class), any());
     }
 
     private void setUpBinaryService() {
@@ -31,6 +31,7 @@ import static jakarta.ws.rs.core.MediaType.WILDCARD_TYPE;
 import static jakarta.ws.rs.core.Response.Status.NOT_ACCEPTABLE;
 import static jakarta.ws.rs.core.Response.Status.NO_CONTENT;
 import static jakarta.ws.rs.core.Response.Status.OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.time.Instant.now;
 import static java.time.ZoneOffset.UTC;
 import static java.time.ZonedDateTime.ofInstant;
@@ -71,7 +72,11 @@ import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.Link;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.time.Instant;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.List;
@@ -83,6 +88,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.trellisldp.api.BinaryMetadata;
 import org.trellisldp.common.Prefer;
+import org.trellisldp.common.Range;
 import org.trellisldp.vocabulary.ACL;
 import org.trellisldp.vocabulary.LDP;
 import org.trellisldp.vocabulary.OA;
@@ -377,6 +383,53 @@ class GetHandlerTest extends BaseTestHandler {
         }
     }
 
+    @Test
+    void testGetBinaryFromPath() throws IOException {
+        final File file = new File(getClass().getResource("/simpleData.txt").getFile());
+        when(mockBinary.getPath()).thenReturn(of(file.toPath()));
+        when(mockResource.getBinaryMetadata()).thenReturn(of(testBinary));
+        when(mockResource.getInteractionModel()).thenReturn(LDP.NonRDFSource);
+        when(mockTrellisRequest.getAcceptableMediaTypes()).thenReturn(singletonList(WILDCARD_TYPE));
+
+        final GetConfiguration config = new GetConfiguration(false, true, true, null, baseUrl);
+        final GetHandler handler = new GetHandler(mockTrellisRequest, mockBundler, extensions, config);
+        try (final Response res = handler.getRepresentation(handler.standardHeaders(handler.initialize(mockResource)))
+                        .toCompletableFuture().join().build()) {
+            assertEquals(OK, res.getStatusInfo(), ERR_RESPONSE_CODE);
+            assertTrue(res.getMediaType().isCompatible(TEXT_PLAIN_TYPE), ERR_CONTENT_TYPE);
+            assertEquals(file, res.getEntity(), "Binary not served from its file!");
+        }
+    }
+
+    @Test
+    void testGetBinaryRangeFromPath() throws IOException {
+        final File file = new File(getClass().getResource("/simpleData.txt").getFile());
+        when(mockBinary.getPath()).thenReturn(of(file.toPath()));
+        when(mockResource.getBinaryMetadata()).thenReturn(of(testBinary));
+        when(mockResource.getInteractionModel()).thenReturn(LDP.NonRDFSource);
+        when(mockTrellisRequest.getAcceptableMediaTypes()).thenReturn(singletonList(WILDCARD_TYPE));
+        when(mockTrellisRequest.getRange()).thenReturn(new Range(2, 7));
+
+        final GetConfiguration config = new GetConfiguration(false, true, true, null, baseUrl);
+        final GetHandler handler = new GetHandler(mockTrellisRequest, mockBundler, extensions, config);
+        try (final Response res = handler.getRepresentation(handler.standardHeaders(handler.initialize(mockResource)))
+                        .toCompletableFuture().join().build()) {
+            assertEquals(OK, res.getStatusInfo(), ERR_RESPONSE_CODE);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ((StreamingOutput) res.getEntity()).write(out);
+            assertEquals("me da", out.toString(UTF_8), "Incorrect binary range!");
+        }
+
+        // Ranges past the end of the file are truncated
+        when(mockTrellisRequest.getRange()).thenReturn(new Range(5, 100));
+        try (final Response res = handler.getRepresentation(handler.standardHeaders(handler.initialize(mockResource)))
+                        .toCompletableFuture().join().build()) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ((StreamingOutput) res.getEntity()).write(out);
+            assertEquals("data\n", out.toString(UTF_8), "Incorrect truncated binary range!");
+        }
+    }
+
     @Test
     void testGetAcl() {
         when(mockResource.getInteractionModel()).thenReturn(LDP.Container);
@@ -21,8 +21,11 @@ import static java.time.Instant.now;
 import static java.time.ZoneOffset.UTC;
 import static java.time.ZonedDateTime.ofInstant;
 import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.trellisldp.api.Resource.SpecialResources.MISSING_RESOURCE;
 import static org.trellisldp.common.HttpConstants.DATETIME;
 import static org.trellisldp.common.HttpConstants.FROM;
 import static org.trellisldp.common.HttpConstants.MEMENTO;
@@ -35,8 +38,13 @@ import java.time.Instant;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CompletionStage;
 
+import org.apache.commons.rdf.api.IRI;
 import org.junit.jupiter.api.Test;
+import org.trellisldp.api.MementoService;
+import org.trellisldp.api.RDFFactory;
+import org.trellisldp.api.Resource;
 
 class MementoResourceTest {
 
@@ -80,6 +88,44 @@ class MementoResourceTest {
         assertFalse(mr.filterLinkParams(link).getParams().containsKey(DATETIME));
     }
 
+    @Test
+    void testMementoBounds() {
+        final SortedSet<Instant> mementos = new TreeSet<>();
+        final Instant time = now().truncatedTo(SECONDS);
+        for (long i = 0; i < 10; i++) {
+            mementos.add(time.plusSeconds(i * 2));
+        }
+        final MementoService service = new MementoService() {
+            @Override
+            public CompletionStage<Void> put(final Resource resource) {
+                return completedFuture(null);
+            }
+
+            @Override
+            public CompletionStage<Resource> get(final IRI identifier, final Instant time) {
+                return completedFuture(MISSING_RESOURCE);
+            }
+
+            @Override
+            public CompletionStage<SortedSet<Instant>> mementos(final IRI identifier) {
+                return completedFuture(mementos);
+            }
+        };
+        final IRI identifier = RDFFactory.getInstance().createIRI("trellis:data/resource");
+
+        final SortedSet<Instant> current = MementoResource.getMementoBounds(service, identifier, null)
+            .toCompletableFuture().join();
+        assertEquals(2L, current.size());
+        assertEquals(headers(mementos, null), headers(current, null));
+        for (long i = -1; i < 21; i++) {
+            final Instant moment = time.plusSeconds(i);
+            final SortedSet<Instant> bounds = MementoResource.getMementoBounds(service, identifier, moment)
+                .toCompletableFuture().join();
+            assertTrue(bounds.size() <= 5L);
+            assertEquals(headers(mementos, moment), headers(bounds, moment), "Incorrect headers at " + moment);
+        }
+    }
+
     @Test
     void testMementoHeadersSingle() {
         final SortedSet<Instant> mementos = new TreeSet<>();
@@ -188,4 +234,8 @@ class MementoResourceTest {
         assertEquals(next, links.stream().filter(l -> l.getRels().contains("next")).count());
         assertEquals(mementos, links.stream().filter(l -> l.getRels().contains("memento")).count());
     }
+
+    private static List<String> headers(final SortedSet<Instant> mementos, final Instant time) {
+        return MementoResource.getMementoHeaders(URL, mementos, time).map(Link::toString).collect(toList());
+    }
 }
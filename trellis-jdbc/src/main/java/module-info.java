@@ -25,6 +25,7 @@ module org.trellisldp.jdbc {
     requires org.apache.jena.core;
     requires org.apache.jena.commonsrdf;
     requires org.jdbi.v3.core;
+    requires static org.postgresql.jdbc;
     requires org.slf4j;
 
     requires jakarta.cdi;
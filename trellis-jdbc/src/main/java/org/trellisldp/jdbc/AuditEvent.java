@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.vocabulary.RDF.type;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.api.RDFFactory;
+import org.trellisldp.vocabulary.PROV;
+import org.trellisldp.vocabulary.Trellis;
+import org.trellisldp.vocabulary.XSD;
+
+/**
+ * A compact representation of a single audit event.
+ *
+ * <p>The audit data for a write typically consists of a {@code prov:Activity} with a type, an
+ * agent, a time and, optionally, a delegate. Rather than storing each of those triples as a
+ * separate row in the {@code log} table, such an activity can be stored as a single row in the
+ * {@code audit_event} table and expanded back into the same triples when it is read.
+ */
+final class AuditEvent {
+
+    /** The columns of the audit_event table. */
+    static final String COLUMNS = "id, activity, activity_type, agent, at_time, delegate";
+
+    private static final RDF rdf = RDFFactory.getInstance();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final String activity;
+    private final String activityType;
+    private final String agent;
+    private final long time;
+    private final String delegate;
+
+    /**
+     * Create an audit event.
+     * @param activity the activity IRI
+     * @param activityType the type of the activity, other than prov:Activity
+     * @param agent the agent associated with the activity
+     * @param time the time of the activity, in nanoseconds since the epoch
+     * @param delegate the agent on whose behalf the activity was performed, which may be null
+     */
+    AuditEvent(final String activity, final String activityType, final String agent, final long time,
+            final String delegate) {
+        this.activity = activity;
+        this.activityType = activityType;
+        this.agent = agent;
+        this.time = time;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Convert this event into a row of column values.
+     * @param identifier the resource identifier
+     * @return the column values, in the order of {@link #COLUMNS}
+     */
+    Object[] toRow(final String identifier) {
+        return new Object[] {identifier, activity, activityType, agent, time, delegate};
+    }
+
+    /**
+     * Expand this event into audit quads.
+     * @param identifier the resource identifier
+     * @return the audit quads
+     */
+    Stream<Quad> toQuads(final IRI identifier) {
+        final IRI subject = rdf.createIRI(activity);
+        final Instant instant = Instant.ofEpochSecond(Math.floorDiv(time, NANOS_PER_SECOND),
+                Math.floorMod(time, NANOS_PER_SECOND));
+        final Stream<Quad> quads = Stream.of(
+                rdf.createQuad(Trellis.PreferAudit, identifier, PROV.wasGeneratedBy, subject),
+                rdf.createQuad(Trellis.PreferAudit, subject, type, PROV.Activity),
+                rdf.createQuad(Trellis.PreferAudit, subject, type, rdf.createIRI(activityType)),
+                rdf.createQuad(Trellis.PreferAudit, subject, PROV.wasAssociatedWith, rdf.createIRI(agent)),
+                rdf.createQuad(Trellis.PreferAudit, subject, PROV.atTime,
+                    rdf.createLiteral(instant.toString(), XSD.dateTime)));
+        if (delegate != null) {
+            return Stream.concat(quads, Stream.of(rdf.createQuad(Trellis.PreferAudit, subject, PROV.actedOnBehalfOf,
+                            rdf.createIRI(delegate))));
+        }
+        return quads;
+    }
+
+    /**
+     * Extract the audit events from a graph of audit triples.
+     *
+     * <p>An activity is extracted only if its triples can be reproduced exactly by {@link #toQuads}.
+     *
+     * @param identifier the resource identifier
+     * @param graph the audit graph
+     * @param events a list to which the extracted events are added
+     * @return the triples that are not represented by any of the extracted events
+     */
+    static List<Triple> extract(final IRI identifier, final Graph graph, final List<AuditEvent> events) {
+        final List<Triple> triples = graph.stream().collect(toList());
+        final Set<Triple> extracted = new HashSet<>();
+        triples.stream().filter(triple -> identifier.equals(triple.getSubject()))
+            .filter(triple -> PROV.wasGeneratedBy.equals(triple.getPredicate()))
+            .filter(triple -> triple.getObject() instanceof IRI).forEach(triple -> {
+                final IRI activity = (IRI) triple.getObject();
+                final List<Triple> related = triples.stream().filter(t -> activity.equals(t.getSubject()))
+                    .collect(toList());
+                final boolean referenced = triples.stream().filter(t -> t != triple)
+                    .anyMatch(t -> activity.equals(t.getObject()));
+                final AuditEvent event = referenced ? null : fromTriples(activity, related);
+                if (event != null) {
+                    events.add(event);
+                    extracted.add(triple);
+                    extracted.addAll(related);
+                }
+            });
+        return triples.stream().filter(triple -> !extracted.contains(triple)).collect(toList());
+    }
+
+    private static AuditEvent fromTriples(final IRI activity, final List<Triple> triples) {
+        final List<RDFTerm> types = new ArrayList<>();
+        final List<RDFTerm> agents = new ArrayList<>();
+        final List<RDFTerm> times = new ArrayList<>();
+        final List<RDFTerm> delegates = new ArrayList<>();
+        for (final Triple triple : triples) {
+            if (type.equals(triple.getPredicate())) {
+                types.add(triple.getObject());
+            } else if (PROV.wasAssociatedWith.equals(triple.getPredicate())) {
+                agents.add(triple.getObject());
+            } else if (PROV.atTime.equals(triple.getPredicate())) {
+                times.add(triple.getObject());
+            } else if (PROV.actedOnBehalfOf.equals(triple.getPredicate())) {
+                delegates.add(triple.getObject());
+            } else {
+                return null;
+            }
+        }
+
+        if (types.size() != 2 || !types.remove(PROV.Activity) || !isIRI(types) || !isIRI(agents)
+                || times.size() != 1 || !delegates.isEmpty() && !isIRI(delegates)) {
+            return null;
+        }
+        final Long time = toNanos(times.get(0));
+        if (time == null) {
+            return null;
+        }
+        return new AuditEvent(activity.getIRIString(), ((IRI) types.get(0)).getIRIString(),
+                ((IRI) agents.get(0)).getIRIString(), time,
+                delegates.isEmpty() ? null : ((IRI) delegates.get(0)).getIRIString());
+    }
+
+    private static boolean isIRI(final List<RDFTerm> terms) {
+        return terms.size() == 1 && terms.get(0) instanceof IRI;
+    }
+
+    /*
+     * Convert an xsd:dateTime literal into nanoseconds since the epoch, provided that the literal
+     * can be reproduced exactly from that value.
+     */
+    private static Long toNanos(final RDFTerm term) {
+        if (term instanceof Literal && XSD.dateTime.equals(((Literal) term).getDatatype())) {
+            final String lexical = ((Literal) term).getLexicalForm();
+            try {
+                final Instant instant = Instant.parse(lexical);
+                if (instant.toString().equals(lexical)) {
+                    return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND),
+                            instant.getNano());
+                }
+            } catch (final DateTimeParseException | ArithmeticException ex) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.rdf.api.RDF;
+import org.jdbi.v3.core.ConnectionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.trellisldp.api.RDFFactory;
+
+/**
+ * A listener for cache invalidation messages sent by other nodes using PostgreSQL {@code LISTEN/NOTIFY}.
+ *
+ * <p>Every write to a resource sends a notification on the {@link #CHANNEL} channel as part of the
+ * same transaction, and each listener removes the corresponding resource from its local cache.
+ * Notifications sent while a listener is disconnected are lost, so the cache is disabled whenever
+ * the listener is not connected, and it is emptied each time the listener reconnects.
+ *
+ * <p>The listener holds its connection for as long as it runs, so it should be given a connection
+ * factory that opens a dedicated connection, rather than one that borrows from a connection pool.
+ */
+class CacheListener implements Runnable {
+
+    /** The notification channel used for cache invalidation. */
+    static final String CHANNEL = "trellis_cache";
+
+    private static final Logger LOGGER = getLogger(CacheListener.class);
+    private static final RDF rdf = RDFFactory.getInstance();
+    private static final int POLL_INTERVAL = 500;
+    private static final long RETRY_INTERVAL = 5000L;
+
+    private final ConnectionFactory connections;
+    private final ResourceCache cache;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Create a cache listener.
+     * @param ds the datasource
+     * @param cache the resource cache
+     */
+    CacheListener(final DataSource ds, final ResourceCache cache) {
+        this(ds::getConnection, cache);
+    }
+
+    /**
+     * Create a cache listener.
+     * @param connections the factory used to open the listening connection
+     * @param cache the resource cache
+     */
+    CacheListener(final ConnectionFactory connections, final ResourceCache cache) {
+        this.connections = connections;
+        this.cache = cache;
+        this.thread = new Thread(this, "trellis-jdbc-cache-listener");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Start listening for notifications. The cache remains disabled until the listener has connected.
+     */
+    void start() {
+        cache.setEnabled(false);
+        thread.start();
+    }
+
+    /**
+     * Stop listening for notifications.
+     */
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                listen();
+            } catch (final SQLException ex) {
+                LOGGER.warn("Lost connection to the cache invalidation channel: {}", ex.getMessage());
+            } finally {
+                cache.setEnabled(false);
+            }
+            pause();
+        }
+    }
+
+    private void listen() throws SQLException {
+        try (final Connection connection = connections.openConnection();
+                final Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+            final PGConnection pg = connection.unwrap(PGConnection.class);
+            // Any notifications sent before this point were missed, so the cache starts out empty
+            cache.setEnabled(true);
+            LOGGER.debug("Listening for cache invalidation messages");
+            while (running) {
+                final PGNotification[] notifications = pg.getNotifications(POLL_INTERVAL);
+                if (notifications != null) {
+                    for (final PGNotification notification : notifications) {
+                        cache.invalidate(rdf.createIRI(notification.getParameter()));
+                    }
+                }
+            }
+        }
+    }
+
+    private void pause() {
+        if (running) {
+            try {
+                Thread.sleep(RETRY_INTERVAL);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Optional.ofNullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Quad;
+
+/**
+ * A single page of containment quads.
+ *
+ * <p>Containment pages are retrieved using keyset pagination over the internal
+ * resource ID of each child. The value returned by {@link #getNext} can be used
+ * to retrieve the page that immediately follows this one.
+ */
+public final class ContainmentPage {
+
+    private final List<Quad> quads;
+    private final Long next;
+
+    /**
+     * Create a containment page.
+     * @param quads the containment quads on this page
+     * @param next the keyset value for the next page, or null if this is the last page
+     */
+    ContainmentPage(final List<Quad> quads, final Long next) {
+        this.quads = unmodifiableList(quads);
+        this.next = next;
+    }
+
+    /**
+     * Get the containment quads on this page.
+     * @return the containment quads
+     */
+    public List<Quad> getQuads() {
+        return quads;
+    }
+
+    /**
+     * Get the keyset value for the next page.
+     * @return the keyset value for the next page, if one exists
+     */
+    public Optional<Long> getNext() {
+        return ofNullable(next);
+    }
+
+    /**
+     * Stream the containment quads on this page.
+     * @return a stream of containment quads
+     */
+    public Stream<Quad> stream() {
+        return quads.stream();
+    }
+}
@@ -15,8 +15,12 @@
  */
 package org.trellisldp.jdbc;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static org.apache.jena.commonsrdf.JenaCommonsRDF.fromJena;
@@ -27,15 +31,26 @@ import static org.trellisldp.api.Resource.SpecialResources.DELETED_RESOURCE;
 import static org.trellisldp.api.Resource.SpecialResources.MISSING_RESOURCE;
 import static org.trellisldp.vocabulary.RDF.type;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.Instant;
-import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -47,7 +62,12 @@ import org.apache.commons.rdf.api.RDF;
 import org.apache.commons.rdf.api.RDFTerm;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.riot.RDFParser;
+import org.jdbi.v3.core.HandleCallback;
+import org.jdbi.v3.core.HandleConsumer;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.Query;
+import org.jdbi.v3.core.statement.StatementContext;
 import org.slf4j.Logger;
 import org.trellisldp.api.BinaryMetadata;
 import org.trellisldp.api.RDFFactory;
@@ -73,6 +93,28 @@ public class DBResource implements Resource {
     private static final String MEMBERSHIP_RESOURCE = "ldp_membership_resource";
     private static final String HAS_MEMBER_RELATION = "ldp_has_member_relation";
     private static final String IS_MEMBER_OF_RELATION = "ldp_is_member_of_relation";
+    private static final String EXTRA_PREDICATE = "extra_predicate";
+    private static final String EXTRA_OBJECT = "extra_object";
+    private static final String PARENT_JOIN = "FROM resource AS r "
+        + "INNER JOIN resource AS r2 ON r.is_part_of = r2.subject ";
+    private static final String CHILD_JOIN = "FROM resource AS r "
+        + "INNER JOIN resource AS r2 ON r.subject = r2.is_part_of ";
+    private static final String DATATYPE_JOIN = "LEFT JOIN term AS dt ON d.datatype_id = dt.id ";
+    private static final String TERM_JOIN = "LEFT JOIN term AS p ON d.predicate_id = p.id " + DATATYPE_JOIN;
+    private static final String TERM_COLUMNS = "d.subject, COALESCE(d.predicate, p.value) AS predicate, d.object, "
+        + "d.lang, COALESCE(d.datatype, dt.value) AS datatype ";
+    private static final String TRIPLE_COLUMNS = "d.subject, COALESCE(d.predicate, p.value), d.object, d.lang, "
+        + "COALESCE(d.datatype, dt.value), NULL, CAST(NULL AS BIGINT) ";
+    private static final String NO_AT_TIME = ", CAST(NULL AS BIGINT) ";
+    private static final String CONTENT_JOIN = "INNER JOIN description AS d ON r.id = d.resource_id "
+        + "   AND d.predicate = r2.ldp_inserted_content_relation ";
+    private static final String INTERNED_CONTENT_JOIN
+        = "LEFT JOIN term AS t ON t.value = r2.ldp_inserted_content_relation "
+        + "INNER JOIN description AS d ON r.id = d.resource_id "
+        + "   AND (d.predicate = r2.ldp_inserted_content_relation OR d.predicate_id = t.id) ";
+    private static final String MATERIALIZED_MEMBERSHIP
+        = "SELECT subject, predicate, object, lang, datatype FROM membership WHERE member = ?";
+    private static final int DEFAULT_CONTAINMENT_PAGE_SIZE = 1000;
     private static final Set<IRI> containerTypes = Set.of(LDP.Container, LDP.BasicContainer, LDP.DirectContainer,
             LDP.IndirectContainer);
 
@@ -81,10 +123,20 @@ public class DBResource implements Resource {
     private final boolean includeLdpType;
     private final boolean supportDirectContainment;
     private final boolean supportIndirectContainment;
+    private final boolean batchFetch;
+    private final int containmentPageSize;
     private final Map<IRI, String> extensions = new HashMap<>();
     private final Map<IRI, Supplier<Stream<Quad>>> graphMapper = new HashMap<>();
 
+    private final ResourceCache cache;
+    private final boolean fillCache;
+    private final Executor executor;
+    private final boolean membershipTable;
+    private final boolean internedTerms;
+    private final UnitOfWork work;
+
     private ResourceData data;
+    private ResourceCache.Entry cached;
 
     /**
      * Create a DB-based Resource.
@@ -98,24 +150,46 @@ public class DBResource implements Resource {
     protected DBResource(final Jdbi jdbi, final IRI identifier, final Map<String, IRI> extensions,
             final boolean includeLdpType, final boolean supportDirectContainment,
             final boolean supportIndirectContainment) {
+        this(jdbi, identifier, ResourceOptions.builder().extensions(extensions).includeLdpType(includeLdpType)
+                .containment(supportDirectContainment, supportIndirectContainment).build());
+    }
+
+    /**
+     * Create a DB-based Resource.
+     * @param jdbi the jdbi object
+     * @param identifier the identifier
+     * @param options the settings used to load the resource
+     */
+    DBResource(final Jdbi jdbi, final IRI identifier, final ResourceOptions options) {
         this.identifier = identifier;
         this.jdbi = jdbi;
-        this.includeLdpType = includeLdpType;
-        this.supportDirectContainment = supportDirectContainment;
-        this.supportIndirectContainment = supportIndirectContainment;
+        this.includeLdpType = options.includeLdpType();
+        this.supportDirectContainment = options.supportDirectContainment();
+        this.supportIndirectContainment = options.supportIndirectContainment();
+        this.batchFetch = options.batchFetch();
+        this.containmentPageSize = options.getContainmentPageSize() > 0
+            ? options.getContainmentPageSize() : DEFAULT_CONTAINMENT_PAGE_SIZE;
+        this.cache = options.getCache();
+        this.fillCache = options.fillCache();
+        this.executor = options.getExecutor();
+        this.membershipTable = options.membershipTable();
+        this.internedTerms = options.internedTerms();
+        this.work = options.sharedHandle() ? new UnitOfWork(jdbi) : null;
         graphMapper.put(Trellis.PreferServerManaged, this::fetchServerManagedQuads);
-        graphMapper.put(Trellis.PreferUserManaged, this::fetchUserManagedQuads);
+        graphMapper.put(Trellis.PreferUserManaged, () ->
+                fetchCachedQuads(Trellis.PreferUserManaged, this::fetchUserManagedQuads));
         graphMapper.put(Trellis.PreferAudit, this::fetchAuditQuads);
-        graphMapper.put(Trellis.PreferAccessControl, this::fetchAccessControlQuads);
+        graphMapper.put(Trellis.PreferAccessControl, () ->
+                fetchCachedQuads(Trellis.PreferAccessControl, this::fetchAccessControlQuads));
         graphMapper.put(LDP.PreferContainment, this::fetchContainmentQuads);
         graphMapper.put(LDP.PreferMembership, this::fetchMembershipQuads);
 
-        extensions.forEach((k, v) -> {
+        options.getExtensions().forEach((k, v) -> {
             if (!graphMapper.containsKey(v)) {
                 this.extensions.put(v, k);
             }
         });
-}
+    }
 
     /**
      * Try to load a Trellis resource.
@@ -156,10 +230,30 @@ public class DBResource implements Resource {
     public static CompletionStage<Resource> findResource(final Jdbi jdbi, final IRI identifier,
             final Map<String, IRI> extensions, final boolean includeLdpType, final boolean supportDirectContainment,
             final boolean supportIndirectContainment) {
+        return findResource(jdbi, identifier, ResourceOptions.builder().extensions(extensions)
+                .includeLdpType(includeLdpType).containment(supportDirectContainment, supportIndirectContainment)
+                .build());
+    }
+
+    /**
+     * Try to load a Trellis resource, using a cache of resource data.
+     *
+     * <p>When batch fetching is enabled, the quads for all of the requested graphs are retrieved
+     * with a single {@code UNION ALL} query rather than with one query per graph. Otherwise, when an
+     * executor is supplied, the queries for the individual graphs of a resource are run concurrently
+     * on that executor. Containment quads are always read page by page, although the first page is
+     * included in the batch query.
+     *
+     * @param jdbi the Jdbi object
+     * @param identifier the identifier
+     * @param options the settings used to load the resource
+     * @return a Resource, if one exists
+     */
+    static CompletionStage<Resource> findResource(final Jdbi jdbi, final IRI identifier,
+            final ResourceOptions options) {
         return supplyAsync(() -> {
-            final DBResource res = new DBResource(jdbi, identifier, extensions, includeLdpType,
-                    supportDirectContainment, supportIndirectContainment);
-            if (!res.fetchData()) {
+            final DBResource res = new DBResource(jdbi, identifier, options);
+            if (!(res.work != null ? res.work.call(res::loadData) : res.loadData())) {
                 return MISSING_RESOURCE;
             }
             if (res.isDeleted()) {
@@ -179,15 +273,39 @@ public class DBResource implements Resource {
 
     @Override
     public Stream<Quad> stream() {
-        return Stream.concat(graphMapper.values().stream().flatMap(Supplier::get),
-                extensions.keySet().stream().flatMap(this::fetchExtensionQuads));
+        return work != null ? work.scope(this::fetchQuads) : fetchQuads();
     }
 
     @Override
     public Stream<Quad> stream(final Collection<IRI> graphNames) {
+        return work != null ? work.scope(() -> fetchQuads(graphNames)) : fetchQuads(graphNames);
+    }
+
+    private Stream<Quad> fetchQuads() {
+        if (batchFetch) {
+            final List<IRI> graphNames = new ArrayList<>(graphMapper.keySet());
+            graphNames.addAll(extensions.keySet());
+            return Stream.of(graphNames).flatMap(this::fetchBatchedQuads);
+        }
+        if (executor != null) {
+            final List<IRI> graphNames = new ArrayList<>(graphMapper.keySet());
+            graphNames.addAll(extensions.keySet());
+            return Stream.of(graphNames).flatMap(this::fetchConcurrently);
+        }
+        return Stream.concat(graphMapper.values().stream().flatMap(Supplier::get),
+                extensions.keySet().stream().flatMap(this::fetchCachedExtensionQuads));
+    }
+
+    private Stream<Quad> fetchQuads(final Collection<IRI> graphNames) {
+        if (batchFetch) {
+            return Stream.of(graphNames).flatMap(this::fetchBatchedQuads);
+        }
+        if (executor != null) {
+            return Stream.of(graphNames).flatMap(this::fetchConcurrently);
+        }
         return Stream.concat(graphNames.stream().filter(graphMapper::containsKey).map(graphMapper::get)
                     .flatMap(Supplier::get),
-                graphNames.stream().filter(extensions::containsKey).flatMap(this::fetchExtensionQuads));
+                graphNames.stream().filter(extensions::containsKey).flatMap(this::fetchCachedExtensionQuads));
     }
 
     @Override
@@ -261,6 +379,9 @@ public class DBResource implements Resource {
      * Combine the various membership-related quad streams.
      */
     private Stream<Quad> fetchMembershipQuads() {
+        if (membershipTable) {
+            return Stream.concat(fetchMaterializedMemberQuads(), fetchDirectMemberQuadsInverse());
+        }
         return Stream.concat(fetchIndirectMemberQuads(),
                 Stream.concat(fetchDirectMemberQuads(), fetchDirectMemberQuadsInverse()));
     }
@@ -294,12 +415,35 @@ public class DBResource implements Resource {
      * Fetch a stream of the audit-related quads.
      */
     private Stream<Quad> fetchAuditQuads() {
-        final String query = "SELECT subject, predicate, object, lang, datatype FROM log WHERE id = ?";
-        return jdbi.withHandle(handle -> handle.select(query, getIdentifier().getIRIString())
+        final String query = "SELECT " + TERM_COLUMNS + "FROM log AS d " + TERM_JOIN + "WHERE d.id = ?";
+        final String events = "SELECT activity, activity_type, agent, at_time, delegate FROM audit_event WHERE id = ?";
+        return withHandle(handle -> {
+            final List<Quad> quads = handle.select(query, getIdentifier().getIRIString())
                 .map((rs, ctx) -> rdf.createQuad(Trellis.PreferAudit, rdf.createIRI(rs.getString(SUBJECT)),
                         rdf.createIRI(rs.getString(PREDICATE)),
                         getObject(rs.getString(OBJECT), rs.getString(LANG), rs.getString(DATATYPE))))
-                .list()).stream().map(Quad.class::cast);
+                .list();
+            // Compact audit events are expanded lazily, as the stream is consumed
+            final List<AuditEvent> audit = handle.select(events, getIdentifier().getIRIString())
+                .map((rs, ctx) -> new AuditEvent(rs.getString("activity"), rs.getString("activity_type"),
+                            rs.getString("agent"), rs.getLong("at_time"), rs.getString("delegate")))
+                .list();
+            return Stream.concat(quads.stream(), audit.stream().flatMap(event -> event.toQuads(getIdentifier())));
+        });
+    }
+
+    /**
+     * Fetch a stream of the membership quads that have been materialized in the membership table.
+     */
+    private Stream<Quad> fetchMaterializedMemberQuads() {
+        if (supportDirectContainment || supportIndirectContainment) {
+            return withHandle(handle -> handle.select(MATERIALIZED_MEMBERSHIP, getIdentifier().getIRIString())
+                    .map((rs, ctx) -> rdf.createQuad(LDP.PreferMembership, rdf.createIRI(rs.getString(SUBJECT)),
+                            rdf.createIRI(rs.getString(PREDICATE)),
+                            getObject(rs.getString(OBJECT), rs.getString(LANG), rs.getString(DATATYPE))))
+                    .list()).stream().map(Quad.class::cast);
+        }
+        return Stream.empty();
     }
 
     /**
@@ -309,13 +453,14 @@ public class DBResource implements Resource {
     private Stream<Quad> fetchIndirectMemberQuads() {
         if (supportIndirectContainment) {
             final String query
-                = "SELECT r2.ldp_membership_resource, r2.ldp_has_member_relation, d.object, d.lang, d.datatype "
-                + "FROM resource AS r INNER JOIN resource AS r2 ON r.is_part_of = r2.subject "
-                + "INNER JOIN description AS d ON r.id = d.resource_id "
-                + "   AND d.predicate = r2.ldp_inserted_content_relation "
+                = "SELECT r2.ldp_membership_resource, r2.ldp_has_member_relation, d.object, d.lang, "
+                + "COALESCE(d.datatype, dt.value) AS datatype "
+                + PARENT_JOIN
+                + contentJoin()
+                + DATATYPE_JOIN
                 + "WHERE r2.ldp_member = ? AND r2.interaction_model = ? AND r2.ldp_has_member_relation IS NOT NULL";
 
-            return jdbi.withHandle(handle -> handle.select(query,
+            return withHandle(handle -> handle.select(query,
                         getIdentifier().getIRIString(), LDP.IndirectContainer.getIRIString())
                     .map((rs, ctx) -> rdf.createQuad(LDP.PreferMembership,
                                 rdf.createIRI(rs.getString(MEMBERSHIP_RESOURCE)),
@@ -335,11 +480,11 @@ public class DBResource implements Resource {
         if (supportDirectContainment) {
             final String query
                 = "SELECT r2.ldp_is_member_of_relation, r2.ldp_membership_resource "
-                + "FROM resource AS r INNER JOIN resource AS r2 ON r.is_part_of = r2.subject "
+                + PARENT_JOIN
                 + "WHERE r.subject = ? AND r2.ldp_inserted_content_relation = ? "
                 + "AND r2.ldp_is_member_of_relation IS NOT NULL";
 
-            return jdbi.withHandle(handle -> handle.select(query,
+            return withHandle(handle -> handle.select(query,
                         getIdentifier().getIRIString(), LDP.MemberSubject.getIRIString())
                     .map((rs, ctx) -> rdf.createQuad(LDP.PreferMembership,
                             adjustIdentifier(getIdentifier(), getInteractionModel()),
@@ -358,11 +503,11 @@ public class DBResource implements Resource {
         if (supportDirectContainment) {
             final String query
                 = "SELECT r.ldp_membership_resource, r.ldp_has_member_relation, r2.subject, r2.interaction_model "
-                + "FROM resource AS r INNER JOIN resource AS r2 ON r.subject = r2.is_part_of "
+                + CHILD_JOIN
                 + "WHERE r.ldp_member = ? AND r.ldp_inserted_content_relation = ? "
                 + "AND r.ldp_has_member_relation IS NOT NULL";
 
-            return jdbi.withHandle(handle -> handle.select(query,
+            return withHandle(handle -> handle.select(query,
                         getIdentifier().getIRIString(), LDP.MemberSubject.getIRIString())
                     .map((rs, ctx) -> rdf.createQuad(LDP.PreferMembership,
                             rdf.createIRI(rs.getString(MEMBERSHIP_RESOURCE)),
@@ -375,72 +520,404 @@ public class DBResource implements Resource {
 
     /**
      * Fetch a stream of containment quads for a resource.
+     *
+     * <p>The children are read lazily, one page at a time, so that large containers
+     * need not be held in memory all at once.
      */
     private Stream<Quad> fetchContainmentQuads() {
-        if (getInteractionModel().getIRIString().endsWith("Container")) {
-            final String query = "SELECT subject, interaction_model FROM resource WHERE is_part_of = ?";
-            return jdbi.withHandle(handle -> handle.select(query,
-                        getIdentifier().getIRIString())
-                    .map((rs, ctx) -> rdf.createQuad(LDP.PreferContainment,
-                            adjustIdentifier(getIdentifier(), getInteractionModel()),
-                            LDP.contains,
-                            rdf.createIRI(adjustIdentifier(rs.getString(SUBJECT), rs.getString(IXN_MODEL)))))
-                    .list()).stream().map(Quad.class::cast);
+        if (isContainer()) {
+            return streamContainment(getContainmentPage());
         }
         return Stream.empty();
     }
 
+    private boolean isContainer() {
+        return getInteractionModel().getIRIString().endsWith("Container");
+    }
+
+    /*
+     * Stream the containment quads on a page, and then on each page that follows it.
+     */
+    private Stream<Quad> streamContainment(final ContainmentPage first) {
+        return Stream.iterate(first, Objects::nonNull, page -> page.getNext().map(this::getContainmentPage)
+                .orElse(null)).flatMap(ContainmentPage::stream);
+    }
+
+    /**
+     * Fetch the first page of containment quads for a resource.
+     * @return the first page of containment quads
+     */
+    public ContainmentPage getContainmentPage() {
+        return fetchContainmentPage(null);
+    }
+
+    /**
+     * Fetch a page of containment quads for a resource.
+     * @param after the keyset value returned by {@link ContainmentPage#getNext} for the previous page
+     * @return the page of containment quads that follows the given keyset value
+     */
+    public ContainmentPage getContainmentPage(final long after) {
+        return fetchContainmentPage(after);
+    }
+
+    private ContainmentPage fetchContainmentPage(final Long after) {
+        final String query = "SELECT id, subject, interaction_model FROM resource WHERE is_part_of = ? "
+            + (after != null ? "AND id > ? " : "") + "ORDER BY id LIMIT ?";
+        final List<Long> ids = new ArrayList<>();
+        final List<Quad> quads = new ArrayList<>();
+        useHandle(handle -> {
+            final Query select = handle.createQuery(query).setFetchSize(containmentPageSize)
+                .bind(0, getIdentifier().getIRIString());
+            if (after != null) {
+                select.bind(1, after.longValue());
+            }
+            select.bind(after != null ? 2 : 1, containmentPageSize + 1)
+                .map((rs, ctx) -> {
+                    ids.add(rs.getLong("id"));
+                    return containmentQuad(rs.getString(SUBJECT), rs.getString(IXN_MODEL));
+                }).forEach(quads::add);
+        });
+        return toContainmentPage(ids, quads);
+    }
+
+    private Quad containmentQuad(final String child, final String interactionModel) {
+        return rdf.createQuad(LDP.PreferContainment, adjustIdentifier(getIdentifier(), getInteractionModel()),
+                LDP.contains, rdf.createIRI(adjustIdentifier(child, interactionModel)));
+    }
+
+    /*
+     * One extra row is requested so that the existence of a following page is known in advance.
+     */
+    private ContainmentPage toContainmentPage(final List<Long> ids, final List<Quad> quads) {
+        if (quads.size() > containmentPageSize) {
+            return new ContainmentPage(quads.subList(0, containmentPageSize), ids.get(containmentPageSize - 1));
+        }
+        return new ContainmentPage(quads, null);
+    }
+
+    /**
+     * Fetch the quads for a collection of graphs with a single query.
+     *
+     * <p>Each graph contributes one or more branches to a {@code UNION ALL} statement. Every
+     * branch produces the same eight columns (branch, subject, predicate, object, lang, datatype,
+     * interaction_model and at_time), and the branch number is used to dispatch each row to the
+     * corresponding row mapper. The first page of containment quads is read in the same query, with
+     * the keyset value of each child in the at_time column; any further pages are read as the stream
+     * is consumed. Server-managed quads are built from the resource row, so they need no query.
+     */
+    private Stream<Quad> fetchBatchedQuads(final Collection<IRI> graphNames) {
+        final BatchQuery batch = new BatchQuery();
+        final List<Quad> quads = new ArrayList<>();
+        final Set<IRI> uncached = new HashSet<>();
+        // The rows of a UNION ALL query are not ordered, so the first page of children is sorted by keyset value
+        final SortedMap<Long, Quad> children = new TreeMap<>();
+        final long stamp = cache != null ? cache.stamp() : 0L;
+        for (final IRI graphName : graphNames) {
+            if (cached != null && isCacheable(graphName)) {
+                final Optional<List<Quad>> graph = cached.getGraph(graphName);
+                if (graph.isPresent()) {
+                    quads.addAll(graph.get());
+                    continue;
+                }
+                uncached.add(graphName);
+            }
+
+            if (Trellis.PreferUserManaged.equals(graphName)) {
+                batch.add(TRIPLE_COLUMNS + "FROM description AS d " + TERM_JOIN + "WHERE d.resource_id = ?",
+                        (rs, ctx) -> tripleQuad(Trellis.PreferUserManaged, rs), data.getId());
+            } else if (Trellis.PreferAccessControl.equals(graphName)) {
+                batch.add(TRIPLE_COLUMNS + "FROM acl AS d " + TERM_JOIN + "WHERE d.resource_id = ?",
+                        (rs, ctx) -> tripleQuad(Trellis.PreferAccessControl, rs), data.getId());
+            } else if (Trellis.PreferAudit.equals(graphName)) {
+                batch.add(TRIPLE_COLUMNS + "FROM log AS d " + TERM_JOIN + "WHERE d.id = ?",
+                        (rs, ctx) -> tripleQuad(Trellis.PreferAudit, rs), getIdentifier().getIRIString());
+                batch.add("activity, activity_type, agent, NULL, NULL, delegate, at_time "
+                        + "FROM audit_event WHERE id = ?",
+                        (rs, ctx) -> new AuditEvent(rs.getString(2), rs.getString(3), rs.getString(4), rs.getLong(8),
+                            rs.getString(7)).toQuads(getIdentifier()), getIdentifier().getIRIString());
+            } else if (LDP.PreferContainment.equals(graphName) && isContainer()) {
+                batch.add("c.subject, NULL, NULL, NULL, NULL, c.interaction_model, c.id FROM (SELECT id, subject, "
+                        + "interaction_model FROM resource WHERE is_part_of = ? ORDER BY id LIMIT ?) AS c",
+                        (rs, ctx) -> {
+                            children.put(rs.getLong(8), containmentQuad(rs.getString(2), rs.getString(7)));
+                            return Stream.empty();
+                        }, getIdentifier().getIRIString(), containmentPageSize + 1);
+            } else if (LDP.PreferMembership.equals(graphName)) {
+                addMembershipBranches(batch);
+            } else if (extensions.containsKey(graphName) && hasExtension(graphName)) {
+                addExtensionBranches(batch, graphName);
+            }
+        }
+
+        final Stream<Quad> local = graphNames.contains(Trellis.PreferServerManaged)
+            ? fetchServerManagedQuads() : Stream.empty();
+        if (batch.isEmpty()) {
+            return Stream.concat(quads.stream(), local);
+        }
+
+        final List<Quad> fetched = new ArrayList<>();
+        useHandle(handle -> handle.select(batch.getQuery(), batch.getArguments())
+                .map(batch::map).forEach(stream -> stream.forEach(fetched::add)));
+        if (fillCache && !uncached.isEmpty()) {
+            final Map<IRI, List<Quad>> graphs = fetched.stream()
+                .filter(quad -> quad.getGraphName().filter(uncached::contains).isPresent())
+                .collect(groupingBy(quad -> (IRI) quad.getGraphName().get()));
+            uncached.forEach(graphName -> cache.putGraph(cached, graphName,
+                        graphs.getOrDefault(graphName, emptyList()), stamp));
+        }
+        quads.addAll(fetched);
+        final Stream<Quad> containment = graphNames.contains(LDP.PreferContainment) && isContainer()
+            ? streamContainment(toContainmentPage(new ArrayList<>(children.keySet()),
+                        new ArrayList<>(children.values())))
+            : Stream.empty();
+        return Stream.concat(Stream.concat(quads.stream(), local), containment);
+    }
+
+    /**
+     * Fetch the quads for a collection of graphs, running the query for each graph concurrently.
+     *
+     * <p>The results are returned in the same order as they would be if the graphs were fetched
+     * sequentially. Only the first page of containment quads is fetched concurrently; any further
+     * pages are read as the stream is consumed.
+     */
+    private Stream<Quad> fetchConcurrently(final Collection<IRI> graphNames) {
+        final List<Supplier<Stream<Quad>>> suppliers = Stream.concat(
+                graphNames.stream().filter(graphMapper::containsKey).map(graphMapper::get),
+                graphNames.stream().filter(extensions::containsKey).map(graphName ->
+                    (Supplier<Stream<Quad>>) () -> fetchCachedExtensionQuads(graphName)))
+            .collect(toList());
+        if (suppliers.size() < 2) {
+            return suppliers.stream().flatMap(Supplier::get);
+        }
+        final List<CompletableFuture<Stream<Quad>>> futures = suppliers.stream()
+            .map(supplier -> supplyAsync(supplier, executor)).collect(toList());
+        // Once any query fails, the queries that have not yet started are cancelled
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        futures.forEach(future -> future.whenComplete((quads, ex) -> {
+            if (ex != null && failure.compareAndSet(null, ex)) {
+                futures.forEach(other -> other.cancel(false));
+            }
+        }));
+        return futures.stream().flatMap(future -> join(future, failure));
+    }
+
+    private <R, X extends Exception> R withHandle(final HandleCallback<R, X> callback) throws X {
+        return work != null ? work.withHandle(callback) : jdbi.withHandle(callback);
+    }
+
+    private <X extends Exception> void useHandle(final HandleConsumer<X> consumer) throws X {
+        if (work != null) {
+            work.useHandle(consumer);
+        } else {
+            jdbi.useHandle(consumer);
+        }
+    }
+
+    /*
+     * A future that was cancelled because another one failed reports the original failure instead.
+     */
+    private static <T> T join(final CompletableFuture<T> future, final AtomicReference<Throwable> failure) {
+        try {
+            return future.join();
+        } catch (final CancellationException | CompletionException ex) {
+            final Throwable cause = ex instanceof CompletionException ? ex.getCause() : failure.get();
+            final Throwable original = cause instanceof CompletionException ? cause.getCause() : cause;
+            if (original instanceof RuntimeException) {
+                throw (RuntimeException) original;
+            }
+            throw ex;
+        }
+    }
+
+    /*
+     * Join the children of an LDP-IC to their ldp:insertedContentRelation triples. Matching an interned
+     * predicate needs an OR across two columns, which defeats the index, so it is only used when the
+     * term dictionary may have been used to store the description table.
+     */
+    private String contentJoin() {
+        return internedTerms ? INTERNED_CONTENT_JOIN : CONTENT_JOIN;
+    }
+
+    private void addMembershipBranches(final BatchQuery batch) {
+        if (membershipTable) {
+            if (supportDirectContainment || supportIndirectContainment) {
+                batch.add("subject, predicate, object, lang, datatype, NULL" + NO_AT_TIME
+                        + "FROM membership WHERE member = ?",
+                        (rs, ctx) -> tripleQuad(LDP.PreferMembership, rs), getIdentifier().getIRIString());
+            }
+        } else if (supportIndirectContainment) {
+            batch.add("r2.ldp_membership_resource, r2.ldp_has_member_relation, d.object, d.lang, "
+                    + "COALESCE(d.datatype, dt.value), NULL" + NO_AT_TIME
+                    + PARENT_JOIN
+                    + contentJoin()
+                    + DATATYPE_JOIN
+                    + "WHERE r2.ldp_member = ? AND r2.interaction_model = ? "
+                    + "AND r2.ldp_has_member_relation IS NOT NULL",
+                    (rs, ctx) -> tripleQuad(LDP.PreferMembership, rs),
+                    getIdentifier().getIRIString(), LDP.IndirectContainer.getIRIString());
+        }
+        if (supportDirectContainment && !membershipTable) {
+            batch.add("r.ldp_membership_resource, r.ldp_has_member_relation, r2.subject, NULL, NULL, "
+                    + "r2.interaction_model" + NO_AT_TIME
+                    + CHILD_JOIN
+                    + "WHERE r.ldp_member = ? AND r.ldp_inserted_content_relation = ? "
+                    + "AND r.ldp_has_member_relation IS NOT NULL",
+                    (rs, ctx) -> Stream.of(rdf.createQuad(LDP.PreferMembership, rdf.createIRI(rs.getString(2)),
+                            rdf.createIRI(rs.getString(3)),
+                            rdf.createIRI(adjustIdentifier(rs.getString(4), rs.getString(7))))),
+                    getIdentifier().getIRIString(), LDP.MemberSubject.getIRIString());
+        }
+        if (supportDirectContainment) {
+            batch.add("NULL, r2.ldp_is_member_of_relation, r2.ldp_membership_resource, NULL, NULL, NULL"
+                    + NO_AT_TIME
+                    + PARENT_JOIN
+                    + "WHERE r.subject = ? AND r2.ldp_inserted_content_relation = ? "
+                    + "AND r2.ldp_is_member_of_relation IS NOT NULL",
+                    (rs, ctx) -> Stream.of(rdf.createQuad(LDP.PreferMembership,
+                            adjustIdentifier(getIdentifier(), getInteractionModel()),
+                            rdf.createIRI(rs.getString(3)), rdf.createIRI(rs.getString(4)))),
+                    getIdentifier().getIRIString(), LDP.MemberSubject.getIRIString());
+        }
+    }
+
+    private Stream<Quad> tripleQuad(final IRI graphName, final ResultSet rs) throws SQLException {
+        return Stream.of(rdf.createQuad(graphName, rdf.createIRI(rs.getString(2)),
+                    rdf.createIRI(rs.getString(3)), getObject(rs.getString(4), rs.getString(5), rs.getString(6))));
+    }
+
     private Set<IRI> fetchExtensionGraphNames() {
-        final String query = "SELECT ext FROM extension WHERE resource_id = ?";
         final Map<String, IRI> rev = extensions.entrySet().stream()
             .collect(toMap(Map.Entry::getValue, Map.Entry::getKey));
-        return jdbi.withHandle(handle -> handle.select(query, data.getId())
-                .map((rs, ctx) -> rs.getString("ext")).list())
-            .stream().filter(rev::containsKey).map(rev::get).collect(toSet());
+        // Resources written before the extension keys were recorded on the resource row require a query
+        final Set<String> keys = data.getExtensions().orElseGet(() -> new HashSet<>(withHandle(handle ->
+                    handle.select("SELECT ext FROM extension WHERE resource_id = ? UNION "
+                        + "SELECT ext FROM extension_triple WHERE resource_id = ?", data.getId(), data.getId())
+                    .map((rs, ctx) -> rs.getString("ext")).list())));
+        return keys.stream().filter(rev::containsKey).map(rev::get).collect(toSet());
+    }
+
+    private boolean hasExtension(final IRI graphName) {
+        return data.getExtensions().map(keys -> keys.contains(extensions.get(graphName))).orElse(true);
+    }
+
+    /*
+     * An extension graph may be stored either as rows of triples or as a single serialized document.
+     */
+    private void addExtensionBranches(final BatchQuery batch, final IRI graphName) {
+        batch.add(TRIPLE_COLUMNS + "FROM extension_triple AS d " + TERM_JOIN
+                + "WHERE d.resource_id = ? AND d.ext = ?",
+                (rs, ctx) -> tripleQuad(graphName, rs), data.getId(), extensions.get(graphName));
+        batch.add("NULL, NULL, data, NULL, NULL, NULL" + NO_AT_TIME
+                + "FROM extension WHERE resource_id = ? AND ext = ?",
+                (rs, ctx) -> parseExtension(graphName, rs.getString(4)), data.getId(), extensions.get(graphName));
+    }
+
+    private Stream<Quad> fetchCachedExtensionQuads(final IRI graphName) {
+        return fetchCachedQuads(graphName, () -> fetchExtensionQuads(graphName));
+    }
+
+    /**
+     * Fetch the quads for a graph that depends only on this resource, using the cache if possible.
+     */
+    private Stream<Quad> fetchCachedQuads(final IRI graphName, final Supplier<Stream<Quad>> loader) {
+        if (cached == null) {
+            return loader.get();
+        }
+        final Optional<List<Quad>> graph = cached.getGraph(graphName);
+        if (graph.isPresent()) {
+            return graph.get().stream();
+        }
+        if (!fillCache) {
+            return loader.get();
+        }
+        final long stamp = cache.stamp();
+        final List<Quad> quads = loader.get().collect(toList());
+        cache.putGraph(cached, graphName, quads, stamp);
+        return quads.stream();
+    }
+
+    private boolean isCacheable(final IRI graphName) {
+        return Trellis.PreferUserManaged.equals(graphName) || Trellis.PreferAccessControl.equals(graphName)
+            || extensions.containsKey(graphName);
     }
 
     private Stream<Quad> fetchExtensionQuads(final IRI graphName) {
-        final String query = "SELECT data FROM extension WHERE resource_id = ? AND ext = ?";
+        if (!hasExtension(graphName)) {
+            return Stream.empty();
+        }
+        final BatchQuery batch = new BatchQuery();
+        addExtensionBranches(batch, graphName);
+        return withHandle(handle -> handle.select(batch.getQuery(), batch.getArguments())
+                .map(batch::map).list()).stream().flatMap(identity());
+    }
+
+    private static Stream<Quad> parseExtension(final IRI graphName, final String triples) {
         final Model model = createDefaultModel();
-        jdbi.withHandle(handle -> handle.select(query, data.getId(), extensions.get(graphName))
-                .map((rs, ctx) -> rs.getString("data")).findFirst())
-            .ifPresent(triples -> RDFParser.fromString(triples).lang(NTRIPLES).parse(model));
+        RDFParser.fromString(triples).lang(NTRIPLES).parse(model);
         return fromJena(model.getGraph()).stream().map(triple -> rdf.createQuad(graphName, triple.getSubject(),
                     triple.getPredicate(), triple.getObject())).map(Quad.class::cast);
     }
 
     private Stream<Quad> fetchQuadsFromTable(final String tableName, final IRI graphName) {
-        final String query = "SELECT subject, predicate, object, lang, datatype "
-                           + "FROM " + tableName + " WHERE resource_id = ?";
-        return jdbi.withHandle(handle -> handle.select(query, data.getId())
+        final String query = "SELECT " + TERM_COLUMNS + "FROM " + tableName + " AS d " + TERM_JOIN
+                           + "WHERE d.resource_id = ?";
+        return withHandle(handle -> handle.select(query, data.getId())
                 .map((rs, ctx) -> rdf.createQuad(graphName, rdf.createIRI(rs.getString(SUBJECT)),
                         rdf.createIRI(rs.getString(PREDICATE)),
                         getObject(rs.getString(OBJECT), rs.getString(LANG), rs.getString(DATATYPE))))
                 .list()).stream().map(Quad.class::cast);
     }
 
+    /**
+     * Load data for this resource, from the cache if possible. Data is only added to the cache when
+     * it has been read from the primary database.
+     * @return true if data was found; false otherwise
+     */
+    private boolean loadData() {
+        if (cache == null) {
+            return fetchData();
+        }
+        final Optional<ResourceCache.Entry> entry = cache.get(identifier);
+        if (entry.isPresent()) {
+            cached = entry.get();
+            data = cached.getData();
+            return true;
+        }
+        if (!fillCache) {
+            return fetchData();
+        }
+        final long stamp = cache.stamp();
+        if (fetchData()) {
+            cached = cache.put(identifier, data, stamp).orElse(null);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Fetch data for this resource.
      * @return true if data was found; false otherwise
      */
     private boolean fetchData() {
         LOGGER.debug("Fetching data for: {}", identifier);
-        final String extraQuery = "SELECT predicate, object FROM extra WHERE resource_id = ?";
+        // The server-managed row and any extra link relations are retrieved in a single round-trip
         final String query
-            = "SELECT id, interaction_model, modified, is_part_of, deleted, acl, "
-            + "ldp_membership_resource, ldp_has_member_relation, ldp_is_member_of_relation, "
-            + "ldp_inserted_content_relation, binary_location, binary_modified, binary_format "
-            + "FROM resource WHERE subject = ?";
-        final Optional<ResourceData> rd = jdbi.withHandle(handle -> handle.select(query, identifier.getIRIString())
-                .map((rs, ctx) -> new ResourceData(rs)).findFirst());
+            = "SELECT r.id, r.interaction_model, r.modified, r.is_part_of, r.deleted, r.acl, "
+            + "r.ldp_membership_resource, r.ldp_has_member_relation, r.ldp_is_member_of_relation, "
+            + "r.ldp_inserted_content_relation, r.binary_location, r.binary_modified, r.binary_format, "
+            + "r.extensions, e.predicate AS extra_predicate, e.object AS extra_object "
+            + "FROM resource AS r LEFT JOIN extra AS e ON r.id = e.resource_id WHERE r.subject = ?";
+        final Map<String, String> extras = new HashMap<>();
+        final Optional<ResourceData> rd = withHandle(handle -> handle.select(query, identifier.getIRIString())
+                .reduceResultSet(Optional.<ResourceData>empty(), (prev, rs, ctx) -> {
+                    final String extra = rs.getString(EXTRA_OBJECT);
+                    if (extra != null) {
+                        extras.put(extra, rs.getString(EXTRA_PREDICATE));
+                    }
+                    return prev.isPresent() ? prev : Optional.of(new ResourceData(rs));
+                }));
         if (rd.isPresent()) {
             this.data = rd.get();
-            final Map<String, String> extras = new HashMap<>();
-            jdbi.useHandle(handle ->
-                    handle.select(extraQuery, this.data.getId())
-                          .map((rs, ctx) -> new SimpleImmutableEntry<>(rs.getString(OBJECT), rs.getString(PREDICATE)))
-                          .forEach(entry -> extras.put(entry.getKey(), entry.getValue())));
-
             this.data.setExtra(extras);
             return true;
         }
@@ -469,4 +946,35 @@ public class DBResource implements Resource {
         }
         return identifier;
     }
+
+    /**
+     * A {@code UNION ALL} query, where each branch is paired with its own row mapper.
+     */
+    private static final class BatchQuery {
+        private final List<String> branches = new ArrayList<>();
+        private final List<RowMapper<Stream<Quad>>> mappers = new ArrayList<>();
+        private final List<Object> arguments = new ArrayList<>();
+
+        void add(final String branch, final RowMapper<Stream<Quad>> mapper, final Object... args) {
+            branches.add("SELECT " + mappers.size() + " AS branch, " + branch);
+            mappers.add(mapper);
+            arguments.addAll(List.of(args));
+        }
+
+        boolean isEmpty() {
+            return branches.isEmpty();
+        }
+
+        String getQuery() {
+            return String.join(" UNION ALL ", branches);
+        }
+
+        Object[] getArguments() {
+            return arguments.toArray();
+        }
+
+        Stream<Quad> map(final ResultSet rs, final StatementContext ctx) throws SQLException {
+            return mappers.get(rs.getInt(1)).map(rs, ctx);
+        }
+    }
 }
@@ -18,10 +18,15 @@ package org.trellisldp.jdbc;
 import static java.time.Instant.now;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.nCopies;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Optional.of;
 import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.jena.commonsrdf.JenaCommonsRDF.toJena;
 import static org.apache.jena.riot.Lang.NTRIPLES;
@@ -29,24 +34,38 @@ import static org.slf4j.LoggerFactory.getLogger;
 import static org.trellisldp.jdbc.DBUtils.getObjectDatatype;
 import static org.trellisldp.jdbc.DBUtils.getObjectLang;
 import static org.trellisldp.jdbc.DBUtils.getObjectValue;
+import static org.trellisldp.jdbc.DBUtils.isPostgres;
 import static org.trellisldp.vocabulary.Trellis.PreferAccessControl;
 import static org.trellisldp.vocabulary.Trellis.PreferAudit;
 import static org.trellisldp.vocabulary.Trellis.PreferUserManaged;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.UncheckedIOException;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -57,6 +76,7 @@ import org.apache.commons.rdf.api.RDF;
 import org.apache.commons.rdf.api.Triple;
 import org.apache.jena.riot.RDFDataMgr;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jdbi.v3.core.ConnectionFactory;
 import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.core.statement.PreparedBatch;
@@ -82,7 +102,7 @@ import org.trellisldp.vocabulary.OA;
  * value is 1,000. One can also configure the persistence layer to add
  * the LDP type to the body of an RDF response by setting the environment
  * variable {@code trellis.db.ldp.type} to "true". By default, this value
- * is false.
+ * is false. The other settings are described with their configuration keys.
  */
 @ApplicationScoped
 public class DBResourceService implements ResourceService {
@@ -105,14 +125,158 @@ public class DBResourceService implements ResourceService {
     /** The configuration key used to define whether direct containers are supported. */
     public static final String CONFIG_JDBC_INDIRECT_CONTAINMENT = "trellis.jdbc.indirect-containment";
 
+    /**
+     * The configuration key used to define whether all requested graphs are fetched with a single query.
+     *
+     * <p>By default, each named graph of a resource is retrieved with its own query. When this is "true",
+     * all of the requested graphs, including the first page of containment triples, are retrieved with a
+     * single query once the resource has been looked up. Any further pages of containment triples are read
+     * with their own queries.
+     */
+    public static final String CONFIG_JDBC_BATCH_FETCH = "trellis.jdbc.batch-fetch";
+
+    /** The configuration key used to define the number of children read with each containment query (default 1,000). */
+    public static final String CONFIG_JDBC_CONTAINMENT_PAGE_SIZE = "trellis.jdbc.containment-page-size";
+
+    /**
+     * The configuration key used to define the window, in milliseconds, within which touches are coalesced.
+     *
+     * <p>Within that window, concurrent touches of the same resource are merged into a single write. By
+     * default, this value is 0, and every touch is written immediately.
+     */
+    public static final String CONFIG_JDBC_TOUCH_WINDOW = "trellis.jdbc.touch-window";
+
+    /**
+     * The configuration key used to define the number of resources written in each bulk-load transaction.
+     *
+     * <p>Each chunk of resources (by default, 1,000) loaded with {@link #createAll} is written in a single
+     * transaction using multi-row {@code INSERT} statements or, on PostgreSQL, {@code COPY}.
+     */
+    public static final String CONFIG_JDBC_BULK_CHUNK_SIZE = "trellis.jdbc.bulk-chunk-size";
+
+    /**
+     * The configuration key used to define whether predicates and datatypes are stored in a term dictionary.
+     *
+     * <p>When this is "true", predicate and datatype IRIs are interned in the {@code term} table, and the
+     * triple tables store a numerical ID rather than the full IRI. Interned and inline values may be mixed,
+     * so the dictionary can be enabled or disabled at any time. Once the term table holds any terms,
+     * interned predicates continue to be read and matched for LDP-IC membership. Only when the term table
+     * is empty at startup is LDP-IC membership matched against inline predicates alone, which allows that
+     * query to use an index, so nodes that share a database should use the same setting.
+     */
+    public static final String CONFIG_JDBC_TERM_DICTIONARY = "trellis.jdbc.term-dictionary";
+
+    /** The configuration key used to define the size of the in-memory term cache (by default, 10,000). */
+    public static final String CONFIG_JDBC_TERM_CACHE_SIZE = "trellis.jdbc.term-cache-size";
+
+    /**
+     * The configuration key used to define the maximum weight of the resource cache.
+     *
+     * <p>Each resource counts as one plus the number of its cached user-managed, ACL and extension quads.
+     * By default, this value is 0, and nothing is cached. Writes made through this service invalidate the
+     * cache synchronously.
+     */
+    public static final String CONFIG_JDBC_CACHE_SIZE = "trellis.jdbc.cache-size";
+
+    /**
+     * The configuration key used to define whether cache invalidations are shared with PostgreSQL NOTIFY.
+     *
+     * <p>This should be "true" when several nodes share a PostgreSQL database. While a node is not connected
+     * to the notification channel, its cache is bypassed.
+     */
+    public static final String CONFIG_JDBC_CACHE_NOTIFY = "trellis.jdbc.cache-notify";
+
+    /**
+     * The configuration key used to define the JDBC URL of the dedicated connection that listens for invalidations.
+     *
+     * <p>The listening connection is held open, so when this is set it is opened directly rather than taken
+     * from the connection pool.
+     */
+    public static final String CONFIG_JDBC_CACHE_NOTIFY_URL = "trellis.jdbc.cache-notify-url";
+
+    /**
+     * The configuration key used to define the number of threads used to fetch graphs concurrently.
+     *
+     * <p>By default, this value is 0, and graphs are fetched one after another. This setting has no effect
+     * when batch fetching is enabled.
+     */
+    public static final String CONFIG_JDBC_FETCH_THREADS = "trellis.jdbc.fetch-threads";
+
+    /**
+     * The configuration key used to define whether membership triples are materialized in a table.
+     *
+     * <p>When this is "true", the membership triples produced by LDP-DC and LDP-IC resources with
+     * {@code ldp:hasMemberRelation} are written to the {@code membership} table along with those resources,
+     * so that reading the membership of a resource does not require joining its members' containers and
+     * descriptions. An empty table is populated when the service starts, so this setting can be enabled on
+     * an existing database. The table should be rebuilt with {@link #rebuildMembership} when the containment
+     * settings change.
+     */
+    public static final String CONFIG_JDBC_MEMBERSHIP_TABLE = "trellis.jdbc.membership-table";
+
+    /**
+     * The configuration key used to define whether audit events are stored in a compact form.
+     *
+     * <p>When this is "true", each PROV activity is stored as a single row in the {@code audit_event} table
+     * rather than as one row per triple in the {@code log} table. Audit triples that do not fit that shape are
+     * still stored in the {@code log} table. Both tables are always read, so this can be changed at any time.
+     */
+    public static final String CONFIG_JDBC_COMPACT_AUDIT = "trellis.jdbc.compact-audit";
+
+    /**
+     * The configuration key used to define whether the queries for a stream of quads share a handle.
+     *
+     * <p>When this is "true", the queries made while a resource is looked up, and those made while a stream of
+     * its quads is read, share a single database connection. The lookup and each stream use separate
+     * connections, because a resource may never be streamed. A stream returns its connection to the pool when
+     * it is closed or fully consumed, so callers must close any stream that they do not read to the end.
+     */
+    public static final String CONFIG_JDBC_SHARED_HANDLE = "trellis.jdbc.shared-handle";
+
+    /**
+     * The configuration key used to define whether extension graphs are stored with one row per triple.
+     *
+     * <p>By default, each extension graph is stored as a single N-Triples document in the {@code extension}
+     * table. When this is "true", those graphs are stored in the {@code extension_triple} table, so that they
+     * can be read without being parsed. Both tables are always read, so this can be changed at any time.
+     */
+    public static final String CONFIG_JDBC_EXTENSION_ROWS = "trellis.jdbc.extension-rows";
+
+    /**
+     * The configuration key used to define the time after a write during which reads bypass the replica.
+     *
+     * <p>If a {@link DataSource} qualified with {@link ReplicaDataSource} is available, resources are read
+     * from that read-only replica. That bean must not also be a {@code @Default} bean. For this many
+     * milliseconds (by default, 1,000) after a resource is written, reads of that resource go to the primary
+     * database, so that a node always observes its own writes. The cache is only filled with data read from
+     * the primary database.
+     */
+    public static final String CONFIG_JDBC_REPLICA_LAG = "trellis.jdbc.replica-lag";
+
     private static final Logger LOGGER = getLogger(DBResourceService.class);
     private static final RDF rdf = RDFFactory.getInstance();
     private static final String ACL_EXT = "acl";
+    private static final String ACL_TABLE = "acl";
+    private static final String DESCRIPTION_TABLE = "description";
+    private static final String EXTENSION_TRIPLE_TABLE = "extension_triple";
+    private static final String RESOURCE_COLUMNS = "subject, interaction_model, modified, deleted, is_part_of, acl, "
+        + "ldp_member, ldp_membership_resource, ldp_has_member_relation, ldp_is_member_of_relation, "
+        + "ldp_inserted_content_relation, binary_location, binary_format, extensions";
+    private static final String TRIPLE_COLUMNS = "resource_id, subject, predicate, predicate_id, object, lang, "
+        + "datatype, datatype_id";
+    private static final String EXTENSION_TRIPLE_COLUMNS = "ext, " + TRIPLE_COLUMNS;
 
     private Supplier<String> supplier;
     private Jdbi jdbi;
     private Map<String, IRI> extensions;
     private Set<IRI> supportedIxnModels;
+    private TouchScheduler touchScheduler;
+    private TermDictionary terms;
+    private boolean termsInUse;
+    private ResourceCache cache;
+    private CacheListener cacheListener;
+    private ExecutorService fetchExecutor;
+    private ReplicaRouter router;
 
     @Inject
     @ConfigProperty(name = CONFIG_HTTP_EXTENSION_GRAPHS)
@@ -138,15 +302,97 @@ public class DBResourceService implements ResourceService {
                     defaultValue = "true")
     boolean supportIndirectContainment;
 
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_BATCH_FETCH,
+                    defaultValue = "false")
+    boolean batchFetch;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_CONTAINMENT_PAGE_SIZE,
+                    defaultValue = "1000")
+    int containmentPageSize;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_TOUCH_WINDOW,
+                    defaultValue = "0")
+    long touchWindow;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_BULK_CHUNK_SIZE,
+                    defaultValue = "1000")
+    int bulkChunkSize;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_TERM_DICTIONARY,
+                    defaultValue = "false")
+    boolean useTermDictionary;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_TERM_CACHE_SIZE,
+                    defaultValue = "10000")
+    int termCacheSize;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_CACHE_SIZE,
+                    defaultValue = "0")
+    long cacheSize;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_CACHE_NOTIFY,
+                    defaultValue = "false")
+    boolean cacheNotify;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_CACHE_NOTIFY_URL)
+    Optional<String> cacheNotifyUrl = Optional.empty();
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_FETCH_THREADS,
+                    defaultValue = "0")
+    int fetchThreads;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_MEMBERSHIP_TABLE,
+                    defaultValue = "false")
+    boolean membershipTable;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_COMPACT_AUDIT,
+                    defaultValue = "false")
+    boolean compactAudit;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_SHARED_HANDLE,
+                    defaultValue = "false")
+    boolean sharedHandle;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_EXTENSION_ROWS,
+                    defaultValue = "false")
+    boolean extensionRows;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_JDBC_REPLICA_LAG,
+                    defaultValue = "1000")
+    long replicaLag;
+
     @Inject
     IdentifierService idService;
 
     @Inject
     DataSource ds;
 
+    @Inject
+    @ReplicaDataSource
+    Instance<DataSource> replicaDataSource;
+
     @PostConstruct
     void init() {
         jdbi = Jdbi.create(ds);
+        router = new ReplicaRouter(jdbi, replicaDataSource != null && replicaDataSource.isResolvable()
+                ? Jdbi.create(replicaDataSource.get()) : null, replicaLag);
+        terms = new TermDictionary(jdbi, termCacheSize);
+        termsInUse = terms.hasTerms();
         supplier = idService.getSupplier();
         extensions = extensionConfig.map(DBResourceService::buildExtensionMap).orElseGet(() ->
                     singletonMap(ACL_EXT, PreferAccessControl));
@@ -160,15 +406,90 @@ public class DBResourceService implements ResourceService {
             ixnModels.add(LDP.IndirectContainer);
         }
         supportedIxnModels = unmodifiableSet(ixnModels);
+        if (membershipTable) {
+            populateMembership();
+        }
+        if (touchWindow > 0) {
+            touchScheduler = new TouchScheduler(touchWindow, this::advanceResourceModification);
+        }
+        if (cacheSize > 0) {
+            cache = new ResourceCache(cacheSize);
+            if (cacheNotify) {
+                cacheListener = new CacheListener(getListenerConnections(), cache);
+                cacheListener.start();
+            }
+        }
+        if (fetchThreads > 0) {
+            fetchExecutor = newFixedThreadPool(fetchThreads, task -> {
+                final Thread thread = new Thread(task, "trellis-jdbc-fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
         LOGGER.info("Using database persistence with TrellisLDP");
     }
 
+    private void populateMembership() {
+        jdbi.useTransaction(handle -> {
+            if (MembershipTable.isEmpty(handle)) {
+                LOGGER.info("Populating the membership table");
+                MembershipTable.rebuild(handle, supportDirectContainment, supportIndirectContainment,
+                        matchInternedTerms());
+            }
+        });
+    }
+
+    /*
+     * The cache listener holds its connection indefinitely, so it opens its own connection when a URL is
+     * configured, rather than taking one from the connection pool.
+     */
+    private ConnectionFactory getListenerConnections() {
+        if (cacheNotifyUrl.isPresent()) {
+            final String url = cacheNotifyUrl.get();
+            return () -> DriverManager.getConnection(url);
+        }
+        LOGGER.warn("No {} is configured, so the cache listener holds a pooled connection",
+                CONFIG_JDBC_CACHE_NOTIFY_URL);
+        return ds::getConnection;
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (cacheListener != null) {
+            cacheListener.stop();
+        }
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdown();
+        }
+    }
+
     @Override
     public CompletionStage<Void> create(final Metadata metadata, final Dataset dataset) {
         LOGGER.debug("Creating: {}", metadata.getIdentifier());
         return runAsync(() -> storeResource(metadata, dataset, now(), OperationType.CREATE));
     }
 
+    @Override
+    public CompletionStage<Void> createAll(final Stream<Map.Entry<Metadata, Dataset>> resources) {
+        return runAsync(() -> {
+            // Resources are stored in chunks, each of which is written in a single transaction.
+            // If an identifier repeats within a chunk, only the last occurrence is kept.
+            final int size = Math.max(1, bulkChunkSize);
+            final Map<IRI, Map.Entry<Metadata, Dataset>> chunk = new LinkedHashMap<>();
+            resources.forEachOrdered(resource -> {
+                chunk.remove(resource.getKey().getIdentifier());
+                chunk.put(resource.getKey().getIdentifier(), resource);
+                if (chunk.size() >= size) {
+                    storeResources(chunk.values(), now());
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                storeResources(chunk.values(), now());
+            }
+        });
+    }
+
     @Override
     public CompletionStage<Void> replace(final Metadata metadata, final Dataset dataset) {
         LOGGER.debug("Updating: {}", metadata.getIdentifier());
@@ -179,13 +500,40 @@ public class DBResourceService implements ResourceService {
     public CompletionStage<Void> touch(final IRI id) {
         LOGGER.debug("Updating modification date for {}", id);
         final Instant time = now();
+        if (touchScheduler != null) {
+            return touchScheduler.touch(id, time);
+        }
         return runAsync(() -> updateResourceModification(id, time));
     }
 
     @Override
     public CompletionStage<Resource> get(final IRI identifier) {
-        return DBResource.findResource(jdbi, identifier, extensions, includeLdpType,
-                supportDirectContainment, supportIndirectContainment);
+        // A replica may lag behind cache invalidations, so only the primary database may fill the cache
+        final Jdbi reader = router.read(identifier);
+        return DBResource.findResource(reader, identifier, ResourceOptions.builder()
+                .extensions(extensions).includeLdpType(includeLdpType)
+                .containment(supportDirectContainment, supportIndirectContainment).batchFetch(batchFetch)
+                .containmentPageSize(containmentPageSize).cache(cache).fillCache(reader == router.write())
+                .executor(fetchExecutor).membershipTable(membershipTable).sharedHandle(sharedHandle)
+                .internedTerms(matchInternedTerms()).build());
+    }
+
+    /**
+     * Rebuild the materialized membership table from the stored resources.
+     * @return the next completion stage
+     */
+    public CompletionStage<Void> rebuildMembership() {
+        LOGGER.info("Rebuilding the membership table");
+        return runAsync(() -> {
+            try {
+                jdbi.useTransaction(handle -> MembershipTable.rebuild(handle, supportDirectContainment,
+                            supportIndirectContainment, matchInternedTerms()));
+            } catch (final Exception ex) {
+                throw new TrellisRuntimeException("Error rebuilding the membership table", ex);
+            } finally {
+                router.written();
+            }
+        });
     }
 
     @Override
@@ -196,19 +544,23 @@ public class DBResourceService implements ResourceService {
     @Override
     public CompletionStage<Void> add(final IRI id, final Dataset dataset) {
         final String query
-            = "INSERT INTO log (id, subject, predicate, object, lang, datatype) "
-            + "VALUES (?, ?, ?, ?, ?, ?)";
+            = "INSERT INTO log (id, subject, predicate, predicate_id, object, lang, datatype, datatype_id) "
+            + "VALUES " + placeholders(8);
         return runAsync(() -> {
             try {
-                jdbi.useHandle(handle -> dataset.getGraph(PreferAudit).ifPresent(graph -> {
+                jdbi.useTransaction(handle -> dataset.getGraph(PreferAudit).ifPresent(graph -> {
+                        final List<Triple> triples;
+                        if (compactAudit) {
+                            final List<AuditEvent> events = new ArrayList<>();
+                            triples = AuditEvent.extract(id, graph, events);
+                            insertRows(handle, "audit_event", AuditEvent.COLUMNS, events.stream()
+                                    .map(event -> event.toRow(id.getIRIString())).collect(toList()), batchSize);
+                        } else {
+                            triples = graph.stream().collect(toList());
+                        }
                         try (final PreparedBatch batch = handle.prepareBatch(query)) {
-                            graph.stream().forEach(triple -> batch
-                                    .bind(0, id.getIRIString())
-                                    .bind(1, ((IRI) triple.getSubject()).getIRIString())
-                                    .bind(2, triple.getPredicate().getIRIString())
-                                    .bind(3, getObjectValue(triple.getObject()))
-                                    .bind(4, getObjectLang(triple.getObject()))
-                                    .bind(5, getObjectDatatype(triple.getObject())).add());
+                            triples.forEach(triple ->
+                                    bindRow(batch, tripleRow(handle, id.getIRIString(), triple)).add());
                             if (batch.size() > 0) {
                                 batch.execute();
                             }
@@ -216,6 +568,8 @@ public class DBResourceService implements ResourceService {
                     }));
             } catch (final Exception ex) {
                 throw new TrellisRuntimeException("Error storing audit dataset for " + id, ex);
+            } finally {
+                router.written(id);
             }
         });
     }
@@ -238,77 +592,181 @@ public class DBResourceService implements ResourceService {
     }
 
     private void updateResourceModification(final IRI identifier, final Instant time) {
-        final String query = "UPDATE resource SET modified=? WHERE subject=?";
+        updateResourceModification(identifier, time, "UPDATE resource SET modified = :time WHERE subject = :subject");
+    }
+
+    /*
+     * Coalesced touches may be written out of order, so the modification date is never moved backwards.
+     */
+    private void advanceResourceModification(final IRI identifier, final Instant time) {
+        updateResourceModification(identifier, time,
+                "UPDATE resource SET modified = :time WHERE subject = :subject AND modified < :time");
+    }
+
+    private void updateResourceModification(final IRI identifier, final Instant time, final String query) {
         try {
             jdbi.useHandle(handle -> {
                 try (final Update update = handle.createUpdate(query)
-                        .bind(0, time.toEpochMilli())
-                        .bind(1, identifier.getIRIString())) {
+                        .bind("time", time.toEpochMilli())
+                        .bind("subject", identifier.getIRIString())) {
                     update.execute();
                 }
+                notifyInvalidation(handle, identifier.getIRIString());
             });
         } catch (final Exception ex) {
             throw new TrellisRuntimeException("Error updating modification date for " + identifier, ex);
+        } finally {
+            invalidate(identifier);
+        }
+    }
+
+    /*
+     * Send a cache invalidation message to other nodes. This takes effect when the enclosing
+     * transaction commits.
+     */
+    private void notifyInvalidation(final Handle handle, final String subject) {
+        if (cacheListener != null) {
+            handle.select("SELECT pg_notify(?, ?)", CacheListener.CHANNEL, subject).map((rs, ctx) -> 1).list();
         }
     }
 
-    private static int updateResource(final Handle handle, final Metadata metadata, final Dataset dataset,
+    private void invalidate(final IRI identifier) {
+        router.written(identifier);
+        if (cache != null) {
+            cache.invalidate(identifier);
+        }
+    }
+
+    /*
+     * Read the columns of a resource that determine the membership triples produced by its children.
+     */
+    private static List<Object> findContainerSettings(final Handle handle, final int resourceId) {
+        return handle.select("SELECT interaction_model, ldp_member, ldp_membership_resource, "
+                + "ldp_has_member_relation, ldp_inserted_content_relation FROM resource WHERE id = ?", resourceId)
+            .map((rs, ctx) -> asList((Object) rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5))).one();
+    }
+
+    private static List<Object> containerSettings(final Object[] values) {
+        return asList(values[1], values[6], values[7], values[8], values[10]);
+    }
+
+    private void refreshMembership(final Handle handle, final Collection<Integer> ids, final boolean asContainer) {
+        if (membershipTable) {
+            MembershipTable.refresh(handle, ids, asContainer, supportDirectContainment, supportIndirectContainment,
+                    matchInternedTerms());
+        }
+    }
+
+    private static Optional<Integer> findResourceId(final Handle handle, final IRI identifier) {
+        return handle.select("SELECT id FROM resource WHERE subject = ? FOR UPDATE", identifier.getIRIString())
+            .mapTo(Integer.class).findFirst();
+    }
+
+    /*
+     * Update an existing resource row in place so that its id remains stable.
+     */
+    private void updateResource(final Handle handle, final int resourceId, final Metadata metadata,
+            final Dataset dataset, final Instant time, final boolean isDelete) {
+        final String query = "UPDATE resource SET " + String.join(" = ?, ", RESOURCE_COLUMNS.split(", "))
+            + " = ? WHERE id = ?";
+        try (final Update update = handle.createUpdate(query)) {
+            final Object[] values = resourceValues(metadata, dataset, time, isDelete);
+            for (int i = 0; i < values.length; i++) {
+                update.bind(i, values[i]);
+            }
+            update.bind(values.length, resourceId).execute();
+        }
+    }
+
+    private int insertResource(final Handle handle, final Metadata metadata, final Dataset dataset,
             final Instant time, final boolean isDelete) {
+        final String query = "INSERT INTO resource (" + RESOURCE_COLUMNS + ") VALUES " + placeholders(14);
+        try (final Update update = handle.createUpdate(query)) {
+            final Object[] values = resourceValues(metadata, dataset, time, isDelete);
+            for (int i = 0; i < values.length; i++) {
+                update.bind(i, values[i]);
+            }
+            return update.executeAndReturnGeneratedKeys("id").mapTo(Integer.class).one();
+        }
+    }
 
-        handle.execute("DELETE FROM resource WHERE subject = ?", metadata.getIdentifier().getIRIString());
-        final String query
-            = "INSERT INTO resource (subject, interaction_model, modified, deleted, is_part_of, acl, "
-            + "ldp_member, ldp_membership_resource, ldp_has_member_relation, ldp_is_member_of_relation, "
-            + "ldp_inserted_content_relation, binary_location, binary_format) "
-            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private Object[] resourceValues(final Metadata metadata, final Dataset dataset, final Instant time,
+            final boolean isDelete) {
         // Set ldp:insertedContentRelation only for LDP-IC and LDP-DC resources
         final String icr = asList(LDP.DirectContainer, LDP.IndirectContainer).contains(metadata.getInteractionModel())
             ? metadata.getInsertedContentRelation().orElse(LDP.MemberSubject).getIRIString() : null;
 
-        try (final Update update = handle.createUpdate(query)
-                .bind(0, metadata.getIdentifier().getIRIString())
-                .bind(1, metadata.getInteractionModel().getIRIString())
-                .bind(2, time.toEpochMilli())
-                .bind(3, isDelete)
-                .bind(4, metadata.getContainer().map(IRI::getIRIString).orElse(null))
-                .bind(5, dataset.contains(of(PreferAccessControl), null, null, null))
-                .bind(6, metadata.getMembershipResource().map(TrellisUtils::normalizeIdentifier)
-                    .map(IRI::getIRIString).orElse(null))
-                .bind(7, metadata.getMembershipResource().map(IRI::getIRIString).orElse(null))
-                .bind(8, metadata.getMemberRelation().map(IRI::getIRIString).orElse(null))
-                .bind(9, metadata.getMemberOfRelation().map(IRI::getIRIString).orElse(null))
-                .bind(10, icr)
-                .bind(11, metadata.getBinary().map(BinaryMetadata::getIdentifier).map(IRI::getIRIString).orElse(null))
-                .bind(12, metadata.getBinary().flatMap(BinaryMetadata::getMimeType).orElse(null))) {
-            return update.executeAndReturnGeneratedKeys("id").mapTo(Integer.class).one();
+        return new Object[] {
+            metadata.getIdentifier().getIRIString(),
+            metadata.getInteractionModel().getIRIString(),
+            time.toEpochMilli(),
+            isDelete,
+            metadata.getContainer().map(IRI::getIRIString).orElse(null),
+            dataset.contains(of(PreferAccessControl), null, null, null),
+            metadata.getMembershipResource().map(TrellisUtils::normalizeIdentifier).map(IRI::getIRIString)
+                .orElse(null),
+            metadata.getMembershipResource().map(IRI::getIRIString).orElse(null),
+            metadata.getMemberRelation().map(IRI::getIRIString).orElse(null),
+            metadata.getMemberOfRelation().map(IRI::getIRIString).orElse(null),
+            icr,
+            metadata.getBinary().map(BinaryMetadata::getIdentifier).map(IRI::getIRIString).orElse(null),
+            metadata.getBinary().flatMap(BinaryMetadata::getMimeType).orElse(null),
+            String.join(",", extensionGraphs(dataset).keySet())};
+    }
+
+    /*
+     * Select the extension graphs to be stored for a resource, keyed and sorted by extension name.
+     */
+    private Map<String, Graph> extensionGraphs(final Dataset dataset) {
+        final Map<String, Graph> graphs = new TreeMap<>();
+        extensions.forEach((ext, graph) -> dataset.getGraph(graph).filter(g -> !ACL_EXT.equals(ext))
+                .ifPresent(g -> graphs.put(ext, g)));
+        return graphs;
+    }
+
+    /*
+     * Convert the extension graphs of a resource into rows for the extension_triple table.
+     */
+    private List<Object[]> extensionTripleValues(final Handle handle, final int resourceId,
+            final Dataset dataset) {
+        final List<Object[]> rows = new ArrayList<>();
+        extensionGraphs(dataset).forEach((ext, graph) -> tripleValues(handle, resourceId, graph).forEach(row -> {
+            final Object[] values = new Object[row.length + 1];
+            values[0] = ext;
+            System.arraycopy(row, 0, values, 1, row.length);
+            rows.add(values);
+        }));
+        return rows;
+    }
+
+    private void updateExtensions(final Handle handle, final int resourceId, final Dataset dataset) {
+        if (extensionRows) {
+            insertRows(handle, EXTENSION_TRIPLE_TABLE, EXTENSION_TRIPLE_COLUMNS,
+                    extensionTripleValues(handle, resourceId, dataset), batchSize);
+        } else {
+            extensionGraphs(dataset).forEach((ext, graph) -> updateExtension(handle, resourceId, ext, graph));
         }
     }
 
-    private static void updateDescription(final Handle handle, final int resourceId, final Dataset dataset,
+    private void updateDescription(final Handle handle, final int resourceId, final Dataset dataset,
             final int batchSize) {
         dataset.getGraph(PreferUserManaged).ifPresent(graph ->
-                batchUpdateTriples(handle, resourceId, "description", graph, batchSize));
+                batchUpdateTriples(handle, resourceId, DESCRIPTION_TABLE, graph, batchSize));
     }
 
-    private static void updateAcl(final Handle handle, final int resourceId, final Dataset dataset,
+    private void updateAcl(final Handle handle, final int resourceId, final Dataset dataset,
             final int batchSize) {
         dataset.getGraph(PreferAccessControl).ifPresent(graph ->
-                batchUpdateTriples(handle, resourceId, "acl", graph, batchSize));
+                batchUpdateTriples(handle, resourceId, ACL_TABLE, graph, batchSize));
     }
 
-    private static void batchUpdateTriples(final Handle handle, final int resourceId, final String table,
+    private void batchUpdateTriples(final Handle handle, final int resourceId, final String table,
             final Graph graph, final int batchSize) {
-        final String query
-            = "INSERT INTO " + table + " (resource_id, subject, predicate, object, lang, datatype) "
-            + "VALUES (?, ?, ?, ?, ?, ?)";
+        final String query = "INSERT INTO " + table + " (" + TRIPLE_COLUMNS + ") VALUES " + placeholders(8);
         try (final PreparedBatch batch = handle.prepareBatch(query)) {
             graph.stream().sequential().forEach(triple -> {
-                batch.bind(0, resourceId)
-                     .bind(1, ((IRI) triple.getSubject()).getIRIString())
-                     .bind(2, triple.getPredicate().getIRIString())
-                     .bind(3, getObjectValue(triple.getObject()))
-                     .bind(4, getObjectLang(triple.getObject()))
-                     .bind(5, getObjectDatatype(triple.getObject())).add();
+                bindRow(batch, tripleRow(handle, resourceId, triple)).add();
                 if (batch.size() >= batchSize) {
                     batch.execute();
                 }
@@ -319,6 +777,130 @@ public class DBResourceService implements ResourceService {
         }
     }
 
+    /*
+     * Replace the stored triples of a resource by deleting the rows that are no longer present
+     * and inserting the rows that are new. Rows that are unchanged are left untouched.
+     */
+    private void replaceTriples(final Handle handle, final int resourceId, final String table,
+            final Optional<Graph> graph, final int batchSize) {
+        final Map<List<Object>, Object[]> added = new LinkedHashMap<>();
+        graph.ifPresent(g -> tripleValues(handle, resourceId, g).forEach(row -> added.put(asList(row), row)));
+
+        final List<Object[]> stored = handle.select("SELECT " + TRIPLE_COLUMNS + " FROM " + table
+                + " WHERE resource_id = ?", resourceId)
+            .map((rs, ctx) -> new Object[] {resourceId, rs.getString("subject"), rs.getString("predicate"),
+                getLong(rs, "predicate_id"), rs.getString("object"), rs.getString("lang"), rs.getString("datatype"),
+                getLong(rs, "datatype_id")}).list();
+        final Map<List<Object>, Object[]> removed = new LinkedHashMap<>();
+        stored.forEach(row -> removed.put(asList(row), row));
+
+        if (removed.size() < stored.size()) {
+            // Duplicate rows cannot be removed individually, so the triples are rewritten
+            handle.execute("DELETE FROM " + table + " WHERE resource_id = ?", resourceId);
+            removed.clear();
+        } else {
+            final Set<List<Object>> unchanged = new HashSet<>(removed.keySet());
+            unchanged.retainAll(added.keySet());
+            removed.keySet().removeAll(unchanged);
+            added.keySet().removeAll(unchanged);
+        }
+
+        if (!removed.isEmpty() && removed.size() == stored.size()) {
+            handle.execute("DELETE FROM " + table + " WHERE resource_id = ?", resourceId);
+        } else if (!removed.isEmpty()) {
+            final String query = "DELETE FROM " + table + " WHERE resource_id = ? AND subject = ? "
+                + "AND COALESCE(predicate, '') = COALESCE(?, '') AND COALESCE(predicate_id, 0) = COALESCE(?, 0) "
+                + "AND object = ? AND COALESCE(lang, '') = COALESCE(?, '') "
+                + "AND COALESCE(datatype, '') = COALESCE(?, '') AND COALESCE(datatype_id, 0) = COALESCE(?, 0)";
+            try (final PreparedBatch batch = handle.prepareBatch(query)) {
+                for (final Object[] row : removed.values()) {
+                    bindRow(batch, row).add();
+                    if (batch.size() >= batchSize) {
+                        batch.execute();
+                    }
+                }
+                if (batch.size() > 0) {
+                    batch.execute();
+                }
+            }
+        }
+        insertRows(handle, table, TRIPLE_COLUMNS, new ArrayList<>(added.values()), batchSize);
+    }
+
+    private Stream<Object[]> tripleValues(final Handle handle, final int resourceId, final Graph graph) {
+        return graph.stream().map(triple -> tripleRow(handle, resourceId, triple));
+    }
+
+    /*
+     * Convert a triple into a row of column values. When the term dictionary is in use, the predicate
+     * and datatype are stored as term IDs in place of the full IRI.
+     */
+    private Object[] tripleRow(final Handle handle, final Object id, final Triple triple) {
+        final String predicate = triple.getPredicate().getIRIString();
+        final String datatype = getObjectDatatype(triple.getObject());
+        final Long predicateId = encodeTerm(handle, predicate);
+        final Long datatypeId = encodeTerm(handle, datatype);
+        return new Object[] {
+            id,
+            ((IRI) triple.getSubject()).getIRIString(),
+            predicateId == null ? predicate : null,
+            predicateId,
+            getObjectValue(triple.getObject()),
+            getObjectLang(triple.getObject()),
+            datatypeId == null ? datatype : null,
+            datatypeId};
+    }
+
+    /*
+     * Rows that were written while the term dictionary was enabled keep their interned predicates,
+     * so those must still be matched if the dictionary is later disabled.
+     */
+    private boolean matchInternedTerms() {
+        return useTermDictionary || termsInUse;
+    }
+
+    private Long encodeTerm(final Handle handle, final String term) {
+        return useTermDictionary ? terms.encode(handle, term).orElse(null) : null;
+    }
+
+    private static PreparedBatch bindRow(final PreparedBatch batch, final Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            batch.bind(i, row[i]);
+        }
+        return batch;
+    }
+
+    private static Long getLong(final ResultSet rs, final String column) throws SQLException {
+        final long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /*
+     * Insert rows using multi-row INSERT statements, each of which holds up to batchSize rows.
+     */
+    private static void insertRows(final Handle handle, final String table, final String columns,
+            final List<Object[]> rows, final int batchSize) {
+        final int size = Math.max(1, batchSize);
+        for (int offset = 0; offset < rows.size(); offset += size) {
+            final List<Object[]> batch = rows.subList(offset, Math.min(rows.size(), offset + size));
+            final String query = "INSERT INTO " + table + " (" + columns + ") VALUES "
+                + String.join(", ", nCopies(batch.size(), placeholders(batch.get(0).length)));
+            try (final Update update = handle.createUpdate(query)) {
+                int position = 0;
+                for (final Object[] row : batch) {
+                    for (final Object value : row) {
+                        update.bind(position++, value);
+                    }
+                }
+                update.execute();
+            }
+        }
+    }
+
+    private static String placeholders(final int count) {
+        return "(" + String.join(", ", nCopies(count, "?")) + ")";
+    }
+
     private static void updateExtension(final Handle handle, final int resourceId, final String ext,
             final Graph graph) {
         final String query = "INSERT INTO extension (resource_id, ext, data) VALUES (?, ?, ?)";
@@ -358,14 +940,23 @@ public class DBResourceService implements ResourceService {
             final OperationType opType) {
         try {
             jdbi.useTransaction(handle -> {
-                final int resourceId = updateResource(handle, metadata, dataset, time,
-                        opType == OperationType.DELETE);
-                updateDescription(handle, resourceId, dataset, batchSize);
-                updateAcl(handle, resourceId, dataset, batchSize);
+                final boolean isDelete = opType == OperationType.DELETE;
+                final Optional<Integer> existing = findResourceId(handle, metadata.getIdentifier());
+                final int resourceId;
+                // Membership rows produced through this resource need refreshing only if its settings change
+                boolean asContainer = true;
+                if (existing.isPresent()) {
+                    resourceId = existing.get();
+                    asContainer = replaceResource(handle, resourceId, metadata, dataset, time, isDelete);
+                } else {
+                    resourceId = insertResource(handle, metadata, dataset, time, isDelete);
+                    updateDescription(handle, resourceId, dataset, batchSize);
+                    updateAcl(handle, resourceId, dataset, batchSize);
+                }
                 updateExtra(handle, resourceId, metadata.getIdentifier(), dataset);
-                extensions.forEach((ext, graph) ->
-                        dataset.getGraph(graph).filter(g -> !"acl".equals(ext)).ifPresent(g ->
-                            updateExtension(handle, resourceId, ext, g)));
+                updateExtensions(handle, resourceId, dataset);
+                refreshMembership(handle, singletonList(resourceId), asContainer);
+                notifyInvalidation(handle, metadata.getIdentifier().getIRIString());
                 if (opType == OperationType.DELETE) {
                     // Verify that the container really is empty
                     final String query = "SELECT EXISTS(SELECT 1 FROM resource WHERE is_part_of = ?)";
@@ -379,9 +970,120 @@ public class DBResourceService implements ResourceService {
             throw ex;
         } catch (final Exception ex) {
             throw new TrellisRuntimeException("Could not update data for " + metadata.getIdentifier(), ex);
+        } finally {
+            invalidate(metadata.getIdentifier());
         }
     }
 
+    /*
+     * Apply the changes to an existing resource, keeping its resource id stable. The extra and extension
+     * rows are cleared so that they can be written afresh. This returns whether the membership rows
+     * produced through this resource as a container need to be refreshed.
+     */
+    private boolean replaceResource(final Handle handle, final int resourceId, final Metadata metadata,
+            final Dataset dataset, final Instant time, final boolean isDelete) {
+        final boolean asContainer = !membershipTable || !findContainerSettings(handle, resourceId)
+            .equals(containerSettings(resourceValues(metadata, dataset, time, isDelete)));
+        updateResource(handle, resourceId, metadata, dataset, time, isDelete);
+        replaceTriples(handle, resourceId, DESCRIPTION_TABLE, dataset.getGraph(PreferUserManaged), batchSize);
+        replaceTriples(handle, resourceId, ACL_TABLE, dataset.getGraph(PreferAccessControl), batchSize);
+        handle.execute("DELETE FROM extra WHERE resource_id = ?", resourceId);
+        handle.execute("DELETE FROM extension WHERE resource_id = ?", resourceId);
+        handle.execute("DELETE FROM extension_triple WHERE resource_id = ?", resourceId);
+        return asContainer;
+    }
+
+    /*
+     * Store a chunk of resources in a single transaction. New resources are written with multi-row
+     * inserts; any resource that already exists, such as a deleted resource being recreated, is
+     * updated in place, as with a single create.
+     */
+    private void storeResources(final Collection<Map.Entry<Metadata, Dataset>> resources, final Instant time) {
+        final List<String> subjects = resources.stream().map(Map.Entry::getKey).map(Metadata::getIdentifier)
+            .map(IRI::getIRIString).collect(toList());
+        try {
+            jdbi.useTransaction(handle -> {
+                final Map<String, Integer> existing = findResourceIds(handle, subjects);
+                final List<Integer> refresh = new ArrayList<>();
+                final List<Integer> refreshAsContainer = new ArrayList<>();
+                final List<Map.Entry<Metadata, Dataset>> created = new ArrayList<>();
+                for (final Map.Entry<Metadata, Dataset> resource : resources) {
+                    final IRI identifier = resource.getKey().getIdentifier();
+                    final Integer resourceId = existing.get(identifier.getIRIString());
+                    if (resourceId == null) {
+                        created.add(resource);
+                    } else {
+                        if (replaceResource(handle, resourceId, resource.getKey(), resource.getValue(), time,
+                                    false)) {
+                            refreshAsContainer.add(resourceId);
+                        } else {
+                            refresh.add(resourceId);
+                        }
+                        updateExtra(handle, resourceId, identifier, resource.getValue());
+                        updateExtensions(handle, resourceId, resource.getValue());
+                    }
+                }
+
+                insertRows(handle, "resource", RESOURCE_COLUMNS, created.stream().map(resource ->
+                            resourceValues(resource.getKey(), resource.getValue(), time, false)).collect(toList()),
+                        batchSize);
+                final Map<String, Integer> ids = findResourceIds(handle, created.stream()
+                        .map(resource -> resource.getKey().getIdentifier().getIRIString()).collect(toList()));
+
+                final List<Object[]> description = new ArrayList<>();
+                final List<Object[]> acl = new ArrayList<>();
+                final List<Object[]> extensionTriples = new ArrayList<>();
+                for (final Map.Entry<Metadata, Dataset> resource : created) {
+                    final IRI identifier = resource.getKey().getIdentifier();
+                    final Dataset dataset = resource.getValue();
+                    final int resourceId = ids.get(identifier.getIRIString());
+                    dataset.getGraph(PreferUserManaged).ifPresent(graph ->
+                            tripleValues(handle, resourceId, graph).forEach(description::add));
+                    dataset.getGraph(PreferAccessControl).ifPresent(graph ->
+                            tripleValues(handle, resourceId, graph).forEach(acl::add));
+                    updateExtra(handle, resourceId, identifier, dataset);
+                    if (extensionRows) {
+                        extensionTriples.addAll(extensionTripleValues(handle, resourceId, dataset));
+                    } else {
+                        extensionGraphs(dataset).forEach((ext, graph) ->
+                                updateExtension(handle, resourceId, ext, graph));
+                    }
+                }
+
+                if (isPostgres(handle)) {
+                    PostgresCopy.copy(handle.getConnection(), DESCRIPTION_TABLE, TRIPLE_COLUMNS, description);
+                    PostgresCopy.copy(handle.getConnection(), ACL_TABLE, TRIPLE_COLUMNS, acl);
+                    PostgresCopy.copy(handle.getConnection(), EXTENSION_TRIPLE_TABLE, EXTENSION_TRIPLE_COLUMNS,
+                            extensionTriples);
+                } else {
+                    insertRows(handle, DESCRIPTION_TABLE, TRIPLE_COLUMNS, description, batchSize);
+                    insertRows(handle, ACL_TABLE, TRIPLE_COLUMNS, acl, batchSize);
+                    insertRows(handle, EXTENSION_TRIPLE_TABLE, EXTENSION_TRIPLE_COLUMNS, extensionTriples, batchSize);
+                }
+                refreshAsContainer.addAll(ids.values());
+                refreshMembership(handle, refreshAsContainer, true);
+                refreshMembership(handle, refresh, false);
+                subjects.forEach(subject -> notifyInvalidation(handle, subject));
+            });
+        } catch (final Exception ex) {
+            throw new TrellisRuntimeException("Could not store a batch of " + subjects.size() + " resources", ex);
+        } finally {
+            resources.forEach(resource -> invalidate(resource.getKey().getIdentifier()));
+        }
+    }
+
+    private static Map<String, Integer> findResourceIds(final Handle handle, final List<String> subjects) {
+        if (subjects.isEmpty()) {
+            return emptyMap();
+        }
+        return handle.createQuery("SELECT id, subject FROM resource WHERE subject IN (<subjects>)")
+            .bindList("subjects", subjects)
+            .reduceRows(new HashMap<>(), (map, row) -> {
+                map.put(row.getColumn("subject", String.class), row.getColumn("id", Integer.class));
+                return map;
+            });
+    }
+
     private enum OperationType {
         DELETE, CREATE, REPLACE
     }
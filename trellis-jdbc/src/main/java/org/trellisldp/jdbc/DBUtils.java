@@ -15,11 +15,14 @@
  */
 package org.trellisldp.jdbc;
 
+import java.sql.SQLException;
+
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Literal;
 import org.apache.commons.rdf.api.RDF;
 import org.apache.commons.rdf.api.RDFTerm;
+import org.jdbi.v3.core.Handle;
 import org.trellisldp.api.BinaryMetadata;
 import org.trellisldp.api.RDFFactory;
 import org.trellisldp.api.TrellisRuntimeException;
@@ -70,6 +73,10 @@ final class DBUtils {
         }
     }
 
+    static boolean isPostgres(final Handle handle) throws SQLException {
+        return "PostgreSQL".equals(handle.getConnection().getMetaData().getDatabaseProductName());
+    }
+
     private DBUtils() {
         // prevent instantiation
     }
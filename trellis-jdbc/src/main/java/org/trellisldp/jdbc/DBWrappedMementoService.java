@@ -20,12 +20,15 @@ import static java.util.Objects.requireNonNull;
 import static java.util.ServiceLoader.load;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.jdbc.DBResourceService.CONFIG_JDBC_REPLICA_LAG;
 
 import jakarta.annotation.Priority;
 import jakarta.enterprise.inject.Alternative;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.CompletionStage;
@@ -33,6 +36,8 @@ import java.util.concurrent.CompletionStage;
 import javax.sql.DataSource;
 
 import org.apache.commons.rdf.api.IRI;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
 import org.slf4j.Logger;
@@ -43,7 +48,16 @@ import org.trellisldp.api.*;
 public class DBWrappedMementoService implements MementoService {
 
     private static final Logger LOGGER = getLogger(DBWrappedMementoService.class);
-    private final Jdbi jdbi;
+    private static final String FIRST = "SELECT moment FROM memento WHERE subject = ? ORDER BY moment LIMIT 1";
+    private static final String LAST = "SELECT moment FROM memento WHERE subject = ? ORDER BY moment DESC LIMIT 1";
+    private static final String BEFORE
+        = "SELECT moment FROM memento WHERE subject = ? AND moment <= ? ORDER BY moment DESC LIMIT 1";
+    private static final String AFTER
+        = "SELECT moment FROM memento WHERE subject = ? AND moment > ? ORDER BY moment LIMIT 1";
+    private static final String NEXT_TWO
+        = "SELECT moment FROM memento WHERE subject = ? AND moment > ? ORDER BY moment LIMIT 2";
+    private static final String COUNT = "SELECT COUNT(*) FROM memento WHERE subject = ?";
+    private final ReplicaRouter router;
     private final MementoService svc;
 
     /**
@@ -53,7 +67,7 @@ public class DBWrappedMementoService implements MementoService {
      * not be invoked directly.
      */
     public DBWrappedMementoService() {
-        jdbi = null;
+        router = null;
         svc = null;
     }
 
@@ -61,11 +75,24 @@ public class DBWrappedMementoService implements MementoService {
      * Create a new DB enhanced MementoService object.
      * @param ds the DataSource object
      */
-    @Inject
     public DBWrappedMementoService(final DataSource ds) {
         this(ds, load(MementoService.class).findFirst().orElseGet(NoopMementoService::new));
     }
 
+    /**
+     * Create a new DB enhanced MementoService object, reading from a replica database if one is available.
+     * @param ds the DataSource object
+     * @param replica the DataSource object for a read-only replica
+     * @param replicaLag the time after a write during which the replica is not used, in milliseconds
+     */
+    @Inject
+    public DBWrappedMementoService(final DataSource ds,
+            @ReplicaDataSource final Instance<DataSource> replica,
+            @ConfigProperty(name = CONFIG_JDBC_REPLICA_LAG, defaultValue = "1000") final long replicaLag) {
+        this(Jdbi.create(ds), replica.isResolvable() ? Jdbi.create(replica.get()) : null, replicaLag,
+                load(MementoService.class).findFirst().orElseGet(NoopMementoService::new));
+    }
+
     /**
      * Create a new DB enhanced MementoService object.
      * @param ds the DataSource object
@@ -81,7 +108,24 @@ public class DBWrappedMementoService implements MementoService {
      * @param service the memento service implementation
      */
     public DBWrappedMementoService(final Jdbi jdbi, final MementoService service) {
-        this.jdbi = requireNonNull(jdbi, "DB connection may not be null!");
+        this(jdbi, null, 0L, service);
+    }
+
+    /**
+     * Create a new DB enhanced MementoService object.
+     *
+     * <p>Mementos are listed from the replica, if one is given, except within {@code replicaLag} milliseconds
+     * of a memento of the same resource being recorded by this service, when the primary database is used
+     * instead.
+     *
+     * @param jdbi the JDBI object
+     * @param replica the JDBI object for a read-only replica, may be {@code null}
+     * @param replicaLag the time after a write during which the replica is not used, in milliseconds
+     * @param service the memento service implementation
+     */
+    public DBWrappedMementoService(final Jdbi jdbi, final Jdbi replica, final long replicaLag,
+            final MementoService service) {
+        this.router = new ReplicaRouter(requireNonNull(jdbi, "DB connection may not be null!"), replica, replicaLag);
         this.svc = requireNonNull(service, "Memento service may not be null!");
     }
 
@@ -105,7 +149,7 @@ public class DBWrappedMementoService implements MementoService {
         }
         return supplyAsync(() -> {
             final SortedSet<Instant> instants = new TreeSet<>();
-            jdbi.useHandle(handle -> handle
+            router.read(identifier).useHandle(handle -> handle
                     .select("SELECT moment FROM memento WHERE subject = ?")
                     .bind(0, identifier.getIRIString())
                     .mapTo(Long.class)
@@ -114,22 +158,92 @@ public class DBWrappedMementoService implements MementoService {
         });
     }
 
+    /*
+     * Each of the bounded queries below is answered by the (subject, moment) index on the memento table.
+     */
+    @Override
+    public CompletionStage<Optional<Instant>> firstMemento(final IRI identifier) {
+        if (svc instanceof NoopMementoService) {
+            return svc.firstMemento(identifier);
+        }
+        return supplyAsync(() -> findMoment(identifier, FIRST, identifier.getIRIString()));
+    }
+
+    @Override
+    public CompletionStage<Optional<Instant>> lastMemento(final IRI identifier) {
+        if (svc instanceof NoopMementoService) {
+            return svc.lastMemento(identifier);
+        }
+        return supplyAsync(() -> findMoment(identifier, LAST, identifier.getIRIString()));
+    }
+
+    @Override
+    public CompletionStage<Optional<Instant>> mementoBefore(final IRI identifier, final Instant time) {
+        if (svc instanceof NoopMementoService) {
+            return svc.mementoBefore(identifier, time);
+        }
+        return supplyAsync(() -> findMoment(identifier, BEFORE, identifier.getIRIString(), time.getEpochSecond()));
+    }
+
+    @Override
+    public CompletionStage<Optional<Instant>> mementoAfter(final IRI identifier, final Instant time) {
+        if (svc instanceof NoopMementoService) {
+            return svc.mementoAfter(identifier, time);
+        }
+        return supplyAsync(() -> findMoment(identifier, AFTER, identifier.getIRIString(), time.getEpochSecond()));
+    }
+
+    @Override
+    public CompletionStage<SortedSet<Instant>> mementoBounds(final IRI identifier, final Instant time) {
+        if (svc instanceof NoopMementoService) {
+            return svc.mementoBounds(identifier, time);
+        }
+        final String subject = identifier.getIRIString();
+        return supplyAsync(() -> router.read(identifier).withHandle(handle -> {
+            final SortedSet<Instant> bounds = new TreeSet<>();
+            findMoment(handle, FIRST, subject).ifPresent(bounds::add);
+            if (!bounds.isEmpty()) {
+                findMoment(handle, LAST, subject).ifPresent(bounds::add);
+                if (time != null) {
+                    findMoment(handle, BEFORE, subject, time.getEpochSecond()).ifPresent(bounds::add);
+                    handle.select(NEXT_TWO, subject, time.getEpochSecond()).mapTo(Long.class)
+                        .forEach(moment -> bounds.add(ofEpochSecond(moment)));
+                }
+            }
+            return bounds;
+        }));
+    }
+
+    @Override
+    public CompletionStage<Long> mementoCount(final IRI identifier) {
+        if (svc instanceof NoopMementoService) {
+            return svc.mementoCount(identifier);
+        }
+        return supplyAsync(() -> router.read(identifier).withHandle(handle ->
+                    handle.select(COUNT, identifier.getIRIString()).mapTo(Long.class).one()));
+    }
+
+    private Optional<Instant> findMoment(final IRI identifier, final String query, final Object... args) {
+        return router.read(identifier).withHandle(handle -> findMoment(handle, query, args));
+    }
+
+    private static Optional<Instant> findMoment(final Handle handle, final String query, final Object... args) {
+        return handle.select(query, args).mapTo(Long.class).findFirst().map(Instant::ofEpochSecond);
+    }
+
     private Instant getTime(final IRI identifier, final Instant instant) {
-        return jdbi.withHandle(handle -> handle
-                .select("SELECT moment FROM memento WHERE subject = ? AND moment <= ? ORDER BY moment DESC")
-                .bind(0, identifier.getIRIString())
-                .bind(1, instant.getEpochSecond())
-                .mapTo(Long.class)
-                .findFirst()).map(Instant::ofEpochSecond).orElse(instant);
+        return findMoment(identifier, BEFORE, identifier.getIRIString(), instant.getEpochSecond()).orElse(instant);
     }
 
     private void putTime(final IRI identifier, final Instant instant) {
         try {
-            jdbi.useHandle(handle ->
+            router.write().useHandle(handle ->
                     handle.execute("INSERT INTO memento (subject, moment) VALUES (?, ?)",
                         identifier.getIRIString(), instant.getEpochSecond()));
         } catch (final UnableToExecuteStatementException ex) {
             LOGGER.debug("Unable to insert memento value: {}", ex.getMessage());
+        } finally {
+            router.written(identifier);
         }
     }
 }
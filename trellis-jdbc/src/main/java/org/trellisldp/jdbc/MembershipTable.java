@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.Update;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * Maintenance of the materialized {@code membership} table.
+ *
+ * <p>The membership table holds one row for each membership triple produced by a child of an
+ * LDP-DC (with {@code ldp:hasMemberRelation}) or an LDP-IC. Each row records the child resource
+ * that produced it and the container through which it was produced, so that the rows can be
+ * refreshed whenever either of those resources is written. Membership triples produced with
+ * {@code ldp:isMemberOfRelation} depend only on a resource and its parent, and are not materialized.
+ */
+final class MembershipTable {
+
+    private static final String COLUMNS
+        = "INSERT INTO membership (source_id, container_id, member, subject, predicate, object, lang, datatype) ";
+
+    private static final String INDIRECT
+        = COLUMNS
+        + "SELECT r.id, r2.id, r2.ldp_member, r2.ldp_membership_resource, r2.ldp_has_member_relation, "
+        + "d.object, d.lang, COALESCE(d.datatype, dt.value) "
+        + "FROM resource AS r INNER JOIN resource AS r2 ON r.is_part_of = r2.subject ";
+
+    private static final String INDIRECT_WHERE
+        = "LEFT JOIN term AS dt ON d.datatype_id = dt.id "
+        + "WHERE r2.interaction_model = :indirect AND r2.ldp_has_member_relation IS NOT NULL "
+        + "AND r2.ldp_member IS NOT NULL";
+
+    private static final String CONTENT_JOIN = "INNER JOIN description AS d ON r.id = d.resource_id "
+        + "   AND d.predicate = r2.ldp_inserted_content_relation ";
+
+    private static final String INTERNED_CONTENT_JOIN
+        = "LEFT JOIN term AS t ON t.value = r2.ldp_inserted_content_relation "
+        + "INNER JOIN description AS d ON r.id = d.resource_id "
+        + "   AND (d.predicate = r2.ldp_inserted_content_relation OR d.predicate_id = t.id) ";
+
+    private static final String DIRECT
+        = COLUMNS
+        + "SELECT r2.id, r.id, r.ldp_member, r.ldp_membership_resource, r.ldp_has_member_relation, "
+        + "CASE WHEN r2.interaction_model IN (<containers>) AND r2.subject NOT LIKE '%/' "
+        + "THEN CONCAT(r2.subject, '/') ELSE r2.subject END, NULL, NULL "
+        + "FROM resource AS r INNER JOIN resource AS r2 ON r.subject = r2.is_part_of "
+        + "WHERE r.ldp_inserted_content_relation = :memberSubject AND r.ldp_has_member_relation IS NOT NULL "
+        + "AND r.ldp_member IS NOT NULL";
+
+    private static final String IDS = "ids";
+
+    /**
+     * Refresh the membership rows for a collection of resources.
+     *
+     * <p>Rows produced by each resource as a child of an LDP-DC or LDP-IC are always refreshed. When
+     * {@code asContainer} is true, the rows produced through each resource as a container are also refreshed.
+     *
+     * @param handle the database handle
+     * @param ids the internal resource IDs
+     * @param asContainer whether to refresh the rows for the children of these resources
+     * @param direct whether direct containment is supported
+     * @param indirect whether indirect containment is supported
+     * @param interned whether the description table may hold interned predicates
+     */
+    static void refresh(final Handle handle, final Collection<Integer> ids, final boolean asContainer,
+            final boolean direct, final boolean indirect, final boolean interned) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        // Lock any parent LDP-DC or LDP-IC so that concurrent changes to its membership settings are not
+        // missed. Other parents produce no membership rows, so writes to their children are not serialized.
+        final List<String> models = new ArrayList<>();
+        if (direct) {
+            models.add(LDP.DirectContainer.getIRIString());
+        }
+        if (indirect) {
+            models.add(LDP.IndirectContainer.getIRIString());
+        }
+        if (!models.isEmpty()) {
+            handle.createQuery("SELECT id FROM resource WHERE subject IN "
+                    + "(SELECT is_part_of FROM resource WHERE id IN (<ids>)) "
+                    + "AND interaction_model IN (<models>) FOR UPDATE")
+                .bindList(IDS, ids).bindList("models", models).mapTo(Integer.class).list();
+        }
+        handle.createUpdate("DELETE FROM membership WHERE source_id IN (<ids>)"
+                + (asContainer ? " OR container_id IN (<ids>)" : "")).bindList(IDS, ids).execute();
+        if (asContainer) {
+            populate(handle, direct, indirect, interned, " AND r2.id IN (<ids>)", " AND r.id IN (<ids>)", ids);
+        }
+        // Rows for children whose container was refreshed above have already been added, so those containers
+        // are excluded. The filter on d.resource_id is implied by the join, but stating it allows a partitioned
+        // table to be pruned.
+        populate(handle, direct, indirect, interned,
+                " AND r.id IN (<ids>) AND d.resource_id IN (<ids>)" + (asContainer ? " AND r2.id NOT IN (<ids>)" : ""),
+                " AND r2.id IN (<ids>)" + (asContainer ? " AND r.id NOT IN (<ids>)" : ""), ids);
+    }
+
+    /**
+     * Check whether the membership table holds any rows.
+     * @param handle the database handle
+     * @return true if the membership table is empty
+     */
+    static boolean isEmpty(final Handle handle) {
+        return !handle.createQuery("SELECT subject FROM membership").setMaxRows(1).mapTo(String.class).findFirst()
+            .isPresent();
+    }
+
+    /**
+     * Rebuild the entire membership table from the resource and description tables.
+     * @param handle the database handle
+     * @param direct whether direct containment is supported
+     * @param indirect whether indirect containment is supported
+     * @param interned whether the description table may hold interned predicates
+     */
+    static void rebuild(final Handle handle, final boolean direct, final boolean indirect,
+            final boolean interned) {
+        handle.execute("DELETE FROM membership");
+        populate(handle, direct, indirect, interned, "", "", null);
+    }
+
+    private static void populate(final Handle handle, final boolean direct, final boolean indirect,
+            final boolean interned, final String indirectFilter, final String directFilter,
+            final Collection<Integer> ids) {
+        if (indirect) {
+            // Matching interned predicates defeats the index on description.predicate, so only do so when needed
+            final String query = INDIRECT + (interned ? INTERNED_CONTENT_JOIN : CONTENT_JOIN) + INDIRECT_WHERE;
+            try (final Update update = handle.createUpdate(query + indirectFilter)
+                    .bind("indirect", LDP.IndirectContainer.getIRIString())) {
+                if (ids != null) {
+                    update.bindList(IDS, ids);
+                }
+                update.execute();
+            }
+        }
+        if (direct) {
+            try (final Update update = handle.createUpdate(DIRECT + directFilter)
+                    .bind("memberSubject", LDP.MemberSubject.getIRIString())
+                    .bindList("containers", LDP.Container.getIRIString(), LDP.BasicContainer.getIRIString(),
+                        LDP.DirectContainer.getIRIString(), LDP.IndirectContainer.getIRIString())) {
+                if (ids != null) {
+                    update.bindList(IDS, ids);
+                }
+                update.execute();
+            }
+        }
+    }
+
+    private MembershipTable() {
+        // prevent instantiation
+    }
+}
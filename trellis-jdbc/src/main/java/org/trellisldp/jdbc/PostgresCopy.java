@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Utilities for loading data into PostgreSQL with {@code COPY FROM STDIN}.
+ *
+ * <p>This class depends on the PostgreSQL JDBC driver, and so it should only be
+ * loaded once it is known that the underlying database is PostgreSQL.
+ */
+final class PostgresCopy {
+
+    private static final char NEWLINE = '\n';
+    private static final char TAB = '\t';
+
+    /**
+     * Copy a collection of rows into a table.
+     * @param connection the database connection
+     * @param table the table name
+     * @param columns the comma-delimited column names
+     * @param rows the rows to copy, each of which holds one value per column
+     * @throws SQLException if the data could not be copied
+     */
+    static void copy(final Connection connection, final String table, final String columns,
+            final List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        final CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+            .copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+        try {
+            for (final Object[] row : rows) {
+                final byte[] bytes = encode(row).getBytes(UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Encode a row using the COPY text format.
+     * @param row the row values
+     * @return the encoded row, including the trailing newline
+     */
+    static String encode(final Object[] row) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                builder.append(TAB);
+            }
+            if (row[i] == null) {
+                builder.append("\\N");
+            } else {
+                escape(builder, row[i].toString());
+            }
+        }
+        return builder.append(NEWLINE).toString();
+    }
+
+    private static void escape(final StringBuilder builder, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case TAB:
+                    builder.append("\\t");
+                    break;
+                case NEWLINE:
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+
+    private PostgresCopy() {
+        // prevent instantiation
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.rdf.api.IRI;
+import org.jdbi.v3.core.Jdbi;
+
+/**
+ * Route read queries to a read-only replica of the database, if one is available.
+ *
+ * <p>After a write to a resource is made through this router, reads of that resource are sent to the
+ * primary database until the configured replication lag has elapsed, so that the write is always visible
+ * to subsequent reads. Reads of other resources continue to use the replica.
+ */
+final class ReplicaRouter {
+
+    /* The number of tracked writes above which expired entries are swept away */
+    private static final int SWEEP_SIZE = 1024;
+
+    private final Jdbi primary;
+    private final Jdbi replica;
+    private final long lag;
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+    private final AtomicLong primaryUntil = new AtomicLong(System.nanoTime());
+
+    /**
+     * Create a router.
+     * @param primary the Jdbi object for the primary database
+     * @param replica the Jdbi object for the replica, may be {@code null}
+     * @param lagMillis the maximum replication lag, in milliseconds
+     */
+    ReplicaRouter(final Jdbi primary, final Jdbi replica, final long lagMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lag = MILLISECONDS.toNanos(Math.max(0L, lagMillis));
+    }
+
+    /**
+     * Get the Jdbi object to use for reads of a resource.
+     * @param identifier the resource identifier
+     * @return the replica, unless a recent write to the resource must be read from the primary database
+     */
+    Jdbi read(final IRI identifier) {
+        if (replica == null) {
+            return primary;
+        }
+        final long now = System.nanoTime();
+        if (now - primaryUntil.get() < 0) {
+            return primary;
+        }
+        final String key = identifier.getIRIString();
+        final Long until = recentWrites.get(key);
+        if (until != null) {
+            if (now - until < 0) {
+                return primary;
+            }
+            recentWrites.remove(key, until);
+        }
+        return replica;
+    }
+
+    /**
+     * Get the Jdbi object to use for writes.
+     * @return the primary database
+     */
+    Jdbi write() {
+        return primary;
+    }
+
+    /**
+     * Record that a write to a resource has completed, so that reads of that resource use the primary
+     * database until the replica catches up.
+     * @param identifier the resource identifier
+     */
+    void written(final IRI identifier) {
+        if (replica != null && lag > 0) {
+            final long now = System.nanoTime();
+            recentWrites.merge(identifier.getIRIString(), now + lag, ReplicaRouter::later);
+            if (recentWrites.size() > SWEEP_SIZE) {
+                recentWrites.values().removeIf(until -> now - until >= 0);
+            }
+        }
+    }
+
+    /**
+     * Record that a write affecting any resource has completed, so that all reads use the primary database
+     * until the replica catches up.
+     */
+    void written() {
+        if (replica != null) {
+            primaryUntil.accumulateAndGet(System.nanoTime() + lag, ReplicaRouter::later);
+        }
+    }
+
+    private static long later(final long current, final long next) {
+        return next - current > 0 ? next : current;
+    }
+}
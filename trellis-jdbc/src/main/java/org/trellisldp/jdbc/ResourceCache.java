@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+
+/**
+ * A bounded, size-weighted cache of resource data.
+ *
+ * <p>Each entry holds the {@link ResourceData} for a resource along with any graphs that have
+ * been read for that resource. Graphs are added lazily, as they are requested. The weight of an
+ * entry is one plus the number of cached quads, and the least recently used entries are evicted
+ * once the total weight exceeds the configured maximum.
+ *
+ * <p>Readers take a {@link #stamp} before querying the database and pass it back when storing the
+ * result. If the same resource has been invalidated in the meantime, the result is discarded, so that
+ * data read concurrently with a write can never be cached after that write has been invalidated.
+ * Invalidations of other resources do not affect the result. Only a bounded number of recent
+ * invalidations is remembered; once that is exceeded, results read before then are discarded for
+ * every resource.
+ */
+class ResourceCache {
+
+    static final int MAX_INVALIDATIONS = 4096;
+
+    private final long maxWeight;
+    private final Map<IRI, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<IRI, Long> invalidated = new HashMap<>();
+    private long weight;
+    private long generation;
+    private long floor;
+    private boolean enabled = true;
+
+    /**
+     * Create a resource cache.
+     * @param maxWeight the maximum total weight of the cache
+     */
+    ResourceCache(final long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Get the current invalidation stamp.
+     * @return the stamp
+     */
+    synchronized long stamp() {
+        return generation;
+    }
+
+    /**
+     * Get a cached entry.
+     * @param identifier the resource identifier
+     * @return the cached entry, if one exists
+     */
+    synchronized Optional<Entry> get(final IRI identifier) {
+        return enabled ? Optional.ofNullable(entries.get(identifier)) : Optional.empty();
+    }
+
+    /**
+     * Add resource data to the cache.
+     * @param identifier the resource identifier
+     * @param data the resource data
+     * @param stamp the stamp taken before the data was read
+     * @return the cached entry, if the data could be cached
+     */
+    synchronized Optional<Entry> put(final IRI identifier, final ResourceData data, final long stamp) {
+        if (!enabled || isStale(identifier, stamp)) {
+            return Optional.empty();
+        }
+        final Entry entry = new Entry(identifier, data);
+        final Entry previous = entries.put(identifier, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        evict();
+        return Optional.of(entry);
+    }
+
+    /**
+     * Add a graph to a cached entry.
+     * @param entry the cached entry
+     * @param graphName the graph name
+     * @param quads the quads in the graph
+     * @param stamp the stamp taken before the graph was read
+     */
+    synchronized void putGraph(final Entry entry, final IRI graphName, final List<Quad> quads, final long stamp) {
+        // Only add graphs to entries that are still present in the cache
+        if (enabled && !isStale(entry.identifier, stamp) && entries.get(entry.identifier) == entry
+                && entry.graphs.putIfAbsent(graphName, unmodifiableList(quads)) == null) {
+            entry.weight += quads.size();
+            weight += quads.size();
+            evict();
+        }
+    }
+
+    /**
+     * Remove a resource from the cache.
+     * @param identifier the resource identifier
+     */
+    synchronized void invalidate(final IRI identifier) {
+        generation++;
+        invalidated.put(identifier, generation);
+        if (invalidated.size() > MAX_INVALIDATIONS) {
+            invalidated.clear();
+            floor = generation;
+        }
+        final Entry entry = entries.remove(identifier);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    /**
+     * Remove every resource from the cache.
+     */
+    synchronized void invalidateAll() {
+        generation++;
+        invalidated.clear();
+        floor = generation;
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Enable or disable the cache. A disabled cache is emptied and stores nothing until it is enabled again.
+     * @param enabled whether the cache is enabled
+     */
+    synchronized void setEnabled(final boolean enabled) {
+        invalidateAll();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Check whether the cache is enabled.
+     * @return true if the cache is enabled; false otherwise
+     */
+    synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    private boolean isStale(final IRI identifier, final long stamp) {
+        return stamp < floor || stamp < invalidated.getOrDefault(identifier, 0L);
+    }
+
+    private void evict() {
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * A cached resource.
+     */
+    static final class Entry {
+        private final IRI identifier;
+        private final ResourceData data;
+        private final Map<IRI, List<Quad>> graphs = new ConcurrentHashMap<>();
+        private long weight = 1;
+
+        private Entry(final IRI identifier, final ResourceData data) {
+            this.identifier = identifier;
+            this.data = data;
+        }
+
+        /**
+         * Get the resource data.
+         * @return the resource data
+         */
+        ResourceData getData() {
+            return data;
+        }
+
+        /**
+         * Get a cached graph.
+         * @param graphName the graph name
+         * @return the quads in that graph, if the graph has been cached
+         */
+        Optional<List<Quad>> getGraph(final IRI graphName) {
+            return Optional.ofNullable(graphs.get(graphName));
+        }
+    }
+}
@@ -15,13 +15,18 @@
  */
 package org.trellisldp.jdbc;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.Optional.ofNullable;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.RDF;
@@ -49,6 +54,7 @@ class ResourceData {
     private String insertedContentRelation;
 
     private BinaryMetadata binary;
+    private Set<String> extensions;
     private Map<String, String> extra;
 
     public ResourceData(final ResultSet rs) throws SQLException {
@@ -68,6 +74,11 @@ class ResourceData {
 
         this.binary = DBUtils.getBinaryMetadata(this.interactionModel, rs.getString("binary_location"),
                 rs.getString("binary_format"));
+
+        final String ext = rs.getString("extensions");
+        if (ext != null) {
+            this.extensions = ext.isEmpty() ? emptySet() : unmodifiableSet(new HashSet<>(asList(ext.split(","))));
+        }
     }
 
     public int getId() {
@@ -117,6 +128,14 @@ class ResourceData {
         return ofNullable(binary);
     }
 
+    /**
+     * Get the keys of the extension graphs stored for this resource.
+     * @return the extension keys, or an empty Optional if they were not recorded with the resource
+     */
+    public Optional<Set<String>> getExtensions() {
+        return ofNullable(extensions);
+    }
+
     public Map<String, String> getExtra() {
         return extra;
     }
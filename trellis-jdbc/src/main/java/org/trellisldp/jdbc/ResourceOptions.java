@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.Collections.emptyMap;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * The settings used to load a {@link DBResource}.
+ */
+final class ResourceOptions {
+
+    private final Map<String, IRI> extensions;
+    private final boolean includeLdpType;
+    private final boolean supportDirectContainment;
+    private final boolean supportIndirectContainment;
+    private final boolean batchFetch;
+    private final int containmentPageSize;
+    private final ResourceCache cache;
+    private final boolean fillCache;
+    private final Executor executor;
+    private final boolean membershipTable;
+    private final boolean sharedHandle;
+    private final boolean internedTerms;
+
+    private ResourceOptions(final Builder builder) {
+        this.extensions = builder.extensions;
+        this.includeLdpType = builder.includeLdpType;
+        this.supportDirectContainment = builder.supportDirectContainment;
+        this.supportIndirectContainment = builder.supportIndirectContainment;
+        this.batchFetch = builder.batchFetch;
+        this.containmentPageSize = builder.containmentPageSize;
+        this.cache = builder.cache;
+        this.fillCache = builder.fillCache;
+        this.executor = builder.executor;
+        this.membershipTable = builder.membershipTable;
+        this.sharedHandle = builder.sharedHandle;
+        this.internedTerms = builder.internedTerms;
+    }
+
+    /**
+     * A mutable builder for a {@link ResourceOptions} object.
+     *
+     * @return a builder for a {@link ResourceOptions} object
+     */
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a map of extension names to graph names
+     */
+    Map<String, IRI> getExtensions() {
+        return extensions;
+    }
+
+    /**
+     * @return whether to include the LDP type in the RDF body
+     */
+    boolean includeLdpType() {
+        return includeLdpType;
+    }
+
+    /**
+     * @return whether to support direct containment
+     */
+    boolean supportDirectContainment() {
+        return supportDirectContainment;
+    }
+
+    /**
+     * @return whether to support indirect containment
+     */
+    boolean supportIndirectContainment() {
+        return supportIndirectContainment;
+    }
+
+    /**
+     * @return whether to fetch all requested graphs in a single query
+     */
+    boolean batchFetch() {
+        return batchFetch;
+    }
+
+    /**
+     * @return the number of children to read with each containment query, or 0 for the default
+     */
+    int getContainmentPageSize() {
+        return containmentPageSize;
+    }
+
+    /**
+     * @return the resource cache, which may be null
+     */
+    ResourceCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return whether data read for this resource may be added to the cache
+     */
+    boolean fillCache() {
+        return fillCache;
+    }
+
+    /**
+     * @return the executor used to fetch graphs concurrently, which may be null
+     */
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return whether to read ldp:hasMemberRelation triples from the membership table
+     */
+    boolean membershipTable() {
+        return membershipTable;
+    }
+
+    /**
+     * @return whether each stream of quads shares a single database handle
+     */
+    boolean sharedHandle() {
+        return sharedHandle;
+    }
+
+    /**
+     * @return whether the description table may hold interned predicates
+     */
+    boolean internedTerms() {
+        return internedTerms;
+    }
+
+    /**
+     * A mutable builder for a {@link ResourceOptions} object.
+     */
+    static final class Builder {
+        private Map<String, IRI> extensions = emptyMap();
+        private boolean includeLdpType;
+        private boolean supportDirectContainment = true;
+        private boolean supportIndirectContainment = true;
+        private boolean batchFetch;
+        private int containmentPageSize;
+        private ResourceCache cache;
+        private boolean fillCache = true;
+        private Executor executor;
+        private boolean membershipTable;
+        private boolean sharedHandle;
+        private boolean internedTerms = true;
+
+        /**
+         * Set the extension graphs.
+         * @param extensions a map of extension names to graph names
+         * @return this builder
+         */
+        Builder extensions(final Map<String, IRI> extensions) {
+            this.extensions = extensions;
+            return this;
+        }
+
+        /**
+         * Set whether to include the LDP type in the RDF body.
+         * @param includeLdpType whether to include the LDP type
+         * @return this builder
+         */
+        Builder includeLdpType(final boolean includeLdpType) {
+            this.includeLdpType = includeLdpType;
+            return this;
+        }
+
+        /**
+         * Set whether to support direct and indirect containment.
+         * @param direct whether to support direct containment
+         * @param indirect whether to support indirect containment
+         * @return this builder
+         */
+        Builder containment(final boolean direct, final boolean indirect) {
+            this.supportDirectContainment = direct;
+            this.supportIndirectContainment = indirect;
+            return this;
+        }
+
+        /**
+         * Set whether to fetch all requested graphs in a single query.
+         * @param batchFetch whether to use batch fetching
+         * @return this builder
+         */
+        Builder batchFetch(final boolean batchFetch) {
+            this.batchFetch = batchFetch;
+            return this;
+        }
+
+        /**
+         * Set the number of children to read with each containment query.
+         * @param containmentPageSize the page size, or 0 for the default
+         * @return this builder
+         */
+        Builder containmentPageSize(final int containmentPageSize) {
+            this.containmentPageSize = containmentPageSize;
+            return this;
+        }
+
+        /**
+         * Set the resource cache.
+         * @param cache the resource cache, may be {@code null}
+         * @return this builder
+         */
+        Builder cache(final ResourceCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Set whether data read for the resource may be added to the cache. This should be disabled
+         * when reading from a replica, which may not yet reflect the latest writes.
+         * @param fillCache whether to add data to the cache
+         * @return this builder
+         */
+        Builder fillCache(final boolean fillCache) {
+            this.fillCache = fillCache;
+            return this;
+        }
+
+        /**
+         * Set the executor used to fetch graphs concurrently.
+         * @param executor the executor, may be {@code null}
+         * @return this builder
+         */
+        Builder executor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Set whether to read ldp:hasMemberRelation triples from the membership table.
+         * @param membershipTable whether to use the membership table
+         * @return this builder
+         */
+        Builder membershipTable(final boolean membershipTable) {
+            this.membershipTable = membershipTable;
+            return this;
+        }
+
+        /**
+         * Set whether each stream of quads shares a single database handle.
+         * @param sharedHandle whether to share a handle
+         * @return this builder
+         */
+        Builder sharedHandle(final boolean sharedHandle) {
+            this.sharedHandle = sharedHandle;
+            return this;
+        }
+
+        /**
+         * Set whether the description table may hold interned predicates.
+         * @param internedTerms whether to match interned predicates
+         * @return this builder
+         */
+        Builder internedTerms(final boolean internedTerms) {
+            this.internedTerms = internedTerms;
+            return this;
+        }
+
+        /**
+         * Build the options.
+         * @return the resource options
+         */
+        ResourceOptions build() {
+            return new ResourceOptions(this);
+        }
+    }
+}
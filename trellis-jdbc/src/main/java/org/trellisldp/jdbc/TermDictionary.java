@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.Collections.synchronizedMap;
+import static org.trellisldp.jdbc.DBUtils.isPostgres;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.trellisldp.api.TrellisRuntimeException;
+
+/**
+ * A dictionary of interned RDF terms.
+ *
+ * <p>Predicate and datatype IRIs may be stored in the {@code term} table and referenced from
+ * the triple tables by their numerical ID. Recently used terms are kept in a bounded,
+ * least-recently-used cache so that encoding a term rarely requires a database query. Interned terms
+ * are resolved by the queries that read the triple tables, with a join on the term table, so reading
+ * a resource never needs the dictionary.
+ *
+ * <p>New terms are written with the caller's database handle, as part of the same transaction as
+ * the triples that reference them, so that encoding a term never needs a second connection from the
+ * pool. A term created in a transaction is only added to the cache once that transaction commits.
+ * A term that is no longer referenced is simply left in place.
+ */
+final class TermDictionary {
+
+    /** Terms longer than this are always stored inline rather than in the term table. */
+    static final int MAX_TERM_LENGTH = 255;
+
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+
+    private final Jdbi jdbi;
+    private final Map<String, Long> ids;
+
+    /**
+     * Create a term dictionary.
+     * @param jdbi the Jdbi object
+     * @param cacheSize the maximum number of terms to cache
+     */
+    TermDictionary(final Jdbi jdbi, final int cacheSize) {
+        final int size = cacheSize > 0 ? cacheSize : DEFAULT_CACHE_SIZE;
+        this.jdbi = jdbi;
+        this.ids = lruCache(size);
+    }
+
+    /**
+     * Get the ID for a term, creating a new entry in the term table if necessary.
+     * @param handle the database handle used to look up or create the term
+     * @param term the term
+     * @return the term ID or, if the term must be stored inline, nothing
+     */
+    Optional<Long> encode(final Handle handle, final String term) {
+        if (term == null || term.length() > MAX_TERM_LENGTH) {
+            return Optional.empty();
+        }
+        final Long cached = ids.get(term);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        final long id = findId(handle, term).orElseGet(() -> createId(handle, term));
+        if (handle.isInTransaction()) {
+            // The term may have been created by this transaction, which could still be rolled back
+            handle.afterCommit(() -> cache(id, term));
+        } else {
+            cache(id, term);
+        }
+        return Optional.of(id);
+    }
+
+    /**
+     * Check whether any term has been stored in the term table.
+     * @return true if the term table holds at least one term; false otherwise
+     */
+    boolean hasTerms() {
+        return jdbi.withHandle(handle -> handle.createQuery("SELECT id FROM term").setMaxRows(1)
+                .mapTo(Long.class).findFirst()).isPresent();
+    }
+
+    private static Optional<Long> findId(final Handle handle, final String term) {
+        return handle.select("SELECT id FROM term WHERE value = ?", term).mapTo(Long.class).findFirst();
+    }
+
+    private static long createId(final Handle handle, final String term) {
+        try {
+            if (isPostgres(handle)) {
+                // A failed statement would abort the enclosing transaction, so conflicts are ignored instead
+                handle.execute("INSERT INTO term (value) VALUES (?) ON CONFLICT (value) DO NOTHING", term);
+            } else {
+                handle.execute("INSERT INTO term (value) VALUES (?)", term);
+            }
+        } catch (final Exception ex) {
+            // Another writer may have created the same term concurrently
+            return findId(handle, term).orElseThrow(() ->
+                    new TrellisRuntimeException("Could not store term: " + term, ex));
+        }
+        return findId(handle, term).orElseThrow(() -> new TrellisRuntimeException("Could not store term: " + term));
+    }
+
+    private void cache(final long id, final String term) {
+        ids.put(term, id);
+    }
+
+    private static <K, V> Map<K, V> lruCache(final int maxSize) {
+        return synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+}
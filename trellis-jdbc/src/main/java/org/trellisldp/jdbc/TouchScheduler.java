@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+
+/**
+ * A scheduler that coalesces modification-date updates for the same resource.
+ *
+ * <p>The first touch of a resource opens a window of a fixed duration. Any further touches
+ * of that resource that arrive within the window are merged, and when the window closes,
+ * a single write is made using the latest of the requested timestamps. The completion stage
+ * returned for each touch completes only once the write that covers it has been committed.
+ */
+class TouchScheduler {
+
+    private static final Logger LOGGER = getLogger(TouchScheduler.class);
+
+    private final Map<IRI, PendingTouch> pending = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final BiConsumer<IRI, Instant> writer;
+
+    /**
+     * Create a touch scheduler.
+     * @param window the length of the coalescing window, in milliseconds
+     * @param writer the function that persists a modification date for a resource
+     */
+    TouchScheduler(final long window, final BiConsumer<IRI, Instant> writer) {
+        this.executor = delayedExecutor(window, MILLISECONDS);
+        this.writer = writer;
+    }
+
+    /**
+     * Schedule an update to the modification date of a resource.
+     * @param identifier the resource identifier
+     * @param time the modification date
+     * @return a new completion stage that completes when a write covering this update has been committed
+     */
+    CompletionStage<Void> touch(final IRI identifier, final Instant time) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        pending.compute(identifier, (id, touch) -> {
+            if (touch == null) {
+                runAsync(() -> flush(id), executor);
+                return new PendingTouch(time, future);
+            }
+            touch.add(time, future);
+            return touch;
+        });
+        return future;
+    }
+
+    private void flush(final IRI identifier) {
+        // Once removed, any new touches for this resource open a new window
+        final PendingTouch touch = pending.remove(identifier);
+        if (touch != null) {
+            LOGGER.debug("Writing {} coalesced modification(s) for {}", touch.futures.size(), identifier);
+            try {
+                writer.accept(identifier, touch.time);
+                touch.futures.forEach(future -> future.complete(null));
+            } catch (final Exception ex) {
+                touch.futures.forEach(future -> future.completeExceptionally(ex));
+            }
+        }
+    }
+
+    /**
+     * The pending touches for a single resource.
+     */
+    private static final class PendingTouch {
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        private Instant time;
+
+        PendingTouch(final Instant time, final CompletableFuture<Void> future) {
+            this.time = time;
+            futures.add(future);
+        }
+
+        void add(final Instant time, final CompletableFuture<Void> future) {
+            if (time.isAfter(this.time)) {
+                this.time = time;
+            }
+            futures.add(future);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.HandleCallback;
+import org.jdbi.v3.core.HandleConsumer;
+import org.jdbi.v3.core.Jdbi;
+
+/**
+ * A unit of work that shares a single database handle across the queries made while a resource is loaded or streamed.
+ *
+ * <p>Loading a resource holds the unit of work until the lookup completes. Each stream acquires the unit of work,
+ * and releases it when the stream is either closed or fully consumed. A resource may never be streamed, so the
+ * lookup does not keep its handle open for later streams; a stream that follows it opens a handle of its own.
+ * The handle is opened with the first query made while the unit of work is held, and it is closed once every
+ * stream has released it. Reusing one connection in this way avoids repeated trips to the connection pool and
+ * allows the driver to reuse its per-connection cache of prepared statements.
+ *
+ * <p>While the shared handle is in use by one thread, a query from any other thread borrows a handle of its own,
+ * so a handle is never used concurrently.
+ */
+final class UnitOfWork {
+
+    private final Jdbi jdbi;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int holders;
+    private Handle handle;
+
+    /**
+     * Create a unit of work.
+     * @param jdbi the Jdbi object
+     */
+    UnitOfWork(final Jdbi jdbi) {
+        this.jdbi = jdbi;
+    }
+
+    /**
+     * Run a callback with a handle, sharing the open handle if possible.
+     * @param callback the callback
+     * @param <R> the result type
+     * @param <X> the exception type
+     * @return the result of the callback
+     * @throws X if the callback fails
+     */
+    <R, X extends Exception> R withHandle(final HandleCallback<R, X> callback) throws X {
+        if (lock.tryLock()) {
+            try {
+                if (holders > 0) {
+                    if (handle == null) {
+                        handle = jdbi.open();
+                    }
+                    return callback.withHandle(handle);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return jdbi.withHandle(callback);
+    }
+
+    /**
+     * Run a consumer with a handle, sharing the open handle if possible.
+     * @param consumer the consumer
+     * @param <X> the exception type
+     * @throws X if the consumer fails
+     */
+    <X extends Exception> void useHandle(final HandleConsumer<X> consumer) throws X {
+        withHandle(h -> {
+            consumer.useHandle(h);
+            return null;
+        });
+    }
+
+    /**
+     * Hold the unit of work while a value is computed.
+     * @param supplier the supplier of the value
+     * @param <T> the type of the value
+     * @return the value
+     */
+    <T> T call(final Supplier<T> supplier) {
+        acquire();
+        try {
+            return supplier.get();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Wrap a stream of values so that the unit of work is held until that stream is closed or fully consumed.
+     * @param supplier the supplier of the underlying stream
+     * @param <T> the type of the stream elements
+     * @return the wrapped stream
+     */
+    <T> Stream<T> scope(final Supplier<Stream<T>> supplier) {
+        acquire();
+        final AtomicBoolean released = new AtomicBoolean();
+        final Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                release();
+            }
+        };
+        final Stream<T> stream;
+        try {
+            stream = supplier.get();
+        } catch (final RuntimeException ex) {
+            release.run();
+            throw ex;
+        }
+        final Spliterator<T> source = stream.spliterator();
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(final Consumer<? super T> action) {
+                try {
+                    if (source.tryAdvance(action)) {
+                        return true;
+                    }
+                } catch (final RuntimeException ex) {
+                    release.run();
+                    throw ex;
+                }
+                release.run();
+                return false;
+            }
+        }, false).onClose(() -> {
+            try {
+                stream.close();
+            } finally {
+                release.run();
+            }
+        });
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            holders++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            holders--;
+            if (holders == 0 && handle != null) {
+                handle.close();
+                handle = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
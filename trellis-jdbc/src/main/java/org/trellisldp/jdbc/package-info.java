@@ -18,5 +18,9 @@
  *
  * <p>This package provides a simple implementation of the
  * ResourceService interface.
+ *
+ * <p>For very large deployments on PostgreSQL, the optional Flyway migrations in {@code db/partitioned}
+ * replace the triple, extension and log tables with hash-partitioned tables. They are numbered after the
+ * latest default migration, so that they can be enabled on an existing database.
  */
 package org.trellisldp.jdbc;
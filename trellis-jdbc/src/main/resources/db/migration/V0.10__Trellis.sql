@@ -0,0 +1,23 @@
+--
+-- audit_event TABLE
+--
+
+CREATE TABLE public.audit_event (
+    id character varying(1024) NOT NULL,
+    activity character varying(1024) NOT NULL,
+    activity_type character varying(255) NOT NULL,
+    agent character varying(1024) NOT NULL,
+    at_time bigint NOT NULL,
+    delegate character varying(1024)
+);
+
+COMMENT ON TABLE public.audit_event IS 'This table stores compact audit events, each of which expands to a set of PROV triples.';
+
+COMMENT ON COLUMN public.audit_event.id IS 'The internal IRI for each resource.';
+COMMENT ON COLUMN public.audit_event.activity IS 'The IRI of the prov:Activity.';
+COMMENT ON COLUMN public.audit_event.activity_type IS 'The type of the activity, other than prov:Activity.';
+COMMENT ON COLUMN public.audit_event.agent IS 'The agent associated with the activity.';
+COMMENT ON COLUMN public.audit_event.at_time IS 'The time of the activity, stored as nanoseconds since the epoch.';
+COMMENT ON COLUMN public.audit_event.delegate IS 'The agent on whose behalf the activity was performed, if any.';
+
+CREATE INDEX idx_audit_event ON public.audit_event (id);
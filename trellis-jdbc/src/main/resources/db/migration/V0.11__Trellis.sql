@@ -0,0 +1,40 @@
+--
+-- resource TABLE
+--
+
+ALTER TABLE public.resource ADD COLUMN extensions character varying(1024);
+
+COMMENT ON COLUMN public.resource.extensions IS 'A comma-separated list of the extension graphs stored for each resource, or null if the list has not been recorded.';
+
+
+
+--
+-- extension_triple TABLE
+--
+
+CREATE TABLE public.extension_triple (
+    resource_id bigint NOT NULL,
+    ext character varying(255) NOT NULL,
+    subject character varying(1024) NOT NULL,
+    predicate character varying(1024),
+    predicate_id bigint REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT,
+    object character varying(16383) NOT NULL,
+    lang character varying(20),
+    datatype character varying(255),
+    datatype_id bigint REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT,
+    FOREIGN KEY (resource_id) REFERENCES public.resource(id) ON UPDATE RESTRICT ON DELETE CASCADE
+);
+
+COMMENT ON TABLE public.extension_triple IS 'This table stores the triples of any extension graphs, one row per triple.';
+
+COMMENT ON COLUMN public.extension_triple.resource_id IS 'This value points to the relevant item in the resource table.';
+COMMENT ON COLUMN public.extension_triple.ext IS 'The extension key for the graph.';
+COMMENT ON COLUMN public.extension_triple.subject IS 'The RDF subject for the triple.';
+COMMENT ON COLUMN public.extension_triple.predicate IS 'The RDF predicate for the triple, unless it is stored in the term table.';
+COMMENT ON COLUMN public.extension_triple.predicate_id IS 'If the RDF predicate is stored in the term table, this value points to that term.';
+COMMENT ON COLUMN public.extension_triple.object IS 'The RDF object for the triple.';
+COMMENT ON COLUMN public.extension_triple.lang IS 'If the object is a string literal, this holds the language tag, if relevant.';
+COMMENT ON COLUMN public.extension_triple.datatype IS 'If the object is a literal, this holds the datatype IRI of that literal value.';
+COMMENT ON COLUMN public.extension_triple.datatype_id IS 'If the datatype IRI is stored in the term table, this value points to that term.';
+
+CREATE INDEX idx_extension_triple ON public.extension_triple (resource_id, ext);
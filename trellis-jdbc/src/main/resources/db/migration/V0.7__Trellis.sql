@@ -0,0 +1,7 @@
+--
+-- resource TABLE
+--
+
+CREATE INDEX idx_resource_parent_id ON public.resource (is_part_of, id);
+DROP INDEX public.idx_resource_parent;
+
@@ -0,0 +1,54 @@
+--
+-- term TABLE
+--
+
+CREATE TABLE public.term (
+    id bigint PRIMARY KEY,
+    value character varying(1024) NOT NULL
+);
+
+CREATE SEQUENCE public.term_id_seq
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER TABLE public.term ALTER COLUMN id SET DEFAULT nextval('public.term_id_seq');
+
+COMMENT ON TABLE public.term IS 'This table holds a dictionary of interned predicate and datatype IRIs.';
+
+COMMENT ON COLUMN public.term.id IS 'A unique numerical ID for each term.';
+COMMENT ON COLUMN public.term.value IS 'The IRI value of the term.';
+
+CREATE UNIQUE INDEX idx_term_value ON public.term (value);
+
+
+
+--
+-- acl, description and log TABLES
+--
+
+ALTER TABLE public.acl ALTER COLUMN predicate DROP NOT NULL;
+ALTER TABLE public.acl ADD COLUMN predicate_id bigint REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+ALTER TABLE public.acl ADD COLUMN datatype_id bigint REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+
+COMMENT ON COLUMN public.acl.predicate IS 'The RDF predicate for the triple, unless it is stored in the term table.';
+COMMENT ON COLUMN public.acl.predicate_id IS 'If the RDF predicate is stored in the term table, this value points to that term.';
+COMMENT ON COLUMN public.acl.datatype_id IS 'If the datatype IRI is stored in the term table, this value points to that term.';
+
+ALTER TABLE public.description ALTER COLUMN predicate DROP NOT NULL;
+ALTER TABLE public.description ADD COLUMN predicate_id bigint REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+ALTER TABLE public.description ADD COLUMN datatype_id bigint REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+
+COMMENT ON COLUMN public.description.predicate IS 'The RDF predicate for the triple, unless it is stored in the term table.';
+COMMENT ON COLUMN public.description.predicate_id IS 'If the RDF predicate is stored in the term table, this value points to that term.';
+COMMENT ON COLUMN public.description.datatype_id IS 'If the datatype IRI is stored in the term table, this value points to that term.';
+
+ALTER TABLE public.log ALTER COLUMN predicate DROP NOT NULL;
+ALTER TABLE public.log ADD COLUMN predicate_id bigint REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+ALTER TABLE public.log ADD COLUMN datatype_id bigint REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+
+COMMENT ON COLUMN public.log.predicate IS 'The RDF predicate for the triple, unless it is stored in the term table.';
+COMMENT ON COLUMN public.log.predicate_id IS 'If the RDF predicate is stored in the term table, this value points to that term.';
+COMMENT ON COLUMN public.log.datatype_id IS 'If the datatype IRI is stored in the term table, this value points to that term.';
@@ -0,0 +1,31 @@
+--
+-- membership TABLE
+--
+
+CREATE TABLE public.membership (
+    source_id bigint NOT NULL,
+    container_id bigint NOT NULL,
+    member character varying(1024) NOT NULL,
+    subject character varying(1024) NOT NULL,
+    predicate character varying(1024) NOT NULL,
+    object character varying(16383) NOT NULL,
+    lang character varying(20),
+    datatype character varying(255),
+    FOREIGN KEY (source_id) REFERENCES public.resource(id) ON UPDATE RESTRICT ON DELETE CASCADE,
+    FOREIGN KEY (container_id) REFERENCES public.resource(id) ON UPDATE RESTRICT ON DELETE CASCADE
+);
+
+COMMENT ON TABLE public.membership IS 'This table stores materialized membership triples for LDP-DC and LDP-IC resources.';
+
+COMMENT ON COLUMN public.membership.source_id IS 'This value points to the child resource that produces the membership triple.';
+COMMENT ON COLUMN public.membership.container_id IS 'This value points to the LDP-DC or LDP-IC through which the membership triple is produced.';
+COMMENT ON COLUMN public.membership.member IS 'The membership resource IRI, with any fragment IRI removed.';
+COMMENT ON COLUMN public.membership.subject IS 'The RDF subject for the triple.';
+COMMENT ON COLUMN public.membership.predicate IS 'The RDF predicate for the triple.';
+COMMENT ON COLUMN public.membership.object IS 'The RDF object for the triple.';
+COMMENT ON COLUMN public.membership.lang IS 'If the object is a string literal, this holds the language tag, if relevant.';
+COMMENT ON COLUMN public.membership.datatype IS 'If the object is a literal, this holds the datatype IRI of that literal value.';
+
+CREATE INDEX idx_membership_member ON public.membership (member);
+CREATE INDEX idx_membership_source ON public.membership (source_id);
+CREATE INDEX idx_membership_container ON public.membership (container_id);
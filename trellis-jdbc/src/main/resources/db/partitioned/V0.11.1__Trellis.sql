@@ -0,0 +1,130 @@
+--
+-- Optional migration: hash partitioning of the triple tables
+--
+-- This migration is not part of the default set. To use it, add classpath:db/partitioned to the
+-- Flyway locations, alongside classpath:db/migration. It requires PostgreSQL 11 or later.
+--
+-- The optional migrations are numbered after the latest default migration, V0.11, so that they can
+-- be enabled on an existing database. If the default migrations have since moved past them, Flyway's
+-- outOfOrder setting must also be enabled.
+--
+-- Each table is split into 16 partitions. The description, acl and extension tables are partitioned
+-- by resource_id; the log table, which has no resource_id column, is partitioned by id, which holds
+-- the resource IRI. Existing rows are copied into the partitioned tables.
+--
+-- The trellis-jdbc test suite runs against this schema with the partitioned Maven profile
+-- (mvn test -Ppartitioned), which requires Docker.
+--
+
+
+--
+-- description TABLE
+--
+
+ALTER TABLE public.description RENAME TO description_unpartitioned;
+ALTER INDEX public.idx_description RENAME TO idx_description_unpartitioned;
+
+CREATE TABLE public.description (LIKE public.description_unpartitioned INCLUDING DEFAULTS INCLUDING COMMENTS)
+    PARTITION BY HASH (resource_id);
+
+ALTER TABLE public.description ADD FOREIGN KEY (resource_id) REFERENCES public.resource(id) ON UPDATE RESTRICT ON DELETE CASCADE;
+ALTER TABLE public.description ADD FOREIGN KEY (predicate_id) REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+ALTER TABLE public.description ADD FOREIGN KEY (datatype_id) REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+
+COMMENT ON TABLE public.description IS 'This table stores all of the user-managed RDF triples on a resource.';
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE public.description_p%s PARTITION OF public.description FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_description ON public.description (resource_id);
+
+INSERT INTO public.description SELECT * FROM public.description_unpartitioned;
+DROP TABLE public.description_unpartitioned;
+
+
+--
+-- acl TABLE
+--
+
+ALTER TABLE public.acl RENAME TO acl_unpartitioned;
+ALTER INDEX public.idx_acl RENAME TO idx_acl_unpartitioned;
+
+CREATE TABLE public.acl (LIKE public.acl_unpartitioned INCLUDING DEFAULTS INCLUDING COMMENTS)
+    PARTITION BY HASH (resource_id);
+
+ALTER TABLE public.acl ADD FOREIGN KEY (resource_id) REFERENCES public.resource(id) ON UPDATE RESTRICT ON DELETE CASCADE;
+ALTER TABLE public.acl ADD FOREIGN KEY (predicate_id) REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+ALTER TABLE public.acl ADD FOREIGN KEY (datatype_id) REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+
+COMMENT ON TABLE public.acl IS 'This table stores the WebACL triples for each relevant resource.';
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE public.acl_p%s PARTITION OF public.acl FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_acl ON public.acl (resource_id);
+
+INSERT INTO public.acl SELECT * FROM public.acl_unpartitioned;
+DROP TABLE public.acl_unpartitioned;
+
+
+--
+-- extension TABLE
+--
+
+ALTER TABLE public.extension RENAME TO extension_unpartitioned;
+ALTER INDEX public.idx_extension RENAME TO idx_extension_unpartitioned;
+
+CREATE TABLE public.extension (LIKE public.extension_unpartitioned INCLUDING DEFAULTS INCLUDING COMMENTS)
+    PARTITION BY HASH (resource_id);
+
+ALTER TABLE public.extension ADD FOREIGN KEY (resource_id) REFERENCES public.resource(id) ON UPDATE RESTRICT ON DELETE CASCADE;
+
+COMMENT ON TABLE public.extension IS 'This table stores any extension metadata for each relevant resource.';
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE public.extension_p%s PARTITION OF public.extension FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+CREATE UNIQUE INDEX idx_extension ON public.extension (resource_id, ext);
+
+INSERT INTO public.extension SELECT * FROM public.extension_unpartitioned;
+DROP TABLE public.extension_unpartitioned;
+
+
+--
+-- log TABLE
+--
+
+ALTER TABLE public.log RENAME TO log_unpartitioned;
+ALTER INDEX public.idx_log RENAME TO idx_log_unpartitioned;
+
+CREATE TABLE public.log (LIKE public.log_unpartitioned INCLUDING DEFAULTS INCLUDING COMMENTS)
+    PARTITION BY HASH (id);
+
+ALTER TABLE public.log ADD FOREIGN KEY (predicate_id) REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+ALTER TABLE public.log ADD FOREIGN KEY (datatype_id) REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+
+COMMENT ON TABLE public.log IS 'This table stores the complete audit log for each resource.';
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE public.log_p%s PARTITION OF public.log FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_log ON public.log (id);
+
+INSERT INTO public.log SELECT * FROM public.log_unpartitioned;
+DROP TABLE public.log_unpartitioned;
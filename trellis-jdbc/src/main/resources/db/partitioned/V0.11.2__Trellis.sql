@@ -0,0 +1,35 @@
+--
+-- Optional migration: hash partitioning of the extension_triple table
+--
+-- Like V0.11.1, this migration is only applied when classpath:db/partitioned is included
+-- in the Flyway locations.
+--
+
+
+--
+-- extension_triple TABLE
+--
+
+ALTER TABLE public.extension_triple RENAME TO extension_triple_unpartitioned;
+ALTER INDEX public.idx_extension_triple RENAME TO idx_extension_triple_unpartitioned;
+
+CREATE TABLE public.extension_triple (LIKE public.extension_triple_unpartitioned INCLUDING DEFAULTS INCLUDING COMMENTS)
+    PARTITION BY HASH (resource_id);
+
+ALTER TABLE public.extension_triple ADD FOREIGN KEY (resource_id) REFERENCES public.resource(id) ON UPDATE RESTRICT ON DELETE CASCADE;
+ALTER TABLE public.extension_triple ADD FOREIGN KEY (predicate_id) REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+ALTER TABLE public.extension_triple ADD FOREIGN KEY (datatype_id) REFERENCES public.term(id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+
+COMMENT ON TABLE public.extension_triple IS 'This table stores the triples of any extension graphs, one row per triple.';
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE public.extension_triple_p%s PARTITION OF public.extension_triple FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_extension_triple ON public.extension_triple (resource_id, ext);
+
+INSERT INTO public.extension_triple SELECT * FROM public.extension_triple_unpartitioned;
+DROP TABLE public.extension_triple_unpartitioned;
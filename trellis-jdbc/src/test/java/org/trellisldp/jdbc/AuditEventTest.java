@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.time.Instant.now;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.trellisldp.vocabulary.RDF.type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.RDFFactory;
+import org.trellisldp.vocabulary.AS;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.PROV;
+import org.trellisldp.vocabulary.Trellis;
+import org.trellisldp.vocabulary.XSD;
+
+/**
+ * Compact audit event tests.
+ */
+class AuditEventTest {
+
+    private static final RDF rdf = RDFFactory.getInstance();
+    private static final IRI identifier = rdf.createIRI("trellis:data/resource");
+    private static final IRI agent = rdf.createIRI("https://example.com/agent");
+    private static final IRI delegate = rdf.createIRI("https://example.com/delegate");
+
+    @Test
+    void testRoundTrip() {
+        final Graph graph = rdf.createGraph();
+        addActivity(graph, rdf.createIRI("trellis:bnode/1"), AS.Create, true);
+        addActivity(graph, rdf.createIRI("trellis:bnode/2"), AS.Update, false);
+
+        final List<AuditEvent> events = new ArrayList<>();
+        assertTrue(AuditEvent.extract(identifier, graph, events).isEmpty(), "Unexpected leftover triples!");
+        assertEquals(2, events.size(), "Incorrect number of events!");
+        assertEquals(graph.stream().collect(toSet()), events.stream().flatMap(event -> event.toQuads(identifier))
+                .map(quad -> {
+                    assertEquals(Trellis.PreferAudit, quad.getGraphName().orElse(null), "Incorrect graph name!");
+                    return quad.asTriple();
+                }).collect(toSet()), "Triples not reproduced exactly!");
+    }
+
+    @Test
+    void testNonConformingActivities() {
+        final Graph graph = rdf.createGraph();
+        final IRI extraProperty = rdf.createIRI("trellis:bnode/extra");
+        addActivity(graph, extraProperty, AS.Create, false);
+        graph.add(extraProperty, DC.description, rdf.createLiteral("Some description"));
+        final IRI badTime = rdf.createIRI("trellis:bnode/time");
+        addActivity(graph, badTime, AS.Update, false);
+        graph.remove(badTime, PROV.atTime, null);
+        graph.add(badTime, PROV.atTime, rdf.createLiteral("2020-01-01T00:00:00.000Z", XSD.dateTime));
+        final IRI referenced = rdf.createIRI("trellis:bnode/referenced");
+        addActivity(graph, referenced, AS.Delete, false);
+        graph.add(agent, PROV.wasAssociatedWith, referenced);
+        final IRI missingType = rdf.createIRI("trellis:bnode/type");
+        addActivity(graph, missingType, AS.Update, false);
+        graph.remove(missingType, type, AS.Update);
+        final IRI conforming = rdf.createIRI("trellis:bnode/ok");
+        addActivity(graph, conforming, AS.Update, true);
+
+        final List<AuditEvent> events = new ArrayList<>();
+        final Set<Triple> remaining = AuditEvent.extract(identifier, graph, events).stream().collect(toSet());
+        assertEquals(1, events.size(), "Incorrect number of events!");
+        final Set<Triple> expanded = events.get(0).toQuads(identifier).map(quad -> quad.asTriple()).collect(toSet());
+        assertTrue(expanded.stream().allMatch(graph::contains), "Unexpected expanded triples!");
+        assertTrue(expanded.stream().noneMatch(remaining::contains), "Extracted triples were not removed!");
+        assertEquals(graph.size(), expanded.size() + remaining.size(), "Triples were lost!");
+    }
+
+    private static void addActivity(final Graph graph, final IRI activity, final IRI activityType,
+            final boolean withDelegate) {
+        graph.add(identifier, PROV.wasGeneratedBy, activity);
+        graph.add(activity, type, PROV.Activity);
+        graph.add(activity, type, activityType);
+        graph.add(activity, PROV.wasAssociatedWith, agent);
+        graph.add(activity, PROV.atTime, rdf.createLiteral(now().toString(), XSD.dateTime));
+        if (withDelegate) {
+            graph.add(activity, PROV.actedOnBehalfOf, delegate);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.RDFFactory;
+
+/**
+ * Cache listener tests.
+ */
+class CacheListenerTest {
+
+    private static final RDF rdf = RDFFactory.getInstance();
+    private static final IRI identifier = rdf.createIRI("trellis:data/cached");
+    private static final DataSource ds = DBTestUtils.setupDatabase();
+
+    @Test
+    void testInvalidationMessage() throws Exception {
+        final ResourceCache cache = new ResourceCache(10L);
+        final CacheListener listener = new CacheListener(ds, cache);
+        listener.start();
+        try {
+            assertTrue(waitFor(cache::isEnabled), "Cache not enabled!");
+            assertTrue(cache.put(identifier, mock(ResourceData.class), cache.stamp()).isPresent(),
+                    "Data not cached!");
+            Jdbi.create(ds).useHandle(handle -> handle.select("SELECT pg_notify(?, ?)", CacheListener.CHANNEL,
+                        identifier.getIRIString()).map((rs, ctx) -> 1).list());
+            assertTrue(waitFor(() -> !cache.get(identifier).isPresent()), "Cache entry not invalidated!");
+        } finally {
+            listener.stop();
+        }
+    }
+
+    @Test
+    void testDedicatedConnection() throws Exception {
+        final ResourceCache cache = new ResourceCache(10L);
+        final AtomicInteger opened = new AtomicInteger();
+        final CacheListener listener = new CacheListener(() -> {
+            opened.incrementAndGet();
+            return ds.getConnection();
+        }, cache);
+        listener.start();
+        try {
+            assertTrue(waitFor(cache::isEnabled), "Cache not enabled!");
+            assertEquals(1, opened.get(), "Listener connection not opened from the factory!");
+        } finally {
+            listener.stop();
+        }
+    }
+
+    @Test
+    void testUnavailableChannel() throws Exception {
+        final DataSource mockDataSource = mock(DataSource.class);
+        when(mockDataSource.getConnection()).thenThrow(new SQLException("Expected exception"));
+        final ResourceCache cache = new ResourceCache(10L);
+        final CacheListener listener = new CacheListener(mockDataSource, cache);
+        listener.start();
+        try {
+            assertFalse(cache.isEnabled(), "Cache enabled without a notification channel!");
+            assertFalse(cache.put(identifier, mock(ResourceData.class), cache.stamp()).isPresent(),
+                    "Data cached without a notification channel!");
+        } finally {
+            listener.stop();
+        }
+    }
+
+    private static boolean waitFor(final BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50L);
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -15,34 +15,54 @@
  */
 package org.trellisldp.jdbc;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonMap;
 import static java.util.Optional.of;
 import static java.util.concurrent.CompletableFuture.allOf;
 import static java.util.function.Predicate.isEqual;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.condition.OS.WINDOWS;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.trellisldp.api.Metadata.builder;
 import static org.trellisldp.api.Resource.SpecialResources.MISSING_RESOURCE;
 import static org.trellisldp.api.TrellisUtils.TRELLIS_DATA_PREFIX;
 import static org.trellisldp.vocabulary.RDF.type;
 
+import jakarta.enterprise.inject.Instance;
+
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.Graph;
 import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Quad;
 import org.apache.commons.rdf.api.RDF;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.Test;
@@ -51,15 +71,19 @@ import org.slf4j.Logger;
 import org.trellisldp.api.BinaryMetadata;
 import org.trellisldp.api.DefaultIdentifierService;
 import org.trellisldp.api.IdentifierService;
+import org.trellisldp.api.Metadata;
 import org.trellisldp.api.RDFFactory;
 import org.trellisldp.api.Resource;
 import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.AS;
 import org.trellisldp.vocabulary.DC;
 import org.trellisldp.vocabulary.FOAF;
 import org.trellisldp.vocabulary.LDP;
 import org.trellisldp.vocabulary.OA;
+import org.trellisldp.vocabulary.PROV;
 import org.trellisldp.vocabulary.RDFS;
 import org.trellisldp.vocabulary.Trellis;
+import org.trellisldp.vocabulary.XSD;
 
 /**
  * ResourceService tests.
@@ -176,6 +200,20 @@ class DBResourceTest {
         assertNotEquals(time, svc.get(root).thenApply(Resource::getModified).toCompletableFuture().join());
     }
 
+    @Test
+    void testCoalescedTouchMethod() {
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.touchWindow = 50L;
+        svc2.init();
+        final Instant time = svc2.get(root).thenApply(Resource::getModified).toCompletableFuture().join();
+        assertDoesNotThrow(() -> allOf(svc2.touch(root).toCompletableFuture(), svc2.touch(root).toCompletableFuture(),
+                    svc2.touch(root).toCompletableFuture()).join());
+        final Instant modified = svc2.get(root).thenApply(Resource::getModified).toCompletableFuture().join();
+        assertTrue(modified.isAfter(time), "Modification date not updated by coalesced touches!");
+        svc2.touch(root).toCompletableFuture().join();
+        assertFalse(svc2.get(root).thenApply(Resource::getModified).toCompletableFuture().join().isBefore(modified));
+    }
+
     @Test
     void getAclQuads() {
         assertAll(() ->
@@ -246,6 +284,72 @@ class DBResourceTest {
             .toCompletableFuture().join();
     }
 
+    @Test
+    void testExtensionRows() {
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI extGraph = rdf.createIRI("http://example.com/TestGraph");
+        final Jdbi jdbi = Jdbi.create(ds);
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(extGraph, identifier, DC.relation, rdf.createIRI("http://example.com/Resource"));
+        dataset.add(extGraph, identifier, DC.title, rdf.createLiteral("Title", "eng"));
+        dataset.add(extGraph, identifier, DC.extent, rdf.createLiteral("5", XSD.long_));
+
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.extensionRows = true;
+        svc2.useTermDictionary = true;
+        assertNull(svc2.create(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(),
+                    dataset).toCompletableFuture().join());
+        final int id = getResourceId(jdbi, identifier);
+        assertEquals(3, countRows(jdbi, "extension_triple", id));
+        assertEquals(0, countRows(jdbi, "extension", id));
+
+        final Set<Quad> expected = dataset.stream().collect(toSet());
+        for (final DBResourceService service : asList(svc, svc2)) {
+            final Resource res = service.get(identifier).toCompletableFuture().join();
+            assertEquals(singleton(extGraph), res.getMetadataGraphNames());
+            assertTrue(res.hasMetadata(extGraph));
+            assertEquals(expected, res.stream(extGraph).collect(toSet()));
+        }
+        final Resource batched = findResource(jdbi, identifier, Map.of("test", extGraph), true, true, 10)
+            .toCompletableFuture().join();
+        assertEquals(expected, batched.stream(singleton(extGraph)).collect(toSet()));
+
+        // Switching back to the serialized form replaces the rows
+        final Dataset replacement = rdf.createDataset();
+        replacement.add(extGraph, identifier, DC.relation, rdf.createIRI("http://example.com/Other"));
+        assertNull(svc.replace(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(),
+                    replacement).toCompletableFuture().join());
+        assertEquals(0, countRows(jdbi, "extension_triple", id));
+        assertEquals(1, countRows(jdbi, "extension", id));
+        assertEquals(replacement.stream().collect(toSet()), svc2.get(identifier).thenApply(res ->
+                    res.stream(extGraph).collect(toSet())).toCompletableFuture().join());
+
+        assertNull(svc2.replace(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(),
+                    rdf.createDataset()).toCompletableFuture().join());
+        assertEquals(0, countRows(jdbi, "extension_triple", id));
+        assertEquals(0L, svc2.get(identifier).thenApply(res -> res.stream(extGraph).count())
+                .toCompletableFuture().join());
+    }
+
+    @Test
+    void testUnrecordedExtensions() {
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI extGraph = rdf.createIRI("http://example.com/TestGraph");
+        final Jdbi jdbi = Jdbi.create(ds);
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(extGraph, identifier, DC.relation, rdf.createIRI("http://example.com/Resource"));
+        assertNull(svc.create(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(),
+                    dataset).toCompletableFuture().join());
+
+        // Resources stored before the extension keys were recorded fall back to the extension tables
+        jdbi.useHandle(handle -> handle.execute("UPDATE resource SET extensions = NULL WHERE subject = ?",
+                    identifier.getIRIString()));
+        final Resource res = svc.get(identifier).toCompletableFuture().join();
+        assertEquals(singleton(extGraph), res.getMetadataGraphNames());
+        assertTrue(res.hasMetadata(extGraph));
+        assertEquals(1L, res.stream(extGraph).count());
+    }
+
     @Test
     void testAuthQuads() {
         final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + "auth#acl");
@@ -345,6 +449,496 @@ class DBResourceTest {
         }).toCompletableFuture().join();
     }
 
+    @Test
+    void testBatchFetch() {
+        final DirectContainerFixture fixture = createDirectContainer();
+
+        final Map<String, IRI> exts = Map.of("acl", Trellis.PreferAccessControl, "test", fixture.extGraph);
+        final Jdbi jdbi = Jdbi.create(ds);
+        final Resource res = findResource(jdbi, fixture.dc, exts, true, false, 10).toCompletableFuture().join();
+        final Resource batched = findResource(jdbi, fixture.dc, exts, true, true, 10).toCompletableFuture().join();
+        final Resource batchedMember = findResource(jdbi, fixture.member, exts, true, true, 10).toCompletableFuture()
+            .join();
+
+        assertEquals(res.stream().collect(toSet()), batched.stream().collect(toSet()));
+        assertEquals(7L, batched.stream().count());
+        assertEquals(1L, batched.stream(singleton(LDP.PreferContainment)).count());
+        assertEquals(2L, batched.stream(asList(Trellis.PreferServerManaged, fixture.extGraph)).count());
+        assertEquals(0L, batched.stream(singleton(Trellis.PreferAudit)).count());
+        assertEquals(0L, batched.stream(emptyList()).count());
+        assertEquals(of(rdf.createQuad(LDP.PreferMembership, fixture.member, LDP.member, fixture.child)),
+                batchedMember.stream(singleton(LDP.PreferMembership)).findFirst());
+    }
+
+    @Test
+    void testConcurrentFetch() {
+        final DirectContainerFixture fixture = createDirectContainer();
+
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.fetchThreads = 2;
+        svc2.init();
+        final List<IRI> graphs = asList(LDP.PreferContainment, Trellis.PreferUserManaged, fixture.extGraph,
+                Trellis.PreferAccessControl, Trellis.PreferServerManaged);
+        final Resource res = svc.get(fixture.dc).toCompletableFuture().join();
+        final Resource concurrent = svc2.get(fixture.dc).toCompletableFuture().join();
+        assertEquals(res.stream().collect(toList()), concurrent.stream().collect(toList()));
+        assertEquals(res.stream(graphs).collect(toList()), concurrent.stream(graphs).collect(toList()));
+        assertEquals(7L, concurrent.stream(graphs).count());
+        assertEquals(3L, concurrent.stream(singleton(Trellis.PreferUserManaged)).count());
+        assertEquals(of(rdf.createQuad(LDP.PreferMembership, fixture.member, LDP.member, fixture.child)),
+                svc2.get(fixture.member).thenApply(r -> r.stream(singleton(LDP.PreferMembership)).findFirst())
+                .toCompletableFuture().join());
+        svc2.destroy();
+    }
+
+    @Test
+    void testSharedHandle() {
+        final DirectContainerFixture fixture = createDirectContainer();
+
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.sharedHandle = true;
+        svc2.init();
+        final List<IRI> graphs = asList(LDP.PreferContainment, Trellis.PreferUserManaged,
+                Trellis.PreferAccessControl, Trellis.PreferServerManaged);
+        final Resource res = svc.get(fixture.dc).toCompletableFuture().join();
+        final Resource shared = svc2.get(fixture.dc).toCompletableFuture().join();
+        try (final Stream<Quad> expected = res.stream(); final Stream<Quad> actual = shared.stream()) {
+            assertEquals(expected.collect(toList()), actual.collect(toList()));
+        }
+        assertEquals(res.stream(graphs).collect(toList()), shared.stream(graphs).collect(toList()));
+        try (final Stream<Quad> partial = shared.stream(graphs)) {
+            assertTrue(partial.findFirst().isPresent());
+        }
+        assertEquals(of(rdf.createQuad(LDP.PreferMembership, fixture.member, LDP.member, fixture.child)),
+                svc2.get(fixture.member).thenApply(r -> r.stream(singleton(LDP.PreferMembership)).findFirst())
+                .toCompletableFuture().join());
+        svc2.destroy();
+    }
+
+    @Test
+    void testReadReplica() throws Exception {
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final DataSource replica = spy(ds);
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.replicaDataSource = mockInstance(replica);
+        svc2.replicaLag = 60000L;
+        svc2.init();
+        assertEquals(MISSING_RESOURCE, svc2.get(identifier).toCompletableFuture().join());
+        verify(replica, atLeastOnce()).getConnection();
+
+        // Immediately after a write, the resource is read from the primary database
+        clearInvocations(replica);
+        assertNull(svc2.create(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(),
+                    rdf.createDataset()).toCompletableFuture().join());
+        assertEquals(identifier, svc2.get(identifier).thenApply(Resource::getIdentifier).toCompletableFuture()
+                .join());
+        verify(replica, never()).getConnection();
+
+        // Once the replica has caught up, it is used again
+        svc2.replicaLag = 0L;
+        svc2.init();
+        assertNull(svc2.touch(identifier).toCompletableFuture().join());
+        assertEquals(identifier, svc2.get(identifier).thenApply(Resource::getIdentifier).toCompletableFuture()
+                .join());
+        verify(replica, atLeastOnce()).getConnection();
+    }
+
+    @Test
+    void testReadReplicaWithCache() throws Exception {
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final DataSource replica = spy(ds);
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.replicaDataSource = mockInstance(replica);
+        svc2.replicaLag = 0L;
+        svc2.cacheSize = 100L;
+        svc2.init();
+        assertNull(svc2.create(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(),
+                    rdf.createDataset()).toCompletableFuture().join());
+
+        // Data read from the replica is never cached
+        for (int i = 0; i < 2; i++) {
+            clearInvocations(replica);
+            assertEquals(identifier, svc2.get(identifier).thenApply(Resource::getIdentifier)
+                    .toCompletableFuture().join());
+            verify(replica, atLeastOnce()).getConnection();
+        }
+        svc2.destroy();
+    }
+
+    @Test
+    void testContainmentPages() {
+        final IRI container = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        assertNull(svc.create(builder(container).interactionModel(LDP.BasicContainer).container(root).build(),
+                    rdf.createDataset()).toCompletableFuture().join());
+        final Set<IRI> children = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            final IRI child = rdf.createIRI(container.getIRIString() + "/" + idService.getSupplier().get());
+            assertNull(svc.create(builder(child).interactionModel(LDP.RDFSource).container(container).build(),
+                        rdf.createDataset()).toCompletableFuture().join());
+            children.add(child);
+        }
+
+        final Jdbi jdbi = Jdbi.create(ds);
+        final DBResource res = (DBResource) findResource(jdbi, container, extensions, false, false, 2)
+            .toCompletableFuture().join();
+        assertEquals(children, res.stream(LDP.PreferContainment).map(Quad::getObject).collect(toSet()));
+
+        final ContainmentPage page1 = res.getContainmentPage();
+        assertEquals(2, page1.getQuads().size());
+        assertTrue(page1.getNext().isPresent());
+        final ContainmentPage page2 = res.getContainmentPage(page1.getNext().get());
+        assertEquals(2, page2.getQuads().size());
+        assertTrue(page2.getNext().isPresent());
+        final ContainmentPage page3 = res.getContainmentPage(page2.getNext().get());
+        assertEquals(1L, page3.stream().count());
+        assertFalse(page3.getNext().isPresent());
+        assertEquals(children, Stream.of(page1, page2, page3).flatMap(ContainmentPage::stream)
+                .map(Quad::getObject).collect(toSet()));
+
+        // The first page is read with the batch query, and the others as the stream is consumed
+        final Resource batched = findResource(jdbi, container, extensions, false, true, 2).toCompletableFuture()
+            .join();
+        final List<Quad> quads = batched.stream(List.of(LDP.PreferContainment, Trellis.PreferUserManaged))
+            .collect(toList());
+        assertEquals(5, quads.size());
+        assertEquals(children, quads.stream().map(Quad::getObject).collect(toSet()));
+    }
+
+    @Test
+    void testCreateAll() {
+        final IRI container = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI child1 = rdf.createIRI(container.getIRIString() + "/" + idService.getSupplier().get());
+        final IRI child2 = rdf.createIRI(container.getIRIString() + "/" + idService.getSupplier().get());
+        final IRI child3 = rdf.createIRI(container.getIRIString() + "/" + idService.getSupplier().get());
+        final IRI extGraph = rdf.createIRI("http://example.com/TestGraph");
+        final String title = "A \"title\"\twith\\special\ncharacters\r";
+
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(Trellis.PreferUserManaged, container, DC.title, rdf.createLiteral(title, "eng"));
+        dataset.add(Trellis.PreferUserManaged, container, LDP.inbox, rdf.createIRI("http://example.com/inbox"));
+        dataset.add(Trellis.PreferAccessControl, container, ACL.mode, ACL.Read);
+        dataset.add(extGraph, container, DC.relation, child1);
+        final Dataset dataset1 = rdf.createDataset();
+        dataset1.add(Trellis.PreferUserManaged, child1, DC.title, rdf.createLiteral("Original"));
+        final Dataset dataset2 = rdf.createDataset();
+        dataset2.add(Trellis.PreferUserManaged, child1, DC.title, rdf.createLiteral("Replacement"));
+        dataset2.add(Trellis.PreferUserManaged, child1, DC.created, rdf.createLiteral("2020-01-01", XSD.date));
+
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.bulkChunkSize = 2;
+        svc2.batchSize = 2;
+        assertNull(svc2.create(builder(child3).interactionModel(LDP.RDFSource).container(container).build(),
+                    dataset1).toCompletableFuture().join());
+        final Jdbi jdbi = Jdbi.create(ds);
+        final int child3Id = getResourceId(jdbi, child3);
+        assertNull(svc2.createAll(Stream.of(
+                    new SimpleEntry<>(builder(container).interactionModel(LDP.BasicContainer).container(root)
+                        .build(), dataset),
+                    new SimpleEntry<>(builder(child1).interactionModel(LDP.RDFSource).container(container)
+                        .build(), dataset1),
+                    new SimpleEntry<>(builder(child1).interactionModel(LDP.RDFSource).container(container)
+                        .build(), dataset2),
+                    new SimpleEntry<>(builder(child2).interactionModel(LDP.RDFSource).container(container)
+                        .build(), rdf.createDataset()),
+                    new SimpleEntry<>(builder(child3).interactionModel(LDP.Container).container(container)
+                        .build(), rdf.createDataset()))).toCompletableFuture().join());
+
+        svc2.get(container).thenAccept(res -> {
+            assertEquals(LDP.BasicContainer, res.getInteractionModel());
+            assertEquals(3L, res.stream(LDP.PreferContainment).count());
+            assertTrue(res.stream(Trellis.PreferUserManaged).anyMatch(quad ->
+                        quad.getObject().equals(rdf.createLiteral(title, "eng"))));
+            assertEquals(1L, res.stream(Trellis.PreferAccessControl).count());
+            assertEquals(1L, res.stream(extGraph).count());
+            assertEquals(1L, res.getExtraLinkRelations().count());
+        }).toCompletableFuture().join();
+        svc2.get(child1).thenAccept(res -> {
+            assertEquals(of(container), res.getContainer());
+            assertEquals(2L, res.stream(Trellis.PreferUserManaged).count());
+            assertTrue(res.stream(Trellis.PreferUserManaged).anyMatch(quad ->
+                        quad.getObject().equals(rdf.createLiteral("2020-01-01", XSD.date))));
+        }).toCompletableFuture().join();
+        svc2.get(child3).thenAccept(res -> {
+            assertEquals(LDP.Container, res.getInteractionModel());
+            assertEquals(0L, res.stream(Trellis.PreferUserManaged).count());
+        }).toCompletableFuture().join();
+        // An existing resource is updated in place
+        assertEquals(child3Id, getResourceId(jdbi, child3));
+        assertEquals(0, countRows(jdbi, "description", child3Id));
+    }
+
+    @Test
+    void testCreateAllErrorCondition() {
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(Trellis.PreferUserManaged, rdf.createBlankNode(), DC.title, rdf.createLiteral("Invalid"));
+        final CompletableFuture<Void> future = svc.createAll(Stream.of(new SimpleEntry<>(
+                        builder(identifier).interactionModel(LDP.RDFSource).container(root).build(), dataset)))
+            .toCompletableFuture();
+        assertThrows(CompletionException.class, future::join);
+        assertEquals(MISSING_RESOURCE, svc.get(identifier).toCompletableFuture().join());
+    }
+
+    @Test
+    void testReplaceDelta() {
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI extGraph = rdf.createIRI("http://example.com/TestGraph");
+        final Jdbi jdbi = Jdbi.create(ds);
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(Trellis.PreferUserManaged, identifier, DC.title, rdf.createLiteral("Title", "eng"));
+        dataset.add(Trellis.PreferUserManaged, identifier, DC.description, rdf.createLiteral("Description"));
+        dataset.add(Trellis.PreferUserManaged, identifier, DC.created, rdf.createLiteral("2020-01-01", XSD.date));
+        dataset.add(Trellis.PreferUserManaged, identifier, LDP.inbox, rdf.createIRI("http://example.com/inbox"));
+        dataset.add(Trellis.PreferAccessControl, identifier, ACL.mode, ACL.Read);
+        dataset.add(extGraph, identifier, DC.relation, root);
+        assertNull(svc.create(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(), dataset)
+                .toCompletableFuture().join());
+        final int resourceId = getResourceId(jdbi, identifier);
+
+        final Dataset replacement = rdf.createDataset();
+        replacement.add(Trellis.PreferUserManaged, identifier, DC.title, rdf.createLiteral("Title", "eng"));
+        replacement.add(Trellis.PreferUserManaged, identifier, DC.description, rdf.createLiteral("Changed"));
+        replacement.add(Trellis.PreferUserManaged, identifier, DC.created, rdf.createLiteral("2020-01-01", XSD.date));
+        replacement.add(Trellis.PreferUserManaged, identifier, DC.subject, rdf.createLiteral("Subject", "fra"));
+        replacement.add(Trellis.PreferAccessControl, identifier, ACL.mode, ACL.Write);
+        assertNull(svc.replace(builder(identifier).interactionModel(LDP.Container).container(root).build(),
+                    replacement).toCompletableFuture().join());
+
+        assertEquals(resourceId, getResourceId(jdbi, identifier));
+        svc.get(identifier).thenAccept(res -> {
+            assertEquals(LDP.Container, res.getInteractionModel());
+            assertEquals(4L, res.stream(Trellis.PreferUserManaged).count());
+            assertTrue(res.stream(Trellis.PreferUserManaged).map(Quad::asTriple)
+                    .allMatch(replacement.getGraph(Trellis.PreferUserManaged).get()::contains));
+            assertEquals(1L, res.stream(Trellis.PreferAccessControl).count());
+            assertTrue(res.stream(Trellis.PreferAccessControl).anyMatch(quad -> quad.getObject().equals(ACL.Write)));
+            assertEquals(0L, res.stream(extGraph).count());
+            assertEquals(0L, res.getExtraLinkRelations().count());
+        }).toCompletableFuture().join();
+
+        assertNull(svc.delete(builder(identifier).interactionModel(LDP.Container).container(root).build())
+                .toCompletableFuture().join());
+        assertEquals(0L, svc.get(identifier).thenApply(res -> res.stream(Trellis.PreferUserManaged).count())
+                .toCompletableFuture().join());
+    }
+
+    @Test
+    void testTermDictionary() {
+        final IRI member = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI ic = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI child = rdf.createIRI(ic.getIRIString() + "/" + idService.getSupplier().get());
+        final Literal number = rdf.createLiteral("42", XSD.integer);
+        final Dataset icDataset = rdf.createDataset();
+        icDataset.add(Trellis.PreferUserManaged, ic, LDP.membershipResource, member);
+        icDataset.add(Trellis.PreferUserManaged, ic, LDP.hasMemberRelation, LDP.member);
+        icDataset.add(Trellis.PreferUserManaged, ic, LDP.insertedContentRelation, DC.extent);
+        final Dataset childDataset = rdf.createDataset();
+        childDataset.add(Trellis.PreferUserManaged, child, DC.extent, number);
+        childDataset.add(Trellis.PreferUserManaged, child, DC.title, rdf.createLiteral("Title", "eng"));
+        childDataset.add(Trellis.PreferUserManaged, child, DC.created, rdf.createLiteral("2020-01-01", XSD.date));
+        childDataset.add(Trellis.PreferAccessControl, child, ACL.mode, ACL.Read);
+        final Dataset auditDataset = rdf.createDataset();
+        auditDataset.add(Trellis.PreferAudit, child, DC.created, rdf.createLiteral("2020-01-01", XSD.date));
+
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.useTermDictionary = true;
+        assertDoesNotThrow(() -> allOf(
+                    svc2.create(builder(ic).interactionModel(LDP.IndirectContainer).container(root)
+                        .membershipResource(member).memberRelation(LDP.member)
+                        .insertedContentRelation(DC.extent).build(), icDataset).toCompletableFuture(),
+                    svc2.create(builder(member).interactionModel(LDP.RDFSource).container(root).build(),
+                        rdf.createDataset()).toCompletableFuture(),
+                    svc2.create(builder(child).interactionModel(LDP.RDFSource).container(ic).build(),
+                        childDataset).toCompletableFuture(),
+                    svc2.add(child, auditDataset).toCompletableFuture()).join());
+
+        final Jdbi jdbi = Jdbi.create(ds);
+        assertEquals(3, (int) jdbi.withHandle(handle -> handle.select("SELECT COUNT(*) FROM description "
+                        + "WHERE resource_id = ? AND predicate IS NULL AND predicate_id IS NOT NULL",
+                        getResourceId(jdbi, child)).mapTo(Integer.class).one()));
+        svc2.get(child).thenAccept(res -> {
+            assertEquals(childDataset.getGraph(Trellis.PreferUserManaged).get().stream().collect(toSet()),
+                    res.stream(Trellis.PreferUserManaged).map(Quad::asTriple).collect(toSet()));
+            assertEquals(1L, res.stream(Trellis.PreferAccessControl).count());
+            assertEquals(1L, res.stream(Trellis.PreferAudit).count());
+        }).toCompletableFuture().join();
+        svc2.get(member).thenAccept(res -> assertEquals(of(rdf.createQuad(LDP.PreferMembership, member, LDP.member,
+                            number)), res.stream(LDP.PreferMembership).findFirst())).toCompletableFuture().join();
+
+        final TermDictionary terms = new TermDictionary(jdbi, 1);
+        assertEquals(svc2.get(child).thenApply(res -> res.stream().collect(toSet())).toCompletableFuture().join(),
+                findResource(jdbi, child, extensions, true, true, 10)
+                    .thenApply(res -> res.stream().collect(toSet())).toCompletableFuture().join());
+        assertEquals(of(rdf.createQuad(LDP.PreferMembership, member, LDP.member, number)),
+                findResource(jdbi, member, extensions, true, true, 10)
+                    .thenApply(res -> res.stream(LDP.PreferMembership).findFirst()).toCompletableFuture().join());
+
+        // Interned predicates are still matched once the dictionary has been disabled
+        assertTrue(terms.hasTerms());
+        assertEquals(of(rdf.createQuad(LDP.PreferMembership, member, LDP.member, number)),
+                buildResourceService(ds).get(member).thenApply(res -> res.stream(LDP.PreferMembership).findFirst())
+                    .toCompletableFuture().join());
+
+        // Interned and inline values may be mixed when a resource is replaced
+        childDataset.remove(Optional.of(Trellis.PreferUserManaged), child, DC.title, null);
+        assertNull(svc.replace(builder(child).interactionModel(LDP.RDFSource).container(ic).build(), childDataset)
+                .toCompletableFuture().join());
+        svc2.get(child).thenAccept(res -> assertEquals(2L, res.stream(Trellis.PreferUserManaged).count()))
+            .toCompletableFuture().join();
+    }
+
+    @Test
+    void testCreateAllMembership() {
+        final IRI member = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI dc = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI dcChild = rdf.createIRI(dc.getIRIString() + "/" + idService.getSupplier().get());
+        final Metadata dcMetadata = builder(dc).interactionModel(LDP.DirectContainer).container(root)
+            .memberRelation(LDP.member).membershipResource(member).build();
+        final Metadata childMetadata = builder(dcChild).interactionModel(LDP.RDFSource).container(dc).build();
+
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.membershipTable = true;
+        svc2.init();
+        assertDoesNotThrow(() -> allOf(
+                    svc2.create(dcMetadata, rdf.createDataset()).toCompletableFuture(),
+                    svc2.create(builder(member).interactionModel(LDP.RDFSource).container(root).build(),
+                        rdf.createDataset()).toCompletableFuture()).join());
+        assertDoesNotThrow(() -> svc2.create(childMetadata, rdf.createDataset()).toCompletableFuture().join());
+        final Set<Quad> expected = Set.of(rdf.createQuad(LDP.PreferMembership, member, LDP.member, dcChild));
+        assertEquals(expected, getMembership(svc2, member));
+
+        // Loading the same container and child again keeps their membership rows
+        assertNull(svc2.createAll(Stream.of(new SimpleEntry<>(dcMetadata, rdf.createDataset()),
+                        new SimpleEntry<>(childMetadata, rdf.createDataset()))).toCompletableFuture().join());
+        assertEquals(expected, getMembership(svc2, member));
+        svc2.destroy();
+    }
+
+    @Test
+    void testMembershipTable() {
+        final IRI iri = rdf.createIRI("http://example.com/#foo");
+        final IRI member = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI dc = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI ic = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI dcChild = rdf.createIRI(dc.getIRIString() + "/" + idService.getSupplier().get());
+        final IRI icChild = rdf.createIRI(ic.getIRIString() + "/" + idService.getSupplier().get());
+        final Dataset icChildDataset = rdf.createDataset();
+        icChildDataset.add(Trellis.PreferUserManaged, icChild, FOAF.primaryTopic, iri);
+
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.membershipTable = true;
+        svc2.init();
+        assertDoesNotThrow(() -> allOf(
+                    svc2.create(builder(dc).interactionModel(LDP.DirectContainer).container(root)
+                        .memberRelation(LDP.member).membershipResource(member).build(), rdf.createDataset())
+                        .toCompletableFuture(),
+                    svc2.create(builder(ic).interactionModel(LDP.IndirectContainer).container(root)
+                        .membershipResource(member).memberRelation(DC.relation)
+                        .insertedContentRelation(FOAF.primaryTopic).build(), rdf.createDataset())
+                        .toCompletableFuture(),
+                    svc2.create(builder(member).interactionModel(LDP.RDFSource).container(root).build(),
+                        rdf.createDataset()).toCompletableFuture()).join());
+        assertDoesNotThrow(() -> allOf(
+                    svc2.create(builder(dcChild).interactionModel(LDP.Container).container(dc).build(),
+                        rdf.createDataset()).toCompletableFuture(),
+                    svc2.create(builder(icChild).interactionModel(LDP.RDFSource).container(ic).build(),
+                        icChildDataset).toCompletableFuture()).join());
+
+        final IRI dcChildContainer = rdf.createIRI(dcChild.getIRIString() + "/");
+        assertEquals(Set.of(rdf.createQuad(LDP.PreferMembership, member, LDP.member, dcChildContainer),
+                    rdf.createQuad(LDP.PreferMembership, member, DC.relation, iri)), getMembership(svc2, member));
+        assertEquals(getMembership(svc, member), getMembership(svc2, member));
+
+        // Changes to a member or to a container are reflected in the membership table
+        final IRI other = rdf.createIRI("http://example.com/#bar");
+        icChildDataset.clear();
+        icChildDataset.add(Trellis.PreferUserManaged, icChild, FOAF.primaryTopic, other);
+        assertDoesNotThrow(() -> allOf(
+                    svc2.replace(builder(icChild).interactionModel(LDP.RDFSource).container(ic).build(),
+                        icChildDataset).toCompletableFuture(),
+                    svc2.replace(builder(dc).interactionModel(LDP.DirectContainer).container(root)
+                        .memberRelation(DC.hasPart).membershipResource(member).build(), rdf.createDataset())
+                        .toCompletableFuture()).join());
+        assertEquals(Set.of(rdf.createQuad(LDP.PreferMembership, member, DC.hasPart, dcChildContainer),
+                    rdf.createQuad(LDP.PreferMembership, member, DC.relation, other)), getMembership(svc2, member));
+        assertEquals(getMembership(svc, member), getMembership(svc2, member));
+
+        assertDoesNotThrow(() -> svc2.delete(builder(dcChild).interactionModel(LDP.Container).container(dc).build())
+                .toCompletableFuture().join());
+        assertEquals(Set.of(rdf.createQuad(LDP.PreferMembership, member, DC.relation, other)),
+                getMembership(svc2, member));
+
+        // The table can be rebuilt from the stored resources
+        final Jdbi jdbi = Jdbi.create(ds);
+        jdbi.useHandle(handle -> handle.execute("DELETE FROM membership"));
+        assertTrue(getMembership(svc2, member).isEmpty());
+        assertDoesNotThrow(() -> svc2.rebuildMembership().toCompletableFuture().join());
+        assertEquals(getMembership(svc, member), getMembership(svc2, member));
+        assertEquals(1L, svc2.get(member).thenApply(res -> res.stream(singleton(LDP.PreferMembership)).count())
+                .toCompletableFuture().join());
+        assertEquals(getMembership(svc, member), DBResource.findResource(jdbi, member,
+                    ResourceOptions.builder().extensions(extensions).includeLdpType(true)
+                    .batchFetch(true).containmentPageSize(10).membershipTable(true).internedTerms(false).build())
+                .thenApply(res -> res.stream(LDP.PreferMembership).collect(toSet())).toCompletableFuture().join());
+
+        // An empty table is populated when the service starts
+        jdbi.useHandle(handle -> handle.execute("DELETE FROM membership"));
+        final DBResourceService svc3 = buildResourceService(ds);
+        svc3.membershipTable = true;
+        svc3.init();
+        assertEquals(getMembership(svc, member), getMembership(svc3, member));
+        svc3.destroy();
+        svc2.destroy();
+    }
+
+    @Test
+    void testResourceCache() {
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final Jdbi jdbi = Jdbi.create(ds);
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(Trellis.PreferUserManaged, identifier, DC.title, rdf.createLiteral("Title"));
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.cacheSize = 100L;
+        svc2.batchFetch = true;
+        svc2.init();
+        assertNull(svc2.create(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(), dataset)
+                .toCompletableFuture().join());
+        assertEquals(1L, svc2.get(identifier).thenApply(res -> res.stream(Trellis.PreferUserManaged).count())
+                .toCompletableFuture().join());
+
+        // Changes made directly to the database are not seen while the resource is cached
+        jdbi.useHandle(handle -> handle.execute("DELETE FROM description WHERE resource_id = ?",
+                    getResourceId(jdbi, identifier)));
+        assertEquals(1L, svc2.get(identifier).thenApply(res -> res.stream(Trellis.PreferUserManaged).count())
+                .toCompletableFuture().join());
+        assertEquals(0L, svc.get(identifier).thenApply(res -> res.stream(Trellis.PreferUserManaged).count())
+                .toCompletableFuture().join());
+
+        // Writes made through the service invalidate the cache
+        dataset.add(Trellis.PreferUserManaged, identifier, DC.description, rdf.createLiteral("Description"));
+        assertNull(svc2.replace(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(),
+                    dataset).toCompletableFuture().join());
+        assertEquals(2L, svc2.get(identifier).thenApply(res -> res.stream(Trellis.PreferUserManaged).count())
+                .toCompletableFuture().join());
+
+        final Instant modified = svc2.get(identifier).thenApply(Resource::getModified).toCompletableFuture().join();
+        jdbi.useHandle(handle -> handle.execute("UPDATE resource SET modified = 0 WHERE subject = ?",
+                    identifier.getIRIString()));
+        assertEquals(modified, svc2.get(identifier).thenApply(Resource::getModified).toCompletableFuture().join());
+        assertNull(svc2.touch(identifier).toCompletableFuture().join());
+        assertTrue(svc2.get(identifier).thenApply(Resource::getModified).toCompletableFuture().join()
+                .isAfter(Instant.ofEpochMilli(0L)));
+
+        svc2.batchFetch = false;
+        assertEquals(2L, svc2.get(identifier).thenApply(res -> res.stream(Trellis.PreferUserManaged).count())
+                .toCompletableFuture().join());
+        jdbi.useHandle(handle -> handle.execute("DELETE FROM description WHERE resource_id = ?",
+                    getResourceId(jdbi, identifier)));
+        assertEquals(2L, svc2.get(identifier).thenApply(res -> res.stream(Trellis.PreferUserManaged).count())
+                .toCompletableFuture().join());
+        svc2.destroy();
+    }
+
     @Test
     void testEmptyAudit() {
         final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
@@ -356,6 +950,42 @@ class DBResourceTest {
             .toCompletableFuture().join();
     }
 
+    @Test
+    void testCompactAudit() {
+        final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI activity = rdf.createIRI("trellis:bnode/" + idService.getSupplier().get());
+        final IRI agent = rdf.createIRI("https://example.com/agent");
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(Trellis.PreferAudit, identifier, PROV.wasGeneratedBy, activity);
+        dataset.add(Trellis.PreferAudit, activity, type, PROV.Activity);
+        dataset.add(Trellis.PreferAudit, activity, type, AS.Create);
+        dataset.add(Trellis.PreferAudit, activity, PROV.wasAssociatedWith, agent);
+        dataset.add(Trellis.PreferAudit, activity, PROV.atTime,
+                rdf.createLiteral(Instant.now().toString(), XSD.dateTime));
+        dataset.add(Trellis.PreferAudit, identifier, DC.description, rdf.createLiteral("Not an activity"));
+
+        final DBResourceService svc2 = buildResourceService(ds);
+        svc2.compactAudit = true;
+        svc2.init();
+        assertNull(svc2.create(builder(identifier).interactionModel(LDP.RDFSource).container(root).build(),
+                    rdf.createDataset()).toCompletableFuture().join());
+        assertNull(svc2.add(identifier, dataset).toCompletableFuture().join());
+
+        final Jdbi jdbi = Jdbi.create(ds);
+        assertEquals(1, (int) jdbi.withHandle(handle -> handle.select("SELECT COUNT(*) FROM audit_event WHERE id = ?",
+                        identifier.getIRIString()).mapTo(Integer.class).one()));
+        assertEquals(1, (int) jdbi.withHandle(handle -> handle.select("SELECT COUNT(*) FROM log WHERE id = ?",
+                        identifier.getIRIString()).mapTo(Integer.class).one()));
+
+        final Set<Quad> expected = dataset.stream().collect(toSet());
+        assertEquals(expected, svc.get(identifier).thenApply(res -> res.stream(Trellis.PreferAudit)
+                    .collect(toSet())).toCompletableFuture().join());
+        assertEquals(expected, findResource(jdbi, identifier, extensions, true, true, 10)
+                .thenApply(res -> res.stream(singleton(Trellis.PreferAudit)).collect(toSet()))
+                .toCompletableFuture().join());
+        svc2.destroy();
+    }
+
     @Test
     void getExtraLinkRelations() {
         final IRI identifier = rdf.createIRI(TRELLIS_DATA_PREFIX + "extras");
@@ -465,6 +1095,72 @@ class DBResourceTest {
         assertThrows(UncheckedIOException.class, () -> DBResourceService.serializeGraph(mockGraph));
     }
 
+    /**
+     * Create an LDP-DC with a member and a child, where the container has user-managed, ACL and
+     * extension triples.
+     */
+    static DirectContainerFixture createDirectContainer() {
+        final DirectContainerFixture fixture = new DirectContainerFixture();
+        final IRI dc = fixture.dc;
+        final IRI member = fixture.member;
+        final Dataset dcDataset = rdf.createDataset();
+        dcDataset.add(Trellis.PreferUserManaged, dc, LDP.hasMemberRelation, LDP.member);
+        dcDataset.add(Trellis.PreferUserManaged, dc, LDP.membershipResource, member);
+        dcDataset.add(Trellis.PreferUserManaged, dc, DC.title, rdf.createLiteral("A title", "eng"));
+        dcDataset.add(Trellis.PreferAccessControl, dc, ACL.mode, ACL.Read);
+        dcDataset.add(fixture.extGraph, dc, DC.relation, member);
+        assertDoesNotThrow(() -> allOf(
+                    svc.create(builder(dc).interactionModel(LDP.DirectContainer).container(root)
+                        .memberRelation(LDP.member).membershipResource(member).build(), dcDataset)
+                        .toCompletableFuture(),
+                    svc.create(builder(member).interactionModel(LDP.RDFSource).container(root).build(),
+                        rdf.createDataset()).toCompletableFuture(),
+                    svc.create(builder(fixture.child).interactionModel(LDP.RDFSource).container(dc).build(),
+                        rdf.createDataset()).toCompletableFuture()).join());
+        return fixture;
+    }
+
+    /**
+     * The resources of an LDP-DC fixture.
+     */
+    static final class DirectContainerFixture {
+        final IRI member = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI dc = rdf.createIRI(TRELLIS_DATA_PREFIX + idService.getSupplier().get());
+        final IRI child = rdf.createIRI(dc.getIRIString() + "/" + idService.getSupplier().get());
+        final IRI extGraph = rdf.createIRI("http://example.com/TestGraph");
+    }
+
+    static CompletionStage<Resource> findResource(final Jdbi jdbi, final IRI identifier,
+            final Map<String, IRI> extensions, final boolean includeLdpType, final boolean batchFetch,
+            final int containmentPageSize) {
+        return DBResource.findResource(jdbi, identifier, ResourceOptions.builder().extensions(extensions)
+                .includeLdpType(includeLdpType).batchFetch(batchFetch).containmentPageSize(containmentPageSize)
+                .build());
+    }
+
+    static Set<Quad> getMembership(final DBResourceService service, final IRI identifier) {
+        return service.get(identifier).thenApply(res -> res.stream(LDP.PreferMembership).collect(toSet()))
+            .toCompletableFuture().join();
+    }
+
+    static int countRows(final Jdbi jdbi, final String table, final int resourceId) {
+        return jdbi.withHandle(handle -> handle.select("SELECT COUNT(*) FROM " + table + " WHERE resource_id = ?",
+                    resourceId).mapTo(Integer.class).one());
+    }
+
+    static int getResourceId(final Jdbi jdbi, final IRI identifier) {
+        return jdbi.withHandle(handle -> handle.select("SELECT id FROM resource WHERE subject = ?",
+                    identifier.getIRIString()).mapTo(Integer.class).one());
+    }
+
+    @SuppressWarnings("unchecked")
+    static Instance<DataSource> mockInstance(final DataSource datasource) {
+        final Instance<DataSource> instance = mock(Instance.class);
+        when(instance.isResolvable()).thenReturn(true);
+        when(instance.get()).thenReturn(datasource);
+        return instance;
+    }
+
     static DBResourceService buildResourceService(final DataSource datasource) {
         final DBResourceService svc = new DBResourceService();
         svc.ds = datasource;
@@ -472,6 +1168,7 @@ class DBResourceTest {
             "acl=http://www.trellisldp.org/ns/trellis#PreferAccessControl",
             "test=http://example.com/TestGraph"});
         svc.batchSize = 1000;
+        svc.bulkChunkSize = 1000;
         svc.includeLdpType = true;
         svc.supportDirectContainment = true;
         svc.supportIndirectContainment = true;
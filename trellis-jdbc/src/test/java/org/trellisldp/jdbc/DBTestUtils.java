@@ -15,11 +15,16 @@
  */
 package org.trellisldp.jdbc;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.eclipse.microprofile.config.ConfigProvider.getConfig;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
 
 import javax.sql.DataSource;
 
@@ -41,6 +46,8 @@ final class DBTestUtils {
     private static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:" + getConfig()
             .getValue("trellis.jdbc.test.postgres-container-version", String.class));
     private static final Logger LOGGER = getLogger(DBTestUtils.class);
+    private static final List<String> PARTITIONED_MIGRATIONS = List.of("/db/partitioned/V0.11.1__Trellis.sql",
+            "/db/partitioned/V0.11.2__Trellis.sql");
 
     private static DataSource datasource;
 
@@ -58,13 +65,29 @@ final class DBTestUtils {
                         new JdbcConnection(c));
                 final Contexts ctx = null;
                 liquibase.update(ctx);
+                if (getConfig().getOptionalValue("trellis.jdbc.test.partitioned", Boolean.class).orElse(false)) {
+                    applyPartitionedMigrations(c);
+                }
             }
-        } catch (final SQLException | LiquibaseException ex) {
+        } catch (final IOException | SQLException | LiquibaseException ex) {
             LOGGER.error("Error setting up tests", ex);
         }
         datasource = ds;
     }
 
+    /*
+     * Apply the optional hash-partitioning migrations on top of the default schema.
+     */
+    private static void applyPartitionedMigrations(final Connection c) throws IOException, SQLException {
+        for (final String migration : PARTITIONED_MIGRATIONS) {
+            LOGGER.info("Applying {}", migration);
+            try (final InputStream input = DBTestUtils.class.getResourceAsStream(migration);
+                    final Statement statement = c.createStatement()) {
+                statement.execute(new String(input.readAllBytes(), UTF_8));
+            }
+        }
+    }
+
     static synchronized DataSource setupDatabase() {
         if (datasource == null) {
             initialize();
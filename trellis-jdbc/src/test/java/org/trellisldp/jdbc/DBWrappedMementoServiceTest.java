@@ -17,6 +17,7 @@ package org.trellisldp.jdbc;
 
 import static java.time.Instant.now;
 import static java.time.temporal.ChronoUnit.SECONDS;
+import static java.util.Arrays.asList;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.condition.OS.WINDOWS;
@@ -25,12 +26,15 @@ import static org.mockito.Mockito.*;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.SortedSet;
+import java.util.TreeSet;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.RDF;
+import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledOnOs;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -87,6 +91,77 @@ class DBWrappedMementoServiceTest {
         assertEquals(time, res.getModified());
     }
 
+    @Test
+    void testBoundedQueries() {
+        final Resource mockResource = mock(Resource.class);
+        when(mockMementoService.put(any(Resource.class))).thenAnswer(inv -> completedFuture(null));
+        final MementoService svc = new DBWrappedMementoService(ds, mockMementoService);
+
+        final Instant time = now().truncatedTo(SECONDS);
+        final IRI identifier = rdf.createIRI("trellis:data/bounded");
+        when(mockResource.getIdentifier()).thenReturn(identifier);
+        for (long i = 0; i < 5; i++) {
+            when(mockResource.getModified()).thenReturn(time.plusSeconds(i * 10));
+            assertDoesNotThrow(svc.put(mockResource).toCompletableFuture()::join);
+        }
+
+        assertEquals(Optional.of(time), svc.firstMemento(identifier).toCompletableFuture().join());
+        assertEquals(Optional.of(time.plusSeconds(40)), svc.lastMemento(identifier).toCompletableFuture().join());
+        assertEquals(5L, svc.mementoCount(identifier).toCompletableFuture().join());
+        assertEquals(Optional.of(time.plusSeconds(10)), svc.mementoBefore(identifier, time.plusSeconds(10))
+                .toCompletableFuture().join());
+        assertEquals(Optional.of(time.plusSeconds(10)), svc.mementoBefore(identifier, time.plusSeconds(15))
+                .toCompletableFuture().join());
+        assertEquals(Optional.empty(), svc.mementoBefore(identifier, time.minusSeconds(1))
+                .toCompletableFuture().join());
+        assertEquals(Optional.of(time.plusSeconds(20)), svc.mementoAfter(identifier, time.plusSeconds(10))
+                .toCompletableFuture().join());
+        assertEquals(Optional.empty(), svc.mementoAfter(identifier, time.plusSeconds(40))
+                .toCompletableFuture().join());
+        assertEquals(new TreeSet<>(asList(time, time.plusSeconds(40))), svc.mementoBounds(identifier, null)
+                .toCompletableFuture().join());
+        assertEquals(new TreeSet<>(asList(time, time.plusSeconds(10), time.plusSeconds(20), time.plusSeconds(40))),
+                svc.mementoBounds(identifier, time.plusSeconds(5)).toCompletableFuture().join());
+
+        final IRI other = rdf.createIRI("trellis:data/other");
+        assertFalse(svc.firstMemento(other).toCompletableFuture().join().isPresent());
+        assertFalse(svc.lastMemento(other).toCompletableFuture().join().isPresent());
+        assertEquals(0L, svc.mementoCount(other).toCompletableFuture().join());
+        assertTrue(svc.mementoBounds(other, time).toCompletableFuture().join().isEmpty());
+    }
+
+    @Test
+    void testReadReplica() throws Exception {
+        final Resource mockResource = mock(Resource.class);
+        when(mockMementoService.put(any(Resource.class))).thenAnswer(inv -> completedFuture(null));
+        final DataSource replica = spy(ds);
+        final MementoService svc = new DBWrappedMementoService(Jdbi.create(ds), Jdbi.create(replica), 60000L,
+                mockMementoService);
+
+        final Instant time = now().truncatedTo(SECONDS);
+        final IRI identifier = rdf.createIRI("trellis:data/replica");
+        when(mockResource.getIdentifier()).thenReturn(identifier);
+        when(mockResource.getModified()).thenReturn(time);
+
+        assertEquals(0L, svc.mementoCount(identifier).toCompletableFuture().join());
+        verify(replica).getConnection();
+
+        // A newly recorded memento is read from the primary database
+        assertDoesNotThrow(svc.put(mockResource).toCompletableFuture()::join);
+        assertEquals(Optional.of(time), svc.lastMemento(identifier).toCompletableFuture().join());
+        assertEquals(1, svc.mementos(identifier).toCompletableFuture().join().size());
+        verify(replica).getConnection();
+    }
+
+    @Test
+    void testInjectedReplica() throws Exception {
+        final DataSource replica = spy(ds);
+        final MementoService svc = new DBWrappedMementoService(ds, DBResourceTest.mockInstance(replica), 0L);
+        assertDoesNotThrow(svc.mementoCount(rdf.createIRI("trellis:data/injected-replica")).toCompletableFuture()
+                ::join);
+        verify(replica).getConnection();
+    }
+
     @Test
     void testNoArgCtor() {
         assertDoesNotThrow(() -> new DBWrappedMementoService());
@@ -107,6 +182,12 @@ class DBWrappedMementoServiceTest {
         assertDoesNotThrow(svc.put(mockResource).toCompletableFuture()::join);
 
         assertTrue(svc.mementos(identifier).toCompletableFuture().join().isEmpty());
+        assertFalse(svc.firstMemento(identifier).toCompletableFuture().join().isPresent());
+        assertFalse(svc.lastMemento(identifier).toCompletableFuture().join().isPresent());
+        assertFalse(svc.mementoBefore(identifier, time).toCompletableFuture().join().isPresent());
+        assertFalse(svc.mementoAfter(identifier, time).toCompletableFuture().join().isPresent());
+        assertEquals(0L, svc.mementoCount(identifier).toCompletableFuture().join());
+        assertTrue(svc.mementoBounds(identifier, time).toCompletableFuture().join().isEmpty());
 
         assertEquals(Resource.SpecialResources.MISSING_RESOURCE,
                 svc.get(identifier, time).toCompletableFuture().join());
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * PostgreSQL COPY utility tests.
+ */
+class PostgresCopyTest {
+
+    @Test
+    void testEncode() {
+        assertEquals("1\ttrellis:data/resource\t\\N\n",
+                PostgresCopy.encode(new Object[]{1, "trellis:data/resource", null}));
+    }
+
+    @Test
+    void testEncodeSpecialCharacters() {
+        assertEquals("a\\tb\\nc\\rd\\\\e\tN\n", PostgresCopy.encode(new Object[]{"a\tb\nc\rd\\e", "N"}));
+    }
+
+    @Test
+    void testEncodeBoolean() {
+        assertEquals("true\t42\n", PostgresCopy.encode(new Object[]{true, 42L}));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.trellisldp.api.TrellisUtils.TRELLIS_DATA_PREFIX;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.RDFFactory;
+
+/**
+ * Replica router tests.
+ */
+class ReplicaRouterTest {
+
+    private static final RDF rdf = RDFFactory.getInstance();
+    private static final IRI resource = rdf.createIRI(TRELLIS_DATA_PREFIX + "resource");
+    private static final IRI other = rdf.createIRI(TRELLIS_DATA_PREFIX + "other");
+
+    private final Jdbi primary = Jdbi.create(mock(DataSource.class));
+    private final Jdbi replica = Jdbi.create(mock(DataSource.class));
+
+    @Test
+    void testNoReplica() {
+        final ReplicaRouter router = new ReplicaRouter(primary, null, 1000L);
+        assertSame(primary, router.read(resource));
+        router.written(resource);
+        router.written();
+        assertSame(primary, router.read(resource));
+        assertSame(primary, router.write());
+    }
+
+    @Test
+    void testReadYourWrites() {
+        final ReplicaRouter router = new ReplicaRouter(primary, replica, 60000L);
+        assertSame(replica, router.read(resource), "Reads should use the replica before any write!");
+        assertSame(primary, router.write());
+        router.written(resource);
+        assertSame(primary, router.read(resource), "Reads should use the primary database after a write!");
+        assertSame(replica, router.read(other), "Reads of other resources should still use the replica!");
+    }
+
+    @Test
+    void testWriteAll() {
+        final ReplicaRouter router = new ReplicaRouter(primary, replica, 60000L);
+        router.written();
+        assertSame(primary, router.read(resource), "Reads should use the primary database after a write!");
+        assertSame(primary, router.read(other), "Reads should use the primary database after a write!");
+    }
+
+    @Test
+    void testReplicaCaughtUp() throws InterruptedException {
+        final ReplicaRouter router = new ReplicaRouter(primary, replica, 50L);
+        router.written(resource);
+        assertSame(primary, router.read(resource));
+        Thread.sleep(100L);
+        assertSame(replica, router.read(resource), "Reads should use the replica once the lag has elapsed!");
+    }
+
+    @Test
+    void testNoLag() {
+        final ReplicaRouter router = new ReplicaRouter(primary, replica, -1L);
+        router.written(resource);
+        router.written();
+        assertSame(replica, router.read(resource));
+    }
+}
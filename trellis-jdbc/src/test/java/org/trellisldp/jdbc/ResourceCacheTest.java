@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.RDFFactory;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * Resource cache tests.
+ */
+class ResourceCacheTest {
+
+    private static final RDF rdf = RDFFactory.getInstance();
+    private static final IRI identifier = rdf.createIRI("trellis:data/resource");
+    private static final IRI other = rdf.createIRI("trellis:data/other");
+    private static final Quad quad = rdf.createQuad(Trellis.PreferUserManaged, identifier, DC.title,
+            rdf.createLiteral("A title"));
+
+    @Test
+    void testPutAndGet() {
+        final ResourceCache cache = new ResourceCache(10L);
+        final ResourceData data = mock(ResourceData.class);
+        final ResourceCache.Entry entry = cache.put(identifier, data, cache.stamp()).orElseThrow();
+        assertSame(data, cache.get(identifier).map(ResourceCache.Entry::getData).orElseThrow(),
+                "Incorrect cached data!");
+        assertFalse(entry.getGraph(Trellis.PreferUserManaged).isPresent(), "Unexpected cached graph!");
+
+        cache.putGraph(entry, Trellis.PreferUserManaged, List.of(quad), cache.stamp());
+        assertEquals(List.of(quad), entry.getGraph(Trellis.PreferUserManaged).orElseThrow(), "Incorrect graph!");
+
+        cache.invalidate(identifier);
+        assertFalse(cache.get(identifier).isPresent(), "Entry not invalidated!");
+    }
+
+    @Test
+    void testStaleStamp() {
+        final ResourceCache cache = new ResourceCache(10L);
+        final long stamp = cache.stamp();
+        cache.invalidate(identifier);
+        assertFalse(cache.put(identifier, mock(ResourceData.class), stamp).isPresent(), "Stale data was cached!");
+
+        final ResourceCache.Entry entry = cache.put(identifier, mock(ResourceData.class), cache.stamp())
+            .orElseThrow();
+        final long graphStamp = cache.stamp();
+        cache.invalidate(identifier);
+        cache.putGraph(entry, Trellis.PreferUserManaged, List.of(quad), graphStamp);
+        assertFalse(entry.getGraph(Trellis.PreferUserManaged).isPresent(), "Stale graph was cached!");
+    }
+
+    @Test
+    void testStampPerResource() {
+        final ResourceCache cache = new ResourceCache(10L);
+        final long stamp = cache.stamp();
+        cache.invalidate(other);
+        final ResourceCache.Entry entry = cache.put(identifier, mock(ResourceData.class), stamp).orElseThrow();
+        cache.invalidate(other);
+        cache.putGraph(entry, Trellis.PreferUserManaged, List.of(quad), stamp);
+        assertTrue(entry.getGraph(Trellis.PreferUserManaged).isPresent(),
+                "Graph discarded after an unrelated invalidation!");
+    }
+
+    @Test
+    void testManyInvalidations() {
+        final ResourceCache cache = new ResourceCache(10L);
+        final long stamp = cache.stamp();
+        for (int i = 0; i <= ResourceCache.MAX_INVALIDATIONS; i++) {
+            cache.invalidate(rdf.createIRI("trellis:data/resource" + i));
+        }
+        assertFalse(cache.put(identifier, mock(ResourceData.class), stamp).isPresent(),
+                "Data read before forgotten invalidations was cached!");
+        assertTrue(cache.put(identifier, mock(ResourceData.class), cache.stamp()).isPresent(),
+                "Fresh data was not cached!");
+    }
+
+    @Test
+    void testEvictedEntry() {
+        final ResourceCache cache = new ResourceCache(10L);
+        final ResourceCache.Entry entry = cache.put(identifier, mock(ResourceData.class), cache.stamp())
+            .orElseThrow();
+        cache.invalidate(identifier);
+        cache.putGraph(entry, Trellis.PreferUserManaged, emptyList(), cache.stamp());
+        assertFalse(entry.getGraph(Trellis.PreferUserManaged).isPresent(), "Graph added to an evicted entry!");
+    }
+
+    @Test
+    void testWeightedEviction() {
+        final ResourceCache cache = new ResourceCache(3L);
+        final ResourceCache.Entry entry = cache.put(identifier, mock(ResourceData.class), cache.stamp())
+            .orElseThrow();
+        cache.put(other, mock(ResourceData.class), cache.stamp());
+        assertTrue(cache.get(identifier).isPresent(), "Entry evicted too early!");
+        assertTrue(cache.get(other).isPresent(), "Entry evicted too early!");
+
+        // The least recently used entry is evicted once the total weight is exceeded
+        cache.putGraph(entry, Trellis.PreferUserManaged, List.of(quad, quad), cache.stamp());
+        assertFalse(cache.get(other).isPresent(), "Entry not evicted!");
+        assertTrue(cache.get(identifier).isPresent(), "Wrong entry evicted!");
+    }
+
+    @Test
+    void testDisabledCache() {
+        final ResourceCache cache = new ResourceCache(10L);
+        cache.put(identifier, mock(ResourceData.class), cache.stamp());
+        cache.setEnabled(false);
+        assertFalse(cache.isEnabled(), "Cache not disabled!");
+        assertFalse(cache.get(identifier).isPresent(), "Disabled cache not emptied!");
+        assertFalse(cache.put(identifier, mock(ResourceData.class), cache.stamp()).isPresent(),
+                "Data stored in a disabled cache!");
+        cache.setEnabled(true);
+        assertTrue(cache.put(identifier, mock(ResourceData.class), cache.stamp()).isPresent(),
+                "Data not stored in an enabled cache!");
+    }
+}
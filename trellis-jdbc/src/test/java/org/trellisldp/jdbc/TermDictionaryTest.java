@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.XSD;
+
+/**
+ * Term dictionary tests.
+ */
+class TermDictionaryTest {
+
+    private static final Jdbi jdbi = Jdbi.create(DBTestUtils.setupDatabase());
+
+    @Test
+    void testEncode() {
+        final TermDictionary terms = new TermDictionary(jdbi, 1);
+        final Optional<Long> title = encode(terms, DC.title.getIRIString());
+        final Optional<Long> integer = encode(terms, XSD.integer.getIRIString());
+        assertTrue(title.isPresent(), "Missing term ID!");
+        assertTrue(integer.isPresent(), "Missing term ID!");
+        assertNotEquals(title, integer, "Distinct terms share an ID!");
+        assertEquals(title, encode(terms, DC.title.getIRIString()), "Term ID changed!");
+        assertEquals(Optional.of(DC.title.getIRIString()), value(title.get()), "Incorrect stored term!");
+        assertEquals(Optional.of(XSD.integer.getIRIString()), value(integer.get()), "Incorrect stored term!");
+    }
+
+    @Test
+    void testSharedTerms() {
+        final TermDictionary terms = new TermDictionary(jdbi, 10);
+        final TermDictionary other = new TermDictionary(jdbi, 0);
+        final long id = encode(terms, DC.description.getIRIString()).orElseThrow();
+        assertEquals(Optional.of(id), encode(other, DC.description.getIRIString()), "Term ID not shared!");
+        assertEquals(Optional.of(DC.description.getIRIString()), value(id), "Incorrect stored term!");
+    }
+
+    @Test
+    void testInlineTerms() {
+        final TermDictionary terms = new TermDictionary(jdbi, 10);
+        assertFalse(encode(terms, null).isPresent(), "Unexpected ID for a null term!");
+        assertFalse(encode(terms, "http://example.com/" + "a".repeat(TermDictionary.MAX_TERM_LENGTH)).isPresent(),
+                "Unexpected ID for a long term!");
+    }
+
+    @Test
+    void testRolledBackTerm() {
+        final TermDictionary terms = new TermDictionary(jdbi, 10);
+        final String term = "http://example.com/rolled-back";
+        assertThrows(IllegalStateException.class, () -> jdbi.useTransaction(handle -> {
+            assertTrue(terms.encode(handle, term).isPresent(), "Missing term ID!");
+            // Repeated lookups in the same transaction see the new term
+            assertEquals(terms.encode(handle, term), terms.encode(handle, term), "Term ID changed!");
+            throw new IllegalStateException("rollback");
+        }));
+        final long id = jdbi.inTransaction(handle -> terms.encode(handle, term)).orElseThrow();
+        assertEquals(Optional.of(term), value(id), "Cached ID for a rolled back term!");
+    }
+
+    private static Optional<String> value(final long id) {
+        return jdbi.withHandle(handle -> handle.select("SELECT value FROM term WHERE id = ?", id)
+                .mapTo(String.class).findFirst());
+    }
+
+    private static Optional<Long> encode(final TermDictionary terms, final String term) {
+        return jdbi.withHandle(handle -> terms.encode(handle, term));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.concurrent.CompletableFuture.allOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.RDFFactory;
+import org.trellisldp.api.TrellisRuntimeException;
+
+/**
+ * Touch scheduler tests.
+ */
+class TouchSchedulerTest {
+
+    private static final RDF rdf = RDFFactory.getInstance();
+    private static final IRI identifier = rdf.createIRI("trellis:data/container");
+    private static final IRI other = rdf.createIRI("trellis:data/other");
+
+    @Test
+    void testCoalescedTouches() {
+        final Map<IRI, List<Instant>> writes = new ConcurrentHashMap<>();
+        final TouchScheduler scheduler = new TouchScheduler(100L, (id, time) ->
+                writes.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>()).add(time));
+        final Instant time = Instant.now();
+
+        final CompletableFuture<Void> first = scheduler.touch(identifier, time).toCompletableFuture();
+        final CompletableFuture<Void> second = scheduler.touch(identifier, time.plusMillis(5)).toCompletableFuture();
+        final CompletableFuture<Void> third = scheduler.touch(identifier, time.minusMillis(5)).toCompletableFuture();
+        final CompletableFuture<Void> fourth = scheduler.touch(other, time).toCompletableFuture();
+        assertFalse(first.isDone(), "Touch completed before the window closed!");
+
+        allOf(first, second, third, fourth).join();
+        assertEquals(List.of(time.plusMillis(5)), writes.get(identifier), "Incorrect coalesced write!");
+        assertEquals(List.of(time), writes.get(other), "Incorrect independent write!");
+
+        // A touch after the window has closed opens a new window
+        scheduler.touch(identifier, time.plusMillis(10)).toCompletableFuture().join();
+        assertEquals(List.of(time.plusMillis(5), time.plusMillis(10)), writes.get(identifier));
+    }
+
+    @Test
+    void testFailedTouches() {
+        final TouchScheduler scheduler = new TouchScheduler(10L, (id, time) -> {
+            throw new TrellisRuntimeException("Expected exception");
+        });
+        final Instant time = Instant.now();
+
+        final CompletableFuture<Void> first = scheduler.touch(identifier, time).toCompletableFuture();
+        final CompletableFuture<Void> second = scheduler.touch(identifier, time).toCompletableFuture();
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.jdbc;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit of work tests.
+ */
+class UnitOfWorkTest {
+
+    private static final DataSource ds = DBTestUtils.setupDatabase();
+
+    @Test
+    void testSharedHandle() throws SQLException {
+        final DataSource source = spy(ds);
+        final UnitOfWork work = new UnitOfWork(Jdbi.create(source));
+
+        final List<Integer> values = work.scope(() -> Stream.of(1, 2, 3).map(i -> work.withHandle(handle ->
+                        handle.select("SELECT ?", i).mapTo(Integer.class).one()))).collect(toList());
+        assertEquals(List.of(1, 2, 3), values, "Incorrect query results!");
+        verify(source).getConnection();
+
+        // Once the stream is consumed, each query borrows its own handle
+        assertEquals(Integer.valueOf(4), work.withHandle(handle ->
+                    handle.select("SELECT 4").mapTo(Integer.class).one()));
+        work.useHandle(handle -> handle.execute("SELECT 5"));
+        verify(source, times(3)).getConnection();
+    }
+
+    @Test
+    void testCloseUnconsumedStream() throws SQLException {
+        final DataSource source = spy(ds);
+        final UnitOfWork work = new UnitOfWork(Jdbi.create(source));
+
+        try (final Stream<Integer> stream = work.scope(() -> Stream.of(1, 2, 3).map(i -> work.withHandle(handle ->
+                        handle.select("SELECT ?", i).mapTo(Integer.class).one())))) {
+            assertEquals(1, stream.findFirst().orElse(0));
+        }
+        verify(source).getConnection();
+        work.useHandle(handle -> handle.execute("SELECT 1"));
+        verify(source, times(2)).getConnection();
+    }
+
+    @Test
+    void testNestedStreams() throws SQLException {
+        final DataSource source = spy(ds);
+        final UnitOfWork work = new UnitOfWork(Jdbi.create(source));
+
+        try (final Stream<Integer> outer = work.scope(() -> Stream.of(1, 2))) {
+            final long count = work.scope(() -> Stream.of(3, 4).map(i -> work.withHandle(handle ->
+                            handle.select("SELECT ?", i).mapTo(Integer.class).one()))).count();
+            assertEquals(2L, count);
+            // The handle remains open while the outer stream is held
+            assertEquals(Integer.valueOf(5), work.withHandle(handle ->
+                        handle.select("SELECT 5").mapTo(Integer.class).one()));
+            assertEquals(2L, outer.count());
+        }
+        verify(source).getConnection();
+    }
+
+    @Test
+    void testConcurrentQueries() throws SQLException {
+        final DataSource source = spy(ds);
+        final UnitOfWork work = new UnitOfWork(Jdbi.create(source));
+
+        final List<Integer> values = work.scope(() -> Stream.of(1).map(i -> work.withHandle(handle ->
+                        // A query from another thread may not use the handle that is in use by this thread
+                        supplyAsync(() -> work.withHandle(other -> {
+                            assertNotSame(handle, other, "Handle shared between threads!");
+                            return other.select("SELECT ?", i).mapTo(Integer.class).one();
+                        })).join()))).collect(toList());
+        assertEquals(List.of(1), values);
+        verify(source, times(2)).getConnection();
+    }
+
+    @Test
+    void testStreamError() throws SQLException {
+        final DataSource source = spy(ds);
+        final UnitOfWork work = new UnitOfWork(Jdbi.create(source));
+        final RuntimeException error = new RuntimeException("Expected");
+
+        final Stream<Integer> stream = work.scope(() -> Stream.of(1, 2).map(i -> work.withHandle(handle -> {
+            handle.select("SELECT 1").mapTo(Integer.class).one();
+            throw error;
+        })));
+        assertSame(error, assertThrows(RuntimeException.class, stream::count));
+        assertSame(error, assertThrows(RuntimeException.class, () -> work.scope(() -> {
+            throw error;
+        })));
+        work.useHandle(handle -> handle.execute("SELECT 1"));
+        verify(source, times(2)).getConnection();
+    }
+}
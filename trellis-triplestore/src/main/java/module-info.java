@@ -30,6 +30,8 @@ module org.trellisldp.triplestore {
     requires jakarta.annotation;
     requires microprofile.config.api;
     requires microprofile.health.api;
+    requires microprofile.metrics.api;
+    requires java.net.http;
     requires org.apache.jena.rdfconnection;
     requires org.apache.jena.core;
     requires org.apache.jena.tdb2;
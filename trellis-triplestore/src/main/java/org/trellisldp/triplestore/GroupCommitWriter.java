@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.triplestore;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.jena.system.Txn.executeWrite;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.jena.sparql.core.Transactional;
+import org.slf4j.Logger;
+import org.trellisldp.api.TrellisRuntimeException;
+
+/**
+ * A single writer thread that commits queued writes to a local dataset in batches.
+ *
+ * <p>Each batch runs in one write transaction, so concurrent writers share the cost of a commit
+ * instead of queuing behind one another for the dataset's single write lock. If a batch fails, its
+ * writes are retried one transaction at a time, so that one bad write does not fail its neighbours.
+ */
+final class GroupCommitWriter implements AutoCloseable {
+
+    private static final Logger LOGGER = getLogger(GroupCommitWriter.class);
+    private static final long POLL_INTERVAL = 100L;
+    private static final String CLOSED = "The triplestore writer has been closed";
+
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final Transactional transactional;
+    private final int maxBatchSize;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Create a group-commit writer.
+     * @param transactional the dataset, or a connection to it
+     * @param maxBatchSize the maximum number of writes to commit in one transaction
+     */
+    GroupCommitWriter(final Transactional transactional, final int maxBatchSize) {
+        this.transactional = transactional;
+        this.maxBatchSize = maxBatchSize;
+        this.thread = new Thread(this::drain, "trellis-triplestore-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queue a write.
+     * @param action the write action, run inside a write transaction
+     * @return a future that completes once the batch containing the write has been committed
+     */
+    CompletableFuture<Void> submit(final Runnable action) {
+        final Write write = new Write(action);
+        if (!running) {
+            write.fail(new TrellisRuntimeException(CLOSED));
+        } else {
+            queue.add(write);
+            // The writer may have stopped between the check above and the enqueue
+            if (!running && !thread.isAlive() && queue.remove(write)) {
+                write.fail(new TrellisRuntimeException(CLOSED));
+            }
+        }
+        return write.future;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        final List<Write> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                final Write first = queue.poll(POLL_INTERVAL, MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    commit(batch);
+                    batch.clear();
+                }
+            } catch (final InterruptedException ex) {
+                LOGGER.warn("Triplestore writer interrupted with {} pending writes", queue.size());
+                Thread.currentThread().interrupt();
+                running = false;
+                queue.forEach(write -> write.fail(ex));
+                queue.clear();
+            }
+        }
+    }
+
+    private void commit(final List<Write> batch) {
+        try {
+            executeWrite(transactional, () -> batch.forEach(write -> write.action.run()));
+            LOGGER.debug("Committed a batch of {} writes", batch.size());
+            batch.forEach(Write::succeed);
+        } catch (final RuntimeException ex) {
+            if (batch.size() == 1) {
+                batch.get(0).fail(ex);
+            } else {
+                LOGGER.debug("Batch of {} writes failed, retrying individually: {}", batch.size(), ex.getMessage());
+                batch.forEach(write -> commit(List.of(write)));
+            }
+        }
+    }
+
+    private static final class Write {
+        private final Runnable action;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Write(final Runnable action) {
+            this.action = action;
+        }
+
+        // Complete off the writer thread, so that dependent stages do not delay the next batch
+        void succeed() {
+            runAsync(() -> future.complete(null));
+        }
+
+        void fail(final Throwable cause) {
+            runAsync(() -> future.completeExceptionally(cause));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.triplestore;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.jena.riot.out.NodeFmtLib.strNT;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * The text of a SPARQL update that ends with an {@code INSERT DATA} operation, produced as it is read.
+ *
+ * <p>Only one chunk of quads is serialized at a time, so the full text of a large update is never held
+ * in memory. The update is still a single request, which the triplestore applies atomically.
+ */
+final class InsertDataStream extends InputStream {
+
+    private final Iterator<Quad> quads;
+    private final int chunkSize;
+    private byte[] buffer;
+    private int position;
+    private boolean finished;
+
+    /**
+     * Create a stream for a SPARQL update.
+     * @param prefix the operations that precede the {@code INSERT DATA} operation
+     * @param quads the quads to insert
+     * @param chunkSize the maximum number of quads to serialize at a time
+     */
+    InsertDataStream(final String prefix, final Iterator<Quad> quads, final int chunkSize) {
+        this.quads = quads;
+        this.chunkSize = chunkSize;
+        this.buffer = (prefix + " ;\nINSERT DATA {\n").getBytes(UTF_8);
+    }
+
+    @Override
+    public int read() {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        final int size = Math.min(len, buffer.length - position);
+        System.arraycopy(buffer, position, b, off, size);
+        position += size;
+        return size;
+    }
+
+    private boolean fill() {
+        while (position == buffer.length) {
+            if (quads.hasNext()) {
+                final StringBuilder chunk = new StringBuilder();
+                for (int i = 0; i < chunkSize && quads.hasNext(); i++) {
+                    final Quad quad = quads.next();
+                    chunk.append("GRAPH ").append(strNT(quad.getGraph())).append(" { ")
+                        .append(strNT(quad.getSubject())).append(' ').append(strNT(quad.getPredicate()))
+                        .append(' ').append(strNT(quad.getObject())).append(" }\n");
+                }
+                buffer = chunk.toString().getBytes(UTF_8);
+            } else if (!finished) {
+                buffer = "}\n".getBytes(UTF_8);
+                finished = true;
+            } else {
+                return false;
+            }
+            position = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.triplestore;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.jena.rdfconnection.RDFConnectionWrapper;
+import org.apache.jena.update.UpdateRequest;
+import org.slf4j.Logger;
+import org.trellisldp.api.TrellisRuntimeException;
+
+/**
+ * An {@link RDFConnection} that bounds the number of concurrent requests sent to a remote triplestore.
+ *
+ * <p>Each query, update or upload holds one of a fixed number of permits for as long as it runs;
+ * callers that cannot acquire a permit within the configured timeout fail rather than queue indefinitely.
+ * The underlying HTTP client multiplexes or reuses the actual sockets.
+ *
+ * <p>Only the requests that this module makes are limited: {@link #querySelect(Query, Consumer)},
+ * {@link #update(UpdateRequest)}, {@link #loadDataset(Dataset)} and any request run with
+ * {@link #runLimited(Runnable)}. The other {@link RDFConnection} methods are passed to the remote
+ * connection without holding a permit.
+ */
+final class PooledRDFConnection extends RDFConnectionWrapper {
+
+    private static final Logger LOGGER = getLogger(PooledRDFConnection.class);
+
+    private final Semaphore permits;
+    private final int maxConnections;
+    private final long requestTimeout;
+
+    /**
+     * Create a pooled RDF connection.
+     * @param rdfConnection the remote connection
+     * @param maxConnections the maximum number of concurrent requests
+     * @param requestTimeout the time, in milliseconds, to wait for a free connection, zero or less means no limit
+     */
+    PooledRDFConnection(final RDFConnection rdfConnection, final int maxConnections, final long requestTimeout) {
+        super(rdfConnection);
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxConnections = maxConnections;
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public void querySelect(final Query query, final Consumer<QuerySolution> rowAction) {
+        runLimited(() -> super.querySelect(query, rowAction));
+    }
+
+    @Override
+    public void update(final UpdateRequest update) {
+        runLimited(() -> super.update(update));
+    }
+
+    @Override
+    public void loadDataset(final Dataset dataset) {
+        runLimited(() -> super.loadDataset(dataset));
+    }
+
+    /**
+     * Run a request to the triplestore that is not made through this connection, holding a permit while it runs.
+     * @param request the request
+     */
+    void runLimited(final Runnable request) {
+        acquire();
+        try {
+            request.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Get the connection that this pool wraps.
+     * @return the remote connection
+     */
+    RDFConnection getConnection() {
+        return get();
+    }
+
+    /**
+     * Get the maximum number of concurrent requests.
+     * @return the pool size
+     */
+    int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Get the number of requests currently in progress.
+     * @return the number of connections in use
+     */
+    int getActiveConnections() {
+        return maxConnections - permits.availablePermits();
+    }
+
+    /**
+     * Get the number of requests waiting for a free connection.
+     * @return the approximate number of waiting requests
+     */
+    int getWaitingRequests() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() {
+        try {
+            if (requestTimeout > 0) {
+                if (!permits.tryAcquire(requestTimeout, MILLISECONDS)) {
+                    LOGGER.warn("Triplestore connection pool exhausted: {} active, {} waiting",
+                            getActiveConnections(), getWaitingRequests());
+                    throw new TrellisRuntimeException("Timed out waiting for a triplestore connection");
+                }
+            } else {
+                permits.acquire();
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TrellisRuntimeException("Interrupted while waiting for a triplestore connection", ex);
+        }
+    }
+}
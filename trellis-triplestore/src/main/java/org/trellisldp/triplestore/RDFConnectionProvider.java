@@ -15,38 +15,128 @@
  */
 package org.trellisldp.triplestore;
 
+import static java.net.http.HttpClient.Redirect.NORMAL;
+import static java.net.http.HttpClient.Version.HTTP_1_1;
+import static java.net.http.HttpClient.Version.HTTP_2;
+import static java.time.Duration.ofMillis;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.triplestore.TriplestoreResourceService.CONFIG_TRIPLESTORE_CONNECT_TIMEOUT;
+import static org.trellisldp.triplestore.TriplestoreResourceService.CONFIG_TRIPLESTORE_HTTP2;
+import static org.trellisldp.triplestore.TriplestoreResourceService.CONFIG_TRIPLESTORE_KEEP_ALIVE;
+import static org.trellisldp.triplestore.TriplestoreResourceService.CONFIG_TRIPLESTORE_MAX_CONNECTIONS;
 import static org.trellisldp.triplestore.TriplestoreResourceService.CONFIG_TRIPLESTORE_RDF_LOCATION;
+import static org.trellisldp.triplestore.TriplestoreResourceService.CONFIG_TRIPLESTORE_REQUEST_TIMEOUT;
 import static org.trellisldp.triplestore.TriplestoreResourceService.buildRDFConnection;
+import static org.trellisldp.triplestore.TriplestoreResourceService.isRemoteLocation;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Inject;
 
+import java.net.http.HttpClient;
 import java.util.Optional;
 
 import org.apache.jena.rdfconnection.RDFConnection;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.Gauge;
+import org.slf4j.Logger;
 
 @ApplicationScoped
 public class RDFConnectionProvider {
 
+    private static final Logger LOGGER = getLogger(RDFConnectionProvider.class);
+    /** The JDK properties for the idle timeout of HTTP/1.1 and HTTP/2 connections. */
+    static final String[] KEEP_ALIVE_PROPERTIES = {"jdk.httpclient.keepalive.timeout",
+        "jdk.httpclient.keepalive.timeout.h2"};
+
     @Inject
     @ConfigProperty(name = CONFIG_TRIPLESTORE_RDF_LOCATION)
     Optional<String> connectionString;
 
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_MAX_CONNECTIONS,
+                    defaultValue = "0")
+    int maxConnections;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_CONNECT_TIMEOUT,
+                    defaultValue = "10000")
+    long connectTimeout = 10000L;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_REQUEST_TIMEOUT,
+                    defaultValue = "0")
+    long requestTimeout;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_HTTP2,
+                    defaultValue = "true")
+    boolean http2 = true;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_KEEP_ALIVE)
+    Optional<Long> keepAlive = Optional.empty();
+
     private RDFConnection rdfConnection;
+    private PooledRDFConnection pool;
 
     /**
      * Create an RDFConnection bean.
      */
     @PostConstruct
     void init() {
-        rdfConnection = buildRDFConnection(connectionString.orElse(null));
+        final String location = connectionString.orElse(null);
+        if (isRemoteLocation(location)) {
+            keepAlive.ifPresent(RDFConnectionProvider::setKeepAlive);
+            final HttpClient httpClient = HttpClient.newBuilder().version(http2 ? HTTP_2 : HTTP_1_1)
+                .connectTimeout(ofMillis(connectTimeout)).followRedirects(NORMAL).build();
+            rdfConnection = buildRDFConnection(location, requestTimeout > 0 ?
+                    new TimeoutHttpClient(httpClient, ofMillis(requestTimeout)) : httpClient);
+            if (maxConnections > 0) {
+                pool = new PooledRDFConnection(rdfConnection, maxConnections, requestTimeout);
+                rdfConnection = pool;
+            }
+        } else {
+            rdfConnection = buildRDFConnection(location);
+        }
+    }
+
+    static void setKeepAlive(final long seconds) {
+        for (final String property : KEEP_ALIVE_PROPERTIES) {
+            final String value = System.getProperty(property);
+            if (value == null) {
+                System.setProperty(property, Long.toString(seconds));
+            } else {
+                LOGGER.warn("Ignoring {}, since {} is already set to {}", CONFIG_TRIPLESTORE_KEEP_ALIVE, property,
+                        value);
+            }
+        }
     }
 
     @Produces
     public RDFConnection getRdfConnection() {
         return rdfConnection;
     }
+
+    /**
+     * Get the number of requests currently using a remote triplestore connection.
+     * @return the number of active connections, or zero if connections are not pooled
+     */
+    @Gauge(name = "triplestore.connections.active", unit = MetricUnits.NONE, absolute = true,
+           description = "Requests currently using a remote triplestore connection")
+    public int getActiveConnections() {
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+
+    /**
+     * Get the number of requests waiting for a remote triplestore connection.
+     * @return the number of waiting requests, or zero if connections are not pooled
+     */
+    @Gauge(name = "triplestore.connections.waiting", unit = MetricUnits.NONE, absolute = true,
+           description = "Requests waiting for a remote triplestore connection")
+    public int getWaitingRequests() {
+        return pool != null ? pool.getWaitingRequests() : 0;
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.triplestore;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.PushPromiseHandler;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * An {@link HttpClient} that sets a timeout on every request that does not already have one.
+ *
+ * <p>The JDK client has no client-wide request timeout, and the requests for SPARQL queries, updates
+ * and Graph Store Protocol uploads are built inside Jena, so the timeout is added here as each request is sent.
+ */
+final class TimeoutHttpClient extends HttpClient {
+
+    /** Headers that the JDK client sets itself and that may not be added to a request builder. */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "upgrade");
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+
+    /**
+     * Create an HTTP client with a request timeout.
+     * @param httpClient the HTTP client
+     * @param timeout the time to wait for the response to a request
+     */
+    TimeoutHttpClient(final HttpClient httpClient, final Duration timeout) {
+        this.httpClient = httpClient;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return httpClient.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return httpClient.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return httpClient.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return httpClient.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return httpClient.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return httpClient.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return httpClient.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return httpClient.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return httpClient.executor();
+    }
+
+    @Override
+    public WebSocket.Builder newWebSocketBuilder() {
+        return httpClient.newWebSocketBuilder();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(final HttpRequest request, final BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        return httpClient.send(withTimeout(request), responseBodyHandler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request,
+            final BodyHandler<T> responseBodyHandler) {
+        return httpClient.sendAsync(withTimeout(request), responseBodyHandler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request,
+            final BodyHandler<T> responseBodyHandler, final PushPromiseHandler<T> pushPromiseHandler) {
+        return httpClient.sendAsync(withTimeout(request), responseBodyHandler, pushPromiseHandler);
+    }
+
+    /**
+     * Get the request timeout.
+     * @return the time to wait for the response to a request
+     */
+    Duration getTimeout() {
+        return timeout;
+    }
+
+    private HttpRequest withTimeout(final HttpRequest request) {
+        if (request.timeout().isPresent()) {
+            return request;
+        }
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri())
+            .method(request.method(), request.bodyPublisher().orElseGet(BodyPublishers::noBody))
+            .expectContinue(request.expectContinue()).timeout(timeout);
+        request.version().ifPresent(builder::version);
+        request.headers().map().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return builder.build();
+    }
+}
@@ -19,13 +19,18 @@ import static java.util.Collections.unmodifiableSet;
 import static java.util.Optional.ofNullable;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static java.util.function.Predicate.isEqual;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static java.util.stream.Stream.builder;
 import static java.util.stream.Stream.concat;
 import static java.util.stream.Stream.of;
+import static org.apache.jena.commonsrdf.JenaCommonsRDF.fromJena;
 import static org.apache.jena.commonsrdf.JenaCommonsRDF.toJena;
+import static org.apache.jena.graph.Node.ANY;
 import static org.apache.jena.graph.NodeFactory.createURI;
 import static org.apache.jena.graph.Triple.create;
+import static org.apache.jena.system.Txn.calculateRead;
+import static org.apache.jena.system.Txn.executeRead;
 import static org.apache.jena.vocabulary.RDF.type;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.trellisldp.api.Resource.SpecialResources.*;
@@ -33,9 +38,11 @@ import static org.trellisldp.api.TrellisUtils.normalizeIdentifier;
 import static org.trellisldp.triplestore.TriplestoreUtils.*;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -43,15 +50,20 @@ import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Literal;
 import org.apache.commons.rdf.api.Quad;
 import org.apache.commons.rdf.api.RDF;
 import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.jena.graph.Node;
 import org.apache.jena.query.Query;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.syntax.ElementData;
 import org.apache.jena.sparql.syntax.ElementGroup;
 import org.apache.jena.sparql.syntax.ElementNamedGraph;
 import org.apache.jena.sparql.syntax.ElementOptional;
@@ -77,6 +89,8 @@ public class TriplestoreResource implements Resource {
     private final IRI identifier;
     private final RDFConnection rdfConnection;
     private final boolean includeLdpType;
+    private final boolean singleQuery;
+    private final DatasetGraph dataset;
     private final Map<IRI, String> extensions = new HashMap<>();
     private final Map<IRI, RDFTerm> data = new HashMap<>();
     private final Map<IRI, Supplier<Stream<Quad>>> graphMapper = new HashMap<>();
@@ -90,9 +104,39 @@ public class TriplestoreResource implements Resource {
      */
     public TriplestoreResource(final RDFConnection rdfConnection, final IRI identifier,
             final Map<String, IRI> extensions, final boolean includeLdpType) {
+        this(rdfConnection, identifier, extensions, includeLdpType, false);
+    }
+
+    /**
+     * Create a Triplestore-based Resource.
+     * @param rdfConnection the triplestore connector
+     * @param identifier the identifier
+     * @param extensions a map of extensions
+     * @param includeLdpType whether to include the LDP interaction model in the response
+     * @param singleQuery whether to fetch the user, audit, acl and extension graphs with a single query
+     */
+    public TriplestoreResource(final RDFConnection rdfConnection, final IRI identifier,
+            final Map<String, IRI> extensions, final boolean includeLdpType, final boolean singleQuery) {
+        this(rdfConnection, identifier, extensions, includeLdpType, singleQuery, false);
+    }
+
+    /**
+     * Create a Triplestore-based Resource.
+     * @param rdfConnection the triplestore connector
+     * @param identifier the identifier
+     * @param extensions a map of extensions
+     * @param includeLdpType whether to include the LDP interaction model in the response
+     * @param singleQuery whether to fetch the user, audit, acl and extension graphs with a single query
+     * @param directAccess whether to read an in-process dataset directly, rather than with SPARQL queries
+     */
+    public TriplestoreResource(final RDFConnection rdfConnection, final IRI identifier,
+            final Map<String, IRI> extensions, final boolean includeLdpType, final boolean singleQuery,
+            final boolean directAccess) {
         this.identifier = identifier;
         this.rdfConnection = rdfConnection;
         this.includeLdpType = includeLdpType;
+        this.singleQuery = singleQuery;
+        this.dataset = directAccess ? getLocalDataset(rdfConnection).orElse(null) : null;
         graphMapper.put(Trellis.PreferUserManaged, this::fetchUserQuads);
         graphMapper.put(Trellis.PreferServerManaged, this::fetchServerQuads);
         graphMapper.put(Trellis.PreferAudit, this::fetchAuditQuads);
@@ -121,9 +165,48 @@ public class TriplestoreResource implements Resource {
      */
     public static CompletableFuture<Resource> findResource(final RDFConnection rdfConnection, final IRI identifier,
             final Map<String, IRI> extensions, final boolean includeLdpType) {
+        return findResource(rdfConnection, identifier, extensions, includeLdpType, false);
+    }
+
+    /**
+     * Try to load a Trellis resource.
+     *
+     * @implSpec This method behaves like {@link #findResource(RDFConnection, IRI, Map, boolean)}, but when
+     *           {@code singleQuery} is true, the graphs that are stored as named graphs (user-managed, audit,
+     *           acl and any extension graphs) are fetched together with one query per call to {@link #stream}.
+     * @param rdfConnection the triplestore connector
+     * @param identifier the identifier
+     * @param extensions a map of extensions
+     * @param includeLdpType whether to include the LDP type in the body of the RDF
+     * @param singleQuery whether to fetch the named graphs with a single query
+     * @return a new completion stage with a {@link Resource}, if one exists
+     */
+    public static CompletableFuture<Resource> findResource(final RDFConnection rdfConnection, final IRI identifier,
+            final Map<String, IRI> extensions, final boolean includeLdpType, final boolean singleQuery) {
+        return findResource(rdfConnection, identifier, extensions, includeLdpType, singleQuery, false);
+    }
+
+    /**
+     * Try to load a Trellis resource.
+     *
+     * @implSpec This method behaves like {@link #findResource(RDFConnection, IRI, Map, boolean, boolean)}, but
+     *           when {@code directAccess} is true and the connection is backed by an in-process dataset, such as
+     *           a local TDB2 database, simple pattern lookups are read with {@link DatasetGraph#find} inside a read
+     *           transaction instead of being run through the SPARQL engine. Remote connections are unaffected.
+     * @param rdfConnection the triplestore connector
+     * @param identifier the identifier
+     * @param extensions a map of extensions
+     * @param includeLdpType whether to include the LDP type in the body of the RDF
+     * @param singleQuery whether to fetch the named graphs with a single query
+     * @param directAccess whether to read an in-process dataset directly
+     * @return a new completion stage with a {@link Resource}, if one exists
+     */
+    public static CompletableFuture<Resource> findResource(final RDFConnection rdfConnection, final IRI identifier,
+            final Map<String, IRI> extensions, final boolean includeLdpType, final boolean singleQuery,
+            final boolean directAccess) {
         return supplyAsync(() -> {
             final TriplestoreResource res = new TriplestoreResource(rdfConnection, normalizeIdentifier(identifier),
-                    extensions, includeLdpType);
+                    extensions, includeLdpType, singleQuery, directAccess);
             res.fetchData();
             if (!res.exists()) {
                 return MISSING_RESOURCE;
@@ -165,6 +248,10 @@ public class TriplestoreResource implements Resource {
      */
     protected void fetchData() {
         LOGGER.debug("Fetching data from RDF datastore for: {}", identifier);
+        if (dataset != null) {
+            fetchDataDirect();
+            return;
+        }
         final Var binarySubject = Var.alloc("binarySubject");
         final Var binaryPredicate = Var.alloc("binaryPredicate");
         final Var binaryObject = Var.alloc("binaryObject");
@@ -199,6 +286,34 @@ public class TriplestoreResource implements Resource {
         });
     }
 
+    /*
+     * Read the server-managed data for this resource directly from a local dataset. The resource and
+     * its binary description are read in one transaction, so that they are consistent with each other.
+     */
+    private void fetchDataDirect() {
+        final Node graph = toJena(Trellis.PreferServerManaged);
+        executeRead(dataset, () -> {
+            final List<org.apache.jena.sparql.core.Quad> quads = match(graph, toJena(identifier), ANY, ANY);
+            if (quads.stream().anyMatch(q -> q.getPredicate().equals(type.asNode())
+                        && q.getObject().equals(toJena(LDP.NonRDFSource)))) {
+                quads.stream().filter(q -> q.getPredicate().equals(toJena(DC.hasPart)))
+                    .flatMap(q -> match(graph, q.getObject(), ANY, ANY).stream())
+                    .forEach(q -> data.put((IRI) fromJena(q.getPredicate()), fromJena(q.getObject())));
+            }
+            quads.forEach(q -> data.put((IRI) fromJena(q.getPredicate()), fromJena(q.getObject())));
+        });
+    }
+
+    /*
+     * Match a quad pattern against the local dataset. The caller must be in a read transaction.
+     */
+    private List<org.apache.jena.sparql.core.Quad> match(final Node graph, final Node subject, final Node predicate,
+            final Node object) {
+        final List<org.apache.jena.sparql.core.Quad> quads = new ArrayList<>();
+        dataset.find(graph, subject, predicate, object).forEachRemaining(quads::add);
+        return quads;
+    }
+
     @Override
     public Optional<IRI> getContainer() {
         return asIRI(DC.isPartOf);
@@ -206,12 +321,21 @@ public class TriplestoreResource implements Resource {
 
     @Override
     public Stream<Quad> stream() {
+        if (singleQuery) {
+            return stream(concat(graphMapper.keySet().stream(), extensions.keySet().stream()).collect(toSet()));
+        }
         return concat(graphMapper.values().stream().flatMap(Supplier::get),
                 extensions.keySet().stream().flatMap(this::fetchExtensionQuads));
     }
 
     @Override
     public Stream<Quad> stream(final Collection<IRI> graphNames) {
+        if (singleQuery) {
+            final Map<String, IRI> sources = getGraphSources(graphNames);
+            return concat(fetchAllFromGraphs(sources), graphNames.stream().distinct()
+                    .filter(graphName -> !sources.containsValue(graphName)).filter(graphMapper::containsKey)
+                    .map(graphMapper::get).flatMap(Supplier::get));
+        }
         return concat(graphNames.stream().filter(graphMapper::containsKey).map(graphMapper::get).flatMap(Supplier::get),
                 graphNames.stream().filter(extensions::containsKey).flatMap(this::fetchExtensionQuads));
     }
@@ -269,6 +393,11 @@ public class TriplestoreResource implements Resource {
 
     @Override
     public Set<IRI> getMetadataGraphNames() {
+        if (singleQuery) {
+            final Map<String, IRI> sources = getGraphSources(concat(of(Trellis.PreferAccessControl,
+                            Trellis.PreferAudit), extensions.keySet().stream()).collect(toSet()));
+            return unmodifiableSet(fetchGraphNames(sources).stream().map(sources::get).collect(toSet()));
+        }
         final Set<IRI> graphs = new HashSet<>(extensions.keySet().stream().filter(this::hasMetadata).collect(toSet()));
         if (hasMetadata(Trellis.PreferAccessControl)) {
             graphs.add(Trellis.PreferAccessControl);
@@ -288,6 +417,9 @@ public class TriplestoreResource implements Resource {
      * </code></pre>
      */
     private Stream<Quad> fetchAllFromGraph(final String fromGraphName, final IRI toGraphName) {
+        if (dataset != null) {
+            return calculateRead(dataset, () -> matchGraph(fromGraphName, toGraphName)).stream();
+        }
         final Query q = new Query();
         q.setQuerySelectType();
         q.addResultVar(SUBJECT);
@@ -308,6 +440,117 @@ public class TriplestoreResource implements Resource {
         return builder.build();
     }
 
+    /*
+     * Read a named graph from the local dataset. The caller must be in a read transaction.
+     */
+    private List<Quad> matchGraph(final String fromGraphName, final IRI toGraphName) {
+        return match(createURI(fromGraphName), ANY, ANY, ANY).stream().map(q -> rdf.createQuad(toGraphName,
+                    (BlankNodeOrIRI) fromJena(q.getSubject()), (IRI) fromJena(q.getPredicate()),
+                    fromJena(q.getObject()))).collect(toList());
+    }
+
+    /**
+     * This code is equivalent to the SPARQL query below.
+     *
+     * <p><pre><code>
+     * SELECT ?graph ?subject ?predicate ?object
+     * WHERE {
+     *   VALUES ?graph { fromGraphName ... }
+     *   GRAPH ?graph { ?subject ?predicate ?object }
+     * }
+     * </code></pre>
+     */
+    private Stream<Quad> fetchAllFromGraphs(final Map<String, IRI> graphs) {
+        if (graphs.isEmpty()) {
+            return Stream.empty();
+        } else if (dataset != null) {
+            return calculateRead(dataset, () -> graphs.entrySet().stream()
+                    .flatMap(e -> matchGraph(e.getKey(), e.getValue()).stream()).collect(toList())).stream();
+        }
+        final Query q = new Query();
+        q.setQuerySelectType();
+        q.addResultVar(GRAPH);
+        q.addResultVar(SUBJECT);
+        q.addResultVar(PREDICATE);
+        q.addResultVar(OBJECT);
+
+        final ElementPathBlock epb = new ElementPathBlock();
+        epb.addTriple(create(SUBJECT, PREDICATE, OBJECT));
+
+        final ElementGroup elg = new ElementGroup();
+        elg.addElement(graphValues(graphs.keySet()));
+        elg.addElement(new ElementNamedGraph(GRAPH, epb));
+
+        q.setQueryPattern(elg);
+
+        final Stream.Builder<Quad> builder = builder();
+        rdfConnection.querySelect(q, qs -> builder.accept(rdf.createQuad(graphs.get(getGraphName(qs)),
+                        getSubject(qs), getPredicate(qs), getObject(qs))));
+        return builder.build();
+    }
+
+    /**
+     * This code is equivalent to the SPARQL query below.
+     *
+     * <p><pre><code>
+     * SELECT DISTINCT ?graph
+     * WHERE {
+     *   VALUES ?graph { fromGraphName ... }
+     *   GRAPH ?graph { ?subject ?predicate ?object }
+     * }
+     * </code></pre>
+     */
+    private Set<String> fetchGraphNames(final Map<String, IRI> graphs) {
+        if (dataset != null) {
+            return calculateRead(dataset, () -> graphs.keySet().stream()
+                    .filter(name -> dataset.contains(createURI(name), ANY, ANY, ANY)).collect(toSet()));
+        }
+        final Query q = new Query();
+        q.setQuerySelectType();
+        q.setDistinct(true);
+        q.addResultVar(GRAPH);
+
+        final ElementPathBlock epb = new ElementPathBlock();
+        epb.addTriple(create(SUBJECT, PREDICATE, OBJECT));
+
+        final ElementGroup elg = new ElementGroup();
+        elg.addElement(graphValues(graphs.keySet()));
+        elg.addElement(new ElementNamedGraph(GRAPH, epb));
+
+        q.setQueryPattern(elg);
+
+        final Set<String> names = new HashSet<>();
+        rdfConnection.querySelect(q, qs -> names.add(getGraphName(qs)));
+        return names;
+    }
+
+    private static ElementData graphValues(final Collection<String> graphNames) {
+        final ElementData values = new ElementData();
+        values.add(GRAPH);
+        graphNames.forEach(name -> values.add(BindingFactory.binding(GRAPH, createURI(name))));
+        return values;
+    }
+
+    /*
+     * Map the named graphs that hold the requested data to the corresponding Trellis graph names.
+     * The server-managed, containment and membership graphs are computed separately, so they are not included.
+     */
+    private Map<String, IRI> getGraphSources(final Collection<IRI> graphNames) {
+        final Map<String, IRI> sources = new HashMap<>();
+        graphNames.forEach(graphName -> {
+            if (Trellis.PreferUserManaged.equals(graphName)) {
+                sources.put(identifier.getIRIString(), graphName);
+            } else if (Trellis.PreferAudit.equals(graphName)) {
+                sources.put(identifier.getIRIString() + "?ext=audit", graphName);
+            } else if (Trellis.PreferAccessControl.equals(graphName)) {
+                sources.put(identifier.getIRIString() + "?ext=acl", graphName);
+            } else if (extensions.containsKey(graphName)) {
+                sources.put(identifier.getIRIString() + "?ext=" + extensions.get(graphName), graphName);
+            }
+        });
+        return sources;
+    }
+
     /**
      * This code is equivalent to the SPARQL query below.
      *
@@ -496,6 +739,17 @@ public class TriplestoreResource implements Resource {
      */
     private Stream<Quad> fetchContainmentQuads() {
         if (getInteractionModel().getIRIString().endsWith("Container")) {
+            if (dataset != null) {
+                // Look up the type of every child in the same read transaction as the children themselves
+                final Node graph = toJena(Trellis.PreferServerManaged);
+                final IRI subject = adjustIdentifier(identifier, getInteractionModel());
+                return calculateRead(dataset, () -> match(graph, ANY, toJena(DC.isPartOf), toJena(identifier))
+                        .stream().flatMap(q -> match(graph, q.getSubject(), type.asNode(), ANY).stream())
+                        .map(q -> rdf.createQuad(LDP.PreferContainment, subject, LDP.contains,
+                                adjustIdentifier((IRI) fromJena(q.getSubject()), (IRI) fromJena(q.getObject()))))
+                        .collect(toList())).stream();
+            }
+
             final Query q = new Query();
             q.setQuerySelectType();
             q.addResultVar(OBJECT);
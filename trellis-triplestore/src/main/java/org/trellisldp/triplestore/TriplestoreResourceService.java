@@ -19,15 +19,18 @@ import static java.time.Instant.now;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static java.util.Collections.singletonList;
-import static java.util.Collections.synchronizedList;
-import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Stream.builder;
 import static org.apache.jena.commonsrdf.JenaCommonsRDF.toJena;
 import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.apache.jena.http.HttpOp.httpPost;
 import static org.apache.jena.query.DatasetFactory.createTxnMem;
 import static org.apache.jena.query.DatasetFactory.wrap;
 import static org.apache.jena.rdfconnection.RDFConnectionRemote.service;
+import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
 import static org.apache.jena.system.Txn.executeWrite;
 import static org.apache.jena.tdb2.DatabaseMgr.connectDatasetGraph;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -36,7 +39,9 @@ import static org.trellisldp.api.TrellisUtils.normalizeIdentifier;
 import static org.trellisldp.triplestore.TriplestoreUtils.OBJECT;
 import static org.trellisldp.triplestore.TriplestoreUtils.PREDICATE;
 import static org.trellisldp.triplestore.TriplestoreUtils.SUBJECT;
+import static org.trellisldp.triplestore.TriplestoreUtils.getLocalDataset;
 import static org.trellisldp.triplestore.TriplestoreUtils.getObject;
+import static org.trellisldp.triplestore.TriplestoreUtils.getRemoteLink;
 import static org.trellisldp.vocabulary.RDF.type;
 import static org.trellisldp.vocabulary.Trellis.DeletedResource;
 import static org.trellisldp.vocabulary.Trellis.PreferAccessControl;
@@ -45,14 +50,19 @@ import static org.trellisldp.vocabulary.Trellis.PreferServerManaged;
 import static org.trellisldp.vocabulary.Trellis.PreferUserManaged;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -66,6 +76,10 @@ import org.apache.jena.commonsrdf.JenaCommonsRDF;
 import org.apache.jena.graph.Node;
 import org.apache.jena.query.Query;
 import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.jena.rdfconnection.RDFConnectionRemoteBuilder;
+import org.apache.jena.rdflink.RDFLinkHTTP;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.modify.request.QuadAcc;
@@ -103,6 +117,54 @@ public class TriplestoreResourceService implements ResourceService {
     public static final String CONFIG_TRIPLESTORE_RDF_LOCATION = "trellis.triplestore.rdf-location";
     /** The configuration key used to set whether the LDP type should be included in the body of the RDF. */
     public static final String CONFIG_TRIPLESTORE_LDP_TYPE = "trellis.triplestore.ldp-type";
+    /**
+     * The configuration key used to set the maximum number of quads loaded into the triplestore at once.
+     * A value of zero (the default) sends each resource as a single SPARQL update request.
+     *
+     * <p>When this value is positive and the triplestore is remote, the {@code INSERT DATA} part of each
+     * update is streamed to the triplestore as it is serialized, at most this many quads at a time, rather
+     * than built as one SPARQL text in memory. Each write is still a single update request, which the
+     * triplestore applies atomically. Chunking is ignored for a local dataset, which holds the data in
+     * memory already.
+     */
+    public static final String CONFIG_TRIPLESTORE_UPDATE_CHUNK_SIZE = "trellis.triplestore.update-chunk-size";
+    /**
+     * The configuration key used to set whether the user-managed, audit, acl and extension graphs of a resource
+     * are fetched with a single query, rather than with one query per graph.
+     */
+    public static final String CONFIG_TRIPLESTORE_SINGLE_QUERY = "trellis.triplestore.single-query";
+    /**
+     * The configuration key used to set whether a local (in-memory or TDB2) dataset is read directly for simple
+     * pattern lookups, bypassing the SPARQL query engine.
+     */
+    public static final String CONFIG_TRIPLESTORE_DIRECT_ACCESS = "trellis.triplestore.direct-access";
+    /**
+     * The configuration key used to set the maximum number of writes committed together in one transaction
+     * against a local dataset. A value of zero (the default) commits each write in its own transaction.
+     */
+    public static final String CONFIG_TRIPLESTORE_GROUP_COMMIT = "trellis.triplestore.group-commit";
+    /**
+     * The configuration key used to set the maximum number of concurrent requests to a remote triplestore.
+     * A value of zero (the default) places no limit on concurrent requests.
+     */
+    public static final String CONFIG_TRIPLESTORE_MAX_CONNECTIONS = "trellis.triplestore.max-connections";
+    /** The configuration key used to set the connect timeout, in milliseconds, for a remote triplestore. */
+    public static final String CONFIG_TRIPLESTORE_CONNECT_TIMEOUT = "trellis.triplestore.connect-timeout";
+    /**
+     * The configuration key used to set the time, in milliseconds, that a query, update or upload sent to a
+     * remote triplestore may wait for its response, and for a free connection when the number of connections
+     * is limited. A value of zero (the default) means no limit.
+     */
+    public static final String CONFIG_TRIPLESTORE_REQUEST_TIMEOUT = "trellis.triplestore.request-timeout";
+    /** The configuration key used to set whether HTTP/2 is used for a remote triplestore. */
+    public static final String CONFIG_TRIPLESTORE_HTTP2 = "trellis.triplestore.http2";
+    /**
+     * The configuration key used to set the time, in seconds, that an idle connection to a remote triplestore
+     * is kept open. The JDK client reads this from the JVM-wide {@code jdk.httpclient.keepalive.timeout}
+     * properties when its connection pool is first used, so this has no effect if one of those properties is
+     * already set or if another JDK HTTP client was created earlier. By default, the JDK value is used.
+     */
+    public static final String CONFIG_TRIPLESTORE_KEEP_ALIVE = "trellis.triplestore.keep-alive";
 
     private static final String MODIFIED = "modified";
 
@@ -115,12 +177,34 @@ public class TriplestoreResourceService implements ResourceService {
 
     private Supplier<String> supplier;
     private Map<String, IRI> extensions;
+    private GroupCommitWriter writer;
+    private RDFLinkHTTP remoteLink;
 
     @Inject
     @ConfigProperty(name = CONFIG_TRIPLESTORE_LDP_TYPE,
                     defaultValue = "true")
     boolean includeLdpType = true;
 
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_UPDATE_CHUNK_SIZE,
+                    defaultValue = "0")
+    int updateChunkSize;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_SINGLE_QUERY,
+                    defaultValue = "false")
+    boolean singleQuery;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_DIRECT_ACCESS,
+                    defaultValue = "false")
+    boolean directAccess;
+
+    @Inject
+    @ConfigProperty(name = CONFIG_TRIPLESTORE_GROUP_COMMIT,
+                    defaultValue = "0")
+    int groupCommitSize;
+
     @Inject
     @ConfigProperty(name = CONFIG_HTTP_EXTENSION_GRAPHS)
     Optional<String> extensionGraphConfig = Optional.empty();
@@ -134,12 +218,12 @@ public class TriplestoreResourceService implements ResourceService {
     @Override
     public CompletionStage<Void> delete(final Metadata metadata) {
         LOGGER.debug("Deleting: {}", metadata.getIdentifier());
-        return runAsync(() -> {
+        return write(() -> {
             try (final Dataset dataset = rdf.createDataset()) {
                 final Instant eventTime = now();
                 dataset.add(PreferServerManaged, metadata.getIdentifier(), DC.type, DeletedResource);
                 dataset.add(PreferServerManaged, metadata.getIdentifier(), type, LDP.Resource);
-                storeResource(metadata.getIdentifier(), dataset, eventTime, OperationType.DELETE);
+                return storeResource(metadata.getIdentifier(), dataset, eventTime, OperationType.DELETE);
             } catch (final Exception ex) {
                 throw new TrellisRuntimeException("Error deleting resource: " + metadata.getIdentifier(), ex);
             }
@@ -149,16 +233,16 @@ public class TriplestoreResourceService implements ResourceService {
     @Override
     public CompletionStage<Void> create(final Metadata metadata, final Dataset dataset) {
         LOGGER.debug("Creating: {}", metadata.getIdentifier());
-        return runAsync(() -> createOrReplace(metadata, dataset, OperationType.CREATE));
+        return write(() -> createOrReplace(metadata, dataset, OperationType.CREATE));
     }
 
     @Override
     public CompletionStage<Void> replace(final Metadata metadata, final Dataset dataset) {
         LOGGER.debug("Persisting: {}", metadata.getIdentifier());
-        return runAsync(() -> createOrReplace(metadata, dataset, OperationType.REPLACE));
+        return write(() -> createOrReplace(metadata, dataset, OperationType.REPLACE));
     }
 
-    private void createOrReplace(final Metadata metadata, final Dataset dataset, final OperationType operation) {
+    private Runnable createOrReplace(final Metadata metadata, final Dataset dataset, final OperationType operation) {
         final Instant eventTime = now();
 
         // Set the LDP type
@@ -191,17 +275,47 @@ public class TriplestoreResourceService implements ResourceService {
                     dataset.add(PreferServerManaged, binary.getIdentifier(), DC.format, mimeType));
         });
 
-        storeResource(metadata.getIdentifier(), dataset, eventTime, operation);
+        return storeResource(metadata.getIdentifier(), dataset, eventTime, operation);
     }
 
-    private void storeResource(final IRI identifier, final Dataset dataset,
+    /*
+     * Prepare the write for a resource. The update is built eagerly; the returned action only sends it.
+     */
+    private Runnable storeResource(final IRI identifier, final Dataset dataset,
             final Instant eventTime, final OperationType type) {
         final Literal time = rdf.createLiteral(eventTime.toString(), XSD.dateTime);
-        try {
-            rdfConnection.update(buildUpdateRequest(identifier, time, dataset, type));
-        } catch (final Exception ex) {
-            throw new TrellisRuntimeException("Could not update data for " + identifier, ex);
+        final Runnable update;
+        if (remoteLink != null) {
+            // Set the time
+            dataset.add(PreferServerManaged, identifier, DC.modified, time);
+            final String delete = buildDeleteRequest(identifier).toString();
+            // The body may be requested again, for instance on a redirect, so each request re-reads the dataset
+            final BodyPublisher body = BodyPublishers.ofInputStream(() -> new InsertDataStream(delete,
+                        getUpdateQuads(identifier, dataset, type).iterator(), updateChunkSize));
+            update = () -> sendRemote(() -> httpPost(remoteLink.getHttpClient(), remoteLink.getUpdateEndpoint(),
+                        contentTypeSPARQLUpdate, body));
+        } else {
+            final UpdateRequest req = buildUpdateRequest(identifier, time, dataset, type);
+            update = () -> rdfConnection.update(req);
         }
+        return () -> {
+            try {
+                update.run();
+            } catch (final Exception ex) {
+                throw new TrellisRuntimeException("Could not update data for " + identifier, ex);
+            }
+        };
+    }
+
+    /*
+     * Run a prepared write, either directly or through the group-commit writer.
+     */
+    private CompletionStage<Void> write(final Supplier<Runnable> operation) {
+        final CompletableFuture<Runnable> prepared = supplyAsync(operation);
+        if (writer != null) {
+            return prepared.thenCompose(writer::submit);
+        }
+        return prepared.thenAccept(Runnable::run);
     }
 
     private Node getExtIRI(final IRI identifier, final String ext) {
@@ -238,6 +352,26 @@ public class TriplestoreResourceService implements ResourceService {
         // Set the time
         dataset.add(PreferServerManaged, identifier, DC.modified, time);
 
+        final UpdateRequest req = buildDeleteRequest(identifier);
+        final QuadDataAcc sink = new QuadDataAcc();
+        getUpdateQuads(identifier, dataset, operation).forEachOrdered(sink::addQuad);
+        req.add(new UpdateDataInsert(sink));
+
+        return req;
+    }
+
+    /*
+     * Send a request that is not made through the RDF connection, within the connection limit if there is one.
+     */
+    private void sendRemote(final Runnable request) {
+        if (rdfConnection instanceof PooledRDFConnection) {
+            ((PooledRDFConnection) rdfConnection).runLimited(request);
+        } else {
+            request.run();
+        }
+    }
+
+    private UpdateRequest buildDeleteRequest(final IRI identifier) {
         final UpdateRequest req = new UpdateRequest();
         req.add(new UpdateDeleteWhere(new QuadAcc(singletonList(new Quad(toJena(identifier), SUBJECT, PREDICATE,
                                 OBJECT)))));
@@ -252,25 +386,27 @@ public class TriplestoreResourceService implements ResourceService {
                             new Quad(toJena(PreferServerManaged), SUBJECT, PREDICATE, OBJECT)))));
         req.add(new UpdateDeleteWhere(new QuadAcc(singletonList(new Quad(toJena(PreferServerManaged),
                                 toJena(identifier), PREDICATE, OBJECT)))));
+        return req;
+    }
 
-        final QuadDataAcc sink = new QuadDataAcc(synchronizedList(new ArrayList<>()));
+    private Stream<Quad> getUpdateQuads(final IRI identifier, final Dataset dataset, final OperationType operation) {
+        final Stream<Quad> serverManaged = dataset.stream()
+            .filter(q -> q.getGraphName().filter(PreferServerManaged::equals).isPresent())
+            .map(JenaCommonsRDF::toJena);
         if (operation == OperationType.DELETE) {
-            dataset.stream().filter(q -> q.getGraphName().filter(PreferServerManaged::equals).isPresent())
-                    .map(JenaCommonsRDF::toJena).forEach(sink::addQuad);
-        } else {
-            dataset.stream().filter(q -> q.getGraphName().filter(PreferServerManaged::equals).isPresent())
-                    .map(JenaCommonsRDF::toJena).forEach(sink::addQuad);
-            dataset.getGraph(PreferUserManaged).ifPresent(g -> g.stream()
-                    .map(t -> new Quad(toJena(identifier), toJena(t))).forEach(sink::addQuad));
-            dataset.getGraph(PreferAudit).ifPresent(g -> g.stream()
-                    .map(t -> new Quad(getExtIRI(identifier, "audit"), toJena(t))).forEach(sink::addQuad));
-            extensions.forEach((ext, graph) ->
-                    dataset.getGraph(graph).ifPresent(g -> g.stream()
-                        .map(t -> new Quad(getExtIRI(identifier, ext), toJena(t))).forEach(sink::addQuad)));
+            return serverManaged;
         }
-        req.add(new UpdateDataInsert(sink));
+        final Stream.Builder<Stream<Quad>> quads = builder();
+        quads.accept(serverManaged);
+        quads.accept(getGraphQuads(dataset, PreferUserManaged, toJena(identifier)));
+        quads.accept(getGraphQuads(dataset, PreferAudit, getExtIRI(identifier, "audit")));
+        extensions.forEach((ext, graph) -> quads.accept(getGraphQuads(dataset, graph, getExtIRI(identifier, ext))));
+        return quads.build().flatMap(identity());
+    }
 
-        return req;
+    private static Stream<Quad> getGraphQuads(final Dataset dataset, final IRI graphName, final Node target) {
+        return dataset.getGraph(graphName).map(g -> g.stream().map(t -> new Quad(target, toJena(t))))
+            .orElseGet(Stream::empty);
     }
 
     /**
@@ -331,6 +467,21 @@ public class TriplestoreResourceService implements ResourceService {
         extensions = extensionGraphConfig.map(TriplestoreResourceService::buildExtensionMap)
             .orElseGet(() -> Map.of(ACL_EXT, PreferAccessControl));
         supplier = idService.getSupplier();
+        if (groupCommitSize > 0) {
+            if (getLocalDataset(rdfConnection).isPresent()) {
+                writer = new GroupCommitWriter(rdfConnection, groupCommitSize);
+            } else {
+                LOGGER.warn("Group commit is only available for a local dataset; ignoring {}",
+                        CONFIG_TRIPLESTORE_GROUP_COMMIT);
+            }
+        }
+        if (updateChunkSize > 0) {
+            remoteLink = getRemoteLink(rdfConnection).orElse(null);
+            if (remoteLink == null) {
+                LOGGER.warn("Chunked updates are only available for a remote triplestore; ignoring {}",
+                        CONFIG_TRIPLESTORE_UPDATE_CHUNK_SIZE);
+            }
+        }
 
         final IRI root = rdf.createIRI(TRELLIS_DATA_PREFIX);
         final Query q = new Query();
@@ -374,9 +525,20 @@ public class TriplestoreResourceService implements ResourceService {
         LOGGER.info("Initialized Trellis Triplestore Resource Service");
     }
 
+    /**
+     * Stop the group-commit writer, if there is one, after the pending writes have been committed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
     @Override
     public CompletionStage<Resource> get(final IRI identifier) {
-        return TriplestoreResource.findResource(rdfConnection, identifier, extensions, includeLdpType);
+        return TriplestoreResource.findResource(rdfConnection, identifier, extensions, includeLdpType,
+                singleQuery, directAccess);
     }
 
     @Override
@@ -386,22 +548,25 @@ public class TriplestoreResourceService implements ResourceService {
 
     @Override
     public CompletionStage<Void> add(final IRI id, final Dataset dataset) {
-        return runAsync(() -> {
-            final IRI graphName = rdf.createIRI(id.getIRIString() + "?ext=audit");
-            try (final Dataset data = rdf.createDataset()) {
-                dataset.getGraph(PreferAudit).ifPresent(g ->
-                        g.stream().forEach(t -> data.add(graphName, t.getSubject(), t.getPredicate(), t.getObject())));
-                executeWrite(rdfConnection, () -> rdfConnection.loadDataset(wrap(toJena(data))));
-            } catch (final Exception ex) {
-                throw new TrellisRuntimeException("Error storing audit dataset for " + id, ex);
-            }
+        return write(() -> {
+            // The quads are copied now, so that the write can be re-run if its group commit fails
+            final List<Quad> quads = getGraphQuads(dataset, PreferAudit, getExtIRI(id, "audit")).collect(toList());
+            return () -> {
+                try {
+                    final DatasetGraph data = DatasetGraphFactory.create();
+                    quads.forEach(data::add);
+                    executeWrite(rdfConnection, () -> rdfConnection.loadDataset(wrap(data)));
+                } catch (final Exception ex) {
+                    throw new TrellisRuntimeException("Error storing audit dataset for " + id, ex);
+                }
+            };
         });
     }
 
     @Override
     public CompletionStage<Void> touch(final IRI identifier) {
         final Literal time = rdf.createLiteral(now().toString(), XSD.dateTime);
-        return runAsync(() -> {
+        return write(() -> () -> {
             try {
                 rdfConnection.update(buildUpdateModificationRequest(identifier, time));
             } catch (final Exception ex) {
@@ -424,11 +589,28 @@ public class TriplestoreResourceService implements ResourceService {
      * @return a connection to the RDF store
      */
     public static RDFConnection buildRDFConnection(final String location) {
+        return buildRDFConnection(location, null);
+    }
+
+    /**
+     * Build an RDF connection from a location value.
+     *
+     * @implNote A null value will create an in-memory RDF store, a file path will create
+     *           a TDB2 RDF store, and a URL will use a remote triplestore.
+     * @param location the location of the RDF
+     * @param httpClient the HTTP client used with a remote triplestore, may be null
+     * @return a connection to the RDF store
+     */
+    public static RDFConnection buildRDFConnection(final String location, final HttpClient httpClient) {
         if (location != null) {
-            if (location.startsWith("http://") || location.startsWith("https://")) {
+            if (isRemoteLocation(location)) {
                 // Remote
                 LOGGER.info("Using remote Triplestore for persistence at {}", location);
-                return service(location).build();
+                final RDFConnectionRemoteBuilder builder = service(location);
+                if (httpClient != null) {
+                    builder.httpClient(httpClient);
+                }
+                return builder.build();
             }
             // TDB2
             LOGGER.info("Using local TDB2 database at {}", location);
@@ -439,6 +621,16 @@ public class TriplestoreResourceService implements ResourceService {
         return RDFConnection.connect(createTxnMem());
     }
 
+    /**
+     * Test whether a location value refers to a remote triplestore.
+     *
+     * @param location the location of the RDF, may be null
+     * @return true if the location is an HTTP(S) URL; false otherwise
+     */
+    public static boolean isRemoteLocation(final String location) {
+        return location != null && (location.startsWith("http://") || location.startsWith("https://"));
+    }
+
     /**
      * Alias{@link org.apache.jena.graph.Triple#create(Node, Node, Node)} to
      * avoid collision with {@link ResourceService#create(Metadata, Dataset)}.
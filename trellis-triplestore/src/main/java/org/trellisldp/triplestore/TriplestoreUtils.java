@@ -28,6 +28,12 @@ import org.apache.commons.rdf.api.RDFTerm;
 import org.apache.commons.rdf.api.Triple;
 import org.apache.jena.query.QuerySolution;
 import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.jena.rdflink.RDFConnectionAdapter;
+import org.apache.jena.rdflink.RDFLink;
+import org.apache.jena.rdflink.RDFLinkDataset;
+import org.apache.jena.rdflink.RDFLinkHTTP;
+import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Var;
 
 /**
@@ -39,6 +45,7 @@ final class TriplestoreUtils {
     public static final Var PREDICATE = Var.alloc("predicate");
     public static final Var OBJECT = Var.alloc("object");
     public static final Var TYPE = Var.alloc("type");
+    public static final Var GRAPH = Var.alloc("graph");
 
     public static BlankNodeOrIRI getSubject(final QuerySolution qs) {
         return (BlankNodeOrIRI) fromJena(qs.get("subject").asNode());
@@ -52,10 +59,46 @@ final class TriplestoreUtils {
         return fromJena(qs.get("object").asNode());
     }
 
+    public static String getGraphName(final QuerySolution qs) {
+        return qs.get("graph").asNode().getURI();
+    }
+
     public static IRI getType(final QuerySolution qs) {
         return (IRI) fromJena(qs.get("type").asNode());
     }
 
+    /**
+     * Get the local dataset behind an RDF connection, if there is one.
+     * @param rdfConnection the RDF connection
+     * @return the in-process dataset, or an empty value for a remote connection
+     */
+    public static Optional<DatasetGraph> getLocalDataset(final RDFConnection rdfConnection) {
+        if (rdfConnection instanceof RDFConnectionAdapter) {
+            final RDFLink link = ((RDFConnectionAdapter) rdfConnection).getLink();
+            if (link instanceof RDFLinkDataset) {
+                return of(((RDFLinkDataset) link).getDataset());
+            }
+        }
+        return empty();
+    }
+
+    /**
+     * Get the HTTP link behind an RDF connection to a remote triplestore, if there is one.
+     * @param rdfConnection the RDF connection, which may be pooled
+     * @return the HTTP link, or an empty value for a local connection
+     */
+    public static Optional<RDFLinkHTTP> getRemoteLink(final RDFConnection rdfConnection) {
+        final RDFConnection connection = rdfConnection instanceof PooledRDFConnection ?
+            ((PooledRDFConnection) rdfConnection).getConnection() : rdfConnection;
+        if (connection instanceof RDFConnectionAdapter) {
+            final RDFLink link = ((RDFConnectionAdapter) connection).getLink();
+            if (link instanceof RDFLinkHTTP) {
+                return of((RDFLinkHTTP) link);
+            }
+        }
+        return empty();
+    }
+
     public static Optional<Triple> nodesToTriple(final RDFNode s, final RDFNode p, final RDFNode o) {
         if (s != null && p != null && o != null) {
             return of(fromJena(create(s.asNode(), p.asNode(), o.asNode())));
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.triplestore;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.jena.graph.NodeFactory.createLiteral;
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.apache.jena.sparql.core.DatasetGraphFactory.createTxnMem;
+import static org.apache.jena.system.Txn.calculateRead;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.TrellisRuntimeException;
+
+class GroupCommitWriterTest {
+
+    private static final Node GRAPH = createURI("trellis:graph");
+    private static final Node SUBJECT = createURI("trellis:subject");
+    private static final Node PREDICATE = createURI("trellis:predicate");
+
+    @Test
+    void testBatchedCommits() throws Exception {
+        final DatasetGraph dataset = spy(createTxnMem());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try (final GroupCommitWriter writer = new GroupCommitWriter(dataset, 10)) {
+            final CompletableFuture<Void> first = writer.submit(() -> {
+                started.countDown();
+                await(release);
+                add(dataset, "0");
+            });
+            assertTrue(started.await(5, SECONDS), "First write never started!");
+
+            final CompletableFuture<?>[] pending = new CompletableFuture<?>[5];
+            for (int i = 0; i < pending.length; i++) {
+                final String value = Integer.toString(i + 1);
+                pending[i] = writer.submit(() -> add(dataset, value));
+            }
+            release.countDown();
+            CompletableFuture.allOf(pending).join();
+            first.join();
+        }
+
+        // one commit for the blocking write and one for the five writes queued behind it
+        verify(dataset, times(2)).commit();
+        assertEquals(6L, count(dataset), "Incorrect number of quads!");
+    }
+
+    @Test
+    void testFailedWriteIsIsolated() throws Exception {
+        final DatasetGraph dataset = createTxnMem();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try (final GroupCommitWriter writer = new GroupCommitWriter(dataset, 10)) {
+            writer.submit(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(5, SECONDS), "First write never started!");
+
+            final CompletableFuture<Void> good1 = writer.submit(() -> add(dataset, "1"));
+            final CompletableFuture<Void> bad = writer.submit(() -> {
+                throw new TrellisRuntimeException("Expected");
+            });
+            final CompletableFuture<Void> good2 = writer.submit(() -> add(dataset, "2"));
+            release.countDown();
+
+            assertDoesNotThrow(good1::join, "First write failed!");
+            assertDoesNotThrow(good2::join, "Second write failed!");
+            final CompletionException err = assertThrows(CompletionException.class, bad::join,
+                    "No exception from a failed write!");
+            assertTrue(err.getCause() instanceof TrellisRuntimeException, "Unexpected exception type!");
+        }
+        assertEquals(2L, count(dataset), "Incorrect number of quads!");
+    }
+
+    @Test
+    void testClosedWriter() {
+        final DatasetGraph dataset = createTxnMem();
+        final GroupCommitWriter writer = new GroupCommitWriter(dataset, 10);
+        writer.submit(() -> add(dataset, "1")).join();
+        writer.close();
+        assertThrows(CompletionException.class, () -> writer.submit(() -> add(dataset, "2")).join(),
+                "No exception after closing the writer!");
+        assertEquals(1L, count(dataset), "Incorrect number of quads!");
+    }
+
+    static void add(final DatasetGraph dataset, final String value) {
+        dataset.add(new Quad(GRAPH, SUBJECT, PREDICATE, createLiteral(value)));
+    }
+
+    static long count(final DatasetGraph dataset) {
+        return calculateRead(dataset, () -> dataset.stream().count());
+    }
+
+    static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.triplestore;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.jena.query.DatasetFactory.createTxnMem;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.jena.update.UpdateFactory;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.TrellisRuntimeException;
+
+class PooledRDFConnectionTest {
+
+    private static final Query QUERY = QueryFactory.create("SELECT * WHERE { GRAPH ?g { ?s ?p ?o } }");
+
+    @Test
+    void testPooledRequests() {
+        final PooledRDFConnection conn = new PooledRDFConnection(RDFConnection.connect(createTxnMem()), 2, 1000L);
+        conn.update(UpdateFactory.create("INSERT DATA { GRAPH <trellis:graph> { <trellis:s> <trellis:p> \"o\" } }"));
+        final AtomicInteger rows = new AtomicInteger();
+        conn.querySelect(QUERY, qs -> rows.incrementAndGet());
+
+        assertEquals(1, rows.get(), "Incorrect number of rows!");
+        assertEquals(2, conn.getMaxConnections(), "Incorrect pool size!");
+        assertEquals(0, conn.getActiveConnections(), "Connections were not released!");
+        assertEquals(0, conn.getWaitingRequests(), "Unexpected waiting requests!");
+    }
+
+    @Test
+    void testPoolExhausted() throws Exception {
+        final PooledRDFConnection conn = new PooledRDFConnection(RDFConnection.connect(createTxnMem()), 1, 1000L);
+        conn.update(UpdateFactory.create("INSERT DATA { GRAPH <trellis:graph> { <trellis:s> <trellis:p> \"o\" } }"));
+        conn.querySelect(QUERY, qs -> { });
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final CompletableFuture<Void> holder = runAsync(() -> conn.querySelect(QUERY, qs -> {
+            started.countDown();
+            try {
+                finish.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(started.await(5, SECONDS), "Query never started!");
+        assertEquals(1, conn.getActiveConnections(), "Incorrect number of active connections!");
+        assertThrows(TrellisRuntimeException.class, () -> conn.querySelect(QUERY, qs -> { }),
+                "No exception when the pool is exhausted!");
+
+        finish.countDown();
+        await().until(holder::isDone);
+        await().until(() -> conn.getActiveConnections() == 0);
+        assertDoesNotThrow(() -> conn.querySelect(QUERY, qs -> { }), "Connection not returned to the pool!");
+    }
+
+    @Test
+    void testNoTimeout() {
+        final PooledRDFConnection conn = new PooledRDFConnection(RDFConnection.connect(createTxnMem()), 1, 0L);
+        final AtomicInteger rows = new AtomicInteger();
+        conn.querySelect(QUERY, qs -> rows.incrementAndGet());
+        assertEquals(0, rows.get(), "Unexpected rows!");
+        assertEquals(0, conn.getActiveConnections(), "Connection was not released!");
+    }
+}
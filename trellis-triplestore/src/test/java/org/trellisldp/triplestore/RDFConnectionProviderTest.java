@@ -15,9 +15,11 @@
  */
 package org.trellisldp.triplestore;
 
+import static java.time.Duration.ofSeconds;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.File;
+import java.net.ServerSocket;
 import java.util.Optional;
 
 import org.apache.jena.rdflink.RDFConnectionAdapter;
@@ -41,6 +43,57 @@ class RDFConnectionProviderTest {
         provider.connectionString = Optional.of("http://example.com/sparql");
         provider.init();
         assertTrue(((RDFConnectionAdapter) provider.getRdfConnection()).getLink() instanceof RDFLinkHTTP);
+        assertEquals(0, provider.getActiveConnections(), "Unexpected active connections!");
+        assertEquals(0, provider.getWaitingRequests(), "Unexpected waiting requests!");
+    }
+
+    @Test
+    void testRDFConnectionRemotePooled() {
+        final RDFConnectionProvider provider = new RDFConnectionProvider();
+        provider.connectionString = Optional.of("https://example.com/sparql");
+        provider.maxConnections = 5;
+        provider.http2 = false;
+        provider.init();
+        assertTrue(provider.getRdfConnection() instanceof PooledRDFConnection, "Connection is not pooled!");
+        assertEquals(5, ((PooledRDFConnection) provider.getRdfConnection()).getMaxConnections(),
+                "Incorrect pool size!");
+        assertEquals(0, provider.getActiveConnections(), "Unexpected active connections!");
+        assertEquals(0, provider.getWaitingRequests(), "Unexpected waiting requests!");
+    }
+
+    @Test
+    void testRDFConnectionRemoteKeepAlive() {
+        final RDFConnectionProvider provider = new RDFConnectionProvider();
+        provider.connectionString = Optional.of("http://example.com/sparql");
+        provider.keepAlive = Optional.of(30L);
+        try {
+            System.setProperty(RDFConnectionProvider.KEEP_ALIVE_PROPERTIES[1], "60");
+            provider.init();
+            assertEquals("30", System.getProperty(RDFConnectionProvider.KEEP_ALIVE_PROPERTIES[0]),
+                    "Keep-alive timeout not set!");
+            assertEquals("60", System.getProperty(RDFConnectionProvider.KEEP_ALIVE_PROPERTIES[1]),
+                    "Explicit keep-alive timeout was replaced!");
+        } finally {
+            for (final String property : RDFConnectionProvider.KEEP_ALIVE_PROPERTIES) {
+                System.clearProperty(property);
+            }
+        }
+    }
+
+    @Test
+    void testRDFConnectionRemoteTimeout() throws Exception {
+        // The request timeout applies without a connection pool
+        try (final ServerSocket server = new ServerSocket(0)) {
+            final RDFConnectionProvider provider = new RDFConnectionProvider();
+            provider.connectionString = Optional.of("http://localhost:" + server.getLocalPort() + "/sparql");
+            provider.requestTimeout = 500L;
+            provider.http2 = false;
+            provider.init();
+            assertFalse(provider.getRdfConnection() instanceof PooledRDFConnection, "Connection is pooled!");
+            assertTimeoutPreemptively(ofSeconds(10L), () -> assertThrows(RuntimeException.class, () ->
+                        provider.getRdfConnection().querySelect("SELECT * WHERE { ?s ?p ?o }", qs -> { }),
+                        "No exception from a slow query!"), "Slow query did not time out!");
+        }
     }
 
     @Test
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.triplestore;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.jena.query.DatasetFactory.createTxnMem;
+import static org.apache.jena.system.Txn.calculateRead;
+import static org.apache.jena.system.Txn.executeWrite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.ResultSetFormatter;
+import org.apache.jena.update.UpdateAction;
+
+/**
+ * A minimal HTTP/1.1 SPARQL query and update endpoint over an in-memory dataset, for testing a remote
+ * triplestore. Each connection serves a single request.
+ */
+final class SparqlTestServer implements AutoCloseable {
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final Dataset dataset = createTxnMem();
+    private final List<String> updates = new ArrayList<>();
+    private volatile int updateStatus = 204;
+
+    SparqlTestServer() throws IOException {
+        server = new ServerSocket(0);
+        acceptor = new Thread(this::accept, "sparql-test-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return the location of the dataset
+     */
+    String getLocation() {
+        return "http://localhost:" + server.getLocalPort() + "/ds";
+    }
+
+    /**
+     * @return the update requests received so far
+     */
+    synchronized List<String> getUpdates() {
+        return new ArrayList<>(updates);
+    }
+
+    /**
+     * Reject later update requests with an HTTP status, without applying them.
+     * @param status the HTTP status code
+     */
+    void failUpdates(final int status) {
+        updateStatus = status;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try (final Socket socket = server.accept()) {
+                handle(socket.getInputStream(), socket.getOutputStream());
+            } catch (final IOException | RuntimeException ex) {
+                // The socket was closed, or the request could not be handled
+            }
+        }
+    }
+
+    private void handle(final InputStream in, final OutputStream out) throws IOException {
+        final String[] requestLine = readLine(in).split(" ");
+        final Map<String, String> headers = new HashMap<>();
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            final int colon = line.indexOf(':');
+            headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+        final String body = new String(readBody(in, headers), UTF_8);
+        if (headers.getOrDefault("content-type", "").startsWith("application/sparql-update")) {
+            synchronized (this) {
+                updates.add(body);
+            }
+            if (updateStatus == 204) {
+                executeWrite(dataset, () -> UpdateAction.parseExecute(body, dataset));
+            }
+            respond(out, updateStatus, null, new byte[0]);
+        } else {
+            final String query = getQuery(requestLine[0], requestLine[1], headers, body);
+            final ByteArrayOutputStream results = new ByteArrayOutputStream();
+            calculateRead(dataset, () -> {
+                try (final QueryExecution qexec = QueryExecutionFactory.create(query, dataset)) {
+                    if (qexec.getQuery().isAskType()) {
+                        ResultSetFormatter.outputAsJSON(results, qexec.execAsk());
+                    } else {
+                        ResultSetFormatter.outputAsJSON(results, qexec.execSelect());
+                    }
+                }
+                return null;
+            });
+            respond(out, 200, "application/sparql-results+json", results.toByteArray());
+        }
+    }
+
+    private static void respond(final OutputStream out, final int status, final String contentType,
+            final byte[] body) throws IOException {
+        final StringBuilder response = new StringBuilder("HTTP/1.1 ").append(status).append(" Status\r\n");
+        if (contentType != null) {
+            response.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        response.append("Content-Length: ").append(body.length).append("\r\nConnection: close\r\n\r\n");
+        out.write(response.toString().getBytes(ISO_8859_1));
+        out.write(body);
+        out.flush();
+    }
+
+    private static String getQuery(final String method, final String target, final Map<String, String> headers,
+            final String body) throws IOException {
+        final String contentType = headers.getOrDefault("content-type", "");
+        if (contentType.startsWith("application/sparql-query")) {
+            return body;
+        }
+        final String params = "POST".equals(method) ? body : target.substring(target.indexOf('?') + 1);
+        for (final String param : params.split("&")) {
+            if (param.startsWith("query=")) {
+                return URLDecoder.decode(param.substring("query=".length()), UTF_8);
+            }
+        }
+        throw new IOException("Missing query");
+    }
+
+    private static byte[] readBody(final InputStream in, final Map<String, String> headers) throws IOException {
+        if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            for (int size = Integer.parseInt(readLine(in).split(";")[0].trim(), 16); size > 0;
+                    size = Integer.parseInt(readLine(in).split(";")[0].trim(), 16)) {
+                body.write(in.readNBytes(size));
+                readLine(in);
+            }
+            readLine(in);
+            return body.toByteArray();
+        }
+        return in.readNBytes(Integer.parseInt(headers.getOrDefault("content-length", "0")));
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c == -1) {
+                throw new IOException("Unexpected end of request");
+            }
+            if (c != '\r') {
+                line.write(c);
+            }
+        }
+        return line.toString(ISO_8859_1);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) Aaron Coburn and individual contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.triplestore;
+
+import static java.net.http.HttpClient.Version.HTTP_1_1;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.apache.jena.query.DatasetFactory.createTxnMem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.trellisldp.triplestore.TriplestoreResourceService.buildRDFConnection;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.jena.update.UpdateFactory;
+import org.junit.jupiter.api.Test;
+
+class TimeoutHttpClientTest {
+
+    private static final Query QUERY = QueryFactory.create("SELECT * WHERE { GRAPH ?g { ?s ?p ?o } }");
+
+    @Test
+    void testSlowRequestsTimeOut() throws Exception {
+        // The server socket accepts connections, but nothing ever responds to a request
+        try (final ServerSocket server = new ServerSocket(0)) {
+            final HttpClient httpClient = new TimeoutHttpClient(HttpClient.newBuilder().version(HTTP_1_1).build(),
+                    ofMillis(500L));
+            final RDFConnection conn = buildRDFConnection("http://localhost:" + server.getLocalPort() + "/sparql",
+                    httpClient);
+
+            assertTimeoutPreemptively(ofSeconds(10L), () -> {
+                assertThrows(RuntimeException.class, () -> conn.querySelect(QUERY, qs -> { }),
+                        "No exception from a slow query!");
+                assertThrows(RuntimeException.class, () -> conn.update(UpdateFactory.create(
+                                "INSERT DATA { GRAPH <trellis:graph> { <trellis:s> <trellis:p> \"o\" } }")),
+                        "No exception from a slow update!");
+                assertThrows(RuntimeException.class, () -> conn.loadDataset(createTxnMem()),
+                        "No exception from a slow upload!");
+            }, "Requests to a slow triplestore did not time out!");
+        }
+    }
+
+    @Test
+    void testDelegation() {
+        final HttpClient delegate = HttpClient.newBuilder().version(HTTP_1_1).connectTimeout(ofSeconds(5L)).build();
+        final TimeoutHttpClient httpClient = new TimeoutHttpClient(delegate, ofMillis(500L));
+        assertEquals(HTTP_1_1, httpClient.version(), "Incorrect HTTP version!");
+        assertEquals(delegate.connectTimeout(), httpClient.connectTimeout(), "Incorrect connect timeout!");
+        assertEquals(delegate.followRedirects(), httpClient.followRedirects(), "Incorrect redirect policy!");
+        assertEquals(ofMillis(500L), httpClient.getTimeout(), "Incorrect request timeout!");
+    }
+
+    @Test
+    void testRestrictedHeaders() throws Exception {
+        try (final SparqlTestServer server = new SparqlTestServer()) {
+            final HttpClient httpClient = new TimeoutHttpClient(HttpClient.newBuilder().version(HTTP_1_1).build(),
+                    ofSeconds(5L));
+            // A request that was not built with HttpRequest.Builder may carry headers the builder rejects
+            final HttpRequest request = new HttpRequest() {
+                @Override
+                public Optional<BodyPublisher> bodyPublisher() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public String method() {
+                    return "GET";
+                }
+
+                @Override
+                public Optional<Duration> timeout() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public boolean expectContinue() {
+                    return false;
+                }
+
+                @Override
+                public URI uri() {
+                    return URI.create(server.getLocation() + "?query=ASK%7B%7D");
+                }
+
+                @Override
+                public Optional<HttpClient.Version> version() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public HttpHeaders headers() {
+                    return HttpHeaders.of(Map.of("Host", List.of("example.com"), "Connection", List.of("close"),
+                                "Accept", List.of("application/sparql-results+json")), (name, value) -> true);
+                }
+            };
+            final HttpResponse<String> response = httpClient.send(request, BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), "Incorrect response status!");
+            assertTrue(response.body().contains("boolean"), "Incorrect response body!");
+        }
+    }
+}
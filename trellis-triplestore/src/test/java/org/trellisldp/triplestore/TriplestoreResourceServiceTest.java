@@ -15,12 +15,16 @@
  */
 package org.trellisldp.triplestore;
 
+import static java.net.http.HttpClient.Version.HTTP_1_1;
 import static java.time.Instant.now;
 import static java.util.Optional.of;
 import static java.util.concurrent.CompletableFuture.allOf;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.function.Predicate.isEqual;
+import static java.util.stream.Collectors.toList;
 import static org.apache.jena.commonsrdf.JenaCommonsRDF.toJena;
+import static org.apache.jena.query.DatasetFactory.createTxnMem;
 import static org.apache.jena.query.DatasetFactory.wrap;
 import static org.awaitility.Awaitility.await;
 import static org.awaitility.Awaitility.setDefaultPollInterval;
@@ -33,10 +37,17 @@ import static org.trellisldp.api.TrellisUtils.TRELLIS_DATA_PREFIX;
 import static org.trellisldp.vocabulary.RDF.type;
 
 import java.io.File;
+import java.net.http.HttpClient;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.BlankNode;
@@ -48,6 +59,7 @@ import org.apache.jena.rdfconnection.RDFConnection;
 import org.apache.jena.rdflink.RDFConnectionAdapter;
 import org.apache.jena.rdflink.RDFLinkDataset;
 import org.apache.jena.rdflink.RDFLinkHTTP;
+import org.apache.jena.tdb2.DatabaseMgr;
 import org.apache.jena.update.UpdateRequest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -248,6 +260,180 @@ class TriplestoreResourceServiceTest {
             svc.get(root).thenAccept(checkRoot(later, 1L)).toCompletableFuture()).join();
     }
 
+    @Test
+    void testChunkedUpdates() throws Exception {
+        try (final SparqlTestServer server = new SparqlTestServer()) {
+            final TriplestoreResourceService svc = new TriplestoreResourceService();
+            svc.rdfConnection = TriplestoreResourceService.buildRDFConnection(server.getLocation(),
+                    HttpClient.newBuilder().version(HTTP_1_1).build());
+            svc.idService = idService;
+            svc.updateChunkSize = 2;
+            svc.initialize();
+
+            final Dataset dataset = rdf.createDataset();
+            dataset.add(Trellis.PreferUserManaged, resource, DC.title, rdf.createLiteral("title"));
+            dataset.add(Trellis.PreferUserManaged, resource, DC.description, rdf.createLiteral("description"));
+            dataset.add(Trellis.PreferUserManaged, resource, SKOS.prefLabel, rdf.createLiteral("label"));
+            dataset.add(Trellis.PreferAudit, rdf.createBlankNode(), type, AS.Create);
+
+            final Instant later = meanwhile();
+            final int requests = server.getUpdates().size();
+
+            assertDoesNotThrow(() -> svc.create(builder(resource).interactionModel(LDP.RDFSource).container(root)
+                        .build(), dataset).toCompletableFuture().join(), "Unsuccessful create operation!");
+
+            // the delete and all of the new quads are sent in a single update request
+            final List<String> updates = server.getUpdates();
+            assertEquals(requests + 1, updates.size(), "Unexpected number of update requests!");
+            assertTrue(updates.get(requests).contains("INSERT DATA"), "Missing INSERT DATA operation!");
+            svc.get(resource).thenAccept(checkResource(later, LDP.RDFSource, 3L, 1L, 0L)).toCompletableFuture()
+                .join();
+
+            dataset.clear();
+            dataset.add(Trellis.PreferUserManaged, resource, DC.title, rdf.createLiteral("title"));
+
+            final Instant evenLater = meanwhile();
+
+            assertDoesNotThrow(() -> svc.replace(builder(resource).interactionModel(LDP.RDFSource).container(root)
+                        .build(), dataset).toCompletableFuture().join(), "Unsuccessful replace operation!");
+            svc.get(resource).thenAccept(checkResource(evenLater, LDP.RDFSource, 1L, 1L, 0L))
+                .toCompletableFuture().join();
+        }
+    }
+
+    @Test
+    void testChunkedUpdatesLocal() {
+        final RDFConnection rdfConnection = spy(RDFConnection.connect(createTxnMem()));
+        final TriplestoreResourceService svc = new TriplestoreResourceService();
+        svc.rdfConnection = rdfConnection;
+        svc.idService = idService;
+        svc.updateChunkSize = 2;
+        svc.initialize();
+        clearInvocations(rdfConnection);
+
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(Trellis.PreferUserManaged, resource, DC.title, rdf.createLiteral("title"));
+        dataset.add(Trellis.PreferUserManaged, resource, DC.description, rdf.createLiteral("description"));
+
+        assertDoesNotThrow(() -> svc.create(builder(resource).interactionModel(LDP.RDFSource).container(root)
+                    .build(), dataset).toCompletableFuture().join(), "Unsuccessful create operation!");
+
+        // chunking is ignored for a local dataset
+        verify(rdfConnection).update(any(UpdateRequest.class));
+        verify(rdfConnection, never()).loadDataset(any(org.apache.jena.query.Dataset.class));
+    }
+
+    @Test
+    void testChunkedUpdatesFailure() throws Exception {
+        try (final SparqlTestServer server = new SparqlTestServer()) {
+            final TriplestoreResourceService svc = new TriplestoreResourceService();
+            svc.rdfConnection = TriplestoreResourceService.buildRDFConnection(server.getLocation(),
+                    HttpClient.newBuilder().version(HTTP_1_1).build());
+            svc.idService = idService;
+            svc.updateChunkSize = 2;
+            svc.initialize();
+
+            final Dataset dataset = rdf.createDataset();
+            dataset.add(Trellis.PreferUserManaged, resource, DC.title, rdf.createLiteral("title"));
+
+            final Instant later = meanwhile();
+
+            assertDoesNotThrow(() -> svc.create(builder(resource).interactionModel(LDP.RDFSource).container(root)
+                        .build(), dataset).toCompletableFuture().join(), "Unsuccessful create operation!");
+
+            dataset.clear();
+            dataset.add(Trellis.PreferUserManaged, resource, DC.title, rdf.createLiteral("new title"));
+            dataset.add(Trellis.PreferUserManaged, resource, DC.description, rdf.createLiteral("description"));
+            dataset.add(Trellis.PreferUserManaged, resource, SKOS.prefLabel, rdf.createLiteral("label"));
+
+            server.failUpdates(500);
+
+            assertThrows(CompletionException.class, () -> svc.replace(builder(resource)
+                        .interactionModel(LDP.RDFSource).container(root).build(), dataset).toCompletableFuture()
+                    .join(), "No exception with a failed update!");
+
+            // the failed request is not applied, so the original resource is unchanged
+            final Resource res = svc.get(resource).toCompletableFuture().join();
+            checkResource(later, LDP.RDFSource, 1L, 0L, 0L).accept(res);
+            assertTrue(res.stream(Trellis.PreferUserManaged).anyMatch(q ->
+                        q.getObject().equals(rdf.createLiteral("title"))), "Original title is missing!");
+        }
+    }
+
+    @Test
+    void testGroupCommit() {
+        final Instant early = now();
+        final TriplestoreResourceService svc = new TriplestoreResourceService();
+        svc.rdfConnection = RDFConnection.connect(wrap(DatabaseMgr.createDatasetGraph()));
+        svc.idService = idService;
+        svc.groupCommitSize = 4;
+        svc.initialize();
+
+        final Instant later = meanwhile();
+        final List<IRI> children = IntStream.range(0, 10)
+            .mapToObj(i -> rdf.createIRI(TRELLIS_DATA_PREFIX + "child" + i)).collect(toList());
+        assertDoesNotThrow(() -> allOf(children.stream().map(id -> {
+            final Dataset dataset = rdf.createDataset();
+            dataset.add(Trellis.PreferUserManaged, id, DC.title, rdf.createLiteral("title"));
+            return svc.create(builder(id).interactionModel(LDP.RDFSource).container(root).build(), dataset)
+                .toCompletableFuture();
+        }).toArray(CompletableFuture[]::new)).join(), "Unsuccessful create operations!");
+
+        children.forEach(id -> svc.get(id).thenAccept(res -> {
+            assertAll("Check resource", checkResource(res, id, LDP.RDFSource, later));
+            assertAll("Check resource stream", checkResourceStream(res, 1L, 0L, 0L, 0L, 0L));
+        }).toCompletableFuture().join());
+        svc.get(root).thenAccept(checkRoot(early, 10L)).toCompletableFuture().join();
+
+        svc.shutdown();
+        assertThrows(CompletionException.class, () -> svc.touch(root).toCompletableFuture().join(),
+                "No exception after shutting down the writer!");
+    }
+
+    @Test
+    void testGroupCommitRetriesAdd() throws Exception {
+        final RDFConnection rdfConnection = spy(RDFConnection.connect(createTxnMem()));
+        final TriplestoreResourceService svc = new TriplestoreResourceService();
+        svc.rdfConnection = rdfConnection;
+        svc.idService = idService;
+        svc.groupCommitSize = 10;
+        svc.initialize();
+
+        final Instant later = meanwhile();
+        assertDoesNotThrow(() -> svc.create(builder(resource).interactionModel(LDP.RDFSource).container(root)
+                    .build(), rdf.createDataset()).toCompletableFuture().join(), "Unsuccessful create operation!");
+
+        // Hold the writer on a first write, so that the next writes are committed as one batch
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            started.countDown();
+            release.await(5, SECONDS);
+            return inv.callRealMethod();
+        }).doCallRealMethod().when(rdfConnection).update(any(UpdateRequest.class));
+        // The batched upload fails once, so that each write in the batch is re-run on its own
+        doThrow(new RuntimeException("Expected")).doCallRealMethod().when(rdfConnection)
+            .loadDataset(any(org.apache.jena.query.Dataset.class));
+
+        final CompletableFuture<Void> first = svc.touch(root).toCompletableFuture();
+        assertTrue(started.await(5, SECONDS), "First write never started!");
+
+        final Dataset dataset = rdf.createDataset();
+        final BlankNode bnode = rdf.createBlankNode();
+        dataset.add(Trellis.PreferAudit, resource, PROV.wasGeneratedBy, bnode);
+        dataset.add(Trellis.PreferAudit, bnode, type, AS.Update);
+        final CompletableFuture<Void> audit = svc.add(resource, dataset).toCompletableFuture();
+        final CompletableFuture<Void> touch = svc.touch(resource).toCompletableFuture();
+        // Let both writes be prepared and queued before the writer is released
+        assertTrue(ForkJoinPool.commonPool().awaitQuiescence(5, SECONDS), "Writes were never queued!");
+        release.countDown();
+
+        assertDoesNotThrow(() -> allOf(first, audit, touch).join(), "Unsuccessful retry of a batched write!");
+        verify(rdfConnection, times(2)).loadDataset(any(org.apache.jena.query.Dataset.class));
+        svc.get(resource).thenAccept(checkResource(later, LDP.RDFSource, 0L, 2L, 0L)).toCompletableFuture().join();
+        svc.shutdown();
+    }
+
     @Test
     void testPutLdpNr() {
         final TriplestoreResourceService svc = new TriplestoreResourceService();
@@ -23,29 +23,41 @@ import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static java.util.UUID.randomUUID;
 import static java.util.function.Predicate.isEqual;
+import static java.util.stream.Collectors.toSet;
 import static org.apache.jena.commonsrdf.JenaCommonsRDF.toJena;
 import static org.apache.jena.query.DatasetFactory.create;
 import static org.apache.jena.query.DatasetFactory.wrap;
+import static org.apache.jena.system.Txn.executeWrite;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.trellisldp.vocabulary.RDF.type;
 
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Quad;
 import org.apache.commons.rdf.api.RDF;
+import org.apache.jena.query.Query;
 import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.tdb2.DatabaseMgr;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.trellisldp.api.AuditService;
+import org.trellisldp.api.BinaryMetadata;
 import org.trellisldp.api.RDFFactory;
 import org.trellisldp.api.Resource;
 import org.trellisldp.api.Session;
@@ -218,6 +230,46 @@ class TriplestoreResourceTest {
                 () -> assertEquals(11L, res.stream().count(), "Incorrect total triple count!"));
     }
 
+    @Test
+    void testSingleQueryHydration() {
+        when(mockSession.getAgent()).thenReturn(Trellis.AnonymousAgent);
+        when(mockSession.getCreated()).thenReturn(created);
+        when(mockSession.getDelegatedBy()).thenReturn(empty());
+
+        final IRI fooId = rdf.createIRI(identifier.getIRIString() + "?ext=foo");
+        final Map<String, IRI> ext = new HashMap<>();
+        ext.put("acl", Trellis.PreferAccessControl);
+        ext.put("foo", fooGraph);
+        ext.put("bar", barGraph);
+
+        final Dataset dataset = buildLdpDataset(LDP.RDFSource);
+        dataset.add(fooId, identifier, DC.references, rdf.createIRI("https://example.com/Resource"));
+        dataset.add(aclId, aclSubject, ACL.mode, ACL.Read);
+        dataset.add(aclId, aclSubject, ACL.agentClass, FOAF.Agent);
+        dataset.add(aclId, aclSubject, ACL.accessTo, identifier);
+        auditService.creation(identifier, mockSession).forEach(q ->
+                dataset.add(auditId, q.getSubject(), q.getPredicate(), q.getObject()));
+        final RDFConnection rdfConnection = spy(RDFConnection.connect(wrap(toJena(dataset))));
+        final TriplestoreResource res = new TriplestoreResource(rdfConnection, identifier, ext, false, true);
+
+        res.fetchData();
+        assertTrue(res.exists(), "Missing resource!");
+        assertAll("Check resource", checkResource(res, identifier, LDP.RDFSource, false, true, false));
+        assertEquals(Set.of(Trellis.PreferAccessControl, Trellis.PreferAudit, fooGraph),
+                res.getMetadataGraphNames(), "Incorrect metadata graph names!");
+        assertEquals(2L, res.stream(singleton(Trellis.PreferUserManaged)).count(), "Incorrect user triple count!");
+        assertEquals(3L, res.stream(singleton(Trellis.PreferAccessControl)).count(), "Incorrect acl triple count!");
+        assertEquals(5L, res.stream(singleton(Trellis.PreferAudit)).count(), "Incorrect audit triple count!");
+        assertEquals(1L, res.stream(singleton(fooGraph)).count(), "Incorrect extension triple count!");
+        assertEquals(11L, res.stream(Set.of(Trellis.PreferUserManaged, Trellis.PreferAccessControl,
+                        Trellis.PreferAudit, fooGraph)).count(), "Incorrect combined triple count!");
+
+        // The named graphs are fetched together; only the three membership queries are issued separately
+        clearInvocations(rdfConnection);
+        assertEquals(11L, res.stream().count(), "Incorrect total triple count!");
+        verify(rdfConnection, times(4)).querySelect(any(Query.class), any());
+    }
+
     @Test
     void testBinaryResource() {
         when(mockSession.getAgent()).thenReturn(Trellis.AnonymousAgent);
@@ -265,6 +317,64 @@ class TriplestoreResourceTest {
         assertAll("Check RDF stream", checkRdfStream(res, 2L, 0L, 0L, 0L, 0L, 4L));
     }
 
+    @Test
+    void testDirectAccess() {
+        when(mockSession.getAgent()).thenReturn(Trellis.AnonymousAgent);
+        when(mockSession.getCreated()).thenReturn(created);
+        when(mockSession.getDelegatedBy()).thenReturn(empty());
+
+        final Dataset dataset = buildLdpDataset(LDP.Container);
+        dataset.add(Trellis.PreferServerManaged, identifier, DC.isPartOf, root);
+        getChildIRIs().forEach(c -> {
+            dataset.add(Trellis.PreferServerManaged, c, DC.isPartOf, identifier);
+            dataset.add(Trellis.PreferServerManaged, c, type, LDP.RDFSource);
+        });
+        dataset.add(aclId, aclSubject, ACL.mode, ACL.Read);
+        dataset.add(aclId, aclSubject, ACL.agentClass, FOAF.Agent);
+        dataset.add(aclId, aclSubject, ACL.accessTo, identifier);
+        auditService.creation(identifier, mockSession).forEach(q ->
+                dataset.add(auditId, q.getSubject(), q.getPredicate(), q.getObject()));
+
+        final DatasetGraph tdb = DatabaseMgr.createDatasetGraph();
+        executeWrite(tdb, () -> toJena(dataset).find().forEachRemaining(tdb::add));
+        final RDFConnection rdfConnection = spy(RDFConnection.connect(wrap(tdb)));
+        final TriplestoreResource res = new TriplestoreResource(rdfConnection, identifier, extensions, true, false,
+                true);
+
+        res.fetchData();
+        assertTrue(res.exists(), "Missing resource!");
+        assertAll("Check resource", checkResource(res, identifier, LDP.Container, false, true, true));
+        assertAll("Check LDP properties", checkLdpProperties(res, null, null, null, null));
+        assertAll("Check RDF stream", checkRdfStream(res, 2L, 1L, 3L, 5L, 0L, 4L));
+
+        // Only the membership queries go through the SPARQL engine
+        clearInvocations(rdfConnection);
+        final TriplestoreResource sparql = new TriplestoreResource(RDFConnection.connect(wrap(tdb)), identifier,
+                extensions, true);
+        sparql.fetchData();
+        assertEquals(sparql.stream().collect(toSet()), res.stream().collect(toSet()), "Direct access differs!");
+        verify(rdfConnection, times(3)).querySelect(any(Query.class), any());
+    }
+
+    @Test
+    void testDirectAccessBinary() {
+        final String mimeType = "image/jpeg";
+        final IRI binaryIdentifier = rdf.createIRI("file:///binary");
+        final Dataset dataset = buildLdpDataset(LDP.NonRDFSource);
+        dataset.add(Trellis.PreferServerManaged, identifier, DC.hasPart, binaryIdentifier);
+        dataset.add(Trellis.PreferServerManaged, binaryIdentifier, DC.format, rdf.createLiteral(mimeType));
+        final TriplestoreResource res = new TriplestoreResource(RDFConnection.connect(wrap(toJena(dataset))),
+                identifier, extensions, false, false, true);
+
+        res.fetchData();
+        assertTrue(res.exists(), "Missing resource!");
+        assertEquals(of(binaryIdentifier), res.getBinaryMetadata().map(BinaryMetadata::getIdentifier),
+                "Incorrect binary identifier!");
+        assertEquals(of(mimeType), res.getBinaryMetadata().flatMap(BinaryMetadata::getMimeType),
+                "Incorrect binary mime type!");
+        assertAll("Check RDF stream", checkRdfStream(res, 2L, 0L, 0L, 0L, 0L, 0L));
+    }
+
     @Test
     void testResourceWithoutChildren() {
         final Dataset dataset = buildLdpDataset(LDP.RDFSource);